@@ -0,0 +1,76 @@
+package com.data.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Inputs shared by the benchmarks. The documents are the test fixtures under
+ * {@code src/test/resources}, grown to realistic sizes by repeating their
+ * repeatable parts; the inventory CSV is generated, since a realistic one has
+ * hundreds of thousands of rows.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    /** Reads a classpath resource as UTF-8. */
+    public static String load(String resource) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing fixture " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Repeats the content between the first {@code open} and the following
+     * {@code close} {@code times} times, e.g. the sections of a body or the
+     * records of a ListRecords page.
+     */
+    public static String repeatBetween(String xml, String open, String close, int times) {
+        int from = xml.indexOf(open);
+        if (from < 0) {
+            throw new IllegalArgumentException("No " + open + " in fixture");
+        }
+        from += open.length();
+        int to = xml.indexOf(close, from);
+        return xml.substring(0, from) + xml.substring(from, to).repeat(times) + xml.substring(to);
+    }
+
+    /**
+     * A gzipped S3 Inventory data file in the layout PMC publishes: no header,
+     * quoted bucket and key columns. One row in five is not a metadata JSON key
+     * and is filtered out by the parser, as in the real inventory.
+     */
+    public static byte[] inventoryCsvGz(int rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * 16);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+            StringBuilder csv = new StringBuilder(64 * 1024);
+            for (int i = 0; i < rows; i++) {
+                int pmcId = 10_000_000 + i;
+                csv.append("\"pmc-oa-opendata\",\"");
+                if (i % 5 == 4) {
+                    csv.append("oa_comm/txt/all/PMC").append(pmcId).append(".txt");
+                } else {
+                    csv.append("metadata/PMC").append(pmcId).append('.').append(1 + i % 3).append(".json");
+                }
+                csv.append("\"\n");
+                if (csv.length() > 60 * 1024) {
+                    gz.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+                    csv.setLength(0);
+                }
+            }
+            gz.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
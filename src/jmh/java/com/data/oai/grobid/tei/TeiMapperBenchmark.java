@@ -0,0 +1,60 @@
+package com.data.oai.grobid.tei;
+
+import com.data.bench.BenchmarkFixtures;
+import com.data.oai.shared.dto.PaperDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.data.bench.BenchmarkFixtures.repeatBetween;
+
+/**
+ * Jsoup DOM mapping against the single-pass StAX mapping of the same TEI.
+ *
+ * <p>The input is the test fixture {@code tei/sample-fulltext.tei.xml} with its body
+ * and reference list repeated {@code scale} times; 25 gives about 115 KB of TEI,
+ * a long paper. {@code -prof gc} is on by default, so allocation per operation is
+ * reported next to the time:</p>
+ * <pre>
+ *   ./gradlew jmh -Pjmh.includes=TeiMapperBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeiMapperBenchmark {
+
+    @Param({"1", "25"})
+    int scale;
+
+    String tei;
+
+    @Setup
+    public void load() {
+        String sample = BenchmarkFixtures.load("/tei/sample-fulltext.tei.xml");
+        tei = repeatBetween(repeatBetween(sample, "<body>", "</body>", scale), "<listBibl>", "</listBibl>", scale);
+    }
+
+    @Benchmark
+    public PaperDocument jsoup() {
+        return GrobidTeiMapperJsoup.toPaperDocument("bench", "bench", tei);
+    }
+
+    @Benchmark
+    public PaperDocument stax() {
+        return GrobidTeiMapperStax.toPaperDocument("bench", "bench", tei);
+    }
+}
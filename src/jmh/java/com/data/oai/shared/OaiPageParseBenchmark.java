@@ -0,0 +1,74 @@
+package com.data.oai.shared;
+
+import com.data.bench.BenchmarkFixtures;
+import com.data.oai.arxiv.ArxivOaiService;
+import com.data.oai.pubmed.PubmedOaiService;
+import com.data.oai.shared.dto.OaiPage;
+import com.data.oai.zenodo.ZenodoOaiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The StAX {@code parseResponse} of each OAI source on a ListRecords page. The
+ * fixtures under {@code oai/} hold three records each, some of which the license
+ * filter drops; their records are repeated {@code repeat} times. With 334 an arXiv
+ * page is about 1000 records, the size arXiv serves; Zenodo and PMC pages are
+ * smaller in practice.
+ * <pre>
+ *   ./gradlew jmh -Pjmh.includes=OaiPageParseBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OaiPageParseBenchmark {
+
+    @Param({"arxiv", "zenodo", "pubmed"})
+    String source;
+
+    @Param({"34", "334"})
+    int repeat;
+
+    AbstractOaiService service;
+    byte[] page;
+
+    @Setup
+    public void load() {
+        // Parsing touches neither the clients nor the cache
+        service = switch (source) {
+            case "arxiv" -> new ArxivOaiService(null, null, null, null);
+            case "zenodo" -> new ZenodoOaiService(null, null, null, null);
+            case "pubmed" -> new PubmedOaiService(null, null, null, null);
+            default -> throw new IllegalArgumentException(source);
+        };
+        String xml = BenchmarkFixtures.load("/oai/" + source + "-list-records.xml");
+        int open = xml.indexOf("<record>");
+        int close = xml.lastIndexOf("</record>") + "</record>".length();
+        String records = xml.substring(open, close);
+        page = (xml.substring(0, open) + records.repeat(repeat) + xml.substring(close))
+                .getBytes(StandardCharsets.UTF_8);
+        if (parse().records().isEmpty()) {
+            throw new IllegalStateException("Fixture for " + source + " yields no records");
+        }
+    }
+
+    @Benchmark
+    public OaiPage parse() {
+        return service.parseResponse(page);
+    }
+}
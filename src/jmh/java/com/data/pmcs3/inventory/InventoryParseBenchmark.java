@@ -0,0 +1,51 @@
+package com.data.pmcs3.inventory;
+
+import com.data.bench.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InventoryService#parseGzippedCsv} on a generated S3 Inventory data file
+ * of {@code rows} rows (see {@link BenchmarkFixtures#inventoryCsvGz}), up to the
+ * deduplicated entries. A PMC data file holds a few hundred thousand rows.
+ * <pre>
+ *   ./gradlew jmh -Pjmh.includes=InventoryParseBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryParseBenchmark {
+
+    @Param({"10000", "250000"})
+    int rows;
+
+    byte[] gz;
+
+    @Setup
+    public void load() {
+        gz = BenchmarkFixtures.inventoryCsvGz(rows);
+    }
+
+    @Benchmark
+    public List<InventoryEntry> parse() throws IOException {
+        return InventoryService.parseGzippedCsv(new ByteArrayInputStream(gz)).toEntries();
+    }
+}
@@ -0,0 +1,72 @@
+package com.data.pmcs3.jats;
+
+import com.data.bench.BenchmarkFixtures;
+import com.data.oai.shared.dto.PaperDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.data.bench.BenchmarkFixtures.repeatBetween;
+
+/**
+ * {@link JatsParser#parse} on the fixture {@code jats/sample-article.xml} with its
+ * body and reference list repeated {@code scale} times; 10 gives about 115 KB,
+ * a long PMC article.
+ *
+ * <p>{@code separateParses} is what {@code PmcS3Facade} read per article before
+ * {@link JatsParser#parseArticle}: the document, language, DOI, authors and
+ * publication date, each from its own parse. {@code parseArticle} reads the same
+ * from one parse.</p>
+ * <pre>
+ *   ./gradlew jmh -Pjmh.includes=JatsParserBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JatsParserBenchmark {
+
+    @Param({"1", "10"})
+    int scale;
+
+    String jats;
+
+    @Setup
+    public void load() {
+        String sample = BenchmarkFixtures.load("/jats/sample-article.xml");
+        jats = repeatBetween(repeatBetween(sample, "<body>", "</body>", scale), "<ref-list>", "</ref-list>", scale);
+    }
+
+    @Benchmark
+    public PaperDocument parse() {
+        return JatsParser.parse("10009416", "36912345", jats);
+    }
+
+    @Benchmark
+    public void separateParses(Blackhole bh) {
+        bh.consume(JatsParser.parse("10009416", "36912345", jats));
+        bh.consume(JatsParser.extractLanguage(jats));
+        bh.consume(JatsParser.extractDoi(jats));
+        bh.consume(JatsParser.extractAuthors(jats));
+        bh.consume(JatsParser.extractPublicationDate(jats));
+    }
+
+    @Benchmark
+    public JatsArticle parseArticle() {
+        return JatsParser.parseArticle("10009416", "36912345", jats);
+    }
+}
@@ -0,0 +1,102 @@
+package com.data.storage;
+
+import com.data.bench.BenchmarkFixtures;
+import com.data.config.properties.StorageProperties;
+import com.data.oai.grobid.tei.GrobidTeiMapperStax;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Reference;
+import com.data.oai.shared.dto.Section;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link S3ExportService#serializeJsonLine} on one exported paper: the TEI fixture
+ * mapped to a {@link PaperDocument}, its sections and references repeated
+ * {@code scale} times, each section cut into 2000-character embedding chunks the
+ * way the export nests them. Chunk texts are exported without their vectors, as in
+ * production. 25 gives a line of about 130 KB.
+ * <pre>
+ *   ./gradlew jmh -Pjmh.includes=ExportSerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportSerializationBenchmark {
+
+    private static final int CHUNK_CHARS = 2000;
+
+    @Param({"1", "25"})
+    int scale;
+
+    S3ExportService service;
+    PaperExportDto dto;
+
+    @Setup
+    public void load() {
+        service = new S3ExportService(new StorageProperties(false, null, null), null, null, null, null, null);
+        service.init();
+
+        // Repeated in the DTO: the mapper drops sections and references it has already seen
+        String tei = BenchmarkFixtures.load("/tei/sample-fulltext.tei.xml");
+        dto = toDto(GrobidTeiMapperStax.toPaperDocument("2301.00412", "oai:arXiv.org:2301.00412", tei), scale);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return service.serializeJsonLine(dto);
+    }
+
+    private static PaperExportDto toDto(PaperDocument doc, int scale) {
+        List<PaperExportDto.SectionDto> sections = new ArrayList<>();
+        List<PaperExportDto.ReferenceDto> references = new ArrayList<>();
+        for (int i = 0; i < scale; i++) {
+            for (Section section : doc.sections()) {
+                sections.add(new PaperExportDto.SectionDto(sections.size(), section.getTitle(), section.getText(),
+                        chunks(section.getText())));
+            }
+            for (Reference ref : doc.references()) {
+                references.add(new PaperExportDto.ReferenceDto(references.size(),
+                        ref.analyticTitle() != null ? ref.analyticTitle() : ref.monogrTitle(), ref.doi(), ref.year(),
+                        ref.venue(), ref.authors(), ref.urls(),
+                        ref.idnos() == null ? List.of() : List.copyOf(ref.idnos().values())));
+            }
+        }
+        return new PaperExportDto(
+                doc.sourceId(), doc.sourceIdentifier(), "10.1234/recomb.2023.112",
+                "https://creativecommons.org/licenses/by/4.0/", "https://arxiv.org/pdf/2301.00412.pdf", "en",
+                "ARXIV", LocalDate.of(2023, 1, 3), "14 pages, 6 figures", null,
+                doc.title(), doc.abstractText(), doc.rawContent(), doc.docType(),
+                doc.keywords(), doc.affiliation(), doc.classCodes(),
+                List.of(new PaperExportDto.AuthorDto(0, "Ingrid M.", "Lindqvist"),
+                        new PaperExportDto.AuthorDto(1, "Chinedu", "Okafor")),
+                "cs.DS", sections, references);
+    }
+
+    private static List<PaperExportDto.EmbeddingChunkDto> chunks(String text) {
+        List<PaperExportDto.EmbeddingChunkDto> chunks = new ArrayList<>();
+        for (int start = 0; start < text.length(); start += CHUNK_CHARS) {
+            int end = Math.min(text.length(), start + CHUNK_CHARS);
+            chunks.add(new PaperExportDto.EmbeddingChunkDto(chunks.size(), text.substring(start, end),
+                    "nomic-embed-text-v1.5", 768, "search_document", (end - start) / 4, 64, start, end));
+        }
+        return chunks;
+    }
+}
@@ -12,7 +12,10 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
         ArxivOaiProps.class, GrobidProperties.class, ZenodoOaiProps.class, PubmedOaiProps.class,
         GptProperties.class, ArxivSearchProperties.class, OaiProcessingProperties.class,
         QdrantGrpcConfig.class, ExceptionFileLoggerProperties.class, PmcS3Properties.class,
-        StorageProperties.class
+        StorageProperties.class, PaperPersistenceProperties.class, DedupIndexProperties.class,
+        BlobCacheProperties.class, PdfTransferProperties.class, PdfTriageProperties.class,
+        LanguageDetectionProperties.class, DocumentBlobProperties.class,
+        StorageStatsProperties.class, TeiCacheProperties.class
 })
 public class YoutubeExtractorApplication {
 
@@ -1,5 +1,7 @@
 package com.data.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
@@ -10,6 +12,13 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+/**
+ * Executors for {@code @Async} work and scheduling.
+ *
+ * <p>{@code @Scheduled} methods run on Spring Boot's scheduler, sized by
+ * {@code spring.task.scheduling.pool.size}. The default of one thread would let a
+ * long cron run (a PMC S3 batch) hold back every periodic flush until it ends.</p>
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
@@ -21,18 +30,32 @@ public class AsyncConfig {
     }
 
     @Bean(name = "transcriptExecutor")
-    public AsyncTaskExecutor transcriptExecutor(ExecutorService virtualExecutorService) {
+    public AsyncTaskExecutor transcriptExecutor(ExecutorService virtualExecutorService, MeterRegistry meterRegistry) {
         AsyncTaskExecutor base =
                 new TaskExecutorAdapter(virtualExecutorService);
 
-        return new SemaphoreAsyncTaskExecutor(base, 10);
+        return bindGauges(new SemaphoreAsyncTaskExecutor(base, 10), "transcriptExecutor", meterRegistry);
     }
 
     @Bean(name = "taskExecutor")
-    public AsyncTaskExecutor defaultAsyncExecutor(ExecutorService virtualExecutorService) {
+    public AsyncTaskExecutor defaultAsyncExecutor(ExecutorService virtualExecutorService, MeterRegistry meterRegistry) {
         AsyncTaskExecutor base =
                 new TaskExecutorAdapter(virtualExecutorService);
 
-        return new SemaphoreAsyncTaskExecutor(base, 30);
+        return bindGauges(new SemaphoreAsyncTaskExecutor(base, 30), "taskExecutor", meterRegistry);
+    }
+
+    // Same names and tag as Micrometer's own executor metrics, so one dashboard covers every executor
+    private static SemaphoreAsyncTaskExecutor bindGauges(SemaphoreAsyncTaskExecutor executor, String name,
+                                                         MeterRegistry meterRegistry) {
+        Gauge.builder("executor.active", executor, SemaphoreAsyncTaskExecutor::active)
+                .description("Tasks currently running on the executor")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("executor.queued", executor, SemaphoreAsyncTaskExecutor::queued)
+                .description("Tasks waiting for one of the executor's permits")
+                .tag("name", name)
+                .register(meterRegistry);
+        return executor;
     }
 }
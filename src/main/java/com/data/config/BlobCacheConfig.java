@@ -0,0 +1,27 @@
+package com.data.config;
+
+import com.data.config.properties.BlobCacheProperties;
+import com.data.config.properties.TeiCacheProperties;
+import com.data.shared.cache.BlobCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class BlobCacheConfig {
+
+    /** OAI ListRecords pages and PDF downloads. */
+    @Bean
+    @Primary
+    public BlobCache blobCache(BlobCacheProperties props, MeterRegistry meterRegistry) {
+        return new BlobCache("blob", props, meterRegistry);
+    }
+
+    /** GROBID TEI results, with their own directory and size budget. */
+    @Bean
+    public BlobCache teiCache(TeiCacheProperties props, MeterRegistry meterRegistry) {
+        return new BlobCache("tei", new BlobCacheProperties(props.enabled(), props.dir(), props.maxSizeMb(), 0),
+                meterRegistry);
+    }
+}
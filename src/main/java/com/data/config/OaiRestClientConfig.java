@@ -3,6 +3,8 @@ package com.data.config;
 import com.data.config.properties.GrobidProperties;
 import com.data.config.properties.HttpClientProperties;
 import com.data.config.properties.OaiProcessingProperties;
+import com.data.oai.grobid.GrobidEndpointBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
@@ -14,15 +16,31 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 public class OaiRestClientConfig {
 
     private static final int POOL_HEADROOM = 2;
 
-    @Bean(name = "grobidRestClient")
-    public RestClient grobidRestClient(RestClient.Builder builder, GrobidProperties grobidProps,
-                                       OaiProcessingProperties oaiProps) {
-        return buildRestClient(builder, oaiProps.concurrency(), grobidProps.httpClient());
+    /**
+     * One RestClient per GROBID endpoint, each with its own connection pool. A pool
+     * is sized for the whole GROBID stage, since a single endpoint takes all of the
+     * traffic while the others are ejected.
+     */
+    @Bean
+    public GrobidEndpointBalancer grobidEndpointBalancer(RestClient.Builder builder, GrobidProperties grobidProps,
+                                                         OaiProcessingProperties oaiProps,
+                                                         MeterRegistry meterRegistry) {
+        int maxConnections = grobidProps.adaptive() != null && grobidProps.adaptive().enabled()
+                ? Math.max(oaiProps.concurrency(), grobidProps.adaptive().maxLimit())
+                : oaiProps.concurrency();
+        Map<String, RestClient> clients = new LinkedHashMap<>();
+        for (String url : grobidProps.endpointUrls()) {
+            clients.put(url, buildRestClient(builder.clone(), maxConnections, grobidProps.httpClient()));
+        }
+        return new GrobidEndpointBalancer(clients, grobidProps.balancing(), meterRegistry);
     }
 
     @Bean(name = "oaiRestClient")
@@ -10,10 +10,22 @@ public class SemaphoreAsyncTaskExecutor implements AsyncTaskExecutor {
 
     private final AsyncTaskExecutor delegate;
     private final Semaphore semaphore;
+    private final int maxConcurrency;
 
     public SemaphoreAsyncTaskExecutor(AsyncTaskExecutor delegate, int maxConcurrency) {
         this.delegate = delegate;
         this.semaphore = new Semaphore(maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /** Tasks currently holding a permit. */
+    public int active() {
+        return maxConcurrency - semaphore.availablePermits();
+    }
+
+    /** Tasks started but still waiting for a permit (approximate). */
+    public int queued() {
+        return semaphore.getQueueLength();
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Local on-disk cache of fetched OAI pages and PDFs. Blank {@code dir} or
+ * {@code enabled=false} turns it off. {@code maxSizeMb} bounds the compressed
+ * size on disk; least recently used entries are evicted beyond it.
+ * ListRecords pages are only cached for periods ending at least
+ * {@code listRecordsMinAgeDays} days ago, since recent days still change.
+ */
+@ConfigurationProperties(prefix = "cache.blob")
+public record BlobCacheProperties(boolean enabled, String dir, long maxSizeMb, int listRecordsMinAgeDays) {}
@@ -0,0 +1,12 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Source id dedup index. {@code snapshotDir} is where each data source's index is
+ * saved so a restart only catches up on new rows instead of scanning
+ * {@code source_record}; blank disables snapshots. {@code snapshotIntervalMs}
+ * is how often a changed index is saved (it is also saved on shutdown).
+ */
+@ConfigurationProperties(prefix = "dedup.index")
+public record DedupIndexProperties(String snapshotDir, long snapshotIntervalMs) {}
@@ -0,0 +1,18 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the compressed {@code document_blob} storage of source XML and
+ * raw content.
+ */
+@ConfigurationProperties(prefix = "paper.blob")
+public record DocumentBlobProperties(Migration migration) {
+
+    /**
+     * Background move of pre-V31 texts out of {@code record_document}. Each batch
+     * of {@code batchSize} documents is one transaction, followed by a pause of
+     * {@code pauseMs} so the migration never competes with the pipelines for I/O.
+     */
+    public record Migration(boolean enabled, int batchSize, long pauseMs) {}
+}
@@ -2,13 +2,30 @@ package com.data.config.properties;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.List;
+
 @ConfigurationProperties(prefix = "grobid")
 public record GrobidProperties(
         String baseUrl,
+        List<String> endpoints,
         String fulltextEndpoint,
         HttpClientProperties httpClient,
-        Options options
+        Options options,
+        Adaptive adaptive,
+        Balancing balancing,
+        TeiMapper teiMapper
 ) {
+    /**
+     * How TEI is mapped to a paper: {@code STAX} streams it in one pass, {@code JSOUP}
+     * builds a DOM first. Both produce the same document.
+     */
+    public enum TeiMapper { JSOUP, STAX }
+
+    /** GROBID replicas to balance over: {@code endpoints} if set, otherwise just {@code baseUrl}. */
+    public List<String> endpointUrls() {
+        return endpoints == null || endpoints.isEmpty() ? List.of(baseUrl) : endpoints;
+    }
+
     public record Options(
             boolean consolidateHeader,
             boolean consolidateCitations,
@@ -16,4 +33,29 @@ public record GrobidProperties(
             boolean includeRawCitations,
             boolean includeRawAffiliations
     ) {}
+
+    /**
+     * AIMD concurrency limit for GROBID requests, see
+     * {@link com.data.oai.grobid.GrobidConcurrencyLimiter}. The limit starts at
+     * {@code initialLimit}, stays within {@code [minLimit, maxLimit]} and is
+     * re-evaluated every {@code window} successful requests.
+     */
+    public record Adaptive(
+            boolean enabled,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int window,
+            double latencyTolerance,
+            double backoffRatio
+    ) {}
+
+    /**
+     * Passive health checking of GROBID endpoints: {@code failureThreshold}
+     * consecutive 503/504s or timeouts eject an endpoint for {@code ejectionSeconds}.
+     */
+    public record Balancing(
+            int failureThreshold,
+            int ejectionSeconds
+    ) {}
 }
@@ -0,0 +1,12 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of {@link com.data.shared.i18n.LanguageDetectionService}.
+ *
+ * @param poolSize detectors kept idle for reuse; more callers at once get a fresh one
+ * @param maxChars characters of a text looked at; longer texts are sampled down to this
+ */
+@ConfigurationProperties(prefix = "language.detection")
+public record LanguageDetectionProperties(int poolSize, int maxChars) {}
@@ -5,6 +5,25 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.util.List;
 
+/**
+ * OAI harvest settings. {@code concurrency} sizes the GROBID stage of the paper
+ * pipeline and {@code queue} is the bounded queue in front of every stage.
+ */
 @ConfigurationProperties(prefix = "oai.processing")
 public record OaiProcessingProperties(int daysBack, List<DataSource> sources, int concurrency, int queue,
-                                      HttpClientProperties httpClient) {}
+                                      HttpClientProperties httpClient, Pipeline pipeline, Partitions partitions) {
+
+    /**
+     * Worker counts for the non-GROBID stages. Download and persist run on virtual
+     * threads (I/O bound), triage and mapping on platform threads (CPU bound).
+     */
+    public record Pipeline(int downloadConcurrency, int triageConcurrency, int mapConcurrency,
+                           int persistConcurrency) {}
+
+    /**
+     * How many (source, day) partitions are harvested at once: {@code concurrency}
+     * in total and at most {@code perSource} of the same source. When unset the
+     * harvest runs one partition at a time.
+     */
+    public record Partitions(int concurrency, int perSource) {}
+}
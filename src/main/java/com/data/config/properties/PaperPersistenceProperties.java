@@ -0,0 +1,32 @@
+package com.data.config.properties;
+
+import com.data.oai.persistence.PaperWriteMode;
+import com.data.shared.DataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for writing finished papers ({@code source_record} and its child
+ * tables), shared by the OAI and PMC S3 pipelines.
+ */
+@ConfigurationProperties(prefix = "paper.persistence")
+public record PaperPersistenceProperties(Batch batch, WriteMode writeMode) {
+
+    /**
+     * Group commit: papers from concurrent workers are flushed together once
+     * {@code size} papers are pending or the oldest has waited {@code maxWaitMs}.
+     * With {@code enabled=false} every paper is written in its own transaction.
+     */
+    public record Batch(boolean enabled, int size, long maxWaitMs) {}
+
+    /** Write path per pipeline: {@code oai} covers every OAI source, {@code pmcS3} the PMC S3 pipeline. */
+    public record WriteMode(PaperWriteMode oai, PaperWriteMode pmcS3) {}
+
+    /** Resolves the configured write path for a paper's source; {@link PaperWriteMode#JPA} when unset. */
+    public PaperWriteMode writeModeFor(DataSource dataSource) {
+        if (writeMode == null) {
+            return PaperWriteMode.JPA;
+        }
+        PaperWriteMode mode = dataSource == DataSource.PMC_S3 ? writeMode.pmcS3() : writeMode.oai();
+        return mode != null ? mode : PaperWriteMode.JPA;
+    }
+}
@@ -0,0 +1,11 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bounded-memory PDF transfer. Downloads up to {@code memoryThresholdKb} stay on
+ * the heap; larger ones are spooled to a temp file in {@code spoolDir} and
+ * streamed from there. Downloads larger than {@code maxSizeMb} are aborted.
+ */
+@ConfigurationProperties(prefix = "pdf.transfer")
+public record PdfTransferProperties(String spoolDir, int memoryThresholdKb, int maxSizeMb) {}
@@ -0,0 +1,22 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Pre-flight checks on downloaded PDFs before they are sent to GROBID, see
+ * {@link com.data.oai.grobid.PdfTriage}. Each check that fires applies its
+ * {@link Action}; the strictest one wins.
+ *
+ * @param minSizeBytes smaller files are treated as not being a PDF (error pages, stubs)
+ * @param maxPages     more pages than this triggers {@code actions.tooManyPages}
+ * @param largeFileMb  bigger files trigger {@code actions.largeFile}
+ */
+@ConfigurationProperties(prefix = "pdf.triage")
+public record PdfTriageProperties(boolean enabled, int minSizeBytes, int maxPages, int largeFileMb,
+                                  Actions actions, int lowPriorityQueue) {
+
+    public enum Action { ACCEPT, LOW_PRIORITY, REJECT }
+
+    public record Actions(Action notPdf, Action encrypted, Action tooManyPages, Action largeFile,
+                          Action noTextLayer) {}
+}
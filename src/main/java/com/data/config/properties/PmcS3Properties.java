@@ -7,7 +7,17 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *
  * <p>The pipeline accesses the PMC Open Access S3 bucket over plain HTTPS
  * (no AWS SDK), uses a daily inventory CSV for discovery, and processes
- * articles in batches with tracker-based progress persistence.
+ * articles with a bounded number in flight and tracker-based progress persistence.
+ *
+ * <p>{@code concurrency} sizes the S3 connection pool, and with it the number of
+ * articles in flight; {@code batchSize} is how often progress is logged.
+ *
+ * <p>{@code inventorySnapshotDir} keeps the inventory of the last run, so the
+ * next one only processes new and re-versioned articles; blank disables it.
+ *
+ * <p>{@code downloadTxt} fetches each article's {@code .txt} rendering alongside
+ * its JATS XML. When off, the raw content is the plain text of the parsed JATS
+ * and every article costs one S3 GET less.
  */
 @ConfigurationProperties(prefix = "pmcs3")
 public record PmcS3Properties(
@@ -17,5 +27,7 @@ public record PmcS3Properties(
     int concurrency,
     String cron,
     long advisoryLockKey,
-    HttpClientProperties httpClient
+    HttpClientProperties httpClient,
+    String inventorySnapshotDir,
+    boolean downloadTxt
 ) {}
@@ -0,0 +1,10 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the {@code storage_stats} counters: how often committed papers are
+ * added to the table, and over how many days the growth rate is averaged.
+ */
+@ConfigurationProperties(prefix = "paper.stats")
+public record StorageStatsProperties(long flushIntervalMs, int growthWindowDays) {}
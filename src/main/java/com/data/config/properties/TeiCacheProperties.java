@@ -0,0 +1,12 @@
+package com.data.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Local on-disk cache of GROBID TEI results, separate from {@link BlobCacheProperties}
+ * so PDF and page churn cannot evict them and it can be switched on its own.
+ * Blank {@code dir} or {@code enabled=false} turns it off. {@code maxSizeMb} bounds
+ * the compressed size on disk; least recently used entries are evicted beyond it.
+ */
+@ConfigurationProperties(prefix = "cache.tei")
+public record TeiCacheProperties(boolean enabled, String dir, long maxSizeMb) {}
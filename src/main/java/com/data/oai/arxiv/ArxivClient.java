@@ -1,6 +1,8 @@
 package com.data.oai.arxiv;
 
+import com.data.shared.http.BodySpooler;
 import com.data.shared.http.HttpExchangeSupport;
+import com.data.shared.http.SpooledBody;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -13,9 +15,11 @@ import java.net.URI;
 public class ArxivClient {
 
     private final RestClient rest;
+    private final BodySpooler spooler;
 
-    public ArxivClient(@Qualifier("oaiRestClient") RestClient rest) {
+    public ArxivClient(@Qualifier("oaiRestClient") RestClient rest, BodySpooler spooler) {
         this.rest = rest;
+        this.spooler = spooler;
     }
 
     @Retry(name = "arxiv")
@@ -28,8 +32,8 @@ public class ArxivClient {
 
     @Retry(name = "arxiv")
     @RateLimiter(name = "arxiv")
-    public byte[] downloadFile(String url) {
+    public SpooledBody downloadFile(String url) {
         URI uri = HttpExchangeSupport.toEncodedUri(url);
-        return HttpExchangeSupport.executeExchange(rest, uri, code -> false, url);
+        return HttpExchangeSupport.downloadToSpool(rest, uri, spooler, url);
     }
 }
@@ -2,6 +2,8 @@ package com.data.oai.arxiv;
 
 import com.data.config.properties.ArxivOaiProps;
 import com.data.shared.DataSource;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.http.BodySpooler;
 import com.data.oai.shared.AbstractOaiService;
 import com.data.shared.license.LicenseFilter;
 import com.data.oai.shared.util.XmlFactories;
@@ -17,6 +19,7 @@ import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.events.XMLEvent;
 import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +31,9 @@ public class ArxivOaiService extends AbstractOaiService {
     private final ArxivClient arxivClient;
     private final XMLInputFactory xml = XmlFactories.newFactory(false);
 
-    public ArxivOaiService(ArxivOaiProps props, ArxivClient arxivClient) {
+    public ArxivOaiService(ArxivOaiProps props, ArxivClient arxivClient, BlobCache blobCache,
+                           BodySpooler spooler) {
+        super(blobCache, spooler);
         this.props = props;
         this.arxivClient = arxivClient;
     }
@@ -62,7 +67,7 @@ public class ArxivOaiService extends AbstractOaiService {
     public PdfContent getPdf(String sourceId) {
         String pdfUrl = props.pdfBaseUrl() + sourceId + ".pdf";
         try {
-            return new PdfContent(pdfUrl, arxivClient.downloadFile(pdfUrl));
+            return new PdfContent(pdfUrl, cachedDownload(pdfUrl, () -> arxivClient.downloadFile(pdfUrl)));
         } catch (Exception e) {
             log.warn("PDF not available for ArXiv {}: {}", sourceId, e.getMessage());
             return null;
@@ -82,6 +87,7 @@ public class ArxivOaiService extends AbstractOaiService {
             boolean inMetadata = false;
             String tag = null;
             String resumptionToken = null;
+            Instant tokenExpiresAt = null;
 
             while (reader.hasNext()) {
                 XMLEvent ev = reader.nextEvent();
@@ -93,7 +99,10 @@ public class ArxivOaiService extends AbstractOaiService {
                         case "record" -> cur = new Record();
                         case "header" -> inHeader = true;
                         case "metadata" -> inMetadata = true;
-                        case "resumptionToken" -> tag = "token";
+                        case "resumptionToken" -> {
+                            tag = "token";
+                            tokenExpiresAt = tokenExpiration(ev.asStartElement());
+                        }
                         case "identifier", "datestamp" -> {
                             if (inHeader) tag = name;
                         }
@@ -157,7 +166,7 @@ public class ArxivOaiService extends AbstractOaiService {
                 }
             }
 
-            return new OaiPage(records, resumptionToken);
+            return new OaiPage(records, resumptionToken, tokenExpiresAt);
         } catch (Exception e) {
             throw new OaiParseException("ArXiv OAI parse failed", e);
         } finally {
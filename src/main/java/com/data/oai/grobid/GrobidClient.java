@@ -2,54 +2,82 @@ package com.data.oai.grobid;
 
 import com.data.config.properties.GrobidProperties;
 import com.data.shared.exception.GrobidServiceUnavailableException;
+import com.data.shared.http.SpooledBody;
 import io.github.resilience4j.retry.annotation.Retry;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClient;
+import org.springframework.web.client.ResourceAccessException;
 
 @Service
 public class GrobidClient {
 
-    private final RestClient rest;
+    private final GrobidEndpointBalancer balancer;
     private final GrobidProperties props;
+    private final GrobidConcurrencyLimiter limiter;
 
-    public GrobidClient(@Qualifier("grobidRestClient") RestClient rest, GrobidProperties props) {
-        this.rest = rest;
+    public GrobidClient(GrobidEndpointBalancer balancer, GrobidProperties props,
+                        GrobidConcurrencyLimiter limiter) {
+        this.balancer = balancer;
         this.props = props;
+        this.limiter = limiter;
     }
 
     /**
      * Sends a PDF to the GROBID service for full-text extraction and returns the
-     * TEI-XML response. Retries are handled by Resilience4j (@Retry).
+     * TEI-XML response. Retries are handled by Resilience4j (@Retry). Every attempt
+     * first waits for a slot from the {@link GrobidConcurrencyLimiter} and reports
+     * its latency or overload back to it, then goes to the least busy healthy
+     * endpoint picked by the {@link GrobidEndpointBalancer}.
      */
     @Retry(name = "grobid")
-    public String processPdfToXmlString(String sourceId, byte[] pdfBytes) {
-        MultipartBodyBuilder mb = buildGrobidRequest(pdfBytes, sourceId + ".pdf");
+    public String processPdfToXmlString(String sourceId, SpooledBody pdf) {
+        MultipartBodyBuilder mb = buildGrobidRequest(pdf, sourceId + ".pdf");
 
+        GrobidConcurrencyLimiter.Permit permit;
         try {
-            return rest.post()
-                    .uri(props.baseUrl() + props.fulltextEndpoint())
+            permit = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a GROBID slot, sourceId=" + sourceId, e);
+        }
+
+        GrobidEndpointBalancer.Endpoint endpoint = balancer.acquire();
+        GrobidConcurrencyLimiter.Outcome outcome = GrobidConcurrencyLimiter.Outcome.IGNORED;
+        try {
+            String tei = endpoint.rest().post()
+                    .uri(endpoint.url() + props.fulltextEndpoint())
                     .contentType(MediaType.MULTIPART_FORM_DATA)
                     .body(mb.build())
                     .retrieve()
                     .body(String.class);
+            outcome = GrobidConcurrencyLimiter.Outcome.SUCCESS;
+            return tei;
         } catch (HttpServerErrorException ex) {
             int status = ex.getStatusCode().value();
             if (status == 503 || status == 504) {
+                outcome = GrobidConcurrencyLimiter.Outcome.OVERLOAD;
                 throw new GrobidServiceUnavailableException(
-                        "GROBID service unavailable (" + status + ") for sourceId=" + sourceId, ex);
+                        "GROBID service unavailable (" + status + ") at " + endpoint.url()
+                                + " for sourceId=" + sourceId, ex);
             }
             throw ex;
+        } catch (ResourceAccessException ex) {
+            // Connect or response timeout: the replicas are saturated
+            outcome = GrobidConcurrencyLimiter.Outcome.OVERLOAD;
+            throw ex;
+        } finally {
+            balancer.release(endpoint, outcome == GrobidConcurrencyLimiter.Outcome.OVERLOAD);
+            limiter.release(permit, outcome);
         }
     }
 
-    private MultipartBodyBuilder buildGrobidRequest(byte[] pdfBytes, String filename) {
+    /** The PDF part is a resource, so it is streamed from its spool rather than copied into the request. */
+    private MultipartBodyBuilder buildGrobidRequest(SpooledBody pdf, String filename) {
         GrobidProperties.Options opts = props.options();
         MultipartBodyBuilder mb = new MultipartBodyBuilder();
-        mb.part("input", pdfBytes)
+        mb.part("input", pdf.asResource())
                 .filename(filename)
                 .contentType(MediaType.APPLICATION_PDF);
 
@@ -0,0 +1,212 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.GrobidProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD limit on concurrent GROBID requests.
+ *
+ * <p>The right parallelism depends on the replica count behind the load balancer
+ * and on the PDFs in flight, so it is not configured but searched for:</p>
+ * <ul>
+ *   <li><b>Additive increase.</b> After every {@code window} successful requests the
+ *       p95 latency of that window is compared with the baseline (the best p95
+ *       seen, drifting slowly towards the current one). If it is within
+ *       {@code latencyTolerance} times the baseline and the limit was actually
+ *       reached during the window, the limit grows by one.</li>
+ *   <li><b>Latency back-off.</b> A window whose p95 exceeds the tolerance lowers
+ *       the limit by one.</li>
+ *   <li><b>Multiplicative decrease.</b> A 503/504 or timeout multiplies the limit
+ *       by {@code backoffRatio}. Failures of requests that were already in flight
+ *       when the limit was cut are not counted again, so one burst of errors
+ *       shrinks the limit once.</li>
+ * </ul>
+ *
+ * <p>The limit stays within {@code [minLimit, maxLimit]}. It is exported as the
+ * {@code grobid.concurrency.limit} gauge, next to {@code grobid.concurrency.in.flight},
+ * and every change is counted in {@code grobid.concurrency.adjustments}. When
+ * {@code grobid.adaptive.enabled} is false the limiter never blocks.</p>
+ */
+@Slf4j
+@Component
+public class GrobidConcurrencyLimiter {
+
+    /** Outcome of a GROBID request, as far as the limit is concerned. */
+    enum Outcome { SUCCESS, OVERLOAD, IGNORED }
+
+    /** Weight of the current window's p95 when it pulls the baseline upwards. */
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final GrobidProperties.Adaptive config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private final long[] window;
+    private int samples;
+    private int limit;
+    private int inFlight;
+    private int peakInFlight;
+    private double baselineNanos = Double.NaN;
+    private long generation;
+
+    @Autowired
+    public GrobidConcurrencyLimiter(GrobidProperties props, MeterRegistry meterRegistry) {
+        this(props.adaptive(), meterRegistry, System::nanoTime);
+    }
+
+    GrobidConcurrencyLimiter(GrobidProperties.Adaptive config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.window = new long[enabled() ? Math.max(1, config.window()) : 1];
+        this.limit = enabled() ? clamp(config.initialLimit()) : Integer.MAX_VALUE;
+        if (enabled()) {
+            Gauge.builder("grobid.concurrency.limit", this, GrobidConcurrencyLimiter::limit)
+                    .description("Current adaptive limit on concurrent GROBID requests")
+                    .register(meterRegistry);
+            Gauge.builder("grobid.concurrency.in.flight", this, GrobidConcurrencyLimiter::inFlight)
+                    .description("GROBID requests currently in flight")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean enabled() {
+        return config != null && config.enabled();
+    }
+
+    /** Upper bound of the limit; 0 when the limiter is disabled. */
+    public int maxLimit() {
+        return enabled() ? config.maxLimit() : 0;
+    }
+
+    /** Blocks until a request may be sent. @return permit to hand back to {@link #release} */
+    Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                released.await();
+            }
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            return new Permit(clock.getAsLong(), generation);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Permit permit, Outcome outcome) {
+        long latency = clock.getAsLong() - permit.startNanos();
+        lock.lock();
+        try {
+            inFlight--;
+            if (enabled()) {
+                switch (outcome) {
+                    case SUCCESS -> onSuccess(latency);
+                    case OVERLOAD -> onOverload(permit);
+                    case IGNORED -> { }
+                }
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return enabled() ? limit : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ── AIMD, called with the lock held ──────────────────────────────
+
+    private void onSuccess(long latencyNanos) {
+        window[samples++] = latencyNanos;
+        if (samples < window.length) {
+            return;
+        }
+        double p95 = p95();
+        boolean saturated = peakInFlight >= limit;
+        samples = 0;
+        peakInFlight = inFlight;
+
+        if (Double.isNaN(baselineNanos) || p95 < baselineNanos) {
+            baselineNanos = p95;
+        } else {
+            baselineNanos += (p95 - baselineNanos) * BASELINE_DRIFT;
+        }
+
+        if (p95 > baselineNanos * config.latencyTolerance()) {
+            setLimit(limit - 1, "latency", p95);
+        } else if (saturated) {
+            setLimit(limit + 1, "latency", p95);
+        }
+    }
+
+    private void onOverload(Permit permit) {
+        if (permit.generation() != generation) {
+            return; // sent before the last cut; that cut already accounted for it
+        }
+        samples = 0;
+        peakInFlight = inFlight;
+        setLimit((int) (limit * config.backoffRatio()), "overload", Double.NaN);
+    }
+
+    private void setLimit(int requested, String reason, double p95Nanos) {
+        int next = clamp(requested);
+        if (next == limit) {
+            return;
+        }
+        String direction = next > limit ? "up" : "down";
+        if (next < limit) {
+            generation++;
+        }
+        log.info("GROBID concurrency limit {} -> {} ({}{})", limit, next, reason,
+                Double.isNaN(p95Nanos) ? "" : ", p95 %d ms".formatted(TimeUnit.NANOSECONDS.toMillis((long) p95Nanos)));
+        limit = next;
+        Counter.builder("grobid.concurrency.adjustments")
+                .description("Changes of the adaptive GROBID concurrency limit")
+                .tag("direction", direction)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private double p95() {
+        long[] sorted = Arrays.copyOf(window, window.length);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+    }
+
+    private int clamp(int value) {
+        return Math.max(config.minLimit(), Math.min(config.maxLimit(), value));
+    }
+
+    /** One admitted request: when it was sent and under which cut of the limit. */
+    record Permit(long startNanos, long generation) {}
+}
@@ -0,0 +1,153 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.GrobidProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side least-outstanding-requests routing across GROBID replicas.
+ *
+ * <p>Each request goes to the healthy endpoint with the fewest requests in
+ * flight; ties rotate, so an idle cluster is still used round-robin. A replica
+ * busy with a huge PDF therefore stops receiving work until it catches up,
+ * which a load balancer doing plain round-robin cannot know.</p>
+ *
+ * <p>Health is passive: {@code failureThreshold} consecutive overloads (503/504
+ * or timeouts) eject the endpoint for {@code ejectionSeconds}. After that it is
+ * picked again; one more overload ejects it again straight away, a success
+ * clears its record. If every endpoint is ejected the one that comes back
+ * first is used rather than failing the request.</p>
+ *
+ * <p>Every endpoint has its own {@link RestClient} and connection pool, built in
+ * {@link com.data.config.OaiRestClientConfig}.</p>
+ */
+@Slf4j
+public class GrobidEndpointBalancer {
+
+    private final List<Endpoint> endpoints;
+    private final GrobidProperties.Balancing config;
+    private final LongSupplier clock;
+    private int cursor;
+
+    public GrobidEndpointBalancer(Map<String, RestClient> clients, GrobidProperties.Balancing config,
+                                  MeterRegistry meterRegistry) {
+        this(clients, config, meterRegistry, System::nanoTime);
+    }
+
+    GrobidEndpointBalancer(Map<String, RestClient> clients, GrobidProperties.Balancing config,
+                           MeterRegistry meterRegistry, LongSupplier clock) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("At least one GROBID endpoint is required");
+        }
+        this.config = config;
+        this.clock = clock;
+        List<Endpoint> list = new ArrayList<>(clients.size());
+        clients.forEach((url, rest) -> list.add(new Endpoint(url, rest, meterRegistry)));
+        this.endpoints = List.copyOf(list);
+        for (Endpoint e : endpoints) {
+            Gauge.builder("grobid.endpoint.in.flight", e, ep -> inFlight(ep))
+                    .description("GROBID requests in flight per endpoint")
+                    .tag("endpoint", e.url)
+                    .register(meterRegistry);
+            Gauge.builder("grobid.endpoint.ejected", e, ep -> isEjected(ep) ? 1 : 0)
+                    .description("1 while the endpoint is ejected after repeated overloads")
+                    .tag("endpoint", e.url)
+                    .register(meterRegistry);
+        }
+    }
+
+    /** Picks the endpoint for the next request and counts it as in flight until {@link #release}. */
+    synchronized Endpoint acquire() {
+        long now = clock.getAsLong();
+        Endpoint best = null;
+        int n = endpoints.size();
+        for (int i = 0; i < n; i++) {
+            Endpoint e = endpoints.get((cursor + i) % n);
+            if (e.ejectedUntil - now > 0) {
+                continue;
+            }
+            if (best == null || e.inFlight < best.inFlight) {
+                best = e;
+            }
+        }
+        if (best == null) {
+            best = firstToReturn();
+        }
+        cursor = (endpoints.indexOf(best) + 1) % n;
+        best.inFlight++;
+        return best;
+    }
+
+    /** @param overloaded whether the request ended in a 503/504 or a timeout */
+    synchronized void release(Endpoint endpoint, boolean overloaded) {
+        endpoint.inFlight--;
+        if (!overloaded) {
+            endpoint.failures = 0;
+            return;
+        }
+        if (++endpoint.failures >= Math.max(1, config.failureThreshold())) {
+            endpoint.ejectedUntil = clock.getAsLong() + TimeUnit.SECONDS.toNanos(config.ejectionSeconds());
+            endpoint.ejections.increment();
+            log.warn("Ejecting GROBID endpoint {} for {} s after {} consecutive overloads",
+                    endpoint.url, config.ejectionSeconds(), endpoint.failures);
+        }
+    }
+
+    private Endpoint firstToReturn() {
+        Endpoint first = endpoints.get(0);
+        for (Endpoint e : endpoints) {
+            if (e.ejectedUntil - first.ejectedUntil < 0) {
+                first = e;
+            }
+        }
+        return first;
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    synchronized int inFlight(Endpoint endpoint) {
+        return endpoint.inFlight;
+    }
+
+    synchronized boolean isEjected(Endpoint endpoint) {
+        return endpoint.ejectedUntil - clock.getAsLong() > 0;
+    }
+
+    /** One GROBID replica; mutable state is guarded by the balancer's monitor. */
+    static final class Endpoint {
+        private final String url;
+        private final RestClient rest;
+        private final Counter ejections;
+        private int inFlight;
+        private int failures;
+        private long ejectedUntil = Long.MIN_VALUE / 2;
+
+        private Endpoint(String url, RestClient rest, MeterRegistry meterRegistry) {
+            this.url = url;
+            this.rest = rest;
+            this.ejections = Counter.builder("grobid.endpoint.ejections")
+                    .description("Times the endpoint was ejected after repeated overloads")
+                    .tag("endpoint", url)
+                    .register(meterRegistry);
+        }
+
+        String url() {
+            return url;
+        }
+
+        RestClient rest() {
+            return rest;
+        }
+    }
+}
@@ -1,23 +1,57 @@
 package com.data.oai.grobid;
 
+import com.data.config.properties.GrobidProperties;
 import com.data.oai.grobid.tei.GrobidTeiMapperJsoup;
+import com.data.oai.grobid.tei.GrobidTeiMapperStax;
 import com.data.oai.shared.dto.PaperDocument;
-import lombok.RequiredArgsConstructor;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.http.SpooledBody;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class GrobidService {
 
     private final GrobidClient grobidClient;
+    private final GrobidConcurrencyLimiter concurrencyLimiter;
+    private final BlobCache teiCache;
+    private final GrobidProperties props;
+
+    /** Namespace of TEI results in the {@code teiCache}; hits and misses are counted under this tag. */
+    static final String TEI_CACHE_NAMESPACE = "tei";
+
+    public GrobidService(GrobidClient grobidClient, GrobidConcurrencyLimiter concurrencyLimiter,
+                         @Qualifier("teiCache") BlobCache teiCache, GrobidProperties props) {
+        this.grobidClient = grobidClient;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.teiCache = teiCache;
+        this.props = props;
+    }
 
-    public PaperDocument processGrobidDocument(String sourceId, String externalIdentifier, byte[] pdfBytes) {
+    /**
+     * Most GROBID requests that may ever be in flight at once under the adaptive
+     * limit, for sizing the callers' worker pools; 0 when the limit is not adaptive.
+     */
+    public int maxConcurrency() {
+        return concurrencyLimiter.maxLimit();
+    }
+
+    public PaperDocument processGrobidDocument(String sourceId, String externalIdentifier, SpooledBody pdf) {
         long t0 = System.nanoTime();
-        String xmlString = grobidClient.processPdfToXmlString(sourceId, pdfBytes);
+        String xmlString = fetchTeiCached(sourceId, pdf);
         long t1 = System.nanoTime();
-        PaperDocument doc = GrobidTeiMapperJsoup.toPaperDocument(sourceId, externalIdentifier, xmlString);
+        PaperDocument doc = mapTei(sourceId, externalIdentifier, xmlString);
         long t2 = System.nanoTime();
 
         log.info("GROBID {} ms | Mapping {} ms | total {} ms | id={}",
@@ -27,4 +61,63 @@ public class GrobidService {
                 externalIdentifier);
         return doc;
     }
+
+    /**
+     * GROBID half of {@link #processGrobidDocument}: sends the PDF and returns the raw TEI.
+     * Used by the staged OAI pipeline, which runs the HTTP call and the mapping on
+     * separately sized stages.
+     */
+    public String fetchTei(String sourceId, SpooledBody pdf) {
+        long t0 = System.nanoTime();
+        String xmlString = fetchTeiCached(sourceId, pdf);
+        log.info("GROBID {} ms | id={}", (System.nanoTime() - t0) / 1_000_000, sourceId);
+        return xmlString;
+    }
+
+    /**
+     * Looks the PDF up in the TEI cache before calling GROBID. The key is the
+     * SHA-256 of the PDF bytes plus the endpoint and options, so the same preprint
+     * reached through arXiv and Zenodo, or a re-run, is converted only once; changing
+     * the options starts a fresh set of entries. Hits skip the concurrency limiter
+     * and the HTTP call entirely. The cache ({@code cache.tei}) is separate from the
+     * PDF and page cache, so PDF downloads never evict TEI results.
+     */
+    private String fetchTeiCached(String sourceId, SpooledBody pdf) {
+        if (!teiCache.enabled()) {
+            return grobidClient.processPdfToXmlString(sourceId, pdf);
+        }
+        String key = teiCacheKey(pdf);
+        byte[] cached = teiCache.get(TEI_CACHE_NAMESPACE, key);
+        if (cached != null) {
+            log.debug("TEI cache hit for {}", sourceId);
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+        String tei = grobidClient.processPdfToXmlString(sourceId, pdf);
+        if (tei != null && !tei.isBlank()) {
+            teiCache.put(TEI_CACHE_NAMESPACE, key, tei.getBytes(StandardCharsets.UTF_8));
+        }
+        return tei;
+    }
+
+    String teiCacheKey(SpooledBody pdf) {
+        try (DigestInputStream in = new DigestInputStream(pdf.openStream(), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            byte[] digest = in.getMessageDigest().digest();
+            return HexFormat.of().formatHex(digest) + "|" + props.fulltextEndpoint() + "|" + props.options();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot hash PDF", e);
+        }
+    }
+
+    /**
+     * Mapping half of {@link #processGrobidDocument}: CPU-only TEI to {@link PaperDocument},
+     * with the mapper chosen by {@code grobid.tei-mapper}.
+     */
+    public PaperDocument mapTei(String sourceId, String externalIdentifier, String teiXml) {
+        return props.teiMapper() == GrobidProperties.TeiMapper.JSOUP
+                ? GrobidTeiMapperJsoup.toPaperDocument(sourceId, externalIdentifier, teiXml)
+                : GrobidTeiMapperStax.toPaperDocument(sourceId, externalIdentifier, teiXml);
+    }
 }
@@ -0,0 +1,119 @@
+package com.data.oai.grobid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a single pass over the raw bytes of a PDF reveals without parsing it:
+ * encryption, page count and whether any fonts (a text layer) are referenced.
+ *
+ * <p>Objects inside compressed object streams (PDF 1.5+) are invisible to a raw
+ * scan, so a value that could not be seen is reported as unknown rather than
+ * as absent; triage only acts on what was actually found.</p>
+ */
+record PdfStructure(boolean encrypted, int pageCount, boolean hasFonts, boolean hasImages,
+                    boolean hasObjectStreams) {
+
+    private static final int CHUNK = 64 * 1024;
+    /** Most dictionary text allowed between the two keys of one match. */
+    private static final int MAX_GAP = 200;
+    /** Most whitespace allowed after a key, and most digits in a number. */
+    private static final int MAX_SPACE = 16;
+    private static final int MAX_DIGITS = 10;
+    /**
+     * Longest possible match (of PAGES_COUNT: "/Type", "/Pages", "/Count", two
+     * whitespace runs, the gap and the number). Chunks overlap by this much, so a
+     * match split by a chunk boundary is found whole in the next chunk.
+     */
+    private static final int OVERLAP = "/Type/Pages/Count".length() + 2 * MAX_SPACE + MAX_GAP + MAX_DIGITS;
+
+    private static final String GAP = "[^>]{0," + MAX_GAP + "}?";
+    private static final String SPACE = "\\s{0," + MAX_SPACE + "}";
+    private static final String NUMBER = "\\s{1," + MAX_SPACE + "}(\\d{1," + MAX_DIGITS + "})(?!\\d)";
+
+    private static final Pattern ENCRYPT = Pattern.compile("/Encrypt\\b");
+    private static final Pattern LINEARIZED_PAGES = Pattern.compile("/Linearized\\b" + GAP + "/N" + NUMBER);
+    private static final Pattern PAGES_COUNT = Pattern.compile("/Type" + SPACE + "/Pages\\b" + GAP + "/Count" + NUMBER
+            + "|/Count" + NUMBER + GAP + "/Type" + SPACE + "/Pages\\b");
+    private static final Pattern PAGE = Pattern.compile("/Type" + SPACE + "/Page\\b(?!s)");
+    private static final Pattern FONT = Pattern.compile("/Font\\b|/Type" + SPACE + "/Font\\b");
+    private static final Pattern IMAGE = Pattern.compile("/Subtype" + SPACE + "/Image\\b");
+    private static final Pattern OBJECT_STREAM = Pattern.compile("/Type" + SPACE + "/ObjStm\\b");
+
+    /** Reads {@code in} to the end without closing it. {@code pageCount} is 0 when no page count was seen. */
+    static PdfStructure scan(InputStream in) throws IOException {
+        boolean encrypted = false;
+        boolean fonts = false;
+        boolean images = false;
+        boolean objectStreams = false;
+        int linearizedPages = 0;
+        int treeCount = 0;
+        int pageObjects = 0;
+
+        byte[] buffer = new byte[CHUNK];
+        String carry = "";
+        int n;
+        while ((n = in.readNBytes(buffer, 0, CHUNK)) > 0) {
+            // ISO-8859-1 maps every byte to one char, so offsets line up with bytes
+            String text = carry + new String(buffer, 0, n, StandardCharsets.ISO_8859_1);
+            int from = carry.length();
+
+            encrypted |= found(ENCRYPT, text, from);
+            fonts |= found(FONT, text, from);
+            images |= found(IMAGE, text, from);
+            objectStreams |= found(OBJECT_STREAM, text, from);
+            if (linearizedPages == 0) {
+                Matcher m = LINEARIZED_PAGES.matcher(text);
+                if (m.find()) {
+                    linearizedPages = parse(m.group(1));
+                }
+            }
+            Matcher count = PAGES_COUNT.matcher(text);
+            while (count.find()) {
+                if (count.end() > from) {
+                    treeCount = Math.max(treeCount, parse(count.group(1) != null ? count.group(1) : count.group(2)));
+                }
+            }
+            Matcher page = PAGE.matcher(text);
+            while (page.find()) {
+                if (page.end() > from) {
+                    pageObjects++;
+                }
+            }
+            carry = text.substring(Math.max(0, text.length() - OVERLAP));
+            if (n < CHUNK) {
+                break;
+            }
+        }
+
+        int pages = linearizedPages > 0 ? linearizedPages : treeCount > 0 ? treeCount : pageObjects;
+        return new PdfStructure(encrypted, pages, fonts, images, objectStreams);
+    }
+
+    /** Whether the PDF has images but no font anywhere, i.e. is most likely a scan. */
+    boolean imageOnly() {
+        // Fonts may hide in object streams; only a PDF without them can be judged
+        return hasImages && !hasFonts && !hasObjectStreams;
+    }
+
+    private static boolean found(Pattern pattern, String text, int from) {
+        Matcher m = pattern.matcher(text);
+        while (m.find()) {
+            if (m.end() > from) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int parse(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
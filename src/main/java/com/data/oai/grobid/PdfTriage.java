@@ -0,0 +1,110 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.PdfTriageProperties;
+import com.data.config.properties.PdfTriageProperties.Action;
+import com.data.shared.http.SpooledBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheap pre-flight checks on a downloaded PDF, so GROBID time is not spent on
+ * inputs that will never produce usable TEI.
+ *
+ * <ul>
+ *   <li><b>not-pdf</b> — Tika's magic-byte detection says it is not
+ *       {@code application/pdf} (typically an HTML error page), or it is smaller
+ *       than {@code pdf.triage.min-size-bytes}.</li>
+ *   <li><b>encrypted</b> — the trailer references an {@code /Encrypt} dictionary.</li>
+ *   <li><b>too-many-pages</b> — more than {@code max-pages} pages (theses, proceedings).</li>
+ *   <li><b>large-file</b> — larger than {@code large-file-mb}.</li>
+ *   <li><b>no-text-layer</b> — images but no fonts: an image-only scan.</li>
+ * </ul>
+ *
+ * <p>Structure is read by one raw pass over the bytes ({@link PdfStructure});
+ * tika-core has no PDF parser and a full parse would cost about as much as
+ * what it is meant to save. Each check that fires contributes its configured
+ * {@link Action}, and the strictest one is the verdict. Verdicts are counted as
+ * {@code pdf.triage.verdicts}, tagged by action and reason.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PdfTriage {
+
+    private static final String PDF_MIME = "application/pdf";
+    private static final int DETECT_BYTES = 8 * 1024;
+
+    private static final Tika TIKA = new Tika();
+
+    private final PdfTriageProperties props;
+    private final MeterRegistry meterRegistry;
+
+    /** Outcome of triage; {@code reason} lists the checks that fired, empty when accepted. */
+    public record Verdict(Action action, String reason) {
+        static final Verdict ACCEPTED = new Verdict(Action.ACCEPT, "");
+    }
+
+    public Verdict triage(SpooledBody pdf) {
+        if (!props.enabled()) {
+            return Verdict.ACCEPTED;
+        }
+        PdfTriageProperties.Actions actions = props.actions();
+        List<String> reasons = new ArrayList<>();
+        Action action = Action.ACCEPT;
+
+        String mime = TIKA.detect(pdf.head(DETECT_BYTES));
+        if (!PDF_MIME.equals(mime) || pdf.size() < props.minSizeBytes()) {
+            // Nothing else is worth checking on something that is not a PDF
+            return record(new Verdict(stricter(Action.ACCEPT, actions.notPdf()), "not-pdf (" + mime + ", " + pdf.size() + " bytes)"));
+        }
+        if (props.largeFileMb() > 0 && pdf.size() > ((long) props.largeFileMb() << 20)) {
+            action = stricter(action, actions.largeFile());
+            reasons.add("large-file (" + (pdf.size() >> 20) + " MB)");
+        }
+
+        PdfStructure structure;
+        try (InputStream in = pdf.openStream()) {
+            structure = PdfStructure.scan(in);
+        } catch (IOException e) {
+            log.warn("PDF triage could not read the file, accepting it: {}", e.getMessage());
+            return record(new Verdict(action, String.join(", ", reasons)));
+        }
+        if (structure.encrypted()) {
+            action = stricter(action, actions.encrypted());
+            reasons.add("encrypted");
+        }
+        if (props.maxPages() > 0 && structure.pageCount() > props.maxPages()) {
+            action = stricter(action, actions.tooManyPages());
+            reasons.add("too-many-pages (" + structure.pageCount() + ")");
+        }
+        if (structure.imageOnly()) {
+            action = stricter(action, actions.noTextLayer());
+            reasons.add("no-text-layer");
+        }
+        return record(new Verdict(action, String.join(", ", reasons)));
+    }
+
+    private Verdict record(Verdict verdict) {
+        String reason = verdict.reason().isEmpty() ? "none" : verdict.reason().replaceAll(" \\(.*?\\)", "");
+        Counter.builder("pdf.triage.verdicts")
+                .description("PDF pre-flight verdicts before GROBID")
+                .tag("action", verdict.action().name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return verdict;
+    }
+
+    private static Action stricter(Action a, Action b) {
+        return b != null && b.ordinal() > a.ordinal() ? b : a;
+    }
+}
@@ -8,6 +8,7 @@ import org.jsoup.select.Elements;
 
 import java.time.Year;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -23,9 +24,11 @@ final class GrobidReferenceExtractor {
     private static final int MIN_VALID_YEAR = 1900;
     private static final int MAX_VALID_YEAR = Year.now().getValue();
 
-    private static final Pattern DOI =
+    static final Pattern DOI =
             Pattern.compile("(?i)\\b10\\.\\d{4,9}/[-._;()/:A-Z0-9]+\\b");
 
+    private static final Pattern YEAR = Pattern.compile("\\b(19\\d{2}|20\\d{2})\\b");
+
     /**
      * Improved references extraction:
      * - handles back listBibl biblStruct
@@ -63,7 +66,12 @@ final class GrobidReferenceExtractor {
             if (r != null) out.add(r);
         }
 
-        return out.stream()
+        return distinct(out);
+    }
+
+    /** Drops repeated references (same titles, DOI, first URL and year), keeping the first. */
+    static List<Reference> distinct(List<Reference> references) {
+        return references.stream()
                 .collect(Collectors.collectingAndThen(
                         Collectors.toMap(
                                 r -> safe(r.analyticTitle()) + "::" + safe(r.monogrTitle()) + "::" +
@@ -146,17 +154,22 @@ final class GrobidReferenceExtractor {
 
     private static String extractYear(Element bibl) {
         Element date = bibl.selectFirst("imprint date[when], imprint date, date[when], date");
-        if (date != null) {
-            String raw = normalizeWs(date.hasAttr("when") ? date.attr("when") : date.text());
-            if (raw != null && raw.length() >= 4) {
-                String candidate = raw.substring(0, 4);
-                if (isValidYear(candidate)) return candidate;
-            }
+        String dateValue = date == null ? null : date.hasAttr("when") ? date.attr("when") : date.text();
+        return resolveYear(dateValue, () -> rawReferenceText(bibl));
+    }
+
+    /**
+     * Year from the first {@code date} of a reference ({@code when}, else its text),
+     * falling back to a 19xx/20xx year in the raw reference text.
+     */
+    static String resolveYear(String dateValue, Supplier<String> rawText) {
+        String raw = normalizeWs(dateValue);
+        if (raw != null && raw.length() >= 4) {
+            String candidate = raw.substring(0, 4);
+            if (isValidYear(candidate)) return candidate;
         }
         // fallback: parse year from raw reference if present
-        Element raw = bibl.selectFirst("note[type=raw_reference], note[type=rawRef], note[type=raw]");
-        String rawText = raw != null ? raw.text() : bibl.text();
-        String y = firstRegex(Pattern.compile("\\b(19\\d{2}|20\\d{2})\\b"), rawText);
+        String y = firstRegex(YEAR, rawText.get());
         if (y != null && !isValidYear(y)) return null;
         return y;
     }
@@ -188,13 +201,20 @@ final class GrobidReferenceExtractor {
 
     private static String extractDoi(Element bibl) {
         Element doiEl = bibl.selectFirst("idno[type=DOI], idno[type=doi]");
-        if (doiEl != null) {
-            String hit = firstRegex(DOI, doiEl.text());
+        return resolveDoi(doiEl == null ? null : doiEl.text(), () -> rawReferenceText(bibl));
+    }
+
+    /** DOI from the DOI {@code idno} text if it holds one, otherwise from the raw reference text. */
+    static String resolveDoi(String doiIdnoText, Supplier<String> rawText) {
+        if (doiIdnoText != null) {
+            String hit = firstRegex(DOI, doiIdnoText);
             if (!isBlank(hit)) return hit;
         }
+        return firstRegex(DOI, rawText.get());
+    }
 
+    private static String rawReferenceText(Element bibl) {
         Element raw = bibl.selectFirst("note[type=raw_reference], note[type=rawRef], note[type=raw]");
-        String rawText = raw != null ? raw.text() : bibl.text();
-        return firstRegex(DOI, rawText);
+        return raw != null ? raw.text() : bibl.text();
     }
 }
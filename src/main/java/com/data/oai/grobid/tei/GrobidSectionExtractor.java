@@ -24,9 +24,7 @@ final class GrobidSectionExtractor {
         List<Section> out = new ArrayList<>();
 
         for (Element container : text.select("> front, > body, > back")) {
-            String containerName = container.tagName().equals("back") ? "BACK"
-                    : container.tagName().equals("front") ? "FRONT"
-                    : "BODY";
+            String containerName = containerName(container.tagName());
 
             for (Element div : container.select("> div")) {
                 String sectionTitle = resolveSectionTitle(div);
@@ -43,7 +41,18 @@ final class GrobidSectionExtractor {
             }
         }
 
-        return out.stream()
+        return distinct(out);
+    }
+
+    static String containerName(String tagName) {
+        return tagName.equals("back") ? "BACK"
+                : tagName.equals("front") ? "FRONT"
+                : "BODY";
+    }
+
+    /** Drops repeated sections (same title and text), keeping the first. */
+    static List<Section> distinct(List<Section> sections) {
+        return sections.stream()
                 .collect(Collectors.collectingAndThen(
                         Collectors.toMap(
                                 s -> s.getTitle() + "::" + s.getText().hashCode(),
@@ -0,0 +1,837 @@
+package com.data.oai.grobid.tei;
+
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Reference;
+import com.data.oai.shared.dto.Section;
+import com.data.oai.shared.util.DoiNormalizer;
+import com.data.oai.shared.util.XmlFactories;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.data.oai.grobid.tei.GrobidTeiUtils.*;
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Streaming counterpart of {@link GrobidTeiMapperJsoup}: maps GROBID TEI-XML to the
+ * same {@link PaperDocument} in a single StAX pass, without building a DOM.
+ *
+ * <p>Each CSS selector of the Jsoup extractors becomes a check against the stack
+ * of open elements when an element starts, and the texts the selectors would read
+ * are accumulated while the element streams by (see {@link TeiTextAccumulator}).
+ * Only those texts are kept; the markup is never materialised, and no div is
+ * cloned. The document-level rules (fallbacks, de-duplication, year and DOI
+ * parsing) are shared with the Jsoup extractors.</p>
+ *
+ * <p>jsoup accepts TEI that is not well-formed XML, StAX does not; such input is
+ * handed to {@link GrobidTeiMapperJsoup} so both mappers accept the same inputs.</p>
+ */
+@Slf4j
+public final class GrobidTeiMapperStax {
+
+    private static final XMLInputFactory XML = newInputFactory();
+
+    /** Elements {@code GrobidSectionExtractor} turns into paragraphs of a div. */
+    private static final Set<String> SECTION_BLOCKS = Set.of(
+            "p", "ab", "quote", "cit", "list", "item", "label", "note", "formula", "figure", "table", "head");
+
+    /** Elements {@code GrobidSectionExtractor.extractBlockText} reads the text of. */
+    private static final Set<String> TEXT_BLOCKS = Set.of(
+            "p", "note", "formula", "list", "item", "head", "ab", "quote", "cit", "label");
+
+    private static final Set<String> RAW_NOTE_TYPES = Set.of("raw_reference", "rawref", "raw");
+
+    private GrobidTeiMapperStax() {}
+
+    public static PaperDocument toPaperDocument(String arxivId, String externalIdentifier, String sourceXml) {
+        if (sourceXml == null || sourceXml.isBlank()) {
+            return GrobidTeiMapperJsoup.toPaperDocument(arxivId, externalIdentifier, sourceXml);
+        }
+
+        Pass tei = new Pass();
+        try {
+            tei.read(sourceXml);
+        } catch (XMLStreamException e) {
+            log.debug("TEI of {} is not well-formed XML, mapping it with jsoup: {}", arxivId, e.getMessage());
+            return GrobidTeiMapperJsoup.toPaperDocument(arxivId, externalIdentifier, sourceXml);
+        }
+
+        String title = cleanText(tei.title);
+        if (isBlank(title)) title = cleanText(tei.headerAnalyticTitle);
+
+        List<Section> sections = tei.sectionRoot == null ? List.of() : GrobidSectionExtractor.distinct(tei.sections);
+        if (sections.isEmpty() || sections.stream().allMatch(s -> s.getText().isBlank())) {
+            String bodyText = normalizeWs(tei.bodyText);
+            sections = List.of(new Section("BODY", bodyText == null ? "" : bodyText, new ArrayList<>()));
+        }
+
+        return new PaperDocument(
+                arxivId,
+                externalIdentifier,
+                title,
+                cleanText(tei.abstractText),
+                sections,
+                sourceXml,
+                tei.rawContent(),
+                tei.keywords(),
+                tei.affiliations(),
+                tei.classCodes(),
+                List.of(),
+                tei.references(),
+                tei.docType()
+        );
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory f = XmlFactories.newFactory(true);
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return f;
+    }
+
+    /** Stores a text into a position reserved in document order. */
+    private static Consumer<String> slot(List<String> list) {
+        int i = list.size();
+        list.add(null);
+        return text -> list.set(i, text);
+    }
+
+    private static boolean attrEquals(String attr, String value) {
+        return attr != null && value.equalsIgnoreCase(attr.trim());
+    }
+
+    /** One open element. Attributes the extractors read are kept; {@code null} when absent. */
+    private static final class Frame {
+        final String name;
+        final String normal;
+        final int depth;
+        final Frame parent;
+        String type;
+        String subtype;
+        String when;
+        String target;
+        String unit;
+        String from;
+
+        boolean inTable;
+        boolean underBack;
+        boolean refContainer;
+        boolean underRefContainer;
+
+        TeiTextAccumulator text;
+        Container container;
+        Div div;
+        Affiliation affiliation;
+        Ref ref;
+        List<Consumer<String>> figDescTargets;
+
+        Frame(String name, int depth, Frame parent) {
+            this.name = name;
+            this.normal = name.toLowerCase(Locale.ROOT);
+            this.depth = depth;
+            this.parent = parent;
+        }
+
+        boolean is(String normalName) {
+            return normal.equals(normalName);
+        }
+    }
+
+    private static final class Container {
+        final String name;
+        final List<String> floating = new ArrayList<>();
+
+        Container(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Div {
+        final String type;
+        final List<String> chunks = new ArrayList<>();
+        int headDepth = -1;
+        boolean headSeen;
+        String head;
+        TeiTextAccumulator withoutHeads;
+        String textWithoutHeads;
+
+        Div(String type) {
+            this.type = type;
+        }
+    }
+
+    private static final class Affiliation {
+        final List<String> departments = new ArrayList<>();
+        final List<String> institutions = new ArrayList<>();
+        final List<String> others = new ArrayList<>();
+        String text;
+    }
+
+    private record RawBlock(boolean inTextRoot, List<String> text) {}
+
+    private record Idno(String type, List<String> text) {}
+
+    private record BiblScope(String unit, String from, List<String> text) {}
+
+    /** A {@code biblStruct} or plain {@code bibl} of the reference list. */
+    private static final class Ref {
+        final int depth;
+        final boolean structured;
+        String text;
+        final List<String> urls = new ArrayList<>();
+        final List<String> authors = new ArrayList<>();
+        final List<Idno> idnos = new ArrayList<>();
+        final List<BiblScope> scopes = new ArrayList<>();
+        boolean analyticTitleSeen, monogrTitleSeen, doiSeen, dateSeen, rawNoteSeen;
+        boolean publisherSeen, pubPlaceSeen, imprintDateSeen;
+        String analyticTitle, monogrTitle, doiText, dateValue, rawNote;
+        String publisher, pubPlace, imprintDate;
+
+        Ref(int depth, boolean structured) {
+            this.depth = depth;
+            this.structured = structured;
+        }
+
+        Reference toReference(int idx) {
+            return structured ? fromBiblStruct(idx) : fromBibl(idx);
+        }
+
+        private String rawText() {
+            return rawNoteSeen ? rawNote : text;
+        }
+
+        private Reference fromBiblStruct(int idx) {
+            String analytic = textOrNull(analyticTitle);
+            String monogr = textOrNull(monogrTitle);
+            String bestTitle = !isBlank(analytic) ? analytic : monogr;
+
+            String doi = DoiNormalizer.normalize(GrobidReferenceExtractor.resolveDoi(doiText, this::rawText));
+
+            List<String> urlList = urls.stream()
+                    .map(GrobidTeiUtils::normalizeWs)
+                    .filter(s -> !s.isBlank())
+                    .distinct()
+                    .toList();
+            List<String> authorList = authors.stream()
+                    .map(GrobidTeiUtils::normalizeWs)
+                    .filter(s -> !s.isBlank())
+                    .distinct()
+                    .toList();
+
+            String year = GrobidReferenceExtractor.resolveYear(dateValue, this::rawText);
+
+            Map<String, String> idnoMap = new LinkedHashMap<>();
+            for (Idno idno : idnos) {
+                String type = normalizeWs(safe(idno.type()));
+                String val = normalizeWs(idno.text().get(0));
+                if (!val.isBlank()) {
+                    idnoMap.put(type.isBlank() ? "unknown" : type.toLowerCase(Locale.ROOT), val);
+                }
+            }
+            putIfNonBlank(idnoMap, "publisher", textOrNull(publisher));
+            putIfNonBlank(idnoMap, "pubplace", textOrNull(pubPlace));
+            putIfNonBlank(idnoMap, "date", textOrNull(imprintDate));
+            for (BiblScope scope : scopes) {
+                String unitKey = normalizeWs(scope.unit()).toLowerCase(Locale.ROOT);
+                String val = normalizeWs(scope.from() != null ? scope.from() : scope.text().get(0));
+                if (!unitKey.isBlank() && !val.isBlank()) {
+                    idnoMap.put("biblscope_" + unitKey, val);
+                }
+            }
+
+            if (isBlank(bestTitle) && isBlank(doi) && urlList.isEmpty() && authorList.isEmpty()) return null;
+
+            return new Reference(idx, analytic, monogr, doi, urlList, authorList, year, monogr, idnoMap);
+        }
+
+        private Reference fromBibl(int idx) {
+            String raw = normalizeWs(text);
+            if (raw.isBlank()) return null;
+
+            String doi = DoiNormalizer.normalize(firstRegex(GrobidReferenceExtractor.DOI, raw));
+
+            Map<String, String> idnoMap = new LinkedHashMap<>();
+            if (doi != null) idnoMap.put("doi", doi);
+            idnoMap.put("raw_reference", raw);
+
+            List<String> urlList = urls.stream()
+                    .map(GrobidTeiUtils::normalizeWs)
+                    .filter(s -> !s.isBlank())
+                    .distinct()
+                    .toList();
+
+            return new Reference(idx, null, null, doi, urlList, List.of(), null, null, idnoMap);
+        }
+    }
+
+    /** State of one pass over a TEI document. */
+    private static final class Pass {
+
+        private final List<Frame> open = new ArrayList<>();
+        private final List<TeiTextAccumulator> active = new ArrayList<>();
+        private final Deque<Frame> openFigures = new ArrayDeque<>();
+        private int openTables;
+
+        // teiHeader
+        private String title, headerAnalyticTitle, abstractText;
+        private boolean titleSeen, headerAnalyticTitleSeen, abstractSeen;
+        private final List<String> terms = new ArrayList<>();
+        private final List<String> classCodeTexts = new ArrayList<>();
+        private final List<Affiliation> affiliationList = new ArrayList<>();
+        private final Deque<Affiliation> openAffiliations = new ArrayDeque<>();
+
+        // TEI root, TEI > text and text > body
+        private boolean teiSeen;
+        private String teiSubtype;
+        private Frame textRoot;
+        private boolean inTextRoot;
+        private String textRootText, docText, bodyText;
+        private boolean bodySeen;
+
+        // Whole-document, TEI > text and body texts only feed fallbacks; they are
+        // dropped as soon as the blocks they stand in for have produced text.
+        private TeiTextAccumulator document, body;
+        private boolean hasRawBlock, hasSection;
+
+        // sections
+        private Frame sectionRoot;
+        private Div openDiv;
+        private final List<Section> sections = new ArrayList<>();
+
+        private final List<RawBlock> rawBlocks = new ArrayList<>();
+
+        // references
+        private final List<Ref> biblStructs = new ArrayList<>();
+        private final List<Ref> bibls = new ArrayList<>();
+        private final List<Ref> openRefs = new ArrayList<>();
+
+        void read(String xml) throws XMLStreamException {
+            document = new TeiTextAccumulator(0).then(t -> docText = t);
+            active.add(document);
+
+            XMLStreamReader r = XML.createXMLStreamReader(new StringReader(xml));
+            try {
+                while (r.hasNext()) {
+                    switch (r.next()) {
+                        case START_ELEMENT -> startElement(r);
+                        case END_ELEMENT -> endElement();
+                        case CHARACTERS, CDATA, SPACE -> text(r.getText());
+                        default -> { }
+                    }
+                }
+            } finally {
+                r.close();
+            }
+            document.close();
+        }
+
+        // ── events ───────────────────────────────────────────────────
+
+        private void startElement(XMLStreamReader r) {
+            String prefix = r.getPrefix();
+            String name = prefix == null || prefix.isEmpty() ? r.getLocalName() : prefix + ":" + r.getLocalName();
+            Frame parent = open.isEmpty() ? null : open.get(open.size() - 1);
+            Frame f = new Frame(name, open.size() + 1, parent);
+            for (TeiTextAccumulator acc : active) {
+                acc.startElement(f.depth, f.normal);
+            }
+
+            readAttributes(r, f);
+            open.add(f);
+
+            if (f.is("table") || f.is("row") || f.is("cell")) openTables++;
+            f.inTable = openTables > 0;
+            f.underBack = parent != null && (parent.underBack || parent.is("back"));
+            f.refContainer = f.underBack && (f.is("listbibl")
+                    || f.is("div") && (attrEquals(f.type, "references") || attrEquals(f.subtype, "references")));
+            f.underRefContainer = parent != null && (parent.underRefContainer || parent.refContainer);
+
+            startHeader(f);
+            startRoots(f);
+            startSections(f);
+            startRawContent(f);
+            startReferences(f);
+            if (f.is("figdesc")) attachFigDesc(f);
+        }
+
+        private void endElement() {
+            Frame f = open.get(open.size() - 1);
+            for (TeiTextAccumulator acc : active) {
+                if (acc.depth() < f.depth) acc.endElement(f.depth);
+            }
+            while (active.get(active.size() - 1).depth() == f.depth) {
+                active.remove(active.size() - 1).close();
+            }
+            open.remove(open.size() - 1);
+
+            if (f.is("table") || f.is("row") || f.is("cell")) openTables--;
+            if (f.figDescTargets != null) {
+                // No figDesc inside: the figure contributes an empty block
+                f.figDescTargets.forEach(target -> target.accept(""));
+                f.figDescTargets = null;
+            }
+            if (openFigures.peekLast() == f) openFigures.removeLast();
+            if (f.affiliation != null) openAffiliations.removeLast();
+            if (f.ref != null) openRefs.remove(openRefs.size() - 1);
+            if (f == textRoot) inTextRoot = false;
+            if (openDiv != null && openDiv.headDepth == f.depth) openDiv.headDepth = -1;
+            if (f.div != null) endDiv(f.div);
+            if (f.container != null) endContainer(f.container);
+        }
+
+        private void text(String text) {
+            for (TeiTextAccumulator acc : active) {
+                acc.text(text);
+            }
+        }
+
+        private static void readAttributes(XMLStreamReader r, Frame f) {
+            for (int i = 0; i < r.getAttributeCount(); i++) {
+                String prefix = r.getAttributePrefix(i);
+                if (prefix != null && !prefix.isEmpty()) continue;
+                String value = r.getAttributeValue(i);
+                switch (r.getAttributeLocalName(i)) {
+                    case "type" -> f.type = value;
+                    case "subtype" -> f.subtype = value;
+                    case "when" -> f.when = value;
+                    case "target" -> f.target = value;
+                    case "unit" -> f.unit = value;
+                    case "from" -> f.from = value;
+                    default -> { }
+                }
+            }
+        }
+
+        /** Text of {@code f}, accumulated until it ends. */
+        private TeiTextAccumulator textOf(Frame f) {
+            if (f.text == null) {
+                f.text = new TeiTextAccumulator(f.depth);
+                active.add(f.text);
+            }
+            return f.text;
+        }
+
+        /** Whether {@code names} are nested, in order, among the ancestors at stack positions {@code [from, open.size() - 1)}. */
+        private boolean hasAncestors(int from, String... names) {
+            int n = 0;
+            for (int i = from; i < open.size() - 1 && n < names.length; i++) {
+                if (open.get(i).is(names[n])) n++;
+            }
+            return n == names.length;
+        }
+
+        /**
+         * Reserves a block position in document order. The block's text is stored
+         * through {@code cleanText}; {@code onText} runs if it is not blank.
+         */
+        private static Consumer<String> blockSlot(List<String> list, Runnable onText) {
+            Consumer<String> slot = slot(list);
+            return text -> {
+                String t = cleanText(text);
+                slot.accept(t);
+                if (!t.isBlank()) onText.run();
+            };
+        }
+
+        /** A block inside {@code TEI > text} has text, so the plain-text fallbacks are not needed. */
+        private void rawBlockFound() {
+            if (hasRawBlock) return;
+            hasRawBlock = true;
+            document.discard();
+            textRoot.text.discard();
+            if (hasSection && body != null) body.discard();
+        }
+
+        private void sectionFound() {
+            if (hasSection) return;
+            hasSection = true;
+            if (hasRawBlock && body != null) body.discard();
+        }
+
+        /** Sends the text of the figure's first {@code figDesc} to {@code target}; "" if it has none. */
+        private void awaitFigDesc(Frame figure, Consumer<String> target) {
+            if (figure.figDescTargets == null) {
+                figure.figDescTargets = new ArrayList<>(2);
+                openFigures.addLast(figure);
+            }
+            figure.figDescTargets.add(target);
+        }
+
+        private void attachFigDesc(Frame figDesc) {
+            for (Frame figure : openFigures) {
+                if (figure.figDescTargets == null || figure == figDesc) continue;
+                TeiTextAccumulator text = textOf(figDesc);
+                figure.figDescTargets.forEach(text::then);
+                figure.figDescTargets = null;
+            }
+        }
+
+        // ── teiHeader ────────────────────────────────────────────────
+
+        private void startHeader(Frame f) {
+            switch (f.normal) {
+                case "title" -> {
+                    if (!titleSeen && f.parent != null && f.parent.is("titlestmt")
+                            && hasAncestors(0, "teiheader")) {
+                        titleSeen = true;
+                        textOf(f).then(t -> title = t);
+                    }
+                    if (!headerAnalyticTitleSeen
+                            && hasAncestors(0, "teiheader", "sourcedesc", "biblstruct", "analytic")) {
+                        headerAnalyticTitleSeen = true;
+                        textOf(f).then(t -> headerAnalyticTitle = t);
+                    }
+                }
+                case "abstract" -> {
+                    if (!abstractSeen && hasAncestors(0, "teiheader", "profiledesc")) {
+                        abstractSeen = true;
+                        textOf(f).then(t -> abstractText = t);
+                    }
+                }
+                case "term" -> {
+                    if (hasAncestors(0, "teiheader", "profiledesc", "textclass", "keywords")) {
+                        textOf(f).then(slot(terms));
+                    }
+                }
+                case "classcode" -> {
+                    if (hasAncestors(0, "teiheader", "profiledesc", "textclass")) {
+                        textOf(f).then(slot(classCodeTexts));
+                    }
+                }
+                case "affiliation" -> {
+                    if (hasAncestors(0, "teiheader")) {
+                        Affiliation aff = new Affiliation();
+                        affiliationList.add(aff);
+                        openAffiliations.addLast(aff);
+                        f.affiliation = aff;
+                        textOf(f).then(t -> aff.text = t);
+                    }
+                }
+                case "orgname" -> {
+                    for (Affiliation aff : openAffiliations) {
+                        List<String> parts = attrEquals(f.type, "department") ? aff.departments
+                                : attrEquals(f.type, "institution") ? aff.institutions
+                                : aff.others;
+                        textOf(f).then(slot(parts));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        // ── TEI root, TEI > text, text > body ────────────────────────
+
+        private void startRoots(Frame f) {
+            if (f.is("tei") && !teiSeen) {
+                teiSeen = true;
+                teiSubtype = f.subtype;
+            }
+            if (f.is("text")) {
+                if (sectionRoot == null) sectionRoot = f;
+                if (textRoot == null && f.parent != null && f.parent.is("tei")) {
+                    textRoot = f;
+                    inTextRoot = true;
+                    textOf(f).then(t -> textRootText = t);
+                }
+            }
+            if (f.is("body") && !bodySeen && f.parent != null && f.parent.is("text")) {
+                bodySeen = true;
+                body = textOf(f).then(t -> bodyText = t);
+            }
+        }
+
+        // ── sections ─────────────────────────────────────────────────
+
+        private void startSections(Frame f) {
+            Frame parent = f.parent;
+            if (parent == null) return;
+
+            if (parent == sectionRoot && (f.is("front") || f.is("body") || f.is("back"))) {
+                f.container = new Container(GrobidSectionExtractor.containerName(f.name));
+                return;
+            }
+
+            if (parent.container != null) {
+                if (f.is("div")) {
+                    Div div = new Div(f.type);
+                    f.div = div;
+                    openDiv = div;
+                    div.withoutHeads = new TeiTextAccumulator(f.depth, "head").then(t -> div.textWithoutHeads = t);
+                    active.add(div.withoutHeads);
+                } else {
+                    Consumer<String> target = blockSlot(parent.container.floating, () -> {});
+                    if (f.inTable) {
+                        target.accept("");
+                    } else if (TEXT_BLOCKS.contains(f.normal)) {
+                        textOf(f).then(target);
+                    } else if (f.is("figure")) {
+                        awaitFigDesc(f, target);
+                    } else {
+                        target.accept("");
+                    }
+                }
+                return;
+            }
+
+            if (openDiv == null || openDiv.headDepth >= 0) return;
+
+            if (parent.div != null && f.is("head")) {
+                // The div's own heading: its title, and left out of its text
+                openDiv.headDepth = f.depth;
+                if (!openDiv.headSeen) {
+                    openDiv.headSeen = true;
+                    Div div = openDiv;
+                    textOf(f).then(t -> div.head = t);
+                }
+                return;
+            }
+
+            if (SECTION_BLOCKS.contains(f.normal) && !f.inTable) {
+                Div div = openDiv;
+                Consumer<String> target = blockSlot(div.chunks, () -> div.withoutHeads.discard());
+                if (f.is("figure")) {
+                    awaitFigDesc(f, target);
+                } else {
+                    textOf(f).then(target);
+                }
+            }
+        }
+
+        private void endDiv(Div div) {
+            openDiv = null;
+
+            String head = div.headSeen ? normalizeWs(div.head) : "";
+            if (head.isBlank() && div.type != null && !div.type.isBlank()) {
+                head = div.type.toUpperCase(Locale.ROOT);
+            }
+            String sectionTitle = normalizeWs(head);
+            if (sectionTitle == null || sectionTitle.isBlank()) sectionTitle = "SECTION";
+
+            String sectionText = joinBlocks(div.chunks);
+            if (sectionText.isEmpty()) sectionText = normalizeWs(div.textWithoutHeads);
+
+            if (!sectionText.isBlank()) {
+                sections.add(new Section(sectionTitle, sectionText, new ArrayList<>()));
+                sectionFound();
+            }
+        }
+
+        private void endContainer(Container container) {
+            String floating = joinBlocks(container.floating);
+            if (!floating.isBlank() && sections.stream().noneMatch(s -> s.getTitle().equals(container.name))) {
+                sections.add(new Section(container.name, floating, new ArrayList<>()));
+                sectionFound();
+            }
+        }
+
+        private static String joinBlocks(List<String> blocks) {
+            StringBuilder sb = new StringBuilder();
+            for (String chunk : blocks) {
+                if (!chunk.isBlank()) {
+                    if (!sb.isEmpty()) sb.append("\n\n");
+                    sb.append(chunk);
+                }
+            }
+            return sb.toString().trim();
+        }
+
+        // ── raw content ──────────────────────────────────────────────
+
+        private void startRawContent(Frame f) {
+            if (f.inTable) return;
+            boolean figure = f.is("figure");
+            if (!figure && !GrobidTextExtractor.BLOCK_TAGS.contains(f.normal)) return;
+
+            RawBlock block = new RawBlock(inTextRoot, new ArrayList<>(1));
+            rawBlocks.add(block);
+            Consumer<String> target = blockSlot(block.text(), inTextRoot ? this::rawBlockFound : () -> {});
+            if (figure) {
+                awaitFigDesc(f, target);
+            } else {
+                textOf(f).then(target);
+            }
+        }
+
+        String rawContent() {
+            StringBuilder out = new StringBuilder(4096);
+            for (RawBlock block : rawBlocks) {
+                if (textRoot != null && !block.inTextRoot()) continue;
+                String t = block.text().get(0);
+                if (!t.isBlank()) {
+                    if (!out.isEmpty()) out.append("\n\n");
+                    out.append(t);
+                }
+            }
+
+            if (out.isEmpty() || out.toString().isBlank()) {
+                out.setLength(0);
+                // Same fallback chain as GrobidTextExtractor.teiToPlainText
+                String fallback = cleanText(textRoot != null ? textRootText : docText);
+                if ((fallback == null || fallback.isBlank()) && bodySeen) fallback = cleanText(bodyText);
+                if (fallback == null || fallback.isBlank()) fallback = cleanText(docText);
+                if (fallback != null && !fallback.isBlank()) out.append(fallback);
+            }
+            return out.toString().trim();
+        }
+
+        // ── references ───────────────────────────────────────────────
+
+        private void startReferences(Frame f) {
+            for (Ref ref : openRefs) {
+                collectReference(ref, f);
+            }
+            if (f.is("biblstruct") && f.underRefContainer) {
+                openReference(f, new Ref(f.depth, true), biblStructs);
+            } else if (f.is("bibl") && f.parent != null && f.parent.refContainer) {
+                openReference(f, new Ref(f.depth, false), bibls);
+            }
+        }
+
+        private void openReference(Frame f, Ref ref, List<Ref> list) {
+            list.add(ref);
+            openRefs.add(ref);
+            f.ref = ref;
+            textOf(f).then(t -> ref.text = t);
+        }
+
+        private void collectReference(Ref ref, Frame f) {
+            if ((f.is("ptr") || f.is("ref")) && f.target != null) {
+                ref.urls.add(f.target);
+                return;
+            }
+            if (!ref.structured) return;
+
+            switch (f.normal) {
+                case "title" -> {
+                    if (f.parent.is("analytic") && !ref.analyticTitleSeen) {
+                        ref.analyticTitleSeen = true;
+                        textOf(f).then(t -> ref.analyticTitle = t);
+                    }
+                    if (f.parent.is("monogr") && !ref.monogrTitleSeen) {
+                        ref.monogrTitleSeen = true;
+                        textOf(f).then(t -> ref.monogrTitle = t);
+                    }
+                }
+                case "idno" -> {
+                    Idno idno = new Idno(f.type, new ArrayList<>(1));
+                    ref.idnos.add(idno);
+                    textOf(f).then(slot(idno.text()));
+                    if (attrEquals(f.type, "url")) {
+                        if (f.target != null) ref.urls.add(f.target);
+                        else textOf(f).then(slot(ref.urls));
+                    }
+                    if (attrEquals(f.type, "doi") && !ref.doiSeen) {
+                        ref.doiSeen = true;
+                        textOf(f).then(t -> ref.doiText = t);
+                    }
+                }
+                case "persname" -> {
+                    if (hasAncestors(ref.depth, "author")) textOf(f).then(slot(ref.authors));
+                }
+                case "date" -> {
+                    if (!ref.dateSeen) {
+                        ref.dateSeen = true;
+                        if (f.when != null) ref.dateValue = f.when;
+                        else textOf(f).then(t -> ref.dateValue = t);
+                    }
+                    if (!ref.imprintDateSeen && hasAncestors(ref.depth, "monogr", "imprint")) {
+                        ref.imprintDateSeen = true;
+                        textOf(f).then(t -> ref.imprintDate = t);
+                    }
+                }
+                case "note" -> {
+                    if (!ref.rawNoteSeen && f.type != null && RAW_NOTE_TYPES.contains(f.type.trim().toLowerCase(Locale.ROOT))) {
+                        ref.rawNoteSeen = true;
+                        textOf(f).then(t -> ref.rawNote = t);
+                    }
+                }
+                case "publisher" -> {
+                    if (!ref.publisherSeen && hasAncestors(ref.depth, "monogr", "imprint")) {
+                        ref.publisherSeen = true;
+                        textOf(f).then(t -> ref.publisher = t);
+                    }
+                }
+                case "pubplace" -> {
+                    if (!ref.pubPlaceSeen && hasAncestors(ref.depth, "monogr", "imprint")) {
+                        ref.pubPlaceSeen = true;
+                        textOf(f).then(t -> ref.pubPlace = t);
+                    }
+                }
+                case "biblscope" -> {
+                    if (f.unit != null && hasAncestors(ref.depth, "monogr", "imprint")) {
+                        BiblScope scope = new BiblScope(f.unit, f.from, new ArrayList<>(1));
+                        ref.scopes.add(scope);
+                        if (f.from == null) textOf(f).then(slot(scope.text()));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        // ── assembly ─────────────────────────────────────────────────
+
+        List<String> keywords() {
+            return terms.stream()
+                    .map(GrobidTeiUtils::normalizeWs)
+                    .filter(s -> !s.isBlank())
+                    .distinct()
+                    .toList();
+        }
+
+        List<String> affiliations() {
+            List<String> result = new ArrayList<>();
+            for (Affiliation aff : affiliationList) {
+                List<String> parts = new ArrayList<>();
+                for (List<String> group : List.of(aff.departments, aff.institutions, aff.others)) {
+                    for (String part : group) {
+                        String t = normalizeWs(part);
+                        if (!t.isBlank()) parts.add(t);
+                    }
+                }
+                String joined = GrobidTextExtractor.joinAffiliation(parts, () -> aff.text);
+                if (!joined.isBlank()) result.add(joined);
+            }
+            return result.stream().distinct().toList();
+        }
+
+        List<String> classCodes() {
+            List<String> out = new ArrayList<>();
+            for (String text : classCodeTexts) {
+                GrobidTextExtractor.addClassCodes(out, text);
+            }
+            return out.stream().distinct().toList();
+        }
+
+        String docType() {
+            if (textRoot != null && textRoot.type != null && !textRoot.type.isBlank()) {
+                return normalizeWs(textRoot.type);
+            }
+            if (teiSubtype != null && !teiSubtype.isBlank()) return normalizeWs(teiSubtype);
+            return null;
+        }
+
+        List<Reference> references() {
+            List<Reference> out = new ArrayList<>();
+            int idx = 0;
+            for (List<Ref> refs : List.of(biblStructs, bibls)) {
+                for (Ref ref : refs) {
+                    idx++;
+                    Reference r = ref.toReference(idx);
+                    if (r != null) out.add(r);
+                }
+            }
+            return GrobidReferenceExtractor.distinct(out);
+        }
+    }
+}
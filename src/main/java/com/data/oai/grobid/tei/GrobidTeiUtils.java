@@ -27,8 +27,12 @@ final class GrobidTeiUtils {
     }
 
     static String textOrNull(Element el) {
-        if (el == null) return null;
-        String t = normalizeWs(el.text());
+        return el == null ? null : textOrNull(el.text());
+    }
+
+    static String textOrNull(String text) {
+        if (text == null) return null;
+        String t = normalizeWs(text);
         return t.isBlank() ? null : t;
     }
 
@@ -7,6 +7,7 @@ import org.jsoup.select.Elements;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.data.oai.grobid.tei.GrobidTeiUtils.*;
 
@@ -18,7 +19,7 @@ final class GrobidTextExtractor {
 
     private GrobidTextExtractor() {}
 
-    private static final Set<String> BLOCK_TAGS = Set.of(
+    static final Set<String> BLOCK_TAGS = Set.of(
             "head", "p", "ab", "quote", "cit", "list", "item", "label", "note", "formula", "figdesc"
     );
 
@@ -77,31 +78,40 @@ final class GrobidTextExtractor {
                 if (!t.isBlank()) parts.add(t);
             }
 
-            String joined = normalizeWs(String.join(", ", parts));
-            if (joined.isBlank()) joined = normalizeWs(aff.text());
-
+            String joined = joinAffiliation(parts, aff::text);
             if (!joined.isBlank()) result.add(joined);
         }
 
         return result.stream().distinct().toList();
     }
 
+    /** Non-blank orgName parts joined with commas, or the whole affiliation text without them. */
+    static String joinAffiliation(List<String> parts, Supplier<String> affiliationText) {
+        String joined = normalizeWs(String.join(", ", parts));
+        return joined.isBlank() ? normalizeWs(affiliationText.get()) : joined;
+    }
+
     static List<String> extractClassCodes(Document tei) {
         List<String> out = new ArrayList<>();
 
         for (Element cc : tei.select("teiHeader profileDesc textClass classCode")) {
-            String raw = normalizeWs(cc.text());
-            if (raw.isBlank()) continue;
-
-            for (String token : raw.split("[,;\\s]+")) {
-                String code = token.trim();
-                if (!code.isBlank()) out.add(code);
-            }
+            addClassCodes(out, cc.text());
         }
 
         return out.stream().distinct().toList();
     }
 
+    /** Splits one {@code classCode} text on commas, semicolons and whitespace. */
+    static void addClassCodes(List<String> out, String classCodeText) {
+        String raw = normalizeWs(classCodeText);
+        if (raw.isBlank()) return;
+
+        for (String token : raw.split("[,;\\s]+")) {
+            String code = token.trim();
+            if (!code.isBlank()) out.add(code);
+        }
+    }
+
     /**
      * Improved plain-text view intended for search/fulltext.
      * - does NOT dump table cells (we don't traverse table structures)
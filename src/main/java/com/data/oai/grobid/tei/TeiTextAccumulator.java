@@ -0,0 +1,113 @@
+package com.data.oai.grobid.tei;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Builds the text of one element from StAX events, producing exactly the string
+ * jsoup's {@code Element.text()} returns for the same element parsed with
+ * {@code Parser.xmlParser()}.
+ *
+ * <p>That is what lets {@link GrobidTeiMapperStax} match {@link GrobidTeiMapperJsoup}
+ * without a DOM. In XML mode jsoup treats every element as inline, so the rules
+ * are few: whitespace runs (including U+00A0) collapse to one space, zero-width
+ * spaces and soft hyphens are dropped, a {@code br} element counts as a space,
+ * and the result is trimmed. Adjacent elements are not separated.</p>
+ *
+ * <p>Depths are absolute: the document is 0, the root element 1. Events are fed
+ * for nodes strictly inside the element; {@link #close()} hands the text to the
+ * registered targets.</p>
+ */
+final class TeiTextAccumulator {
+
+    private final int depth;
+    private final String skippedChild;
+    private final StringBuilder accum = new StringBuilder();
+    private final List<Consumer<String>> targets = new ArrayList<>(2);
+
+    /** Depth of the skipped child currently open, -1 if none. */
+    private int skipping = -1;
+    private boolean discarded;
+
+    TeiTextAccumulator(int depth) {
+        this(depth, null);
+    }
+
+    /**
+     * @param skippedChild lower-case name of direct children left out of the text,
+     *                     as if they had been removed from the DOM; {@code null} for none
+     */
+    TeiTextAccumulator(int depth, String skippedChild) {
+        this.depth = depth;
+        this.skippedChild = skippedChild;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    TeiTextAccumulator then(Consumer<String> target) {
+        targets.add(target);
+        return this;
+    }
+
+    void startElement(int d, String normalName) {
+        if (discarded || skipping >= 0) return;
+        if (skippedChild != null && d == depth + 1 && skippedChild.equals(normalName)) {
+            skipping = d;
+        } else if ("br".equals(normalName) && !accum.isEmpty() && !lastIsSpace()) {
+            accum.append(' ');
+        }
+    }
+
+    void endElement(int d) {
+        if (skipping == d) skipping = -1;
+    }
+
+    void text(String text) {
+        if (discarded || skipping >= 0) return;
+        boolean stripLeading = lastIsSpace();
+        boolean lastWasWhite = false;
+        boolean reachedNonWhite = false;
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (isWhitespace(c)) {
+                if ((stripLeading && !reachedNonWhite) || lastWasWhite) continue;
+                accum.append(' ');
+                lastWasWhite = true;
+            } else if (c != 0x200B && c != 0x00AD) { // zero-width space, soft hyphen
+                accum.appendCodePoint(c);
+                lastWasWhite = false;
+                reachedNonWhite = true;
+            }
+        }
+    }
+
+    /**
+     * Stops accumulating because the text turned out not to be needed, e.g. a
+     * fallback whose primary source already produced content. Targets are not called.
+     */
+    void discard() {
+        discarded = true;
+        accum.setLength(0);
+        accum.trimToSize();
+    }
+
+    void close() {
+        if (discarded) return;
+        String text = accum.toString().trim();
+        for (Consumer<String> target : targets) {
+            target.accept(text);
+        }
+    }
+
+    private boolean lastIsSpace() {
+        return !accum.isEmpty() && accum.charAt(accum.length() - 1) == ' ';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 0x00A0;
+    }
+}
@@ -0,0 +1,275 @@
+package com.data.oai.persistence;
+
+import com.data.config.properties.PaperPersistenceProperties;
+import com.data.oai.persistence.bulk.PaperCopyLoader;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Group-commit writer in front of {@link PaperInternalService}.
+ *
+ * <p>Workers call {@link #write}, which blocks until the paper is committed. A
+ * single flusher thread collects pending papers and writes them through
+ * {@link PaperInternalService#persistBatch} in one transaction once
+ * {@code paper.persistence.batch.size} papers are pending or the oldest has waited
+ * {@code max-wait-ms}. One commit and one set of JDBC batches per table replaces a
+ * commit per paper.</p>
+ *
+ * <p>A duplicate must not cost the rest of the batch. Duplicates inside the batch
+ * are rejected before writing. If the database still reports a
+ * {@link DataIntegrityViolationException} (a record committed by another run), the
+ * batch is split in halves and retried until the offending paper is alone. The
+ * offending paper's caller gets the exception, exactly as with
+ * {@link PaperInternalService#persistState}. Other failures fail the whole batch.</p>
+ *
+ * <p>Pipelines configured with {@link PaperWriteMode#COPY} are flushed through
+ * {@link PaperCopyLoader} instead. That path skips existing records in the database
+ * ({@code ON CONFLICT DO NOTHING}), and their callers get the same
+ * {@link DataIntegrityViolationException}.</p>
+ *
+ * <p>When batching is disabled, or before {@link #start} / after {@link #stop},
+ * {@link #write} falls back to a direct {@code persistState} call.
+ * {@link PaperWriteRequest#replace() Replacements} are rare and always written
+ * directly with {@link PaperInternalService#replaceState}.</p>
+ *
+ * <p>Every committed paper is added to the {@link SourceIdIndex} and counted in
+ * {@link StorageStatsService}, whichever path wrote it.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaperBatchWriter {
+
+    private final PaperInternalService paperInternalService;
+    private final PaperCopyLoader paperCopyLoader;
+    private final SourceIdIndex sourceIdIndex;
+    private final PaperPersistenceProperties props;
+    private final StorageStatsService storageStats;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread flusher;
+
+    @PostConstruct
+    void start() {
+        PaperPersistenceProperties.Batch batch = props.batch();
+        if (batch == null || !batch.enabled()) {
+            log.info("Paper group commit disabled — one transaction per paper");
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("paper-batch-writer").daemon(true).factory().newThread(this::flushLoop);
+        flusher.start();
+        log.info("Paper group commit enabled: size={} maxWaitMs={}", batch.size(), batch.maxWaitMs());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Writes one paper and blocks until its batch has been committed.
+     *
+     * @throws DataIntegrityViolationException if the paper is a duplicate
+     */
+    public void write(PaperWriteRequest request) {
+        if (request.replace()) {
+            request = request.withReplacedBytes(paperInternalService.replaceState(
+                    request.dataSource(), request.record(), request.document(), request.pdfUrl()));
+        } else {
+            commit(request);
+        }
+        sourceIdIndex.add(request.dataSource(), request.record().getSourceId());
+        storageStats.record(request);
+    }
+
+    private void commit(PaperWriteRequest request) {
+        if (!running) {
+            persistDirectly(request);
+            return;
+        }
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // Raced with stop(): the flusher has already drained for the last time
+            persistDirectly(request);
+            return;
+        }
+        try {
+            pending.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for paper batch commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Paper batch commit failed", e.getCause());
+        }
+    }
+
+    private void persistDirectly(PaperWriteRequest request) {
+        if (usesCopy(request)) {
+            if (!paperCopyLoader.load(List.of(request)).get(0)) {
+                throw alreadyExists(request);
+            }
+            return;
+        }
+        paperInternalService.persistState(request.dataSource(), request.record(), request.document(), request.pdfUrl());
+    }
+
+    private boolean usesCopy(PaperWriteRequest request) {
+        return props.writeModeFor(request.dataSource()) == PaperWriteMode.COPY && PaperCopyLoader.supports(request);
+    }
+
+    private static DataIntegrityViolationException alreadyExists(PaperWriteRequest request) {
+        return new DataIntegrityViolationException("Paper sourceId=%s externalIdentifier=%s already exists (skipped by bulk load)"
+                .formatted(request.record().getSourceId(), request.record().getExternalIdentifier()));
+    }
+
+    // ── Flusher ──────────────────────────────────────────────────────
+
+    private void flushLoop() {
+        int maxSize = Math.max(1, props.batch().size());
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(props.batch().maxWaitMs());
+        List<Pending> batch = new ArrayList<>(maxSize);
+
+        while (true) {
+            Pending first;
+            try {
+                first = running ? queue.take() : queue.poll();
+            } catch (InterruptedException e) {
+                continue; // stop() wakes us up; the next iteration drains without blocking
+            }
+            if (first == null) {
+                return; // stopped and drained
+            }
+
+            batch.add(first);
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (batch.size() < maxSize) {
+                long remaining = deadline - System.nanoTime();
+                Pending next;
+                try {
+                    next = running && remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                } catch (InterruptedException e) {
+                    next = queue.poll();
+                }
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long t0 = System.nanoTime();
+        List<Pending> unique = rejectDuplicatesWithinBatch(batch);
+        Map<Boolean, List<Pending>> byCopy = unique.stream()
+                .collect(Collectors.partitioningBy(p -> usesCopy(p.request())));
+        int transactions = persistIsolatingDuplicates(byCopy.get(false)) + copyLoad(byCopy.get(true));
+        log.debug("Flushed {} papers ({} rejected in-batch) in {} ms using {} transaction(s)",
+                unique.size(), batch.size() - unique.size(), (System.nanoTime() - t0) / 1_000_000, transactions);
+    }
+
+    /**
+     * Fails every paper whose source or external identifier already occurs earlier
+     * in the same batch. Both columns carry unique constraints, so the database
+     * would reject them anyway, only after rolling back everything else.
+     */
+    private static List<Pending> rejectDuplicatesWithinBatch(List<Pending> batch) {
+        Set<String> sourceIds = new HashSet<>();
+        Set<String> externalIds = new HashSet<>();
+        List<Pending> unique = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            String sourceId = p.request().record().getSourceId();
+            String externalId = p.request().record().getExternalIdentifier();
+            boolean duplicate = (sourceId != null && !sourceIds.add(sourceId))
+                    | (externalId != null && !externalIds.add(externalId));
+            if (duplicate) {
+                p.result().completeExceptionally(new DataIntegrityViolationException(
+                        "Duplicate paper sourceId=%s externalIdentifier=%s within one batch".formatted(sourceId, externalId)));
+            } else {
+                unique.add(p);
+            }
+        }
+        return unique;
+    }
+
+    /** @return number of transactions it took to write the papers */
+    private int persistIsolatingDuplicates(List<Pending> papers) {
+        if (papers.isEmpty()) {
+            return 0;
+        }
+        try {
+            paperInternalService.persistBatch(papers.stream().map(Pending::request).toList());
+            papers.forEach(p -> p.result().complete(null));
+            return 1;
+        } catch (DataIntegrityViolationException e) {
+            if (papers.size() == 1) {
+                papers.get(0).result().completeExceptionally(e);
+                return 1;
+            }
+            int mid = papers.size() / 2;
+            return 1 + persistIsolatingDuplicates(papers.subList(0, mid))
+                    + persistIsolatingDuplicates(papers.subList(mid, papers.size()));
+        } catch (RuntimeException e) {
+            log.error("Paper batch of {} failed: {}", papers.size(), e.getMessage(), e);
+            papers.forEach(p -> p.result().completeExceptionally(e));
+            return 1;
+        }
+    }
+
+    /** @return number of transactions used (0 or 1) */
+    private int copyLoad(List<Pending> papers) {
+        if (papers.isEmpty()) {
+            return 0;
+        }
+        try {
+            BitSet inserted = paperCopyLoader.load(papers.stream().map(Pending::request).toList());
+            for (int i = 0; i < papers.size(); i++) {
+                Pending p = papers.get(i);
+                if (inserted.get(i)) {
+                    p.result().complete(null);
+                } else {
+                    p.result().completeExceptionally(alreadyExists(p.request()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Paper COPY batch of {} failed: {}", papers.size(), e.getMessage(), e);
+            papers.forEach(p -> p.result().completeExceptionally(e));
+        }
+        return 1;
+    }
+
+    private record Pending(PaperWriteRequest request, CompletableFuture<Void> result) {}
+}
@@ -1,6 +1,9 @@
 package com.data.oai.persistence;
 
 import com.data.embedding.dto.EmbeddingDto;
+import com.data.oai.persistence.blob.DocumentBlobCodec;
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.DocumentBlobKind;
 import com.data.oai.persistence.entity.EmbedTranscriptChunkEntity;
 import com.data.oai.persistence.entity.PaperDocumentEntity;
 import com.data.oai.persistence.entity.RecordAuthorEntity;
@@ -23,8 +26,11 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -35,10 +41,48 @@ public class PaperInternalService {
 
     @Transactional
     public void persistState(DataSource dataSource, Record r, PaperDocument doc, String pdfUrl) {
-        persistRecord(r, dataSource, doc, pdfUrl);
+        recordRepository.save(toRecordEntity(r, dataSource, doc, pdfUrl));
     }
 
-    private void persistRecord(
+    /**
+     * Replaces the stored paper with the same source id, e.g. a new version of a PMC
+     * article. The old record and everything below it are deleted and the new one is
+     * inserted in one transaction, so readers see either version, never neither.
+     * Behaves like {@link #persistState} when nothing is stored yet.
+     *
+     * @return content bytes of the replaced version, or {@code -1} if nothing was stored
+     */
+    @Transactional
+    public long replaceState(DataSource dataSource, Record r, PaperDocument doc, String pdfUrl) {
+        Long replacedBytes = recordRepository.findContentBytesBySourceId(dataSource.name(), r.getSourceId());
+        recordRepository.deleteEmbeddingChunksBySourceId(dataSource.name(), r.getSourceId());
+        int deleted = recordRepository.deleteBySourceId(dataSource.name(), r.getSourceId());
+        log.debug("Replacing {} {} ({} stored record(s) removed)", dataSource, r.getSourceId(), deleted);
+        recordRepository.save(toRecordEntity(r, dataSource, doc, pdfUrl));
+        return replacedBytes == null ? -1 : replacedBytes;
+    }
+
+    /**
+     * Persists several papers in one transaction. Entities are flushed together, so
+     * Hibernate's JDBC batching ({@code hibernate.jdbc.batch_size}, ordered inserts)
+     * groups the inserts per table across all papers. Any constraint violation rolls
+     * back the whole call; {@link PaperBatchWriter} is responsible for isolating it.
+     */
+    @Transactional
+    public void persistBatch(List<PaperWriteRequest> papers) {
+        List<RecordEntity> entities = papers.stream()
+                .map(p -> toRecordEntity(p.record(), p.dataSource(), p.document(), p.pdfUrl()))
+                .toList();
+        recordRepository.saveAll(entities);
+        recordRepository.flush();
+    }
+
+    /**
+     * Builds the full entity graph (record, document, sections, references, authors,
+     * categories) for one paper without touching the persistence context. Shared by
+     * the JPA path and the COPY bulk loader so both write identical rows.
+     */
+    public static RecordEntity toRecordEntity(
             Record recordFromApi,
             DataSource dataSource,
             PaperDocument grobidDoc,
@@ -47,7 +91,7 @@ public class PaperInternalService {
         addPaperDocument(grobidDoc, dbRecord);
         addCategories(recordFromApi, dbRecord);
         addAuthors(recordFromApi, dbRecord);
-        recordRepository.save(dbRecord);
+        return dbRecord;
     }
 
     private static void addCategories(Record recordFromApi, RecordEntity dbRecord) {
@@ -92,8 +136,6 @@ public class PaperInternalService {
         PaperDocumentEntity doc = PaperDocumentEntity.builder()
                 .title(grobidDoc.title())
                 .abstractText(grobidDoc.abstractText())
-                .sourceXml(grobidDoc.sourceXml())
-                .rawContent(grobidDoc.rawContent())
                 .keywords(grobidDoc.keywords())
                 .affiliations(grobidDoc.affiliation())
                 .classCodes(grobidDoc.classCodes())
@@ -101,12 +143,23 @@ public class PaperInternalService {
                 .docType(grobidDoc.docType())
                 .sections(new ArrayList<>())
                 .references(new ArrayList<>())
+                .blobs(new ArrayList<>())
                 .build();
+        addBlob(doc, DocumentBlobKind.SOURCE_XML, grobidDoc.sourceXml());
+        addBlob(doc, DocumentBlobKind.RAW_CONTENT, grobidDoc.rawContent());
         addSections(grobidDoc, doc);
         addReferences(grobidDoc, doc);
         dbRecord.setDocument(doc);
     }
 
+    /** Large texts go compressed into {@code document_blob}, not onto the document row. */
+    private static void addBlob(PaperDocumentEntity doc, DocumentBlobKind kind, String text) {
+        DocumentBlobEntity blob = DocumentBlobCodec.toEntity(kind, text);
+        if (blob != null) {
+            doc.addBlob(blob);
+        }
+    }
+
     private static void addSections(PaperDocument grobidDoc, PaperDocumentEntity doc) {
         List<Section> sections = grobidDoc.sections();
         if (sections == null || sections.isEmpty()) return;
@@ -178,20 +231,29 @@ public class PaperInternalService {
                 .build();
     }
 
-    public List<String> findArxivIdsProcessedInPeriod(LocalDate dateStart, LocalDate dateEnd, DataSource dataSource) {
-        return recordRepository.findSourceIdsProcessedInPeriodAndByDataSource(
-                dateStart,
-                dateEnd,
-                dataSource
-        );
-    }
-
     /**
-     * Returns every {@code sourceId} already persisted for the given data source.
-     * Used by pipelines (e.g. PMC S3) that deduplicate against the whole corpus
-     * rather than a narrow datestamp window.
+     * Streams every {@code sourceId} persisted for the data source with a record id
+     * above {@code afterId} to {@code consumer}, without materialising the list.
+     *
+     * @return the highest record id seen, or {@code afterId} if there were none
      */
-    public List<String> findAllSourceIdsByDataSource(DataSource dataSource) {
-        return recordRepository.findAllSourceIdsByDataSource(dataSource);
+    @Transactional
+    public long forEachSourceId(DataSource dataSource, long afterId, Consumer<String> consumer) {
+        long maxId = afterId;
+        try (Stream<RecordRepository.SourceIdRow> rows = recordRepository.streamSourceIdsAfter(dataSource, afterId)) {
+            Iterator<RecordRepository.SourceIdRow> it = rows.iterator();
+            while (it.hasNext()) {
+                RecordRepository.SourceIdRow row = it.next();
+                consumer.accept(row.getSourceId());
+                maxId = Math.max(maxId, row.getId());
+            }
+        }
+        return maxId;
+    }
+
+    /** Highest record id stored for the data source, or {@code 0} if there are none. */
+    @Transactional
+    public long maxRecordId(DataSource dataSource) {
+        return recordRepository.findMaxIdByDataSource(dataSource);
     }
 }
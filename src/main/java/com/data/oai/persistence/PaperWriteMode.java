@@ -0,0 +1,14 @@
+package com.data.oai.persistence;
+
+/**
+ * How {@link PaperBatchWriter} writes a flushed batch of papers.
+ */
+public enum PaperWriteMode {
+    /** Hibernate entity graph with JDBC batching — the default. */
+    JPA,
+    /**
+     * Binary {@code COPY} into temporary staging tables, then an
+     * {@code INSERT ... ON CONFLICT DO NOTHING} merge. Intended for backfills.
+     */
+    COPY
+}
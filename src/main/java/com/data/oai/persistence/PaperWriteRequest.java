@@ -0,0 +1,36 @@
+package com.data.oai.persistence;
+
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Record;
+import com.data.shared.DataSource;
+
+/**
+ * A finished paper waiting to be written by {@link PaperBatchWriter}.
+ *
+ * @param dataSource source pipeline the record belongs to
+ * @param record     record metadata
+ * @param document   parsed document (GROBID or JATS), may be {@code null}
+ * @param pdfUrl     URL the PDF was (or would be) fetched from
+ * @param replace    whether a stored paper with the same source id is replaced
+ *                   (a new version of the article) instead of failing as a duplicate
+ * @param replacedBytes content bytes of the stored version a replacement removed, or
+ *                      {@code -1} if none was stored; filled in by {@link PaperBatchWriter}
+ *                      once the replacement is committed
+ */
+public record PaperWriteRequest(DataSource dataSource, Record record, PaperDocument document, String pdfUrl,
+                                boolean replace, long replacedBytes) {
+
+    public PaperWriteRequest(DataSource dataSource, Record record, PaperDocument document, String pdfUrl,
+                             boolean replace) {
+        this(dataSource, record, document, pdfUrl, replace, -1);
+    }
+
+    public PaperWriteRequest(DataSource dataSource, Record record, PaperDocument document, String pdfUrl) {
+        this(dataSource, record, document, pdfUrl, false);
+    }
+
+    /** This request after a replacement that removed a stored version of {@code bytes}. */
+    public PaperWriteRequest withReplacedBytes(long bytes) {
+        return new PaperWriteRequest(dataSource, record, document, pdfUrl, replace, bytes);
+    }
+}
@@ -2,20 +2,41 @@ package com.data.oai.persistence;
 
 import com.data.oai.persistence.entity.Tracker;
 import com.data.oai.persistence.repository.TrackerRepository;
+import com.data.oai.shared.dto.HarvestCheckpoint;
 import com.data.shared.DataSource;
+import com.data.shared.progress.CoalescedCounters;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Read/write facade for {@link Tracker}. The processed counter is accumulated in
+ * memory ({@link CoalescedCounters}) and written on a fixed interval
+ * ({@code tracker.flush-interval-ms}), when the harvest of a period completes and
+ * on shutdown, instead of one UPDATE per record.
+ *
+ * <p>The tracker also holds the resumption checkpoint of an interrupted harvest
+ * ({@link #saveCheckpoint}), so a restart continues from the last fully processed
+ * page instead of listing the period from page one.</p>
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TrackerService {
+
+    enum Counter { PROCESSED }
+
     private final TrackerRepository trackerRepository;
+    private final CoalescedCounters<Counter> counters = new CoalescedCounters<>(Counter.class);
 
     public Tracker getTracker(LocalDate startDate, DataSource dataSource) {
         Optional<Tracker> trackerForDate = trackerRepository.findByDateStartAndDataSource(startDate, dataSource);
@@ -40,17 +61,104 @@ public class TrackerService {
         }
     }
 
+    /**
+     * Saves the tracker as is. Pending in-memory increments for it are dropped,
+     * since the saved counters replace them.
+     */
     @Transactional
     public void persistTracker(Tracker tracker) {
+        counters.discard(tracker.getId());
         trackerRepository.save(tracker);
     }
 
     /**
-     * Atomically increments the processed count at the DB level.
-     * Thread-safe — can be called from multiple GROBID pool threads concurrently.
+     * Counts one processed record. Thread-safe and lock-free — called from every
+     * pipeline worker; the database is updated on the next flush.
      */
-    @Transactional
     public void incrementProcessed(Long trackerId) {
-        trackerRepository.incrementProcessed(trackerId);
+        counters.add(trackerId, Counter.PROCESSED, 1);
+    }
+
+    /**
+     * Adds {@code delta} to the processed count. Used by the streaming harvest for
+     * records skipped on a page (already persisted, filtered out).
+     */
+    public void addProcessed(Long trackerId, int delta) {
+        if (delta > 0) {
+            counters.add(trackerId, Counter.PROCESSED, delta);
+        }
+    }
+
+    /** Processed count including increments not yet flushed. */
+    public int liveProcessed(Tracker tracker) {
+        return tracker.getProcessedPapersForPeriod() + (int) counters.pending(tracker.getId(), Counter.PROCESSED);
+    }
+
+    /**
+     * Returns the tracker's checkpoint if the harvest can continue from it: there
+     * is a next page and its token has not expired. Otherwise {@code null}, and the
+     * harvest starts from page one.
+     */
+    public HarvestCheckpoint resumableCheckpoint(Tracker tracker) {
+        if (tracker.getResumptionToken() == null) {
+            return null;
+        }
+        HarvestCheckpoint checkpoint = new HarvestCheckpoint(
+                tracker.getResumptionToken(),
+                tracker.getResumptionPage(),
+                tracker.getResumptionListed(),
+                tracker.getResumptionExpiresAt() != null ? tracker.getResumptionExpiresAt().toInstant() : null);
+        if (!checkpoint.resumableAt(Instant.now())) {
+            log.info("[{}] Resumption token for {} expired at {}; harvesting from page one",
+                    tracker.getDataSource(), tracker.getDateStart(), checkpoint.expiresAt());
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /** Clears the checkpoint on the entity; written by the next {@link #persistTracker}. */
+    public void clearCheckpoint(Tracker tracker) {
+        tracker.setResumptionToken(null);
+        tracker.setResumptionPage(null);
+        tracker.setResumptionListed(null);
+        tracker.setResumptionExpiresAt(null);
+    }
+
+    /**
+     * Saves the position after a page whose records have all been processed.
+     * Called from pipeline workers; one UPDATE per page.
+     */
+    public void saveCheckpoint(Long trackerId, HarvestCheckpoint checkpoint) {
+        trackerRepository.updateCheckpoint(trackerId,
+                checkpoint.resumptionToken(),
+                checkpoint.page(),
+                checkpoint.listed(),
+                checkpoint.expiresAt() != null ? checkpoint.expiresAt().atOffset(ZoneOffset.UTC) : null);
+    }
+
+    /**
+     * Flushes the processed count, then records the final number of listed records
+     * once the harvest for the period has paged through its last resumptionToken.
+     * Until then the total stays 0, so a run interrupted mid-harvest is never
+     * mistaken for a complete one. The resumption checkpoint is cleared.
+     */
+    @Transactional
+    public void markHarvested(Long trackerId, int allPapersForPeriod) {
+        counters.close(trackerId, this::writeCounters);
+        trackerRepository.updateAllPapers(trackerId, allPapersForPeriod);
+    }
+
+    @Scheduled(fixedDelayString = "${tracker.flush-interval-ms:2000}")
+    public void flushCounters() {
+        counters.flushAll(this::writeCounters);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushCounters();
+    }
+
+    private void writeCounters(Long trackerId, Map<Counter, Long> deltas) {
+        trackerRepository.addProcessed(trackerId, Math.toIntExact(deltas.get(Counter.PROCESSED)));
     }
 }
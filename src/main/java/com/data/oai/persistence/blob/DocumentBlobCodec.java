@@ -0,0 +1,58 @@
+package com.data.oai.persistence.blob;
+
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.DocumentBlobId;
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import com.github.luben.zstd.Zstd;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes document texts for {@code document_blob}: UTF-8, compressed with zstd.
+ *
+ * <p>TEI and JATS compress to roughly a tenth of their size, plain text to about a
+ * third. Level {@value #LEVEL} keeps compression well ahead of the rate papers
+ * are produced at (GROBID) and of the migration's throttle.</p>
+ */
+public final class DocumentBlobCodec {
+
+    public static final String ZSTD = "zstd";
+
+    static final int LEVEL = 6;
+
+    private DocumentBlobCodec() {
+    }
+
+    /**
+     * Builds the blob row for a text; the caller attaches it to its document.
+     * Returns {@code null} for a {@code null} text, which is stored as no row.
+     */
+    public static DocumentBlobEntity toEntity(DocumentBlobKind kind, String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        return DocumentBlobEntity.builder()
+                .id(new DocumentBlobId(null, kind))
+                .codec(ZSTD)
+                .rawLength(utf8.length)
+                .content(compress(utf8))
+                .build();
+    }
+
+    public static byte[] compress(byte[] utf8) {
+        return Zstd.compress(utf8, LEVEL);
+    }
+
+    /**
+     * Decodes a stored blob back to its text.
+     *
+     * @throws IllegalStateException if the codec is unknown
+     */
+    public static String decode(String codec, int rawLength, byte[] content) {
+        if (!ZSTD.equals(codec)) {
+            throw new IllegalStateException("Unknown document blob codec: " + codec);
+        }
+        return new String(Zstd.decompress(content, rawLength), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,11 @@
+package com.data.oai.persistence.blob;
+
+/**
+ * Projection of a {@code document_blob} row without its document, for bulk reads.
+ */
+public record DocumentBlobContent(
+        Long documentId,
+        String codec,
+        int rawLength,
+        byte[] content
+) {}
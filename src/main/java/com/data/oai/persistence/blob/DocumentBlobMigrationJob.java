@@ -0,0 +1,162 @@
+package com.data.oai.persistence.blob;
+
+import com.data.config.properties.DocumentBlobProperties;
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the source XML and raw content of documents written before V31 from
+ * {@code record_document} into compressed {@code document_blob} rows.
+ *
+ * <p>Runs once after startup on its own virtual thread when
+ * {@code paper.blob.migration.enabled} is set. Documents are walked in id order,
+ * {@code batch-size} at a time; each batch is one transaction that inserts the
+ * blobs and clears the old columns, then the job pauses for {@code pause-ms}.
+ * Rows are locked with {@code SKIP LOCKED}, so several instances can run it at
+ * once, and it stops when no document with a legacy text is left. Space freed in
+ * {@code record_document} is reused after autovacuum; it only shrinks on disk
+ * after {@code VACUUM FULL} or {@code pg_repack}.</p>
+ */
+@Slf4j
+@Component
+public class DocumentBlobMigrationJob {
+
+    private static final String SELECT_BATCH = """
+            SELECT id, source_xml, raw_content FROM record_document
+            WHERE id > ? AND (source_xml IS NOT NULL OR raw_content IS NOT NULL)
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String INSERT_BLOB = """
+            INSERT INTO document_blob (document_id, kind, codec, raw_length, content)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (document_id, kind) DO NOTHING
+            """;
+
+    private static final String CLEAR_LEGACY =
+            "UPDATE record_document SET source_xml = NULL, raw_content = NULL WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactions;
+    private final DocumentBlobProperties.Migration props;
+
+    private volatile Thread worker;
+
+    public DocumentBlobMigrationJob(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    DocumentBlobProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.props = props.migration();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (props == null || !props.enabled()) {
+            return;
+        }
+        worker = Thread.ofVirtual().name("document-blob-migration").start(() -> {
+            try {
+                migrateAll();
+            } catch (InterruptedException e) {
+                log.info("Document blob migration interrupted; it continues on the next start");
+            } catch (Exception e) {
+                log.error("Document blob migration failed; it continues on the next start: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * Migrates batch after batch until no legacy text is left.
+     *
+     * @return the totals of the run
+     */
+    Result migrateAll() throws InterruptedException {
+        long startedAt = System.nanoTime();
+        Result total = new Result(0, 0, 0, 0);
+        log.info("Document blob migration started (batch-size={}, pause-ms={})", props.batchSize(), props.pauseMs());
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            long afterId = total.lastId();
+            Result batch = transactions.execute(status -> migrateBatch(afterId));
+            if (batch == null || batch.documents() == 0) {
+                break;
+            }
+            total = total.plus(batch);
+            log.info("Document blob migration: {} documents moved, {} MB -> {} MB",
+                    total.documents(), total.rawBytes() / (1024 * 1024), total.storedBytes() / (1024 * 1024));
+            if (props.pauseMs() > 0) {
+                Thread.sleep(props.pauseMs());
+            }
+        }
+        log.info("Document blob migration finished: {} documents, {} MB -> {} MB in {} s",
+                total.documents(), total.rawBytes() / (1024 * 1024), total.storedBytes() / (1024 * 1024),
+                (System.nanoTime() - startedAt) / 1_000_000_000);
+        return total;
+    }
+
+    /** Moves one batch of documents with ids after {@code afterId}; runs inside a transaction. */
+    Result migrateBatch(long afterId) {
+        List<LegacyRow> rows = jdbcTemplate.query(SELECT_BATCH,
+                (rs, i) -> new LegacyRow(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                afterId, Math.max(1, props.batchSize()));
+        if (rows.isEmpty()) {
+            return new Result(afterId, 0, 0, 0);
+        }
+
+        List<Object[]> blobs = new ArrayList<>(rows.size() * 2);
+        List<Object[]> ids = new ArrayList<>(rows.size());
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (LegacyRow row : rows) {
+            for (DocumentBlobKind kind : DocumentBlobKind.values()) {
+                String text = kind == DocumentBlobKind.SOURCE_XML ? row.sourceXml() : row.rawContent();
+                if (text == null) {
+                    continue;
+                }
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                byte[] content = DocumentBlobCodec.compress(utf8);
+                blobs.add(new Object[]{row.id(), kind.name(), DocumentBlobCodec.ZSTD, utf8.length, content});
+                rawBytes += utf8.length;
+                storedBytes += content.length;
+            }
+            ids.add(new Object[]{row.id()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_BLOB, blobs);
+        jdbcTemplate.batchUpdate(CLEAR_LEGACY, ids);
+        return new Result(rows.get(rows.size() - 1).id(), rows.size(), rawBytes, storedBytes);
+    }
+
+    record LegacyRow(long id, String sourceXml, String rawContent) {}
+
+    /** Last document id moved and the totals of one batch or of the run so far. */
+    record Result(long lastId, long documents, long rawBytes, long storedBytes) {
+        Result plus(Result batch) {
+            return new Result(batch.lastId, documents + batch.documents,
+                    rawBytes + batch.rawBytes, storedBytes + batch.storedBytes);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.data.oai.persistence.blob;
+
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import com.data.oai.persistence.entity.PaperDocumentEntity;
+import com.data.oai.persistence.repository.DocumentBlobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the large texts of papers (source XML, raw content) for the code paths
+ * that need them, such as the S3 export. Nothing else reads {@code document_blob}.
+ *
+ * <p>Documents written before V31 keep their texts in the legacy
+ * {@code record_document} columns until {@link DocumentBlobMigrationJob} has moved
+ * them; those are returned as they are.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentContentService {
+
+    private final DocumentBlobRepository blobRepository;
+
+    /**
+     * Loads one text for many documents in a single query.
+     *
+     * @return text by document id; documents without that text are absent
+     */
+    public Map<Long, String> load(DocumentBlobKind kind, Collection<PaperDocumentEntity> documents) {
+        Map<Long, String> texts = new HashMap<>(documents.size() * 2);
+        List<Long> ids = documents.stream().map(PaperDocumentEntity::getId).toList();
+        if (!ids.isEmpty()) {
+            for (DocumentBlobContent blob : blobRepository.findContents(kind, ids)) {
+                texts.put(blob.documentId(), DocumentBlobCodec.decode(blob.codec(), blob.rawLength(), blob.content()));
+            }
+        }
+        for (PaperDocumentEntity document : documents) {
+            String legacy = legacyText(kind, document);
+            if (legacy != null) {
+                texts.putIfAbsent(document.getId(), legacy);
+            }
+        }
+        return texts;
+    }
+
+    /** Loads one text of one document, or {@code null} if it has none. */
+    public String load(DocumentBlobKind kind, PaperDocumentEntity document) {
+        return load(kind, List.of(document)).get(document.getId());
+    }
+
+    private static String legacyText(DocumentBlobKind kind, PaperDocumentEntity document) {
+        return switch (kind) {
+            case SOURCE_XML -> document.getSourceXml();
+            case RAW_CONTENT -> document.getRawContent();
+        };
+    }
+}
@@ -0,0 +1,385 @@
+package com.data.oai.persistence.bulk;
+
+import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.PaperDocumentEntity;
+import com.data.oai.persistence.entity.RecordAuthorEntity;
+import com.data.oai.persistence.entity.RecordEntity;
+import com.data.oai.persistence.entity.ReferenceMentionEntity;
+import com.data.oai.persistence.entity.SectionEntity;
+import com.data.oai.shared.dto.Section;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bulk-load path for the paper object graph, used by
+ * {@link com.data.oai.persistence.PaperBatchWriter} when a pipeline is configured
+ * with {@code paper.persistence.write-mode.*: COPY}.
+ *
+ * <p>Per batch, in one transaction:</p>
+ * <ol>
+ *   <li>Ids are pre-allocated from the existing sequences
+ *       ({@code source_record_id_seq}, {@code record_document_id_seq}, ...), in
+ *       blocks of {@value #SEQUENCE_INCREMENT}, the same convention Hibernate's
+ *       pooled optimizer uses, so both paths can run side by side.</li>
+ *   <li>Rows are streamed through the binary {@code COPY} protocol into
+ *       {@code ON COMMIT DROP} temporary staging tables.</li>
+ *   <li>{@code source_record} is merged with {@code ON CONFLICT DO NOTHING} (covers
+ *       both {@code source_identifier} and {@code external_identifier}); child rows
+ *       are merged only for records that were actually inserted.</li>
+ * </ol>
+ *
+ * <p>Entity graphs are built by {@link PaperInternalService#toRecordEntity}, so the
+ * rows written are the ones the JPA path would write. NOT NULL columns that rely on a
+ * database default are coalesced to that default during the merge instead of
+ * failing the whole batch.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaperCopyLoader {
+
+    /** Matches {@code INCREMENT BY 50} on the paper sequences (V22) and the entities' {@code allocationSize}. */
+    static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE stg_source_record (
+                id bigint, source_identifier text, external_identifier text, datestamp date,
+                comments text, journal_ref text, doi text, license text, language text,
+                created_at timestamptz, updated_at timestamptz, data_source text, pdf_url text
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_record_category (record_id bigint, category text) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_record_author (
+                id bigint, record_id bigint, pos integer, first_name text, last_name text, orcid text
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_record_document (
+                id bigint, record_id bigint, title text, abstract text,
+                keyword_list text[], affiliation_list text[], class_code_list text[], funding_list text[], doc_type text
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_document_blob (
+                document_id bigint, kind text, codec text, raw_length integer, content bytea
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_document_section (
+                id bigint, document_id bigint, title text, text text, pos integer
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_reference_mention (
+                id bigint, record_document_id bigint, ref_index integer, title text, doi text, year text,
+                venue text, authors text[], urls text[], idnos text[]
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE stg_inserted_record (id bigint PRIMARY KEY) ON COMMIT DROP;
+            """;
+
+    private static final String MERGE = """
+            WITH ins AS (
+                INSERT INTO source_record (id, source_identifier, external_identifier, datestamp, comments,
+                                           journal_ref, doi, license, language, created_at, updated_at,
+                                           data_source, pdf_url)
+                SELECT id, source_identifier, external_identifier, datestamp, comments,
+                       journal_ref, doi, license, COALESCE(language, 'en'), created_at, updated_at,
+                       data_source, pdf_url
+                FROM stg_source_record
+                ORDER BY id
+                ON CONFLICT DO NOTHING
+                RETURNING id
+            )
+            INSERT INTO stg_inserted_record SELECT id FROM ins;
+
+            INSERT INTO record_category (record_id, category)
+            SELECT c.record_id, c.category
+            FROM stg_record_category c JOIN stg_inserted_record i ON i.id = c.record_id
+            WHERE BTRIM(c.category) <> ''
+            ON CONFLICT DO NOTHING;
+
+            INSERT INTO record_author (id, record_id, pos, first_name, last_name, orcid)
+            SELECT a.id, a.record_id, a.pos, a.first_name, a.last_name, a.orcid
+            FROM stg_record_author a JOIN stg_inserted_record i ON i.id = a.record_id;
+
+            INSERT INTO record_document (id, record_id, title, abstract, keyword_list,
+                                         affiliation_list, class_code_list, funding_list, doc_type)
+            SELECT d.id, d.record_id, d.title, d.abstract,
+                   COALESCE(d.keyword_list, ARRAY[]::text[]), COALESCE(d.affiliation_list, ARRAY[]::text[]),
+                   COALESCE(d.class_code_list, ARRAY[]::text[]), d.funding_list, d.doc_type
+            FROM stg_record_document d JOIN stg_inserted_record i ON i.id = d.record_id;
+
+            INSERT INTO document_blob (document_id, kind, codec, raw_length, content)
+            SELECT b.document_id, b.kind, b.codec, b.raw_length, b.content
+            FROM stg_document_blob b
+            JOIN stg_record_document d ON d.id = b.document_id
+            JOIN stg_inserted_record i ON i.id = d.record_id;
+
+            INSERT INTO document_section (id, document_id, title, text, pos)
+            SELECT s.id, s.document_id, COALESCE(NULLIF(BTRIM(s.title), ''), 'UNTITLED'), COALESCE(s.text, ''), s.pos
+            FROM stg_document_section s
+            JOIN stg_record_document d ON d.id = s.document_id
+            JOIN stg_inserted_record i ON i.id = d.record_id;
+
+            INSERT INTO reference_mention (id, record_document_id, ref_index, title, doi, year, venue, authors, urls, idnos)
+            SELECT r.id, r.record_document_id, r.ref_index, r.title, r.doi, r.year, r.venue, r.authors, r.urls, r.idnos
+            FROM stg_reference_mention r
+            JOIN stg_record_document d ON d.id = r.record_document_id
+            JOIN stg_inserted_record i ON i.id = d.record_id;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Whether a paper can take the COPY path. Section embeddings are not part of the
+     * bulk schema; papers carrying them go through JPA instead.
+     */
+    public static boolean supports(PaperWriteRequest request) {
+        return request.document() == null
+                || request.document().sections() == null
+                || request.document().sections().stream()
+                .map(Section::getEmbeddings)
+                .allMatch(e -> e == null || e.isEmpty());
+    }
+
+    /**
+     * Loads the papers and reports which of them were inserted.
+     *
+     * @return bit {@code i} set if {@code papers.get(i)} was inserted; a clear bit means
+     *         the record already existed and the paper was skipped
+     */
+    @Transactional
+    public BitSet load(List<PaperWriteRequest> papers) {
+        long t0 = System.nanoTime();
+        List<RecordEntity> records = new ArrayList<>(papers.size());
+        OffsetDateTime now = OffsetDateTime.now();
+        for (PaperWriteRequest p : papers) {
+            RecordEntity record = PaperInternalService.toRecordEntity(p.record(), p.dataSource(), p.document(), p.pdfUrl());
+            record.setCreatedAt(now);
+            record.setUpdatedAt(now);
+            records.add(record);
+        }
+        assignIds(records);
+
+        Set<Long> inserted = jdbcTemplate.execute((ConnectionCallback<Set<Long>>) con -> copyAndMerge(con, records));
+
+        BitSet result = new BitSet(papers.size());
+        for (int i = 0; i < records.size(); i++) {
+            if (inserted.contains(records.get(i).getId())) {
+                result.set(i);
+            }
+        }
+        log.debug("COPY-loaded {}/{} papers in {} ms",
+                result.cardinality(), papers.size(), (System.nanoTime() - t0) / 1_000_000);
+        return result;
+    }
+
+    // ── Id pre-allocation ────────────────────────────────────────────
+
+    private void assignIds(List<RecordEntity> records) {
+        List<PaperDocumentEntity> documents = new ArrayList<>();
+        List<SectionEntity> sections = new ArrayList<>();
+        List<ReferenceMentionEntity> references = new ArrayList<>();
+        List<RecordAuthorEntity> authors = new ArrayList<>();
+        for (RecordEntity r : records) {
+            authors.addAll(r.getAuthors());
+            PaperDocumentEntity doc = r.getDocument();
+            if (doc != null) {
+                documents.add(doc);
+                sections.addAll(doc.getSections());
+                references.addAll(doc.getReferences());
+            }
+        }
+
+        long[] recordIds = allocate("source_record_id_seq", records.size());
+        for (int i = 0; i < records.size(); i++) records.get(i).setId(recordIds[i]);
+        long[] documentIds = allocate("record_document_id_seq", documents.size());
+        for (int i = 0; i < documents.size(); i++) documents.get(i).setId(documentIds[i]);
+        long[] sectionIds = allocate("document_section_id_seq", sections.size());
+        for (int i = 0; i < sections.size(); i++) sections.get(i).setId(sectionIds[i]);
+        long[] referenceIds = allocate("reference_mention_id_seq", references.size());
+        for (int i = 0; i < references.size(); i++) references.get(i).setId(referenceIds[i]);
+        long[] authorIds = allocate("record_author_id_seq", authors.size());
+        for (int i = 0; i < authors.size(); i++) authors.get(i).setId(authorIds[i]);
+    }
+
+    private long[] allocate(String sequence, int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+        int blocks = (count + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        List<Long> hiValues = jdbcTemplate.queryForList(
+                "SELECT nextval(?::regclass) FROM generate_series(1, ?)", Long.class, sequence, blocks);
+        return expandBlocks(hiValues, count);
+    }
+
+    /**
+     * Expands sequence values into ids. Each {@code nextval} value {@code v} owns
+     * {@code (v - 50, v]}, the same block Hibernate's pooled optimizer would use.
+     */
+    static long[] expandBlocks(List<Long> hiValues, int count) {
+        long[] ids = new long[count];
+        int i = 0;
+        for (long hi : hiValues) {
+            for (long id = hi - SEQUENCE_INCREMENT + 1; id <= hi && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        if (i < count) {
+            throw new IllegalStateException("Allocated %d ids but %d were requested".formatted(i, count));
+        }
+        return ids;
+    }
+
+    // ── COPY + merge ─────────────────────────────────────────────────
+
+    private Set<Long> copyAndMerge(Connection con, List<RecordEntity> records) throws SQLException {
+        PGConnection pg = con.unwrap(PGConnection.class);
+        try (Statement st = con.createStatement()) {
+            st.execute(CREATE_STAGING);
+        }
+
+        try {
+            copy(pg, "stg_source_record", 13, records, (w, r) -> {
+                w.writeLong(r.getId());
+                w.writeText(r.getSourceId());
+                w.writeText(r.getExternalIdentifier());
+                w.writeDate(r.getDatestamp());
+                w.writeText(r.getComments());
+                w.writeText(r.getJournalRef());
+                w.writeText(r.getDoi());
+                w.writeText(r.getLicense());
+                w.writeText(r.getLanguage());
+                w.writeTimestamptz(r.getCreatedAt());
+                w.writeTimestamptz(r.getUpdatedAt());
+                w.writeText(r.getDataSource() != null ? r.getDataSource().name() : null);
+                w.writeText(r.getPdfUrl());
+            });
+            copyChildren(pg, "stg_record_category", records, (w, r) -> {
+                for (String category : new HashSet<>(r.getCategories())) {
+                    w.startRow(2);
+                    w.writeLong(r.getId());
+                    w.writeText(category);
+                }
+            });
+            copyChildren(pg, "stg_record_author", records, (w, r) -> {
+                for (RecordAuthorEntity a : r.getAuthors()) {
+                    w.startRow(6);
+                    w.writeLong(a.getId());
+                    w.writeLong(r.getId());
+                    w.writeInt(a.getPos());
+                    w.writeText(a.getFirstName());
+                    w.writeText(a.getLastName());
+                    w.writeText(a.getOrcid());
+                }
+            });
+            List<PaperDocumentEntity> documents = records.stream()
+                    .map(RecordEntity::getDocument)
+                    .filter(Objects::nonNull)
+                    .toList();
+            copy(pg, "stg_record_document", 9, documents, (w, d) -> {
+                w.writeLong(d.getId());
+                w.writeLong(d.getRecord().getId());
+                w.writeText(d.getTitle());
+                w.writeText(d.getAbstractText());
+                w.writeTextArray(d.getKeywords());
+                w.writeTextArray(d.getAffiliations());
+                w.writeTextArray(d.getClassCodes());
+                w.writeTextArray(d.getFundingList());
+                w.writeText(d.getDocType());
+            });
+            copyChildren(pg, "stg_document_blob", documents, (w, d) -> {
+                for (DocumentBlobEntity b : d.getBlobs()) {
+                    w.startRow(5);
+                    w.writeLong(d.getId());
+                    w.writeText(b.getId().getKind().name());
+                    w.writeText(b.getCodec());
+                    w.writeInt(b.getRawLength());
+                    w.writeBytes(b.getContent());
+                }
+            });
+            copyChildren(pg, "stg_document_section", documents, (w, d) -> {
+                for (SectionEntity s : d.getSections()) {
+                    w.startRow(5);
+                    w.writeLong(s.getId());
+                    w.writeLong(d.getId());
+                    w.writeText(s.getTitle());
+                    w.writeText(s.getText());
+                    w.writeInt(s.getPos());
+                }
+            });
+            copyChildren(pg, "stg_reference_mention", documents, (w, d) -> {
+                for (ReferenceMentionEntity r : d.getReferences()) {
+                    w.startRow(10);
+                    w.writeLong(r.getId());
+                    w.writeLong(d.getId());
+                    w.writeInt(r.getRefIndex());
+                    w.writeText(r.getTitle());
+                    w.writeText(r.getDoi());
+                    w.writeText(r.getYear());
+                    w.writeText(r.getVenue());
+                    w.writeTextArray(r.getAuthors());
+                    w.writeTextArray(r.getUrls());
+                    w.writeTextArray(r.getIdnos());
+                }
+            });
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("COPY into paper staging tables failed", e);
+        }
+
+        try (Statement st = con.createStatement()) {
+            st.execute(MERGE);
+        }
+
+        Set<Long> inserted = new HashSet<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id FROM stg_inserted_record")) {
+            while (rs.next()) {
+                inserted.add(rs.getLong(1));
+            }
+        }
+        return inserted;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(PgBinaryCopyWriter writer, T item) throws IOException;
+    }
+
+    /** One row per item. */
+    private static <T> void copy(PGConnection pg, String table, int columns, List<T> items, RowWriter<T> row)
+            throws SQLException, IOException {
+        copyChildren(pg, table, items, (w, item) -> {
+            w.startRow(columns);
+            row.write(w, item);
+        });
+    }
+
+    /** Any number of rows per item; the row writer calls {@link PgBinaryCopyWriter#startRow} itself. */
+    private static <T> void copyChildren(PGConnection pg, String table, List<T> items, RowWriter<T> rows)
+            throws SQLException, IOException {
+        if (items.isEmpty()) {
+            return;
+        }
+        try (PGCopyOutputStream out = new PGCopyOutputStream(pg, "COPY " + table + " FROM STDIN (FORMAT binary)", 1 << 16)) {
+            PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out);
+            for (T item : items) {
+                rows.write(writer, item);
+            }
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.data.oai.persistence.bulk;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Encodes rows in PostgreSQL's binary {@code COPY ... FROM STDIN (FORMAT binary)}
+ * format. Only the column types used by the paper tables are supported:
+ * {@code int4}, {@code int8}, {@code text}/{@code varchar}, {@code bytea},
+ * {@code date}, {@code timestamptz} and one-dimensional {@code text[]}.
+ *
+ * <p>Usage: {@link #startRow(int)} followed by exactly that many {@code write*}
+ * calls per row, then {@link #finish()} once.</p>
+ */
+final class PgBinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int TEXT_OID = 25;
+    private static final LocalDate PG_EPOCH_DATE = LocalDate.of(2000, 1, 1);
+    private static final OffsetDateTime PG_EPOCH = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final DataOutputStream out;
+
+    PgBinaryCopyWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.write(SIGNATURE);
+        this.out.writeInt(0); // flags
+        this.out.writeInt(0); // header extension length
+    }
+
+    void startRow(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    void writeLong(Long value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    void writeInt(Integer value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = utf8(value);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    void writeBytes(byte[] value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    void writeDate(LocalDate value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt((int) ChronoUnit.DAYS.between(PG_EPOCH_DATE, value));
+    }
+
+    void writeTimestamptz(OffsetDateTime value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, value));
+    }
+
+    void writeTextArray(List<String> values) throws IOException {
+        if (values == null) {
+            writeNull();
+            return;
+        }
+        byte[][] elements = new byte[values.size()][];
+        boolean hasNull = false;
+        int size = 12 + (values.isEmpty() ? 0 : 8);
+        for (int i = 0; i < elements.length; i++) {
+            String v = values.get(i);
+            if (v == null) {
+                hasNull = true;
+                size += 4;
+            } else {
+                elements[i] = utf8(v);
+                size += 4 + elements[i].length;
+            }
+        }
+
+        out.writeInt(size);
+        out.writeInt(values.isEmpty() ? 0 : 1); // dimensions
+        out.writeInt(hasNull ? 1 : 0);
+        out.writeInt(TEXT_OID);
+        if (!values.isEmpty()) {
+            out.writeInt(values.size()); // dimension length
+            out.writeInt(1);             // lower bound
+        }
+        for (byte[] element : elements) {
+            if (element == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(element.length);
+                out.write(element);
+            }
+        }
+    }
+
+    /** Writes the end-of-data marker and flushes; the underlying stream is left open. */
+    void finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+    }
+
+    private void writeNull() throws IOException {
+        out.writeInt(-1);
+    }
+
+    /**
+     * PostgreSQL text cannot hold NUL characters. The JPA path fails the single
+     * paper on them; in a COPY stream one NUL would abort the whole batch, so
+     * they are dropped here instead.
+     */
+    private static byte[] utf8(String value) {
+        String clean = value.indexOf('\u0000') >= 0 ? value.replace("\u0000", "") : value;
+        return clean.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,210 @@
+package com.data.oai.persistence.dedup;
+
+import com.data.config.properties.DedupIndexProperties;
+import com.data.oai.persistence.PaperInternalService;
+import com.data.shared.DataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "is this source id already stored?" for every {@link DataSource}
+ * without loading all ids into a {@code HashSet<String>} per batch.
+ *
+ * <p>Each data source gets a {@link SourceIdSet}. It is loaded the first time it
+ * is needed, from its disk snapshot plus the rows added since (by record id), or
+ * from a full streaming scan of {@code source_record}. After that,
+ * {@link com.data.oai.persistence.PaperBatchWriter} adds every committed paper,
+ * so the index stays current without re-reading the table. Snapshots are written
+ * every {@code dedup.index.snapshot-interval-ms} and on shutdown; each one stores
+ * the highest record id in the table at the time as its watermark, so a restart
+ * only rescans rows added after the last snapshot.</p>
+ *
+ * <p>An id reported as stored is skipped by the pipelines, so the index must never
+ * miss a committed id. False positives are limited to 64-bit hash collisions
+ * (see {@link SourceIdSet}). Ids deleted from the database stay in the index until
+ * its snapshot is removed.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SourceIdIndex {
+
+    /**
+     * Ids come from pooled blocks of 50 per writer, so a row with a lower id can
+     * commit after the snapshot's highest id. The catch-up rescans this many ids
+     * below the watermark; re-adding known ids is harmless.
+     */
+    static final long CATCH_UP_MARGIN = 10_000;
+
+    private final PaperInternalService paperInternalService;
+    private final DedupIndexProperties props;
+
+    private final Map<DataSource, SourceIdSet> sets = new ConcurrentHashMap<>();
+    private final Map<DataSource, Integer> snapshotSizes = new ConcurrentHashMap<>();
+    private final Map<DataSource, Long> snapshotWatermarks = new ConcurrentHashMap<>();
+
+    /** Loads the data source's index on first use. */
+    public boolean contains(DataSource dataSource, String sourceId) {
+        return set(dataSource).contains(sourceId);
+    }
+
+    /**
+     * Records a committed paper. A data source whose index has not been loaded yet
+     * is left alone; its first load reads the row from the database.
+     */
+    public void add(DataSource dataSource, String sourceId) {
+        SourceIdSet set = sets.get(dataSource);
+        if (set != null) {
+            set.add(sourceId);
+        }
+    }
+
+    public int size(DataSource dataSource) {
+        return set(dataSource).size();
+    }
+
+    @Scheduled(fixedDelayString = "${dedup.index.snapshot-interval-ms:600000}")
+    public void snapshot() {
+        Path dir = snapshotDir();
+        if (dir == null) {
+            return;
+        }
+        sets.forEach((dataSource, set) -> {
+            advanceWatermark(dataSource, set);
+            int size = set.size();
+            long watermark = set.watermark();
+            if (!Integer.valueOf(size).equals(snapshotSizes.get(dataSource))
+                    || !Long.valueOf(watermark).equals(snapshotWatermarks.get(dataSource))) {
+                write(dir, dataSource, set);
+                snapshotSizes.put(dataSource, size);
+                snapshotWatermarks.put(dataSource, watermark);
+            }
+        });
+    }
+
+    /**
+     * Moves the watermark up to the highest record id in the table. It is read
+     * before the set is written, so every row at or below it has either been added
+     * already or committed so recently that its id lies within
+     * {@link #CATCH_UP_MARGIN} of the watermark. If the database is unavailable
+     * (e.g. during shutdown), the previous watermark is kept, which is still safe.
+     */
+    private void advanceWatermark(DataSource dataSource, SourceIdSet set) {
+        try {
+            set.watermark(Math.max(set.watermark(), paperInternalService.maxRecordId(dataSource)));
+        } catch (RuntimeException e) {
+            log.warn("Could not read the latest {} record id for the dedup snapshot: {}", dataSource, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    // ── Loading ──────────────────────────────────────────────────────
+
+    private SourceIdSet set(DataSource dataSource) {
+        SourceIdSet set = sets.get(dataSource);
+        if (set != null) {
+            return set;
+        }
+        synchronized (this) {
+            set = sets.get(dataSource);
+            if (set == null) {
+                set = load(dataSource);
+                sets.put(dataSource, set);
+            }
+            return set;
+        }
+    }
+
+    private SourceIdSet load(DataSource dataSource) {
+        long t0 = System.nanoTime();
+        SourceIdSet set = new SourceIdSet(numericPrefix(dataSource));
+        boolean fromSnapshot = read(dataSource, set);
+        long after = fromSnapshot ? Math.max(0, set.watermark() - CATCH_UP_MARGIN) : 0;
+
+        SourceIdSet.BulkLoad bulk = set.bulkLoad();
+        long maxId = paperInternalService.forEachSourceId(dataSource, after, bulk::add);
+        bulk.commit();
+        set.watermark(Math.max(set.watermark(), maxId));
+
+        log.info("Dedup index {} loaded: {} ids ({}, records after id {}) in {} ms",
+                dataSource, set.size(), fromSnapshot ? "snapshot + catch-up" : "full scan", after,
+                (System.nanoTime() - t0) / 1_000_000);
+        return set;
+    }
+
+    /**
+     * Source ids that are a fixed prefix plus a number are stored as numbers.
+     * arXiv ids ({@code 2401.12345}, {@code hep-th/9901001}) are hashed.
+     */
+    static String numericPrefix(DataSource dataSource) {
+        return switch (dataSource) {
+            case PMC_S3 -> "PMC";
+            case PUBMED, ZENODO -> "";
+            case ARXIV -> null;
+        };
+    }
+
+    // ── Snapshots ────────────────────────────────────────────────────
+
+    private Path snapshotDir() {
+        String dir = props.snapshotDir();
+        return dir == null || dir.isBlank() ? null : Path.of(dir);
+    }
+
+    private static Path snapshotFile(Path dir, DataSource dataSource) {
+        return dir.resolve(dataSource.name().toLowerCase() + ".sidx");
+    }
+
+    private boolean read(DataSource dataSource, SourceIdSet set) {
+        Path dir = snapshotDir();
+        if (dir == null || !Files.isRegularFile(snapshotFile(dir, dataSource))) {
+            return false;
+        }
+        Path file = snapshotFile(dir, dataSource);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            set.readFrom(new DataInputStream(in));
+            return true;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable dedup snapshot {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Writes to a temp file and moves it into place, so a crash never leaves a torn snapshot. */
+    private void write(Path dir, DataSource dataSource, SourceIdSet set) {
+        Path file = snapshotFile(dir, dataSource);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                DataOutputStream data = new DataOutputStream(out);
+                set.writeTo(data);
+                data.flush();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Dedup index {} snapshot written: {} ids", dataSource, set.size());
+        } catch (IOException e) {
+            log.warn("Could not write dedup snapshot {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.data.oai.persistence.dedup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact set of the source ids stored for one {@link com.data.shared.DataSource}.
+ *
+ * <p>Ids of the form {@code <numericPrefix><digits>} (e.g. {@code PMC1234567} for
+ * PMC S3, plain PMIDs and Zenodo record numbers) are stored as their number in a
+ * sorted {@code long[]}. Every other id (arXiv {@code 2401.12345},
+ * {@code hep-th/9901001}) is stored as a 64-bit hash in a second sorted array,
+ * with a Bloom filter in front so that ids not yet stored rarely need the binary
+ * search. Eight bytes per id instead of a boxed {@code String} in a {@code HashSet}.</p>
+ *
+ * <p>Hashes can collide. With 64 bits the chance of one collision across
+ * 10 million ids is about 3·10⁻⁶. A collision makes a new paper look stored,
+ * so that paper would be skipped.</p>
+ *
+ * <p>Adds go to small concurrent sets and are merged into the sorted arrays once
+ * those grow past a threshold. Lookups take no lock.</p>
+ */
+final class SourceIdSet {
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+    private static final int MIN_COMPACT_THRESHOLD = 8_192;
+
+    /** Immutable sorted snapshot; replaced as a whole on compaction. */
+    private record Sorted(long[] numbers, long[] hashes, BloomFilter bloom) {}
+
+    private final String numericPrefix;
+    private volatile Sorted sorted;
+    private final Set<Long> recentNumbers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> recentHashes = ConcurrentHashMap.newKeySet();
+    private volatile long watermark;
+
+    /**
+     * @param numericPrefix prefix in front of the digits of numeric ids, {@code ""}
+     *                      for plain numbers, {@code null} to hash every id
+     */
+    SourceIdSet(String numericPrefix) {
+        this.numericPrefix = numericPrefix;
+        this.sorted = new Sorted(new long[0], new long[0], BloomFilter.forCapacity(0));
+    }
+
+    boolean contains(String sourceId) {
+        if (sourceId == null) {
+            return false;
+        }
+        long number = toNumber(sourceId);
+        if (number >= 0) {
+            // recent first: compaction publishes the new arrays before clearing it
+            return recentNumbers.contains(number) || Arrays.binarySearch(sorted.numbers(), number) >= 0;
+        }
+        long hash = hash(sourceId);
+        if (recentHashes.contains(hash)) {
+            return true;
+        }
+        Sorted s = sorted;
+        return s.bloom().mightContain(hash) && Arrays.binarySearch(s.hashes(), hash) >= 0;
+    }
+
+    void add(String sourceId) {
+        if (sourceId == null || contains(sourceId)) {
+            return;
+        }
+        long number = toNumber(sourceId);
+        if (number >= 0) {
+            recentNumbers.add(number);
+        } else {
+            recentHashes.add(hash(sourceId));
+        }
+        if (recentNumbers.size() + recentHashes.size() > compactThreshold()) {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Starts adding many ids at once, e.g. while loading from the database. Ids are
+     * buffered in primitive arrays and merged with one sort on {@link BulkLoad#commit()}.
+     */
+    BulkLoad bulkLoad() {
+        return new BulkLoad();
+    }
+
+    /** Single-threaded buffer for {@link #bulkLoad()}. */
+    final class BulkLoad {
+        private final LongBuffer numbers = new LongBuffer();
+        private final LongBuffer hashes = new LongBuffer();
+
+        void add(String sourceId) {
+            if (sourceId == null) {
+                return;
+            }
+            long number = toNumber(sourceId);
+            if (number >= 0) {
+                numbers.add(number);
+            } else {
+                hashes.add(hash(sourceId));
+            }
+        }
+
+        void commit() {
+            synchronized (SourceIdSet.this) {
+                Sorted s = sorted;
+                long[] mergedHashes = merge(s.hashes(), hashes.sorted());
+                sorted = new Sorted(merge(s.numbers(), numbers.sorted()), mergedHashes,
+                        hashes.size == 0 ? s.bloom() : BloomFilter.of(mergedHashes));
+            }
+        }
+    }
+
+    int size() {
+        Sorted s = sorted;
+        return s.numbers().length + s.hashes().length + recentNumbers.size() + recentHashes.size();
+    }
+
+    /** Highest {@code source_record.id} this set has been loaded up to. */
+    long watermark() {
+        return watermark;
+    }
+
+    void watermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    private synchronized void compactIfNeeded() {
+        if (recentNumbers.size() + recentHashes.size() > compactThreshold()) {
+            compact();
+        }
+    }
+
+    /** Merges the recent adds into the sorted arrays and rebuilds the Bloom filter. */
+    synchronized void compact() {
+        long[] addedNumbers = drain(recentNumbers);
+        long[] addedHashes = drain(recentHashes);
+        if (addedNumbers.length == 0 && addedHashes.length == 0) {
+            return;
+        }
+        Sorted s = sorted;
+        long[] hashes = merge(s.hashes(), addedHashes);
+        BloomFilter bloom = addedHashes.length == 0 ? s.bloom() : BloomFilter.of(hashes);
+        sorted = new Sorted(merge(s.numbers(), addedNumbers), hashes, bloom);
+        for (long n : addedNumbers) recentNumbers.remove(n);
+        for (long h : addedHashes) recentHashes.remove(h);
+    }
+
+    // ── Snapshot ─────────────────────────────────────────────────────
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        compact();
+        Sorted s = sorted;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(watermark);
+        writeLongs(out, s.numbers());
+        writeLongs(out, s.hashes());
+    }
+
+    /** @throws IOException if the snapshot is truncated or from another format version */
+    synchronized void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a source id snapshot (or an older format)");
+        }
+        long mark = in.readLong();
+        long[] numbers = readLongs(in);
+        long[] hashes = readLongs(in);
+        sorted = new Sorted(numbers, hashes, BloomFilter.of(hashes));
+        watermark = mark;
+    }
+
+    // ── Encoding ─────────────────────────────────────────────────────
+
+    /** @return the id's number, or -1 if it has to be hashed */
+    long toNumber(String sourceId) {
+        if (numericPrefix == null || !sourceId.startsWith(numericPrefix)) {
+            return -1;
+        }
+        int start = numericPrefix.length();
+        int digits = sourceId.length() - start;
+        // Canonical digits only (no leading zero), so the mapping stays one-to-one
+        if (digits < 1 || digits > 18 || sourceId.charAt(start) == '0') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < sourceId.length(); i++) {
+            char c = sourceId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 fmix64 avalanche. */
+    static long hash(String sourceId) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : sourceId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int compactThreshold() {
+        Sorted s = sorted;
+        return Math.max(MIN_COMPACT_THRESHOLD, (s.numbers().length + s.hashes().length) / 16);
+    }
+
+    private static long[] drain(Set<Long> recent) {
+        long[] values = recent.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(values);
+        return values;
+    }
+
+    /** Merges two sorted arrays, dropping duplicates. */
+    static long[] merge(long[] a, long[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            long next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (n == 0 || out[n - 1] != next) {
+                out[n++] = next;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static void writeLongs(DataOutput out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long v : values) {
+            out.writeLong(v);
+        }
+    }
+
+    private static long[] readLongs(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) {
+            throw new IOException("Negative length in source id snapshot");
+        }
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    /** Growable primitive buffer, so bulk loads don't box every id. */
+    private static final class LongBuffer {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        long[] sorted() {
+            long[] out = Arrays.copyOf(values, size);
+            Arrays.sort(out);
+            return out;
+        }
+    }
+
+    /**
+     * Immutable Bloom filter over 64-bit hashes: about 10 bits per entry and 7
+     * probes derived from the hash (double hashing), roughly 1% false positives.
+     */
+    static final class BloomFilter {
+        private static final int BITS_PER_ENTRY = 10;
+        private static final int PROBES = 7;
+
+        private final long[] bits;
+        private final long bitCount;
+
+        private BloomFilter(int capacity) {
+            long size = Math.max(64, (long) capacity * BITS_PER_ENTRY);
+            this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (size + 63) / 64)];
+            this.bitCount = (long) bits.length * 64;
+        }
+
+        static BloomFilter forCapacity(int capacity) {
+            return new BloomFilter(capacity);
+        }
+
+        static BloomFilter of(long[] hashes) {
+            BloomFilter filter = new BloomFilter(hashes.length);
+            for (long h : hashes) {
+                filter.put(h);
+            }
+            return filter;
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            long h1 = hash;
+            long h2 = Long.rotateLeft(hash, 32) | 1;
+            for (int i = 0; i < PROBES; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.data.oai.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A large text of a {@link PaperDocumentEntity} (source XML, raw content), stored
+ * compressed in its own table so that scans of {@code record_document} never read
+ * it. Encoded and decoded by {@link com.data.oai.persistence.blob.DocumentBlobCodec}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "document_blob")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentBlobEntity {
+
+    @EmbeddedId
+    private DocumentBlobId id;
+
+    @MapsId("documentId")
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(
+            name = "document_id",
+            nullable = false,
+            foreignKey = @ForeignKey(name = "fk_document_blob_document")
+    )
+    private PaperDocumentEntity document;
+
+    @Column(name = "codec", nullable = false, length = 16)
+    private String codec;
+
+    /** Size of the uncompressed UTF-8 text in bytes. */
+    @Column(name = "raw_length", nullable = false)
+    private int rawLength;
+
+    @Column(name = "content", nullable = false, columnDefinition = "bytea")
+    private byte[] content;
+}
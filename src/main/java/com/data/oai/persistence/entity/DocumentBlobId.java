@@ -0,0 +1,29 @@
+package com.data.oai.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@Embeddable
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentBlobId implements Serializable {
+
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", length = 32)
+    private DocumentBlobKind kind;
+}
@@ -0,0 +1,11 @@
+package com.data.oai.persistence.entity;
+
+/**
+ * What a {@link DocumentBlobEntity} holds. Persisted as {@code VARCHAR}.
+ */
+public enum DocumentBlobKind {
+    /** TEI for OAI sources, JATS for PMC S3 (formerly {@code record_document.source_xml}). */
+    SOURCE_XML,
+    /** Plain-text rendering of the paper (formerly {@code record_document.raw_content}). */
+    RAW_CONTENT
+}
@@ -42,9 +42,15 @@ public class PaperDocumentEntity {
     @Column(name = "abstract", columnDefinition = "text")
     private String abstractText;
 
+    /**
+     * Legacy column: new documents keep the source XML in {@link #blobs}, and
+     * {@code DocumentBlobMigrationJob} moves old ones there. Read it through
+     * {@code DocumentContentService}.
+     */
     @Column(name = "source_xml", columnDefinition = "text")
     private String sourceXml;
 
+    /** Legacy column, see {@link #sourceXml}. */
     @Column(name = "raw_content", columnDefinition = "text")
     private String rawContent;
 
@@ -85,6 +91,14 @@ public class PaperDocumentEntity {
     @OrderColumn(name = "pos")
     private List<SectionEntity> sections = new ArrayList<>();
 
+    @OneToMany(
+        mappedBy = "document",
+        cascade = CascadeType.ALL,
+        orphanRemoval = true,
+        fetch = FetchType.LAZY
+    )
+    private List<DocumentBlobEntity> blobs = new ArrayList<>();
+
     public void addSection(SectionEntity section) {
         sections.add(section);
         section.setDocument(this);
@@ -95,6 +109,11 @@ public class PaperDocumentEntity {
         section.setDocument(null);
     }
 
+    public void addBlob(DocumentBlobEntity blob) {
+        blobs.add(blob);
+        blob.setDocument(this);
+    }
+
     public void addReference(ReferenceMentionEntity ref) {
         references.add(ref);
         ref.setDocument(this);
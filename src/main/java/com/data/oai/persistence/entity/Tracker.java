@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 
 @Entity
 @Table(
@@ -39,4 +40,17 @@ public class Tracker {
     @Column(name = "data_source", nullable = false)
     @Enumerated(EnumType.STRING)
     private DataSource dataSource;
+
+    /** Resumption checkpoint of an interrupted harvest; all null when there is none. */
+    @Column(name = "resumption_token", columnDefinition = "text")
+    private String resumptionToken;
+
+    @Column(name = "resumption_page")
+    private Integer resumptionPage;
+
+    @Column(name = "resumption_listed")
+    private Integer resumptionListed;
+
+    @Column(name = "resumption_expires_at")
+    private OffsetDateTime resumptionExpiresAt;
 }
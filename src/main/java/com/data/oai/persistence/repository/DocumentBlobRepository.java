@@ -0,0 +1,24 @@
+package com.data.oai.persistence.repository;
+
+import com.data.oai.persistence.blob.DocumentBlobContent;
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.DocumentBlobId;
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlobEntity, DocumentBlobId> {
+
+    @Query("""
+            SELECT new com.data.oai.persistence.blob.DocumentBlobContent(
+                b.id.documentId, b.codec, b.rawLength, b.content)
+            FROM DocumentBlobEntity b
+            WHERE b.id.kind = :kind AND b.id.documentId IN :documentIds
+            """)
+    List<DocumentBlobContent> findContents(@Param("kind") DocumentBlobKind kind,
+                                           @Param("documentIds") Collection<Long> documentIds);
+}
@@ -2,8 +2,11 @@ package com.data.oai.persistence.repository;
 
 import com.data.oai.persistence.entity.RecordEntity;
 import com.data.shared.DataSource;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import org.springframework.data.domain.Pageable;
@@ -12,6 +15,7 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RecordRepository extends JpaRepository<RecordEntity, Long> {
     Optional<RecordEntity> findBySourceId(String arxivId);
@@ -20,14 +24,44 @@ public interface RecordRepository extends JpaRepository<RecordEntity, Long> {
 
     boolean existsBySourceId(String arxivId);
 
-    @Query("""
-                select r.sourceId
-                from RecordEntity r
-                where r.datestamp >= :start and r.datestamp < :end and r.dataSource = :dataSource
-            """)
-    List<String> findSourceIdsProcessedInPeriodAndByDataSource(@Param("start") LocalDate start,
-                                                               @Param("end") LocalDate end,
-                                                               DataSource dataSource);
+    /**
+     * Deletes the embedding chunks of a record's sections. Their foreign key has no
+     * ON DELETE CASCADE, so this has to run before {@link #deleteBySourceId}.
+     */
+    @Modifying
+    @Query(value = """
+                DELETE FROM embed_transcript_chunk c
+                USING document_section s, record_document d, source_record r
+                WHERE c.section_id = s.id AND s.document_id = d.id AND d.record_id = r.id
+                  AND r.data_source = :dataSource AND r.source_identifier = :sourceId
+            """, nativeQuery = true)
+    int deleteEmbeddingChunksBySourceId(@Param("dataSource") String dataSource, @Param("sourceId") String sourceId);
+
+    /** Deletes a record; its document, sections, references and blobs go with it (ON DELETE CASCADE). */
+    @Modifying
+    @Query(value = "DELETE FROM source_record WHERE data_source = :dataSource AND source_identifier = :sourceId",
+            nativeQuery = true)
+    int deleteBySourceId(@Param("dataSource") String dataSource, @Param("sourceId") String sourceId);
+
+    /**
+     * Content bytes of a stored record, counted like {@code storage_stats}, or
+     * {@code null} if it is not stored. Read before {@link #deleteBySourceId} so a
+     * replacement can take the old version out of the totals.
+     */
+    @Query(value = """
+                SELECT COALESCE((SELECT OCTET_LENGTH(COALESCE(d.title, '')) + OCTET_LENGTH(COALESCE(d.abstract, ''))
+                                        + OCTET_LENGTH(COALESCE(d.source_xml, '')) + OCTET_LENGTH(COALESCE(d.raw_content, ''))
+                                 FROM record_document d WHERE d.record_id = r.id), 0)
+                     + COALESCE((SELECT SUM(b.raw_length)
+                                 FROM document_blob b JOIN record_document d ON d.id = b.document_id
+                                 WHERE d.record_id = r.id), 0)
+                     + COALESCE((SELECT SUM(OCTET_LENGTH(COALESCE(s.text, '')))
+                                 FROM document_section s JOIN record_document d ON d.id = s.document_id
+                                 WHERE d.record_id = r.id), 0)
+                FROM source_record r
+                WHERE r.data_source = :dataSource AND r.source_identifier = :sourceId
+            """, nativeQuery = true)
+    Long findContentBytesBySourceId(@Param("dataSource") String dataSource, @Param("sourceId") String sourceId);
 
     @Query("""
                 SELECT r.sourceId
@@ -88,15 +122,28 @@ public interface RecordRepository extends JpaRepository<RecordEntity, Long> {
             """)
     List<RecordEntity> findByIdsWithDocument(@Param("ids") List<Long> ids);
 
+    /** Row of {@link #streamSourceIdsAfter}. */
+    interface SourceIdRow {
+        Long getId();
+
+        String getSourceId();
+    }
+
     /**
-     * Streams every sourceId already persisted for the given data source.
-     * Used by pipelines that dedupe at the source level and cannot rely on
-     * a datestamp window (e.g. PMC S3, which processes a whole inventory manifest).
+     * Streams the sourceIds persisted for the given data source with an id above
+     * {@code afterId} ({@code 0} for all of them). Used to build and catch up the
+     * dedup index; must be consumed inside a transaction and closed.
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
     @Query("""
-                SELECT r.sourceId
+                SELECT r.id AS id, r.sourceId AS sourceId
                 FROM RecordEntity r
-                WHERE r.dataSource = :dataSource
+                WHERE r.dataSource = :dataSource AND r.id > :afterId
             """)
-    List<String> findAllSourceIdsByDataSource(@Param("dataSource") DataSource dataSource);
+    Stream<SourceIdRow> streamSourceIdsAfter(@Param("dataSource") DataSource dataSource,
+                                             @Param("afterId") long afterId);
+
+    /** Highest record id stored for the data source, or {@code 0} if there are none. */
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM RecordEntity r WHERE r.dataSource = :dataSource")
+    long findMaxIdByDataSource(@Param("dataSource") DataSource dataSource);
 }
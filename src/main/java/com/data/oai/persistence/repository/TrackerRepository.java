@@ -2,6 +2,7 @@ package com.data.oai.persistence.repository;
 
 import com.data.oai.persistence.entity.Tracker;
 import com.data.shared.DataSource;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.Optional;
 
 @Repository
@@ -18,7 +20,32 @@ public interface TrackerRepository extends JpaRepository<Tracker, Long> {
 
     Optional<Tracker> findByDateStartAndDataSource(LocalDate dateStart, DataSource dataSource);
 
+    /** Transactional on its own: also called from the scheduled counter flush. */
+    @Transactional
     @Modifying
-    @Query("update Tracker t set t.processedPapersForPeriod = t.processedPapersForPeriod + 1 where t.id = :id")
-    int incrementProcessed(@Param("id") Long id);
+    @Query("update Tracker t set t.processedPapersForPeriod = t.processedPapersForPeriod + :delta where t.id = :id")
+    int addProcessed(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Query("""
+            update Tracker t set t.allPapersForPeriod = :all,
+                t.resumptionToken = null, t.resumptionPage = null,
+                t.resumptionListed = null, t.resumptionExpiresAt = null
+            where t.id = :id
+            """)
+    int updateAllPapers(@Param("id") Long id, @Param("all") int all);
+
+    /** Transactional on its own: called from pipeline workers as pages complete. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Tracker t set t.resumptionToken = :token, t.resumptionPage = :page,
+                t.resumptionListed = :listed, t.resumptionExpiresAt = :expiresAt
+            where t.id = :id
+            """)
+    int updateCheckpoint(@Param("id") Long id,
+                         @Param("token") String token,
+                         @Param("page") int page,
+                         @Param("listed") int listed,
+                         @Param("expiresAt") OffsetDateTime expiresAt);
 }
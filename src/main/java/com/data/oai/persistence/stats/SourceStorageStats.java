@@ -0,0 +1,21 @@
+package com.data.oai.persistence.stats;
+
+import com.data.shared.DataSource;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Stored papers of one source: totals, and the average added per day over the
+ * growth window.
+ *
+ * @param contentBytes uncompressed UTF-8 size of title, abstract, source XML, raw
+ *                     content and section texts
+ */
+public record SourceStorageStats(
+        DataSource dataSource,
+        long records,
+        long contentBytes,
+        double recordsPerDay,
+        double bytesPerDay,
+        OffsetDateTime updatedAt
+) {}
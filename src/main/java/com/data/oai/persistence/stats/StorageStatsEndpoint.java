@@ -0,0 +1,36 @@
+package com.data.oai.persistence.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/storage}: stored records, content bytes and growth per source
+ * from {@code storage_stats}, plus the on-disk size of the paper tables. Read-only
+ * on the web; the full-scan rebuild is only offered over JMX by
+ * {@link StorageStatsJmxExtension}.
+ */
+@Component
+@Endpoint(id = "storage")
+@RequiredArgsConstructor
+public class StorageStatsEndpoint {
+
+    private final StorageStatsService storageStats;
+
+    @ReadOperation
+    public StorageReport report() {
+        List<SourceStorageStats> sources = storageStats.stats();
+        return new StorageReport(
+                sources.stream().mapToLong(SourceStorageStats::records).sum(),
+                sources.stream().mapToLong(SourceStorageStats::contentBytes).sum(),
+                sources,
+                storageStats.tableSizes());
+    }
+
+    public record StorageReport(long records, long contentBytes, List<SourceStorageStats> sources,
+                                Map<String, Long> tableBytes) {}
+}
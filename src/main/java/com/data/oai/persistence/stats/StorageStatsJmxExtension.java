@@ -0,0 +1,25 @@
+package com.data.oai.persistence.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.EndpointJmxExtension;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds {@code recompute} to the {@code storage} endpoint over JMX only. The scan
+ * reads every paper table, so it is kept off the unauthenticated web exposure.
+ */
+@Component
+@EndpointJmxExtension(endpoint = StorageStatsEndpoint.class)
+@RequiredArgsConstructor
+public class StorageStatsJmxExtension {
+
+    private final StorageStatsService storageStats;
+    private final StorageStatsEndpoint endpoint;
+
+    @WriteOperation
+    public StorageStatsEndpoint.StorageReport recompute() {
+        storageStats.recompute();
+        return endpoint.report();
+    }
+}
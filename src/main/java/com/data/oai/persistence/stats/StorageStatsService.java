@@ -0,0 +1,269 @@
+package com.data.oai.persistence.stats;
+
+import com.data.config.properties.StorageStatsProperties;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Section;
+import com.data.shared.DataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@code storage_stats} (records and content bytes per {@link DataSource})
+ * up to date without ever scanning the paper tables.
+ *
+ * <p>{@link com.data.oai.persistence.PaperBatchWriter} reports every committed
+ * paper to {@link #record}, which only adds to in-memory {@link LongAdder}s. The
+ * deltas are added to {@code storage_stats} and to today's row of
+ * {@code storage_stats_daily} every {@code paper.stats.flush-interval-ms} and on
+ * shutdown, in one transaction. A failed flush keeps the deltas for the next one;
+ * deltas not yet flushed are lost on a crash, which {@link #recompute} repairs.</p>
+ */
+@Slf4j
+@Service
+public class StorageStatsService {
+
+    private static final String ADD_TOTALS = """
+            INSERT INTO storage_stats (data_source, record_count, content_bytes, updated_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (data_source) DO UPDATE SET
+                record_count = storage_stats.record_count + EXCLUDED.record_count,
+                content_bytes = storage_stats.content_bytes + EXCLUDED.content_bytes,
+                updated_at = now()
+            """;
+
+    private static final String ADD_DAILY = """
+            INSERT INTO storage_stats_daily (day, data_source, records_added, bytes_added)
+            VALUES (current_date, ?, ?, ?)
+            ON CONFLICT (day, data_source) DO UPDATE SET
+                records_added = storage_stats_daily.records_added + EXCLUDED.records_added,
+                bytes_added = storage_stats_daily.bytes_added + EXCLUDED.bytes_added
+            """;
+
+    private static final String SELECT_STATS = """
+            SELECT s.data_source, s.record_count, s.content_bytes, s.updated_at,
+                   COALESCE(g.records_added, 0), COALESCE(g.bytes_added, 0)
+            FROM storage_stats s
+            LEFT JOIN (
+                SELECT data_source, SUM(records_added) AS records_added, SUM(bytes_added) AS bytes_added
+                FROM storage_stats_daily
+                WHERE day > current_date - ?
+                GROUP BY data_source
+            ) g ON g.data_source = s.data_source
+            ORDER BY s.data_source
+            """;
+
+    /** Same figures as the V32 seed; replaces the stored totals. */
+    private static final String RECOMPUTE = """
+            WITH records AS (
+                SELECT data_source, COUNT(*) AS n FROM source_record GROUP BY data_source
+            ), documents AS (
+                SELECT r.data_source,
+                       SUM(OCTET_LENGTH(COALESCE(d.title, '')) + OCTET_LENGTH(COALESCE(d.abstract, ''))
+                           + OCTET_LENGTH(COALESCE(d.source_xml, '')) + OCTET_LENGTH(COALESCE(d.raw_content, ''))) AS bytes
+                FROM record_document d JOIN source_record r ON r.id = d.record_id
+                GROUP BY r.data_source
+            ), blobs AS (
+                SELECT r.data_source, SUM(b.raw_length) AS bytes
+                FROM document_blob b
+                JOIN record_document d ON d.id = b.document_id
+                JOIN source_record r ON r.id = d.record_id
+                GROUP BY r.data_source
+            ), sections AS (
+                SELECT r.data_source, SUM(OCTET_LENGTH(COALESCE(s.text, ''))) AS bytes
+                FROM document_section s
+                JOIN record_document d ON d.id = s.document_id
+                JOIN source_record r ON r.id = d.record_id
+                GROUP BY r.data_source
+            )
+            INSERT INTO storage_stats (data_source, record_count, content_bytes, updated_at)
+            SELECT records.data_source, records.n,
+                   COALESCE(documents.bytes, 0) + COALESCE(blobs.bytes, 0) + COALESCE(sections.bytes, 0),
+                   now()
+            FROM records
+            LEFT JOIN documents USING (data_source)
+            LEFT JOIN blobs USING (data_source)
+            LEFT JOIN sections USING (data_source)
+            ON CONFLICT (data_source) DO UPDATE SET
+                record_count = EXCLUDED.record_count,
+                content_bytes = EXCLUDED.content_bytes,
+                updated_at = now()
+            """;
+
+    private static final String SELECT_TABLE_SIZES = """
+            SELECT c.relname, pg_total_relation_size(c.oid)
+            FROM pg_class c
+            WHERE c.relkind = 'r' AND c.relname IN
+                ('source_record', 'record_document', 'document_blob', 'document_section',
+                 'reference_mention', 'embed_transcript_chunk')
+            ORDER BY pg_total_relation_size(c.oid) DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactions;
+    private final StorageStatsProperties props;
+    private final Map<DataSource, LongAdder> pendingRecords = new EnumMap<>(DataSource.class);
+    private final Map<DataSource, LongAdder> pendingBytes = new EnumMap<>(DataSource.class);
+    private final Object recomputeLock = new Object();
+
+    public StorageStatsService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               StorageStatsProperties props) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.props = props;
+        for (DataSource source : DataSource.values()) {
+            pendingRecords.put(source, new LongAdder());
+            pendingBytes.put(source, new LongAdder());
+        }
+    }
+
+    /**
+     * Counts a committed paper; never touches the database. A replacement of a
+     * stored paper adds no record and only the difference to the version it
+     * replaced ({@link PaperWriteRequest#replacedBytes()}), which may be negative.
+     */
+    public void record(PaperWriteRequest request) {
+        long bytes = contentBytes(request.document());
+        if (request.replacedBytes() >= 0) {
+            bytes -= request.replacedBytes();
+        } else {
+            pendingRecords.get(request.dataSource()).increment();
+        }
+        pendingBytes.get(request.dataSource()).add(bytes);
+    }
+
+    /** Adds the pending deltas to the stored totals and to today's growth. */
+    @Scheduled(fixedDelayString = "${paper.stats.flush-interval-ms:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<DataSource, long[]> deltas = new EnumMap<>(DataSource.class);
+        for (DataSource source : DataSource.values()) {
+            long records = drain(pendingRecords.get(source));
+            long bytes = drain(pendingBytes.get(source));
+            if (records != 0 || bytes != 0) {
+                deltas.put(source, new long[]{records, bytes});
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((source, d) -> rows.add(new Object[]{source.name(), d[0], d[1]}));
+        try {
+            transactions.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(ADD_TOTALS, rows);
+                jdbcTemplate.batchUpdate(ADD_DAILY, rows);
+            });
+        } catch (RuntimeException e) {
+            deltas.forEach((source, d) -> {
+                pendingRecords.get(source).add(d[0]);
+                pendingBytes.get(source).add(d[1]);
+            });
+            log.warn("Storage stats flush failed, retrying on the next flush: {}", e.getMessage());
+        }
+    }
+
+    /** Stored totals plus unflushed deltas, with the growth rate per source. */
+    public List<SourceStorageStats> stats() {
+        int window = Math.max(1, props.growthWindowDays());
+        return jdbcTemplate.query(SELECT_STATS, (rs, i) -> {
+            DataSource source = DataSource.valueOf(rs.getString(1));
+            long pendingRecordCount = pendingRecords.get(source).sum();
+            long pendingByteCount = pendingBytes.get(source).sum();
+            return new SourceStorageStats(
+                    source,
+                    rs.getLong(2) + pendingRecordCount,
+                    rs.getLong(3) + pendingByteCount,
+                    (rs.getLong(5) + pendingRecordCount) / (double) window,
+                    (rs.getLong(6) + pendingByteCount) / (double) window,
+                    rs.getObject(4, OffsetDateTime.class));
+        }, window);
+    }
+
+    /** Content bytes of all sources, from the stored totals. */
+    public long totalContentBytes() {
+        return stats().stream().mapToLong(SourceStorageStats::contentBytes).sum();
+    }
+
+    /** On-disk size of the paper tables including indexes and TOAST, by table name. */
+    public Map<String, Long> tableSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_TABLE_SIZES, rs -> {
+            sizes.put(rs.getString(1), rs.getLong(2));
+        });
+        return sizes;
+    }
+
+    /**
+     * Rebuilds the totals with a full scan, for when rows were deleted or changed
+     * outside the application. Only one scan runs at a time, but it does not hold
+     * the {@link #flush} lock, so scheduled flushes go on meanwhile; papers
+     * committed during the scan may be miscounted until the next recompute.
+     */
+    public void recompute() {
+        synchronized (recomputeLock) {
+            flush();
+            long t0 = System.nanoTime();
+            jdbcTemplate.update(RECOMPUTE);
+            log.info("Storage stats recomputed in {} ms", (System.nanoTime() - t0) / 1_000_000);
+        }
+    }
+
+    private static long drain(LongAdder adder) {
+        long v = adder.sum();
+        adder.add(-v);
+        return v;
+    }
+
+    /** UTF-8 size of the texts the paper stores, as {@code OCTET_LENGTH} would count them. */
+    static long contentBytes(PaperDocument document) {
+        if (document == null) {
+            return 0;
+        }
+        long bytes = utf8Length(document.title()) + utf8Length(document.abstractText())
+                + utf8Length(document.sourceXml()) + utf8Length(document.rawContent());
+        if (document.sections() != null) {
+            for (Section section : document.sections()) {
+                bytes += utf8Length(section.getText());
+            }
+        }
+        return bytes;
+    }
+
+    static long utf8Length(String s) {
+        if (s == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1; // unpaired, encoded as '?'
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,102 @@
+package com.data.oai.pipeline;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of permits in flight and shares them fairly between keys.
+ *
+ * <p>Every registered key may hold at most {@code ceil(capacity / activeKeys)}
+ * permits, and all keys together at most {@code capacity}. With a single active
+ * key it gets the whole capacity; when a second key registers, the first one
+ * stops acquiring until it has drained to its new share. Unused share is not
+ * reserved: a key only waits while it is over its share or the total is
+ * exhausted.</p>
+ *
+ * <p>Registrations are reference counted, so several callers may register the
+ * same key concurrently.</p>
+ *
+ * @param <K> key the permits are shared between
+ */
+final class FairShareLimiter<K> {
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<K, Integer> registrations = new HashMap<>();
+    private final Map<K, Integer> inFlight = new HashMap<>();
+    private int total;
+
+    FairShareLimiter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    void register(K key) {
+        lock.lock();
+        try {
+            registrations.merge(key, 1, Integer::sum);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void unregister(K key) {
+        lock.lock();
+        try {
+            registrations.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Blocks until {@code key} is within its share and a permit is free. */
+    void acquire(K key) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (total >= capacity || inFlight.getOrDefault(key, 0) >= share()) {
+                changed.await();
+            }
+            inFlight.merge(key, 1, Integer::sum);
+            total++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(K key) {
+        lock.lock();
+        try {
+            inFlight.computeIfPresent(key, (k, n) -> n > 1 ? n - 1 : null);
+            total--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight(K key) {
+        lock.lock();
+        try {
+            return inFlight.getOrDefault(key, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /** Called with the lock held. */
+    private int share() {
+        int keys = Math.max(1, registrations.size());
+        return (capacity + keys - 1) / keys;
+    }
+}
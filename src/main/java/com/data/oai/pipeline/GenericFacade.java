@@ -1,33 +1,24 @@
 package com.data.oai.pipeline;
 
-import com.data.config.properties.EmbeddingProperties;
-import com.data.rag.client.RagSystemRestApiService;
-import com.data.oai.persistence.PaperInternalService;
 import com.data.oai.persistence.TrackerService;
-import com.data.shared.DataSource;
-import com.data.shared.exception.PdfDownloadException;
-import com.data.shared.i18n.LanguageConstants;
-import org.springframework.dao.DataIntegrityViolationException;
+import com.data.oai.persistence.dedup.SourceIdIndex;
 import com.data.oai.persistence.entity.Tracker;
-import com.data.oai.shared.dto.PdfContent;
+import com.data.oai.persistence.stats.StorageStatsService;
+import com.data.oai.shared.dto.HarvestCheckpoint;
+import com.data.oai.shared.dto.OaiPage;
 import com.data.oai.shared.dto.Record;
-import com.data.oai.shared.dto.PaperDocument;
-import com.data.oai.grobid.GrobidService;
-import com.data.oai.persistence.repository.PaperDocumentRepository;
+import com.data.shared.DataSource;
+import com.data.shared.exception.ResumptionTokenRejectedException;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.Resource;
-import org.springframework.jdbc.core.JdbcTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.language.detect.LanguageDetector;
-import org.apache.tika.language.detect.LanguageResult;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -37,24 +28,17 @@ import static java.util.Objects.nonNull;
 @RequiredArgsConstructor
 public class GenericFacade {
 
-    private static final String DEFAULT_LANGUAGE = LanguageConstants.DEFAULT_LANGUAGE;
-
     private final OaiSourceRegistry sourceRegistry;
-    private final GrobidService grobidService;
-    private final PaperInternalService paperInternalService;
+    private final OaiPaperPipeline pipeline;
+    private final SourceIdIndex sourceIdIndex;
     private final TrackerService trackerService;
-    private final RagSystemRestApiService ragService;
-    private final EmbeddingProperties embeddingProperties;
-    private final LanguageDetector languageDetector;
-    private final PaperDocumentRepository paperDocumentRepository;
+    private final StorageStatsService storageStats;
     private final JdbcTemplate jdbcTemplate;
-    @Resource(name = "oaiExecutor")
-    private ExecutorService grobidPool;
 
     @PostConstruct
     void initOnStartup() {
         resyncSequences();
-        long existing = paperDocumentRepository.sumStoredContentBytes();
+        long existing = storageStats.totalContentBytes();
         log.info("DB content size on startup: {}", humanReadableSize(existing));
     }
 
@@ -73,92 +57,113 @@ public class GenericFacade {
         processCollectedArxivRecord(tracker, null);
     }
 
+    /**
+     * Harvests the tracker's period and processes records while pages are still
+     * being listed. Each OAI page is deduplicated and handed to the
+     * {@link OaiPaperPipeline} straight away; once the pipeline is full the
+     * harvesting thread blocks, so memory stays flat regardless of how many
+     * records the day has.
+     *
+     * <p>If an earlier run was interrupted, the harvest continues after the last
+     * page whose records were all processed (see {@link PageWatermark}), as long as
+     * its resumptionToken is still valid. Otherwise, or if the server rejects the
+     * token, it starts again from page one.</p>
+     */
     public void processCollectedArxivRecord(Tracker tracker, Set<String> onlyArxivIds) {
         OaiSourceHandler handler = sourceRegistry.get(tracker.getDataSource());
+        HarvestCheckpoint resumeFrom = trackerService.resumableCheckpoint(tracker);
 
-        Set<String> processedPaperIds = new java.util.HashSet<>(
-                paperInternalService.findArxivIdsProcessedInPeriod(
-                        tracker.getDateStart().minusDays(100),
-                        tracker.getDateEnd().plusDays(100),
-                        tracker.getDataSource()
-                )
-        );
-
-        List<Record> allRecords = handler.fetchMetadata(
-                tracker.getDateStart(),
-                tracker.getDateEnd());
-
-        tracker.setAllPapersForPeriod(allRecords.size());
-
-        List<Record> unprocessed = allRecords.stream()
-                .peek(r -> r.setSourceId(Record.extractIdFromOai(r.getExternalIdentifier())))
-                .filter(r -> nonNull(r.getSourceId()))
-                .filter(r -> !processedPaperIds.contains(r.getSourceId()))
-                .filter(r -> isNull(onlyArxivIds) || onlyArxivIds.contains(r.getSourceId()))
-                .toList();
-        tracker.setProcessedPapersForPeriod(allRecords.size() - unprocessed.size());
-
-        // Persist initial tracker state (allPapersForPeriod, initial processedCount) from the main thread
-        trackerService.persistTracker(tracker);
-
-        AtomicInteger processed = new AtomicInteger(0);
-
-        List<CompletableFuture<Void>> futures = unprocessed.stream()
-                .map(r -> CompletableFuture.runAsync(
-                        () -> processOne(handler, tracker, r, processed), grobidPool))
-                .toList();
+        OaiPaperPipeline.Batch batch = pipeline.openBatch(handler, tracker);
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        int listed;
+        boolean completed;
+        try {
+            listed = harvest(handler, tracker, batch, resumeFrom, onlyArxivIds);
+        } finally {
+            // Wait for every dispatched record to finish before touching the tracker totals
+            completed = batch.awaitCompletion();
+        }
+        if (!completed) {
+            log.warn("Interrupted while records of tracker {} were in flight; totals left for the next run",
+                    tracker.getId());
+            return;
+        }
 
-        log.info("Processed {} records with GROBID", processed.get());
+        trackerService.markHarvested(tracker.getId(), listed);
+        log.info("Processed {} records with GROBID", batch.processed());
     }
 
-    private void processOne(OaiSourceHandler handler, Tracker tracker, Record apiRecord, AtomicInteger processed) {
-        String sourceId = apiRecord.getSourceId();
+    private int harvest(OaiSourceHandler handler, Tracker tracker, OaiPaperPipeline.Batch batch,
+                        HarvestCheckpoint resumeFrom, Set<String> onlyArxivIds) {
+        // Stored ids come from the dedup index; this set only catches repeats within the run
+        Set<String> seenInRun = new HashSet<>();
+
+        // Counters are rebuilt while streaming. allPapersForPeriod stays 0 until the
+        // last page is listed, so an interrupted harvest is never "complete". Every
+        // record up to a checkpoint has been processed, so a resumed run starts there.
+        tracker.setAllPapersForPeriod(0);
+        tracker.setProcessedPapersForPeriod(resumeFrom != null ? resumeFrom.listed() : 0);
+        if (resumeFrom == null) {
+            trackerService.clearCheckpoint(tracker);
+        }
+        trackerService.persistTracker(tracker);
 
+        PageWatermark watermark = new PageWatermark(checkpoint -> saveCheckpoint(tracker, checkpoint));
+        AtomicBoolean anyPage = new AtomicBoolean();
         try {
-            PdfContent pdfResult = handler.fetchPdfAndEnrich(apiRecord);
-            if (pdfResult == null) {
-                return; // no PDF available — already logged by handler
+            return handler.streamMetadata(
+                    tracker.getDateStart(),
+                    tracker.getDateEnd(),
+                    resumeFrom,
+                    (page, after) -> {
+                        anyPage.set(true);
+                        dispatchPage(batch, tracker, page, after, watermark, seenInRun, onlyArxivIds);
+                    });
+        } catch (ResumptionTokenRejectedException e) {
+            if (resumeFrom == null || anyPage.get()) {
+                throw e;
             }
-            byte[] pdfBytes = pdfResult.content();
-            if (pdfBytes == null || pdfBytes.length == 0) {
-                throw new PdfDownloadException("Empty or no pdf content found for %s".formatted(sourceId));
+            log.warn("[{}] Checkpoint for {} rejected by the server; harvesting from page one: {}",
+                    tracker.getDataSource(), tracker.getDateStart(), e.getMessage());
+            return harvest(handler, tracker, batch, null, onlyArxivIds);
+        }
+    }
+
+    private void saveCheckpoint(Tracker tracker, HarvestCheckpoint checkpoint) {
+        try {
+            trackerService.saveCheckpoint(tracker.getId(), checkpoint);
+        } catch (RuntimeException e) {
+            // Only costs re-listing pages after a crash; never fail the record over it
+            log.warn("[{}] Could not save checkpoint after page {} for {}: {}",
+                    tracker.getDataSource(), checkpoint.page(), tracker.getDateStart(), e.getMessage());
+        }
+    }
+
+    private void dispatchPage(OaiPaperPipeline.Batch batch, Tracker tracker, OaiPage page, HarvestCheckpoint after,
+                              PageWatermark watermark, Set<String> seenIds, Set<String> onlyArxivIds) {
+        int pageNo = after.page();
+        watermark.open(pageNo);
+        int skipped = 0;
+        for (Record r : page.records()) {
+            r.setSourceId(Record.extractIdFromOai(r.getExternalIdentifier()));
+            if (isNull(r.getSourceId())
+                    || (nonNull(onlyArxivIds) && !onlyArxivIds.contains(r.getSourceId()))
+                    || sourceIdIndex.contains(tracker.getDataSource(), r.getSourceId())
+                    || !seenIds.add(r.getSourceId())) {
+                skipped++;
+                continue;
             }
 
-            PaperDocument grobidDoc = grobidService.processGrobidDocument(sourceId, apiRecord.getExternalIdentifier(), pdfBytes);
-            grobidDoc = grobidDoc.withFallbacks(apiRecord.getTitle(), apiRecord.getAbstractText());
-            apiRecord.setLanguage(detectLang(grobidDoc.title() + " " + grobidDoc.abstractText(), sourceId));
-//            grobidDoc.sections().forEach(
-//                    section ->
-//                            section.setEmbeddings(ragService.getEmbeddingsForText(EmbedTranscriptRequest.forPassage(section.getText(), embeddingProperties)))
-//            );
-
-            paperInternalService.persistState(
-                    tracker.getDataSource(),
-                    apiRecord,
-                    grobidDoc,
-                    pdfResult.url());
-        } catch (PdfDownloadException | DataIntegrityViolationException e) {
-            // Expected per-record soft failures: PDF missing/empty, or the record
-            // already exists in the DB. Neither warrants ERROR noise.
-            log.warn("Skipping sourceId={}: {}", sourceId, e.getMessage());
-        } catch (Exception e) {
-            // Retries on the GROBID call are exhausted at this point (see the
-            // resilience4j `grobid` retry config in application.yml). This is a
-            // real processing failure — escalate to ERROR so it is distinguishable
-            // from the soft-skips above. The ExceptionLoggingAspect has already
-            // recorded the unique signature in logs/unique-exceptions.log.
-            log.error("Failed to process sourceId={} with GROBID after retries exhausted (source={}): {}",
-                    sourceId, tracker.getDataSource(), e.getMessage(), e);
-        } finally {
-            // Atomically increment at DB level — thread-safe, no JPA entity mutation from pool threads
-            trackerService.incrementProcessed(tracker.getId());
-            int newVal = processed.incrementAndGet();
-            if (newVal % 10 == 0) {
-                log.info("Processed {} documents", newVal);
+            try {
+                watermark.submitted(pageNo);
+                pipeline.submit(batch, r, () -> watermark.completed(pageNo));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while dispatching records for " + tracker.getDataSource(), e);
             }
         }
+        trackerService.addProcessed(tracker.getId(), skipped);
+        watermark.listed(pageNo, after);
     }
 
     private static String humanReadableSize(long bytes) {
@@ -167,22 +172,4 @@ public class GenericFacade {
         if (bytes < 1024L * 1024 * 1024)      return "%.1f MB".formatted(bytes / (1024.0 * 1024));
         return "%.2f GB".formatted(bytes / (1024.0 * 1024 * 1024));
     }
-
-    private String detectLang(String text, String sourceId) {
-        try {
-            LanguageResult result;
-            synchronized (languageDetector) {
-                result = languageDetector.detect(text);
-            }
-            if (result.isUnknown()) {
-                log.warn("Unknown language for sourceId={}", sourceId);
-                return DEFAULT_LANGUAGE;
-            }
-            return result.getLanguage();
-        } catch (Exception e) {
-            log.error("Language detection failed for sourceId={}", sourceId, e);
-            return DEFAULT_LANGUAGE;
-        }
-    }
-
 }
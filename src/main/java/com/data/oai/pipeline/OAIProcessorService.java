@@ -12,9 +12,27 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Harvests the last {@code days-back} days of every configured OAI source.
+ *
+ * <p>Each (source, day) pair is a partition with its own {@link Tracker}. Up to
+ * {@code oai.processing.partitions.concurrency} partitions run at once, at most
+ * {@code per-source} of them for the same source, so one slow day no longer holds
+ * up the rest. Partitions are started newest day first, alternating between
+ * sources. Requests to a source still go through that source's resilience4j rate
+ * limiter, which all partitions share, and the {@link OaiPaperPipeline} splits
+ * GROBID capacity evenly between the sources that are running.</p>
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -25,22 +43,65 @@ public class OAIProcessorService implements Job {
 
     @Override
     public void execute(JobExecution execution) {
-        processingProps.sources()
-                .forEach(this::processSource);
-    }
-
-    private void processSource(DataSource dataSource) {
-        log.info("Starting OAI processing for {} ({} days back)", dataSource, processingProps.daysBack());
+        List<DataSource> sources = processingProps.sources();
+        OaiProcessingProperties.Partitions limits = processingProps.partitions();
+        int concurrency = limits != null ? Math.max(1, limits.concurrency()) : 1;
+        int perSource = limits != null ? Math.max(1, limits.perSource()) : 1;
+        log.info("Starting OAI processing for {} ({} days back, {} partitions at once, {} per source)",
+                sources, processingProps.daysBack(), concurrency, perSource);
 
-        List<LocalDate> failedDates = new ArrayList<>();
+        Semaphore global = new Semaphore(concurrency, true);
+        Map<DataSource, Semaphore> bySource = new EnumMap<>(DataSource.class);
+        sources.forEach(source -> bySource.put(source, new Semaphore(perSource, true)));
+        Map<DataSource, Queue<LocalDate>> failedDates = new ConcurrentHashMap<>();
 
-        IntStream.range(0, processingProps.daysBack())
-                .mapToObj(i -> LocalDate.now().minusDays(i))
-                .forEach(date -> processDateSafely(date, dataSource, failedDates));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Partition partition : partitions(sources)) {
+                executor.submit(() -> runPartition(partition, bySource.get(partition.source()), global, failedDates));
+            }
+        }
 
-        if (!failedDates.isEmpty()) {
+        failedDates.forEach((source, dates) -> {
+            List<LocalDate> sorted = new ArrayList<>(dates);
+            sorted.sort(null);
             log.warn("[{}] {} date(s) failed due to timeouts or errors and will be retried on the next run: {}",
-                    dataSource, failedDates.size(), failedDates);
+                    source, sorted.size(), sorted);
+        });
+    }
+
+    /** Day-major so the newest days of every source are harvested first. */
+    private List<Partition> partitions(List<DataSource> sources) {
+        LocalDate today = LocalDate.now();
+        List<Partition> partitions = new ArrayList<>(processingProps.daysBack() * sources.size());
+        for (int i = 0; i < processingProps.daysBack(); i++) {
+            for (DataSource source : sources) {
+                partitions.add(new Partition(source, today.minusDays(i)));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Takes the source permit before the global one, so a partition waiting for
+     * its source never holds a slot another source could use.
+     */
+    private void runPartition(Partition partition, Semaphore sourcePermits, Semaphore global,
+                              Map<DataSource, Queue<LocalDate>> failedDates) {
+        try {
+            sourcePermits.acquire();
+            try {
+                global.acquire();
+                try {
+                    processDateSafely(partition.date(), partition.source(), failedDates);
+                } finally {
+                    global.release();
+                }
+            } finally {
+                sourcePermits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[{}] Interrupted before processing date {}", partition.source(), partition.date());
         }
     }
 
@@ -51,14 +112,14 @@ public class OAIProcessorService implements Job {
      * Failed dates will be retried automatically on the next scheduled run since
      * they remain unprocessed in the tracker.
      */
-    private void processDateSafely(LocalDate date, DataSource dataSource, List<LocalDate> failedDates) {
+    private void processDateSafely(LocalDate date, DataSource dataSource, Map<DataSource, Queue<LocalDate>> failedDates) {
         try {
             Tracker tracker = genericFacade.getTracker(date, dataSource);
             if (tracker != null) {
                 genericFacade.processCollectedArxivRecord(tracker);
             }
         } catch (Exception e) {
-            failedDates.add(date);
+            failedDates.computeIfAbsent(dataSource, s -> new ConcurrentLinkedQueue<>()).add(date);
             log.error("[{}] Failed to process date {}. Skipping to next date. Error: {}",
                     dataSource, date, e.getMessage());
         }
@@ -68,4 +129,6 @@ public class OAIProcessorService implements Job {
     public @NotNull String getName() {
         return "OAIProcessorService Job";
     }
+
+    private record Partition(DataSource source, LocalDate date) {}
 }
@@ -0,0 +1,404 @@
+package com.data.oai.pipeline;
+
+import com.data.config.properties.EmbeddingProperties;
+import com.data.config.properties.OaiProcessingProperties;
+import com.data.config.properties.PdfTriageProperties;
+import com.data.oai.grobid.GrobidService;
+import com.data.oai.grobid.PdfTriage;
+import com.data.oai.persistence.PaperBatchWriter;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.persistence.TrackerService;
+import com.data.oai.persistence.entity.Tracker;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.PdfContent;
+import com.data.oai.shared.dto.Record;
+import com.data.rag.client.RagSystemRestApiService;
+import com.data.shared.DataSource;
+import com.data.shared.exception.PdfDownloadException;
+import com.data.shared.i18n.LanguageConstants;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged processing of harvested OAI records:
+ * <pre>
+ *   download (virtual threads) → triage (platform) → GROBID (platform pool) → map + language (platform)
+ *     → persist (virtual threads)
+ * </pre>
+ * Every stage has its own worker count and a bounded queue in front of it
+ * (see {@link PipelineStage}), so a slow PDF download never holds a GROBID slot
+ * and GROBID always has work queued. Queue depth and busy workers per stage are
+ * exported as {@code oai.pipeline.queue.depth} / {@code oai.pipeline.busy.workers};
+ * the time each record spends in the download, GROBID, mapping, language detection
+ * and persist calls is recorded by {@link PipelineTimers}, tagged by source.
+ *
+ * <p>Triage ({@link PdfTriage}) rejects PDFs that GROBID cannot turn into usable
+ * TEI and sends expensive ones to the GROBID stage's low-priority queue, which is
+ * only drained while no normal record is waiting.</p>
+ *
+ * <p>Records are grouped into a {@link Batch} per tracker, which lets the caller wait
+ * for all of them. Every record is completed exactly once, whichever stage it fails
+ * in, and completion is what advances the tracker (attempts, not successes).
+ * On shutdown, records still queued or interrupted in a stage are discarded
+ * instead: their spooled PDF is deleted and their slot released, but they are not
+ * completed, so their page is harvested again by the next run.</p>
+ *
+ * <p>At most the pipeline's total capacity of records is in flight. When trackers
+ * of several sources run at once, that capacity (and with it GROBID) is shared
+ * evenly between the sources by a {@link FairShareLimiter}, so a source with a
+ * huge day cannot starve the others.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OaiPaperPipeline {
+
+    private static final String DEFAULT_LANGUAGE = LanguageConstants.DEFAULT_LANGUAGE;
+
+    private final GrobidService grobidService;
+    private final PdfTriage pdfTriage;
+    private final PdfTriageProperties triageProps;
+    private final PaperBatchWriter paperBatchWriter;
+    private final TrackerService trackerService;
+    private final RagSystemRestApiService ragService;
+    private final EmbeddingProperties embeddingProperties;
+    private final LanguageDetectionService languageDetection;
+    private final OaiProcessingProperties processingProps;
+    private final MeterRegistry meterRegistry;
+    private final PipelineTimers timers;
+
+    private PipelineStage<PaperWork> downloadStage;
+    private PipelineStage<PaperWork> triageStage;
+    private PipelineStage<PaperWork> grobidStage;
+    private PipelineStage<PaperWork> mapStage;
+    private PipelineStage<PaperWork> persistStage;
+    private List<PipelineStage<PaperWork>> stages;
+    private FairShareLimiter<DataSource> admission;
+
+    @PostConstruct
+    void start() {
+        OaiProcessingProperties.Pipeline sizes = processingProps.pipeline();
+        int queue = processingProps.queue();
+
+        persistStage = new PipelineStage<>("persist", sizes.persistConcurrency(), queue,
+                Thread.ofVirtual().name("oai-persist-", 0).factory(), guarded(this::persist));
+        mapStage = new PipelineStage<>("map", sizes.mapConcurrency(), queue,
+                Thread.ofPlatform().name("oai-map-", 0).daemon(true).factory(), guarded(this::map));
+        // With the adaptive GROBID limit the stage gets a worker per possible slot; the limiter decides how many send
+        int grobidWorkers = Math.max(processingProps.concurrency(), grobidService.maxConcurrency());
+        grobidStage = new PipelineStage<>("grobid", grobidWorkers, queue, triageProps.lowPriorityQueue(),
+                Thread.ofPlatform().name("oai-grobid-", 0).daemon(true).factory(), guarded(this::grobid));
+        triageStage = new PipelineStage<>("triage", sizes.triageConcurrency(), queue,
+                Thread.ofPlatform().name("oai-triage-", 0).daemon(true).factory(), guarded(this::triage));
+        downloadStage = new PipelineStage<>("download", sizes.downloadConcurrency(), queue,
+                Thread.ofVirtual().name("oai-download-", 0).factory(), guarded(this::download));
+        stages = List.of(downloadStage, triageStage, grobidStage, mapStage, persistStage);
+        admission = new FairShareLimiter<>(stages.stream().mapToInt(PipelineStage::capacity).sum());
+
+        for (PipelineStage<PaperWork> stage : stages) {
+            Gauge.builder("oai.pipeline.queue.depth", stage, PipelineStage::queueDepth)
+                    .description("Records waiting in front of an OAI pipeline stage")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            Gauge.builder("oai.pipeline.busy.workers", stage, PipelineStage::busyWorkers)
+                    .description("OAI pipeline stage workers currently processing a record")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry);
+            stage.start();
+        }
+        for (DataSource source : DataSource.values()) {
+            Gauge.builder("oai.pipeline.in.flight", admission, a -> a.inFlight(source))
+                    .description("Records of a source admitted to the OAI pipeline and not yet completed")
+                    .tag("source", source.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        List<PaperWork> leftovers = new ArrayList<>();
+        stages.forEach(stage -> leftovers.addAll(stage.stop()));
+        leftovers.forEach(OaiPaperPipeline::discard);
+        if (!leftovers.isEmpty()) {
+            log.info("[PIPELINE] stopped with {} queued records discarded", leftovers.size());
+        }
+    }
+
+    /**
+     * Opens a batch for one tracker and registers its source for a share of the
+     * pipeline. The batch must be finished with {@link Batch#awaitCompletion()}.
+     */
+    Batch openBatch(OaiSourceHandler handler, Tracker tracker) {
+        admission.register(tracker.getDataSource());
+        return new Batch(handler, tracker, admission);
+    }
+
+    /**
+     * Hands a record to the download stage, blocking while the pipeline is full
+     * or the batch's source is over its share. {@code onComplete} runs once the
+     * record is completed, whatever the outcome.
+     */
+    void submit(Batch batch, Record apiRecord, Runnable onComplete) throws InterruptedException {
+        batch.admit();
+        try {
+            downloadStage.submit(new PaperWork(batch, apiRecord, onComplete));
+        } catch (InterruptedException e) {
+            batch.release();
+            throw e;
+        }
+    }
+
+    // ── Stages ───────────────────────────────────────────────────────
+
+    private boolean download(PaperWork work) throws InterruptedException {
+        PdfContent pdfResult = timers.time(PipelineTimers.Step.PDF_DOWNLOAD, work.source(),
+                () -> work.batch.handler.fetchPdfAndEnrich(work.apiRecord));
+        if (pdfResult == null) {
+            return false; // no PDF available — already logged by handler
+        }
+        work.pdf = pdfResult;
+        if (pdfResult.content() == null || pdfResult.content().isEmpty()) {
+            throw new PdfDownloadException("Empty or no pdf content found for %s".formatted(work.sourceId()));
+        }
+        work.pdfUrl = pdfResult.url();
+        triageStage.submit(work);
+        return true;
+    }
+
+    private boolean triage(PaperWork work) throws InterruptedException {
+        PdfTriage.Verdict verdict = pdfTriage.triage(work.pdf.content());
+        switch (verdict.action()) {
+            case REJECT -> throw new PdfDownloadException(
+                    "Rejected by PDF triage for %s: %s".formatted(work.sourceId(), verdict.reason()));
+            case LOW_PRIORITY -> {
+                log.info("Deferring sourceId={} to low-priority GROBID queue: {}", work.sourceId(), verdict.reason());
+                grobidStage.submitLowPriority(work);
+            }
+            case ACCEPT -> grobidStage.submit(work);
+        }
+        return true;
+    }
+
+    private boolean grobid(PaperWork work) throws InterruptedException {
+        work.teiXml = timers.time(PipelineTimers.Step.GROBID, work.source(),
+                () -> grobidService.fetchTei(work.sourceId(), work.pdf.content()));
+        work.releasePdf();
+        mapStage.submit(work);
+        return true;
+    }
+
+    private boolean map(PaperWork work) throws InterruptedException {
+        Record apiRecord = work.apiRecord;
+        PaperDocument grobidDoc = timers.time(PipelineTimers.Step.TEI_MAPPING, work.source(),
+                        () -> grobidService.mapTei(work.sourceId(), apiRecord.getExternalIdentifier(), work.teiXml))
+                .withFallbacks(apiRecord.getTitle(), apiRecord.getAbstractText());
+        apiRecord.setLanguage(timers.time(PipelineTimers.Step.LANGUAGE_DETECTION, work.source(),
+                () -> detectLang(grobidDoc.title() + " " + grobidDoc.abstractText(), work.sourceId())));
+//        grobidDoc.sections().forEach(
+//                section ->
+//                        section.setEmbeddings(ragService.getEmbeddingsForText(EmbedTranscriptRequest.forPassage(section.getText(), embeddingProperties)))
+//        );
+        work.teiXml = null;
+        work.document = grobidDoc;
+        persistStage.submit(work);
+        return true;
+    }
+
+    private boolean persist(PaperWork work) {
+        // Blocks until the group commit containing this paper is done
+        timers.run(PipelineTimers.Step.PERSIST, work.source(), () -> paperBatchWriter.write(new PaperWriteRequest(
+                work.source(),
+                work.apiRecord,
+                work.document,
+                work.pdfUrl)));
+        return false;
+    }
+
+    // ── Completion and error handling ────────────────────────────────
+
+    @FunctionalInterface
+    private interface Step {
+        /** @return {@code true} if the record was handed to the next stage */
+        boolean apply(PaperWork work) throws Exception;
+    }
+
+    /**
+     * Wraps a stage step so that failures are logged per record and every record
+     * that does not move on to the next stage is completed exactly once.
+     */
+    private PipelineStage.Worker<PaperWork> guarded(Step step) {
+        return work -> {
+            boolean handedOff = false;
+            boolean interrupted = false;
+            try {
+                handedOff = step.apply(work);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                throw e;
+            } catch (PdfDownloadException | DataIntegrityViolationException e) {
+                // Expected per-record soft failures: PDF missing/empty, or the record
+                // already exists in the DB. Neither warrants ERROR noise.
+                log.warn("Skipping sourceId={}: {}", work.sourceId(), e.getMessage());
+            } catch (Exception e) {
+                // Retries on the GROBID call are exhausted at this point (see the
+                // resilience4j `grobid` retry config in application.yml). This is a
+                // real processing failure — escalate to ERROR so it is distinguishable
+                // from the soft-skips above. The ExceptionLoggingAspect has already
+                // recorded the unique signature in logs/unique-exceptions.log.
+                log.error("Failed to process sourceId={} with GROBID after retries exhausted (source={}): {}",
+                        work.sourceId(), work.batch.tracker.getDataSource(), e.getMessage(), e);
+            } finally {
+                if (interrupted) {
+                    discard(work);
+                } else if (!handedOff) {
+                    complete(work);
+                }
+            }
+        };
+    }
+
+    /** Drops a record on shutdown: frees its PDF and slot without completing it. */
+    private static void discard(PaperWork work) {
+        work.releasePdf();
+        work.batch.release();
+    }
+
+    private void complete(PaperWork work) {
+        Batch batch = work.batch;
+        work.releasePdf(); // a record that failed before GROBID still holds its spool file
+        try {
+            // In-memory, lock-free; TrackerService flushes it to the DB in batches
+            trackerService.incrementProcessed(batch.tracker.getId());
+            int newVal = batch.processed.incrementAndGet();
+            if (newVal % 10 == 0) {
+                log.info("Processed {} documents | queued download={} triage={} grobid={} (low {}) map={} persist={}",
+                        newVal, downloadStage.queueDepth(), triageStage.queueDepth(), grobidStage.queueDepth(),
+                        grobidStage.lowPriorityDepth(), mapStage.queueDepth(), persistStage.queueDepth());
+            }
+        } finally {
+            try {
+                work.onComplete.run();
+            } finally {
+                batch.release();
+            }
+        }
+    }
+
+    private String detectLang(String text, String sourceId) {
+        try {
+            String language = languageDetection.detect(text);
+            if (language == null) {
+                log.warn("Unknown language for sourceId={}", sourceId);
+                return DEFAULT_LANGUAGE;
+            }
+            return language;
+        } catch (Exception e) {
+            log.error("Language detection failed for sourceId={}", sourceId, e);
+            return DEFAULT_LANGUAGE;
+        }
+    }
+
+    // ── Types ────────────────────────────────────────────────────────
+
+    /** All records of one tracker run. */
+    static final class Batch {
+        private final OaiSourceHandler handler;
+        private final Tracker tracker;
+        private final FairShareLimiter<DataSource> admission;
+        private final AtomicInteger processed = new AtomicInteger();
+        private int inFlight; // guarded by this
+
+        private Batch(OaiSourceHandler handler, Tracker tracker, FairShareLimiter<DataSource> admission) {
+            this.handler = handler;
+            this.tracker = tracker;
+            this.admission = admission;
+        }
+
+        private void admit() throws InterruptedException {
+            admission.acquire(tracker.getDataSource());
+            synchronized (this) {
+                inFlight++;
+            }
+        }
+
+        private void release() {
+            synchronized (this) {
+                if (--inFlight == 0) {
+                    notifyAll();
+                }
+            }
+            admission.release(tracker.getDataSource());
+        }
+
+        /**
+         * Blocks until every submitted record has been completed or discarded, then
+         * gives the source's share back to the other sources.
+         *
+         * @return {@code false} if interrupted first; the interrupt flag is then set
+         *         again and records may still be in flight
+         */
+        boolean awaitCompletion() {
+            try {
+                synchronized (this) {
+                    while (inFlight > 0) {
+                        wait();
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                admission.unregister(tracker.getDataSource());
+            }
+        }
+
+        int processed() {
+            return processed.get();
+        }
+    }
+
+    /** A record travelling through the stages; fields are filled in as it progresses. */
+    private static final class PaperWork {
+        private final Batch batch;
+        private final Record apiRecord;
+        private final Runnable onComplete;
+        private PdfContent pdf;
+        private String pdfUrl;
+        private String teiXml;
+        private PaperDocument document;
+
+        private PaperWork(Batch batch, Record apiRecord, Runnable onComplete) {
+            this.batch = batch;
+            this.apiRecord = apiRecord;
+            this.onComplete = onComplete;
+        }
+
+        private String sourceId() {
+            return apiRecord.getSourceId();
+        }
+
+        private DataSource source() {
+            return batch.tracker.getDataSource();
+        }
+
+        private void releasePdf() {
+            if (pdf != null) {
+                pdf.close();
+                pdf = null;
+            }
+        }
+    }
+}
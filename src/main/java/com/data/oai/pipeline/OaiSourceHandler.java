@@ -1,11 +1,14 @@
 package com.data.oai.pipeline;
 
+import com.data.oai.shared.dto.HarvestCheckpoint;
+import com.data.oai.shared.dto.OaiPage;
 import com.data.oai.shared.dto.PdfContent;
 import com.data.oai.shared.dto.Record;
 import com.data.shared.DataSource;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface OaiSourceHandler {
 
@@ -13,5 +16,19 @@ public interface OaiSourceHandler {
 
     List<Record> fetchMetadata(LocalDate startInclusive, LocalDate endInclusive);
 
+    /**
+     * Streaming variant of {@link #fetchMetadata}: each OAI-PMH page is handed to
+     * {@code pageConsumer} as soon as it is parsed, together with the checkpoint
+     * after it, so downstream work can start while later pages are still being
+     * listed. A non-null {@code resumeFrom} continues an interrupted harvest after
+     * that checkpoint.
+     *
+     * @return total number of records listed for the period
+     * @throws com.data.shared.exception.ResumptionTokenRejectedException if the
+     *         server rejects a resumptionToken (e.g. an expired checkpoint)
+     */
+    int streamMetadata(LocalDate startInclusive, LocalDate endInclusive, HarvestCheckpoint resumeFrom,
+                       BiConsumer<OaiPage, HarvestCheckpoint> pageConsumer);
+
     PdfContent fetchPdfAndEnrich(Record record);
 }
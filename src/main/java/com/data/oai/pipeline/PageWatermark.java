@@ -0,0 +1,88 @@
+package com.data.oai.pipeline;
+
+import com.data.oai.shared.dto.HarvestCheckpoint;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Tracks which harvested pages have been fully processed and reports the
+ * checkpoint after the last page up to which everything is done.
+ *
+ * <p>Records finish out of order, so a page's checkpoint is only reported once
+ * the page itself and every page before it have no record left in the
+ * pipeline. Resuming from that checkpoint therefore never skips a record that
+ * was still in flight when the JVM stopped. Records of later pages that had
+ * already been persisted are filtered by the dedup index on the next run.</p>
+ *
+ * <p>Pages must be {@linkplain #open opened} in order; {@link #completed} may be
+ * called from any thread.</p>
+ */
+final class PageWatermark {
+
+    private final Consumer<HarvestCheckpoint> onAdvance;
+    private final Deque<Page> open = new ArrayDeque<>();
+
+    PageWatermark(Consumer<HarvestCheckpoint> onAdvance) {
+        this.onAdvance = onAdvance;
+    }
+
+    /** Starts tracking a page, before any of its records is submitted. */
+    synchronized void open(int page) {
+        open.addLast(new Page(page));
+    }
+
+    synchronized void submitted(int page) {
+        find(page).pending++;
+    }
+
+    /** Called once all of the page's records have been submitted. */
+    synchronized void listed(int page, HarvestCheckpoint after) {
+        find(page).after = after;
+        advance();
+    }
+
+    synchronized void completed(int page) {
+        find(page).pending--;
+        advance();
+    }
+
+    /**
+     * Retires finished pages from the front and reports the last one. Runs under
+     * the lock so checkpoints are saved in page order; that is one UPDATE per page.
+     */
+    private void advance() {
+        HarvestCheckpoint last = null;
+        while (!open.isEmpty() && open.peekFirst().done()) {
+            last = open.removeFirst().after;
+        }
+        // The last page has no next token; markHarvested clears the checkpoint instead
+        if (last != null && last.resumptionToken() != null && !last.resumptionToken().isBlank()) {
+            onAdvance.accept(last);
+        }
+    }
+
+    private Page find(int page) {
+        for (Page p : open) {
+            if (p.number == page) {
+                return p;
+            }
+        }
+        throw new IllegalStateException("Page " + page + " is not open");
+    }
+
+    private static final class Page {
+        private final int number;
+        private int pending;
+        private HarvestCheckpoint after;
+
+        private Page(int number) {
+            this.number = number;
+        }
+
+        private boolean done() {
+            return after != null && pending == 0;
+        }
+    }
+}
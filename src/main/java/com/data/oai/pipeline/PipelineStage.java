@@ -0,0 +1,228 @@
+package com.data.oai.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One stage of the {@link OaiPaperPipeline}: a fixed number of workers draining a
+ * bounded queue.
+ *
+ * <p>{@link #submit} blocks while the queue is full. That is the back-pressure
+ * mechanism of the pipeline: a slow GROBID stage stalls the download workers
+ * that feed it, which in turn stall the OAI harvest. Nothing is ever rejected
+ * and no caller ends up running another stage's work.</p>
+ *
+ * <p>A stage may have a second, low-priority queue with its own capacity. Workers
+ * only take from it while the normal queue is empty, so deferred items use
+ * otherwise idle workers and never delay normal ones.</p>
+ *
+ * <p>{@link #stop} returns the items still queued, so the owner can release what
+ * they hold; after it, {@link #submit} fails like an interrupted call.</p>
+ *
+ * @param <T> item type handed from the previous stage
+ */
+@Slf4j
+final class PipelineStage<T> {
+
+    /** Work done for a single item. May block on the next stage's {@link #submit}. */
+    @FunctionalInterface
+    interface Worker<T> {
+        void process(T item) throws InterruptedException;
+    }
+
+    private final String name;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final int lowPriorityCapacity;
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private final ArrayDeque<T> lowPriorityQueue = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition lowPriorityNotFull = lock.newCondition();
+    private final Worker<T> worker;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger busy = new AtomicInteger();
+    private volatile boolean running;
+    private boolean stopped; // guarded by lock
+
+    PipelineStage(String name, int concurrency, int queueCapacity, ThreadFactory threadFactory, Worker<T> worker) {
+        this(name, concurrency, queueCapacity, 0, threadFactory, worker);
+    }
+
+    /** @param lowPriorityCapacity capacity of the low-priority queue; 0 for none */
+    PipelineStage(String name, int concurrency, int queueCapacity, int lowPriorityCapacity,
+                  ThreadFactory threadFactory, Worker<T> worker) {
+        if (concurrency < 1 || queueCapacity < 1 || lowPriorityCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "Stage %s needs concurrency >= 1 and queue >= 1 (got %d / %d)".formatted(name, concurrency, queueCapacity));
+        }
+        this.name = name;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.lowPriorityCapacity = lowPriorityCapacity;
+        this.threadFactory = threadFactory;
+        this.worker = worker;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            Thread t = threadFactory.newThread(this::drain);
+            t.start();
+            threads.add(t);
+        }
+        log.info("[PIPELINE] stage={} started with {} workers, queue capacity {} (+{} low priority)",
+                name, concurrency, queueCapacity, lowPriorityCapacity);
+    }
+
+    /**
+     * Interrupts the workers and empties both queues.
+     *
+     * @return the items that were queued and will never be processed
+     */
+    synchronized List<T> stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+        lock.lock();
+        try {
+            stopped = true;
+            List<T> leftovers = new ArrayList<>(queue);
+            leftovers.addAll(lowPriorityQueue);
+            queue.clear();
+            lowPriorityQueue.clear();
+            // Wake producers blocked on a full queue; they see the stage is stopped
+            notFull.signalAll();
+            lowPriorityNotFull.signalAll();
+            return leftovers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Enqueues an item, blocking while the stage's queue is full. */
+    void submit(T item) throws InterruptedException {
+        put(queue, queueCapacity, notFull, item);
+    }
+
+    /**
+     * Enqueues an item behind all normal ones, blocking while the low-priority
+     * queue is full. Falls back to {@link #submit} on a stage without one.
+     */
+    void submitLowPriority(T item) throws InterruptedException {
+        if (lowPriorityCapacity == 0) {
+            submit(item);
+            return;
+        }
+        put(lowPriorityQueue, lowPriorityCapacity, lowPriorityNotFull, item);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int concurrency() {
+        return concurrency;
+    }
+
+    /** Items waiting for a worker, both queues. */
+    int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size() + lowPriorityQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Items waiting in the low-priority queue. */
+    int lowPriorityDepth() {
+        lock.lock();
+        try {
+            return lowPriorityQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Workers currently processing an item. */
+    int busyWorkers() {
+        return busy.get();
+    }
+
+    /** Maximum number of items this stage can hold (queued plus in progress). */
+    int capacity() {
+        return concurrency + queueCapacity + lowPriorityCapacity;
+    }
+
+    private void put(ArrayDeque<T> target, int capacity, Condition notFullCondition, T item)
+            throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!stopped && target.size() >= capacity) {
+                notFullCondition.await();
+            }
+            if (stopped) {
+                throw new InterruptedException("Stage " + name + " is stopped");
+            }
+            target.addLast(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Takes the next normal item, or a low-priority one when there is none. */
+    private T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty() && lowPriorityQueue.isEmpty()) {
+                notEmpty.await();
+            }
+            if (!queue.isEmpty()) {
+                notFull.signal();
+                return queue.pollFirst();
+            }
+            lowPriorityNotFull.signal();
+            return lowPriorityQueue.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            T item;
+            try {
+                item = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            busy.incrementAndGet();
+            try {
+                worker.process(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Workers are expected to handle their own failures; this is a last line of defence
+                log.error("[PIPELINE] stage={} worker failed: {}", name, e.getMessage(), e);
+            } finally {
+                busy.decrementAndGet();
+            }
+        }
+    }
+}
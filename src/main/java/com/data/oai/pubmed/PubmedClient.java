@@ -1,7 +1,9 @@
 package com.data.oai.pubmed;
 
 import com.data.config.properties.PubmedOaiProps;
+import com.data.shared.http.BodySpooler;
 import com.data.shared.http.HttpExchangeSupport;
+import com.data.shared.http.SpooledBody;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -18,10 +20,12 @@ public class PubmedClient {
 
     private final RestClient rest;
     private final PubmedOaiProps props;
+    private final BodySpooler spooler;
 
-    public PubmedClient(@Qualifier("oaiRestClient") RestClient rest, PubmedOaiProps props) {
+    public PubmedClient(@Qualifier("oaiRestClient") RestClient rest, PubmedOaiProps props, BodySpooler spooler) {
         this.rest = rest;
         this.props = props;
+        this.spooler = spooler;
     }
 
     @Retry(name = "pubmed")
@@ -42,9 +46,9 @@ public class PubmedClient {
 
     @Retry(name = "pubmed")
     @RateLimiter(name = "pubmed")
-    public byte[] downloadPdf(String url) {
+    public SpooledBody downloadPdf(String url) {
         String httpsUrl = url.replace(NCBI_FTP_PREFIX, NCBI_HTTPS_PREFIX);
         URI uri = URI.create(httpsUrl);
-        return HttpExchangeSupport.executeExchange(rest, uri, code -> false, url);
+        return HttpExchangeSupport.downloadToSpool(rest, uri, spooler, url);
     }
 }
@@ -3,6 +3,9 @@ package com.data.oai.pubmed;
 import com.data.config.properties.PubmedOaiProps;
 import com.data.oai.pubmed.oa.OaLink;
 import com.data.shared.DataSource;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.http.BodySpooler;
+import com.data.shared.http.SpooledBody;
 import com.data.oai.pubmed.oa.OaRecord;
 import com.data.oai.pubmed.oa.OaResponse;
 import com.data.oai.shared.AbstractOaiService;
@@ -25,6 +28,11 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -41,6 +49,7 @@ public class PubmedOaiService extends AbstractOaiService {
 
     private final PubmedOaiProps props;
     private final PubmedClient pubmedClient;
+    private final BodySpooler spooler;
 
     private final XMLInputFactory xml = XmlFactories.newFactory(true);
     private static final JAXBContext OA_JAXB_CTX = initOaJaxbContext();
@@ -55,9 +64,15 @@ public class PubmedOaiService extends AbstractOaiService {
     private static final int TAR_SIZE_OFFSET = 124;
     private static final int TAR_SIZE_LENGTH = 12;
 
-    public PubmedOaiService(PubmedOaiProps props, PubmedClient pubmedClient) {
+    /** Blob cache key suffix of the PDF extracted from a tgz archive (the archive itself is not cached). */
+    private static final String TGZ_PDF_KEY_SUFFIX = "#pdf";
+
+    public PubmedOaiService(PubmedOaiProps props, PubmedClient pubmedClient, BlobCache blobCache,
+                            BodySpooler spooler) {
+        super(blobCache, spooler);
         this.props = props;
         this.pubmedClient = pubmedClient;
+        this.spooler = spooler;
     }
 
     private static JAXBContext initOaJaxbContext() {
@@ -95,9 +110,12 @@ public class PubmedOaiService extends AbstractOaiService {
 
         if (links.pdfUrl != null) {
             try {
-                byte[] pdfBytes = pubmedClient.downloadPdf(links.pdfUrl);
-                if (isPdf(pdfBytes)) {
-                    return new PdfContent(links.pdfUrl, pdfBytes);
+                SpooledBody pdf = cachedDownload(links.pdfUrl, () -> pubmedClient.downloadPdf(links.pdfUrl));
+                if (isPdf(pdf)) {
+                    return new PdfContent(links.pdfUrl, pdf);
+                }
+                if (pdf != null) {
+                    pdf.close();
                 }
                 log.warn("Direct PDF link for {} did not return valid PDF", pmcId);
             } catch (Exception e) {
@@ -107,10 +125,10 @@ public class PubmedOaiService extends AbstractOaiService {
 
         if (links.tgzUrl != null) {
             try {
-                byte[] tgzBytes = pubmedClient.downloadPdf(links.tgzUrl);
-                byte[] pdfBytes = extractPdfFromTgz(tgzBytes);
-                if (pdfBytes != null) {
-                    return new PdfContent(links.tgzUrl, pdfBytes);
+                // Only the extracted PDF is cached: the archives also hold the figures and are many times larger
+                SpooledBody pdf = cachedDownload(links.tgzUrl + TGZ_PDF_KEY_SUFFIX, () -> downloadPdfFromTgz(links.tgzUrl, pmcId));
+                if (pdf != null) {
+                    return new PdfContent(links.tgzUrl, pdf);
                 }
                 log.warn("No PDF found inside tgz archive for {}", pmcId);
             } catch (Exception e) {
@@ -156,26 +174,35 @@ public class PubmedOaiService extends AbstractOaiService {
         }
     }
 
-    private byte[] extractPdfFromTgz(byte[] tgzBytes) {
-        try (var gzipIn = new java.util.zip.GZIPInputStream(new ByteArrayInputStream(tgzBytes))) {
-            byte[] tarBytes = gzipIn.readAllBytes();
-            int offset = 0;
-            while (offset + TAR_BLOCK_SIZE <= tarBytes.length) {
-                String name = new String(tarBytes, offset + TAR_NAME_OFFSET, TAR_NAME_LENGTH, java.nio.charset.StandardCharsets.US_ASCII).trim();
+    private SpooledBody downloadPdfFromTgz(String tgzUrl, String pmcId) {
+        try (SpooledBody tgz = pubmedClient.downloadPdf(tgzUrl)) {
+            return extractPdfFromTgz(tgz, pmcId);
+        }
+    }
+
+    /**
+     * Streams the tar inside the gzip and spools the first {@code .pdf} entry. Only
+     * one tar header is held in memory at a time; other entries are skipped.
+     */
+    private SpooledBody extractPdfFromTgz(SpooledBody tgz, String pmcId) {
+        if (tgz == null) {
+            return null;
+        }
+        try (InputStream tar = new java.util.zip.GZIPInputStream(tgz.openStream())) {
+            byte[] header;
+            while ((header = tar.readNBytes(TAR_BLOCK_SIZE)).length == TAR_BLOCK_SIZE) {
+                String name = new String(header, TAR_NAME_OFFSET, TAR_NAME_LENGTH, StandardCharsets.US_ASCII).trim();
                 if (name.isEmpty()) break;
 
-                String sizeStr = new String(tarBytes, offset + TAR_SIZE_OFFSET, TAR_SIZE_LENGTH, java.nio.charset.StandardCharsets.US_ASCII).trim();
+                String sizeStr = new String(header, TAR_SIZE_OFFSET, TAR_SIZE_LENGTH, StandardCharsets.US_ASCII).trim();
                 if (sizeStr.isEmpty()) break;
                 long size = Long.parseLong(sizeStr, 8);
 
-                int dataOffset = offset + TAR_BLOCK_SIZE;
                 if (name.toLowerCase(Locale.ROOT).endsWith(".pdf") && size > 0) {
-                    byte[] pdfBytes = new byte[(int) size];
-                    System.arraycopy(tarBytes, dataOffset, pdfBytes, 0, (int) size);
-                    return pdfBytes;
+                    return spooler.spool(new BoundedInputStream(tar, size), size, pmcId + " (tgz)");
                 }
 
-                offset = dataOffset + (int) ((size + TAR_BLOCK_SIZE - 1) / TAR_BLOCK_SIZE * TAR_BLOCK_SIZE);
+                tar.skipNBytes((size + TAR_BLOCK_SIZE - 1) / TAR_BLOCK_SIZE * TAR_BLOCK_SIZE);
             }
         } catch (Exception e) {
             log.warn("Failed to extract PDF from tgz", e);
@@ -183,9 +210,43 @@ public class PubmedOaiService extends AbstractOaiService {
         return null;
     }
 
-    private static boolean isPdf(byte[] bytes) {
-        return bytes != null && bytes.length > 4
-                && bytes[0] == '%' && bytes[1] == 'P' && bytes[2] == 'D' && bytes[3] == 'F';
+    /** Reads at most {@code remaining} bytes of the underlying stream, leaving it open. */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long remaining) {
+            super(in);
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // The tar stream is closed by its owner
+        }
     }
 
     private record OaLinks(String pdfUrl, String tgzUrl) {}
@@ -203,6 +264,7 @@ public class PubmedOaiService extends AbstractOaiService {
             boolean inMetadata = false;
             String tag = null;
             String resumptionToken = null;
+            Instant tokenExpiresAt = null;
             StringBuilder descriptionBuilder = null;
 
             while (reader.hasNext()) {
@@ -218,7 +280,10 @@ public class PubmedOaiService extends AbstractOaiService {
                         }
                         case "header" -> inHeader = true;
                         case "metadata" -> inMetadata = true;
-                        case "resumptionToken" -> tag = "token";
+                        case "resumptionToken" -> {
+                            tag = "token";
+                            tokenExpiresAt = tokenExpiration(event.asStartElement());
+                        }
                         case "identifier" -> {
                             if (inHeader) tag = "headerIdentifier";
                             else if (inMetadata) tag = "dcIdentifier";
@@ -308,7 +373,7 @@ public class PubmedOaiService extends AbstractOaiService {
                 }
             }
 
-            return new OaiPage(records, resumptionToken);
+            return new OaiPage(records, resumptionToken, tokenExpiresAt);
         } catch (Exception e) {
             throw new OaiParseException("PMC OAI-PMH parse failed", e);
         } finally {
@@ -1,14 +1,30 @@
 package com.data.oai.shared;
 
 import com.data.oai.pipeline.OaiSourceHandler;
+import com.data.oai.shared.dto.HarvestCheckpoint;
 import com.data.oai.shared.dto.OaiPage;
 import com.data.oai.shared.dto.PdfContent;
 import com.data.oai.shared.dto.Record;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.exception.ResumptionTokenRejectedException;
+import com.data.shared.http.BodySpooler;
+import com.data.shared.http.SpooledBody;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Template for OAI-PMH source services. Captures the shared pagination loop
@@ -24,10 +40,32 @@ import java.util.List;
  *
  * <p>Adding a new OAI source requires only a client class and a service
  * extending this base. No handler class, no registry changes.</p>
+ *
+ * <p>ListRecords pages of periods old enough not to change any more, and
+ * downloads fetched through {@link #cachedDownload}, go through the
+ * {@link BlobCache}. The cache sits in front of the rate-limited client calls,
+ * so replaying a day costs no rate-limiter budget.</p>
  */
 @Slf4j
 public abstract class AbstractOaiService implements OaiSourceHandler {
 
+    /** Token lifetime assumed when the server sends no {@code expirationDate}. */
+    private static final Duration DEFAULT_TOKEN_TTL = Duration.ofMinutes(10);
+
+    /** The OAI-PMH error element comes before any record, so the head of the body is enough. */
+    private static final int ERROR_SCAN_BYTES = 4096;
+
+    private static final String LIST_RECORDS_NAMESPACE = "list-records";
+    private static final String DOWNLOAD_NAMESPACE = "download";
+
+    private final BlobCache blobCache;
+    private final BodySpooler spooler;
+
+    protected AbstractOaiService(BlobCache blobCache, BodySpooler spooler) {
+        this.blobCache = blobCache;
+        this.spooler = spooler;
+    }
+
     // ── OaiSourceHandler implementation ──────────────────────────────
 
     @Override
@@ -35,6 +73,12 @@ public abstract class AbstractOaiService implements OaiSourceHandler {
         return fetchAllRecords(startInclusive.toString(), endInclusive.toString());
     }
 
+    @Override
+    public int streamMetadata(LocalDate startInclusive, LocalDate endInclusive, HarvestCheckpoint resumeFrom,
+                              BiConsumer<OaiPage, HarvestCheckpoint> pageConsumer) {
+        return forEachPage(startInclusive.toString(), endInclusive.toString(), resumeFrom, pageConsumer);
+    }
+
     @Override
     public PdfContent fetchPdfAndEnrich(Record record) {
         return getPdf(record.getSourceId());
@@ -48,20 +92,56 @@ public abstract class AbstractOaiService implements OaiSourceHandler {
      */
     public List<Record> fetchAllRecords(String from, String until) {
         List<Record> collected = new ArrayList<>();
-        String token = null;
+        forEachPage(from, until, null, (page, after) -> collected.addAll(page.records()));
+        return collected;
+    }
+
+    /**
+     * Pages through the date range, handing each parsed page to {@code pageConsumer}
+     * before the next resumptionToken is requested. The consumer runs on the calling
+     * thread, so a consumer that blocks slows down the harvest instead of letting
+     * records pile up in memory.
+     *
+     * <p>Together with the page the consumer gets the checkpoint after it. Passing
+     * such a checkpoint as {@code resumeFrom} continues the harvest with the page
+     * that follows it; page numbers and the listed count carry on from there.</p>
+     *
+     * @return total number of records listed across all pages, including those
+     *         listed before {@code resumeFrom}
+     * @throws ResumptionTokenRejectedException if the server rejects a resumptionToken
+     */
+    public int forEachPage(String from, String until, HarvestCheckpoint resumeFrom,
+                           BiConsumer<OaiPage, HarvestCheckpoint> pageConsumer) {
+        int collected = resumeFrom != null ? resumeFrom.listed() : 0;
+        int pageNo = resumeFrom != null ? resumeFrom.page() : 0;
+        String token = resumeFrom != null ? resumeFrom.resumptionToken() : null;
+        if (resumeFrom != null) {
+            log.info("[{}] Resuming period {} to {} after page {} ({} records listed)",
+                    sourceName(), from, until, pageNo, collected);
+        }
 
+        boolean cacheable = isSettled(until);
         do {
-            byte[] body = callListRecords(from, until, token);
+            byte[] body = fetchPage(from, until, token, cacheable);
 
             if (body == null) {
                 log.info("[{}] No records available for period {} to {}", sourceName(), from, until);
                 break;
             }
+            if (token != null && isBadResumptionToken(body)) {
+                throw new ResumptionTokenRejectedException("[%s] badResumptionToken after page %d for period %s to %s"
+                        .formatted(sourceName(), pageNo, from, until));
+            }
 
             OaiPage page = parseResponse(body);
-            collected.addAll(page.records());
+            collected += page.records().size();
+            pageNo++;
+            Instant expiresAt = page.tokenExpiresAt() != null
+                    ? page.tokenExpiresAt()
+                    : Instant.now().plus(DEFAULT_TOKEN_TTL);
+            pageConsumer.accept(page, new HarvestCheckpoint(page.resumptionToken(), pageNo, collected, expiresAt));
 
-            log.info("Collected papers: {} for time - from: {} until: {}", collected.size(), from, until);
+            log.info("Collected papers: {} for time - from: {} until: {}", collected, from, until);
 
             token = page.resumptionToken();
 
@@ -70,7 +150,7 @@ public abstract class AbstractOaiService implements OaiSourceHandler {
             }
         } while (token != null && !token.isBlank());
 
-        log.info("[{}] Collected {} records for period {} to {}", sourceName(), collected.size(), from, until);
+        log.info("[{}] Collected {} records for period {} to {}", sourceName(), collected, from, until);
         return collected;
     }
 
@@ -94,8 +174,112 @@ public abstract class AbstractOaiService implements OaiSourceHandler {
     /** Resolves and downloads the PDF for a given source-specific ID. */
     public abstract PdfContent getPdf(String sourceId);
 
+    /**
+     * Downloads the PDF at {@code url} through the blob cache. {@code download}
+     * should be the rate-limited client call. Both paths stream: a hit is
+     * decompressed into a new spool, a miss is copied from the download's spool into
+     * the cache. Only bodies starting with {@code %PDF} are cached, so an error or
+     * captcha page served with status 200 is fetched again next time. An entry that
+     * cannot be read or is no PDF is dropped and downloaded again.
+     */
+    protected SpooledBody cachedDownload(String url, Supplier<SpooledBody> download) {
+        SpooledBody cached = readCachedPdf(url);
+        if (cached != null) {
+            return cached;
+        }
+        SpooledBody body = download.get();
+        if (isPdf(body)) {
+            blobCache.put(DOWNLOAD_NAMESPACE, url, body::openStream);
+        } else if (body != null && !body.isEmpty()) {
+            log.debug("Not caching download {}: not a PDF", url);
+        }
+        return body;
+    }
+
+    private SpooledBody readCachedPdf(String url) {
+        SpooledBody body = null;
+        try (InputStream cached = blobCache.open(DOWNLOAD_NAMESPACE, url)) {
+            if (cached == null) {
+                return null;
+            }
+            body = spooler.spool(cached, -1, url);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping unreadable cached download {}: {}", url, e.getMessage());
+        }
+        if (isPdf(body)) {
+            return body;
+        }
+        if (body != null) {
+            body.close();
+        }
+        blobCache.remove(DOWNLOAD_NAMESPACE, url);
+        return null;
+    }
+
+    /** Whether {@code body} starts with the {@code %PDF} magic bytes. */
+    protected static boolean isPdf(SpooledBody body) {
+        if (body == null) {
+            return false;
+        }
+        byte[] bytes = body.head(5);
+        return bytes.length > 4
+                && bytes[0] == '%' && bytes[1] == 'P' && bytes[2] == 'D' && bytes[3] == 'F';
+    }
+
     // ── Utility ──────────────────────────────────────────────────────
 
+    private byte[] fetchPage(String from, String until, String token, boolean cacheable) {
+        if (!cacheable) {
+            return callListRecords(from, until, token);
+        }
+        String key = "%s|%s|%s|%s".formatted(sourceName(), from, until, token);
+        byte[] cached = blobCache.get(LIST_RECORDS_NAMESPACE, key);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] body = callListRecords(from, until, token);
+        // Never cache a rejected token: the same token must reach the server again
+        if (body != null && !(token != null && isBadResumptionToken(body))) {
+            blobCache.put(LIST_RECORDS_NAMESPACE, key, body);
+        }
+        return body;
+    }
+
+    /** Whether the period ended long enough ago that its ListRecords pages no longer change. */
+    private boolean isSettled(String until) {
+        if (!blobCache.enabled()) {
+            return false;
+        }
+        try {
+            return LocalDate.parse(until).isBefore(LocalDate.now().minusDays(blobCache.listRecordsMinAgeDays()));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the {@code expirationDate} attribute of a {@code <resumptionToken>}
+     * element, for the parsers to put on the {@link OaiPage}.
+     *
+     * @return the expiry, or {@code null} if absent or not a UTC datetime
+     */
+    protected static Instant tokenExpiration(StartElement resumptionToken) {
+        Attribute attr = resumptionToken.getAttributeByName(new QName("expirationDate"));
+        if (attr == null || attr.getValue().isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(attr.getValue().trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBadResumptionToken(byte[] body) {
+        String head = new String(body, 0, Math.min(body.length, ERROR_SCAN_BYTES), StandardCharsets.UTF_8);
+        return head.contains("badResumptionToken");
+    }
+
     private static void sleep(long ms) {
         try {
             Thread.sleep(ms);
@@ -0,0 +1,20 @@
+package com.data.oai.shared.dto;
+
+import java.time.Instant;
+
+/**
+ * Position in an OAI-PMH ListRecords harvest, taken after a page has been listed.
+ *
+ * @param resumptionToken token for the next page, or null if the page was the last one
+ * @param page            1-based number of the page just listed
+ * @param listed          records listed up to and including that page
+ * @param expiresAt       when the server stops accepting the token
+ */
+public record HarvestCheckpoint(String resumptionToken, int page, int listed, Instant expiresAt) {
+
+    /** @return {@code true} if there is a next page and its token is still valid at {@code now} */
+    public boolean resumableAt(Instant now) {
+        return resumptionToken != null && !resumptionToken.isBlank()
+                && expiresAt != null && expiresAt.isAfter(now);
+    }
+}
@@ -1,5 +1,6 @@
 package com.data.oai.shared.dto;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -8,5 +9,6 @@ import java.util.List;
  *
  * @param records          parsed records from this page
  * @param resumptionToken  token for the next page, or null if this is the last page
+ * @param tokenExpiresAt   the token's {@code expirationDate}, or null if the server did not send one
  */
-public record OaiPage(List<Record> records, String resumptionToken) {}
+public record OaiPage(List<Record> records, String resumptionToken, Instant tokenExpiresAt) {}
@@ -1,3 +1,14 @@
 package com.data.oai.shared.dto;
 
-public record PdfContent(String url, byte[] content) {}
+import com.data.shared.http.SpooledBody;
+
+/** A downloaded PDF and where it came from. Closing it releases the spooled content. */
+public record PdfContent(String url, SpooledBody content) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        if (content != null) {
+            content.close();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.data.oai.zenodo;
 
 import com.data.config.properties.ZenodoOaiProps;
+import com.data.shared.http.BodySpooler;
 import com.data.shared.http.HttpExchangeSupport;
+import com.data.shared.http.SpooledBody;
 import com.data.shared.exception.HarvestException;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
@@ -17,10 +19,12 @@ public class ZenodoClient {
 
     private final RestClient rest;
     private final ZenodoOaiProps props;
+    private final BodySpooler spooler;
 
-    public ZenodoClient(@Qualifier("oaiRestClient") RestClient rest, ZenodoOaiProps props) {
+    public ZenodoClient(@Qualifier("oaiRestClient") RestClient rest, ZenodoOaiProps props, BodySpooler spooler) {
         this.rest = rest;
         this.props = props;
+        this.spooler = spooler;
     }
 
     @Retry(name = "zenodo")
@@ -52,8 +56,8 @@ public class ZenodoClient {
 
     @Retry(name = "zenodo")
     @RateLimiter(name = "zenodo")
-    public byte[] downloadFile(String url) {
+    public SpooledBody downloadFile(String url) {
         URI uri = HttpExchangeSupport.toEncodedUri(url);
-        return HttpExchangeSupport.executeExchange(rest, uri, code -> false, url);
+        return HttpExchangeSupport.downloadToSpool(rest, uri, spooler, url);
     }
 }
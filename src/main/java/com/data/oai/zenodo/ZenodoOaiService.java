@@ -2,6 +2,8 @@ package com.data.oai.zenodo;
 
 import com.data.config.properties.ZenodoOaiProps;
 import com.data.shared.DataSource;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.http.BodySpooler;
 import com.data.oai.shared.AbstractOaiService;
 import com.data.shared.license.LicenseFilter;
 import com.data.oai.shared.util.XmlFactories;
@@ -21,6 +23,7 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,7 +34,9 @@ public class ZenodoOaiService extends AbstractOaiService {
     private final ZenodoClient zenodoClient;
     private final XMLInputFactory xml = XmlFactories.newFactory(true);
 
-    public ZenodoOaiService(ZenodoOaiProps props, ZenodoClient zenodoClient) {
+    public ZenodoOaiService(ZenodoOaiProps props, ZenodoClient zenodoClient, BlobCache blobCache,
+                            BodySpooler spooler) {
+        super(blobCache, spooler);
         this.props = props;
         this.zenodoClient = zenodoClient;
     }
@@ -66,7 +71,7 @@ public class ZenodoOaiService extends AbstractOaiService {
         }
 
         String pdfUrl = pdf.getLinks().getSelf();
-        return new PdfContent(pdfUrl, zenodoClient.downloadFile(pdfUrl));
+        return new PdfContent(pdfUrl, cachedDownload(pdfUrl, () -> zenodoClient.downloadFile(pdfUrl)));
     }
 
     // ── Source-specific XML parsing (DataCite) ───────────────────────
@@ -84,6 +89,7 @@ public class ZenodoOaiService extends AbstractOaiService {
 
             String tag = null;
             String resumptionToken = null;
+            Instant tokenExpiresAt = null;
 
             String creatorName = null;
             String givenName = null;
@@ -106,7 +112,10 @@ public class ZenodoOaiService extends AbstractOaiService {
                         }
                         case "header" -> inHeader = true;
                         case "metadata" -> inMetadata = true;
-                        case "resumptionToken" -> tag = "token";
+                        case "resumptionToken" -> {
+                            tag = "token";
+                            tokenExpiresAt = tokenExpiration(se);
+                        }
                         case "identifier" -> {
                             if (inHeader) {
                                 tag = "headerIdentifier";
@@ -242,7 +251,7 @@ public class ZenodoOaiService extends AbstractOaiService {
                 }
             }
 
-            return new OaiPage(records, resumptionToken);
+            return new OaiPage(records, resumptionToken, tokenExpiresAt);
         } catch (Exception e) {
             throw new OaiParseException("Zenodo OAI parse failed", e);
         } finally {
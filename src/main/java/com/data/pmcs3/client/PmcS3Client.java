@@ -1,7 +1,10 @@
 package com.data.pmcs3.client;
 
 import com.data.config.properties.PmcS3Properties;
+import com.data.shared.DataSource;
 import com.data.shared.http.HttpExchangeSupport;
+import com.data.shared.metrics.PipelineTimers;
+import com.data.shared.metrics.PipelineTimers.Step;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.extern.slf4j.Slf4j;
@@ -33,11 +36,14 @@ public class PmcS3Client {
 
     private final PmcS3Properties props;
     private final RestClient rest;
+    private final PipelineTimers timers;
 
     public PmcS3Client(PmcS3Properties props,
-                       @Qualifier("pmcS3RestClient") RestClient rest) {
+                       @Qualifier("pmcS3RestClient") RestClient rest,
+                       PipelineTimers timers) {
         this.props = props;
         this.rest = rest;
+        this.timers = timers;
     }
 
     /**
@@ -49,13 +55,14 @@ public class PmcS3Client {
 
     /**
      * Downloads the object at the given key as raw bytes, or {@code null}
-     * if the object does not exist (HTTP 404).
+     * if the object does not exist (HTTP 404). Each attempt is timed as an
+     * {@code s3_get} step.
      */
     @Retry(name = "pmcs3")
     @RateLimiter(name = "pmcs3")
     public byte[] downloadBytes(String key) {
         URI uri = URI.create(urlFor(key));
-        byte[] result = HttpExchangeSupport.executeExchangeOrNull(
+        return timers.time(Step.S3_GET, DataSource.PMC_S3, () -> HttpExchangeSupport.executeExchangeOrNull(
                 rest, uri,
                 code -> {
                     if (code == 404) {
@@ -64,8 +71,30 @@ public class PmcS3Client {
                     }
                     return false;
                 },
-                "key=" + key);
-        return result;
+                "key=" + key));
+    }
+
+    /**
+     * Streams the object at the given key through {@code reader} while it is being
+     * downloaded, or returns {@code null} if the object does not exist. A failed
+     * attempt is retried from the start, so the reader must not keep state
+     * between calls. Timed as an {@code s3_get} step, reading included.
+     */
+    @Retry(name = "pmcs3")
+    @RateLimiter(name = "pmcs3")
+    public <T> T downloadStream(String key, HttpExchangeSupport.BodyReader<T> reader) {
+        URI uri = URI.create(urlFor(key));
+        return timers.time(Step.S3_GET, DataSource.PMC_S3, () -> HttpExchangeSupport.streamExchangeOrNull(
+                rest, uri,
+                code -> {
+                    if (code == 404) {
+                        log.debug("PMC S3 object not found: {}", key);
+                        return true;
+                    }
+                    return false;
+                },
+                reader,
+                "key=" + key));
     }
 
     /**
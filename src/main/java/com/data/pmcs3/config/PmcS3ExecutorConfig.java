@@ -1,6 +1,9 @@
 package com.data.pmcs3.config;
 
 import com.data.config.properties.PmcS3Properties;
+import com.data.shared.metrics.InFlightExecutorService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,15 +21,24 @@ import java.util.concurrent.Executors;
  * <p>The returned executor is unbounded by {@code concurrency} in terms of
  * thread count — concurrency is still bounded by the HTTP connection pool
  * sized in {@link PmcS3RestClientConfig} and the Resilience4j rate limiter.
+ *
+ * <p>Every submitted task runs on its own thread, so the number of unfinished
+ * tasks is exported as {@code executor.active{name="pmcS3Executor"}}; nothing
+ * is ever queued.
  */
 @Configuration
 public class PmcS3ExecutorConfig {
 
     @Bean(name = "pmcS3Executor", destroyMethod = "shutdown")
-    public ExecutorService pmcS3Executor(PmcS3Properties props) {
+    public ExecutorService pmcS3Executor(PmcS3Properties props, MeterRegistry meterRegistry) {
         // Virtual threads ignore pool sizing — the props are still used by the HTTP pool
         // and rate limiter — but we expose the executor as a named bean for clarity.
-        return Executors.newThreadPerTaskExecutor(
-                Thread.ofVirtual().name("pmcs3-", 0).factory());
+        InFlightExecutorService executor = new InFlightExecutorService(Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("pmcs3-", 0).factory()));
+        Gauge.builder("executor.active", executor, InFlightExecutorService::inFlight)
+                .description("Tasks currently running on the executor")
+                .tag("name", "pmcS3Executor")
+                .register(meterRegistry);
+        return executor;
     }
 }
@@ -0,0 +1,178 @@
+package com.data.pmcs3.inventory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Byte-level scanner for headerless S3 Inventory CSV data
+ * ({@code bucket,key[,...]}, fields optionally quoted).
+ *
+ * <p>Only the key column is looked at. Its bytes are copied into one reused
+ * buffer and matched against {@code metadata/PMC{id}.{version}.json} in place,
+ * the same shape {@link InventoryEntry#fromS3Key} accepts, so a row allocates
+ * nothing: no line string, no field strings, no row map. Matching rows go
+ * straight into a {@link PmcVersionMap}.</p>
+ *
+ * <p>Quoting follows RFC 4180: a field starting with {@code "} runs to the next
+ * unpaired quote, may contain commas and line breaks, and {@code ""} is a literal
+ * quote. Ids longer than 18 digits or versions longer than 9 cannot be real PMC
+ * keys and are skipped.</p>
+ */
+final class InventoryCsvScanner {
+
+    private static final byte[] KEY_PREFIX = {'m', 'e', 't', 'a', 'd', 'a', 't', 'a', '/', 'P', 'M', 'C'};
+    private static final byte[] KEY_SUFFIX = {'.', 'j', 's', 'o', 'n'};
+    private static final int KEY_COLUMN = 1;
+    private static final int MAX_KEY_BYTES = 256;
+    private static final int MAX_ID_DIGITS = 18;
+    private static final int MAX_VERSION_DIGITS = 9;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PmcVersionMap into;
+    private final byte[] key = new byte[MAX_KEY_BYTES];
+    private int keyLength;
+    private boolean keyTooLong;
+    private int field;
+    private boolean fieldStart = true;
+    private boolean inQuotes;
+    private boolean quoteSeen;
+    private boolean rowStarted;
+    private long rows;
+
+    private InventoryCsvScanner(PmcVersionMap into) {
+        this.into = into;
+    }
+
+    /**
+     * Reads {@code csv} to the end and adds every matching key to {@code into}.
+     *
+     * @return number of rows read (matching or not)
+     */
+    static long scan(InputStream csv, PmcVersionMap into) throws IOException {
+        InventoryCsvScanner scanner = new InventoryCsvScanner(into);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = csv.read(buffer)) != -1) {
+            scanner.feed(buffer, n);
+        }
+        scanner.finish();
+        return scanner.rows;
+    }
+
+    private void feed(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (quoteSeen) {
+                quoteSeen = false;
+                if (b == '"') {
+                    append(b);
+                    continue;
+                }
+                inQuotes = false;
+            }
+            if (inQuotes) {
+                if (b == '"') {
+                    quoteSeen = true;
+                } else {
+                    append(b);
+                }
+                continue;
+            }
+            switch (b) {
+                case '"' -> {
+                    if (fieldStart) {
+                        inQuotes = true;
+                        fieldStart = false;
+                        rowStarted = true;
+                    } else {
+                        append(b);
+                    }
+                }
+                case ',' -> {
+                    field++;
+                    fieldStart = true;
+                    rowStarted = true;
+                }
+                case '\n' -> endRow();
+                case '\r' -> { }
+                default -> append(b);
+            }
+        }
+    }
+
+    private void finish() {
+        if (rowStarted) {
+            endRow();
+        }
+    }
+
+    private void append(byte b) {
+        fieldStart = false;
+        rowStarted = true;
+        if (field != KEY_COLUMN) {
+            return;
+        }
+        if (keyLength == MAX_KEY_BYTES) {
+            keyTooLong = true;
+        } else {
+            key[keyLength++] = b;
+        }
+    }
+
+    private void endRow() {
+        if (rowStarted) {
+            rows++;
+            if (field >= KEY_COLUMN && !keyTooLong) {
+                matchKey();
+            }
+        }
+        keyLength = 0;
+        keyTooLong = false;
+        field = 0;
+        fieldStart = true;
+        inQuotes = false;
+        quoteSeen = false;
+        rowStarted = false;
+    }
+
+    /** Records the key if it matches {@code metadata/PMC{digits}.{digits}.json}. */
+    private void matchKey() {
+        int end = keyLength - KEY_SUFFIX.length;
+        if (end <= KEY_PREFIX.length || !regionEquals(0, KEY_PREFIX) || !regionEquals(end, KEY_SUFFIX)) {
+            return;
+        }
+        int i = KEY_PREFIX.length;
+        long id = 0;
+        int idDigits = 0;
+        while (i < end && isDigit(key[i])) {
+            id = id * 10 + (key[i++] - '0');
+            idDigits++;
+        }
+        if (idDigits == 0 || idDigits > MAX_ID_DIGITS || i >= end || key[i++] != '.') {
+            return;
+        }
+        int version = 0;
+        int versionDigits = 0;
+        while (i < end && isDigit(key[i])) {
+            version = version * 10 + (key[i++] - '0');
+            versionDigits++;
+        }
+        if (versionDigits == 0 || versionDigits > MAX_VERSION_DIGITS || i != end) {
+            return;
+        }
+        into.putMax(id, version);
+    }
+
+    private boolean regionEquals(int offset, byte[] expected) {
+        for (int j = 0; j < expected.length; j++) {
+            if (key[offset + j] != expected[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,33 @@
+package com.data.pmcs3.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What changed between the previous inventory and today's.
+ *
+ * @param added     articles not in the previous inventory
+ * @param updated   articles whose version is higher than the previous one; the
+ *                  stored record has to be replaced rather than skipped as a duplicate
+ * @param unchanged articles with the same (or a lower) version, not processed again
+ */
+public record InventoryDiff(List<InventoryEntry> added, List<InventoryEntry> updated, int unchanged) {
+
+    /** Compares {@code current} with {@code previous}, keeping the order of {@code current}. */
+    public static InventoryDiff between(InventorySnapshot previous, List<InventoryEntry> current) {
+        List<InventoryEntry> added = new ArrayList<>();
+        List<InventoryEntry> updated = new ArrayList<>();
+        int unchanged = 0;
+        for (InventoryEntry entry : current) {
+            int before = previous.versionOf(Long.parseLong(entry.pmcId()));
+            if (before < 0) {
+                added.add(entry);
+            } else if (entry.version() > before) {
+                updated.add(entry);
+            } else {
+                unchanged++;
+            }
+        }
+        return new InventoryDiff(added, updated, unchanged);
+    }
+}
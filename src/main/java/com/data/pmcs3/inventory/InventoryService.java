@@ -2,25 +2,24 @@ package com.data.pmcs3.inventory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.data.pmcs3.client.PmcS3Client;
+import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedHashMap;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.StreamSupport;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 /**
  * Discovers the set of PMC S3 articles that are available for processing.
@@ -34,6 +33,11 @@ import java.util.zip.GZIPInputStream;
  * and filters the rows down to JATS XML keys — one per PMC article version.
  * Articles are returned as {@link InventoryEntry} records that subsequent
  * pipeline stages use to compute per-file keys.
+ *
+ * <p>A full inventory has tens of millions of rows, so the data files are
+ * fetched in parallel on the {@code pmcS3Executor} and each is decompressed and
+ * scanned while it downloads ({@link InventoryCsvScanner}). Versions are
+ * collapsed in a {@link PmcVersionMap}; no row ever becomes an object.
  */
 @Slf4j
 @Service
@@ -41,26 +45,14 @@ import java.util.zip.GZIPInputStream;
 public class InventoryService {
 
     private static final String MANIFEST_SUFFIX = "manifest.json";
-
-    /**
-     * Thread-safe Jackson CSV mapper. S3 Inventory CSVs have no header row;
-     * columns are fixed: bucket (index 0), key (index 1).
-     */
-    private static final CsvMapper CSV_MAPPER = new CsvMapper();
-
-    /**
-     * Schema for the headerless S3 Inventory CSV format.
-     * Column 0 = bucket name, column 1 = object key.
-     * Both fields are always quoted in practice, but CsvMapper handles that transparently.
-     */
-    private static final CsvSchema INVENTORY_CSV_SCHEMA = CsvSchema.builder()
-            .addColumn("bucket")
-            .addColumn("key")
-            .build();
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
 
     private final PmcS3Client client;
     private final ObjectMapper objectMapper;
 
+    @Resource(name = "pmcS3Executor")
+    private ExecutorService pmcS3Executor;
+
     /**
      * Fetches the most recent inventory and returns the resulting entries.
      * Implementation is intentionally best-effort: on any parsing error the
@@ -85,69 +77,59 @@ public class InventoryService {
         List<String> dataKeys = extractDataFileKeys(manifestJson);
         log.info("PMC S3 inventory manifest references {} data file(s)", dataKeys.size());
 
-        List<InventoryEntry> out = dataKeys.stream()
-                .flatMap(this::downloadAndParseSafely)
-                .toList();
-
-        List<InventoryEntry> deduped = dedupeByPmcIdKeepingHighestVersion(out);
-        log.info("PMC S3 inventory produced {} article entries", deduped.size());
-        return deduped;
-    }
-
-    /**
-     * Downloads and parses a single inventory CSV.gz data file.
-     * Returns a stream of {@link InventoryEntry} records for valid rows.
-     * On any download or parse failure, logs a warning and returns an empty stream
-     * so that one corrupt data file does not halt processing of the remaining files.
-     */
-    private Stream<InventoryEntry> downloadAndParseSafely(String dataKey) {
-        byte[] gz = client.downloadBytes(dataKey);
-        if (gz == null) {
-            log.warn("PMC S3 inventory data file missing: {}", dataKey);
-            return Stream.empty();
+        List<Future<PmcVersionMap>> files = new ArrayList<>(dataKeys.size());
+        for (String dataKey : dataKeys) {
+            files.add(pmcS3Executor.submit(() -> downloadAndParseSafely(dataKey)));
         }
+        // Merged in manifest order, so the entry order does not depend on which file finished first
+        PmcVersionMap versions = new PmcVersionMap();
         try {
-            return parseGzippedCsv(gz);
-        } catch (IOException e) {
-            log.warn("Failed to parse PMC S3 inventory data file {}: {}", dataKey, e.getMessage());
-            return Stream.empty();
+            for (Future<PmcVersionMap> file : files) {
+                versions.putAll(file.get());
+            }
+        } catch (InterruptedException e) {
+            files.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading PMC S3 inventory " + manifestKey, e);
+        } catch (ExecutionException e) {
+            files.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Failed to read PMC S3 inventory " + manifestKey, e.getCause());
         }
+
+        List<InventoryEntry> entries = versions.toEntries();
+        log.info("PMC S3 inventory produced {} article entries", entries.size());
+        return entries;
     }
 
     /**
-     * Collapses multiple versions of the same PMC article to a single entry,
-     * keeping the one with the highest {@code version}.
-     *
-     * <p>The PMC S3 inventory emits one row per {@code (pmcId, version)} tuple,
-     * but our {@code source_record.source_identifier} column is unique on the
-     * numeric PMC id alone. Without dedup here, the second version of any
-     * multi-version article hits the unique constraint and gets skipped.
-     * "First wins by latest version" matches the semantics downstream
-     * consumers expect — the newest version of an article supersedes older ones.
-     *
-     * <p>Preserves insertion order for deterministic logs and tests.
+     * Streams and parses a single inventory CSV.gz data file.
+     * Returns the highest version per PMC id of its valid rows.
+     * If the file is missing or not valid gzip, logs a warning and returns an empty
+     * map so that one corrupt data file does not halt processing of the remaining
+     * files. Network failures are retried by the client and then propagate.
      */
-    static List<InventoryEntry> dedupeByPmcIdKeepingHighestVersion(List<InventoryEntry> entries) {
-        if (entries == null) {
-            return List.of();
-        }
-        if (entries.isEmpty()) {
-            return entries;
-        }
-        List<InventoryEntry> deduped = entries.stream()
-                .collect(Collectors.toMap(
-                        InventoryEntry::pmcId,
-                        Function.identity(),
-                        (a, b) -> b.version() > a.version() ? b : a,
-                        LinkedHashMap::new))
-                .values().stream()
-                .toList();
-        int before = entries.size();
-        int after = deduped.size();
-        if (before != after) {
-            log.info("Deduped inventory from {} entries to {} unique pmcIds", before, after);
+    private PmcVersionMap downloadAndParseSafely(String dataKey) {
+        try {
+            PmcVersionMap versions = client.downloadStream(dataKey, body -> {
+                try {
+                    return parseGzippedCsv(body);
+                } catch (ZipException e) {
+                    // Not worth retrying: the same bytes come back
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (versions == null) {
+                log.warn("PMC S3 inventory data file missing: {}", dataKey);
+                return new PmcVersionMap();
+            }
+            return versions;
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to parse PMC S3 inventory data file {}: {}", dataKey, e.getCause().getMessage());
+            return new PmcVersionMap();
         }
-        return deduped;
     }
 
     /**
@@ -169,25 +151,17 @@ public class InventoryService {
     }
 
     /**
-     * Decompresses and parses a gzipped S3 Inventory CSV file.
+     * Decompresses and scans a gzipped S3 Inventory CSV stream.
      *
      * <p>The S3 Inventory format has no header row. Columns are fixed:
      * index 0 = bucket name, index 1 = object key. Both fields are quoted.
      * Rows whose key does not match the expected {@code metadata/PMC{id}.{v}.json}
-     * pattern are silently skipped by {@link InventoryEntry#fromS3Key}.
+     * pattern are silently skipped, as by {@link InventoryEntry#fromS3Key}.
      */
-    private static Stream<InventoryEntry> parseGzippedCsv(byte[] gz) throws IOException {
-        try (InputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(gz))) {
-            return CSV_MAPPER
-                    .readerFor(Map.class)
-                    .with(INVENTORY_CSV_SCHEMA)
-                    .<Map<String, String>>readValues(decompressed)
-                    .readAll()
-                    .stream()
-                    .map(row -> row.get("key"))
-                    .filter(Objects::nonNull)
-                    .map(InventoryEntry::fromS3Key)
-                    .filter(Objects::nonNull);
-        }
+    static PmcVersionMap parseGzippedCsv(InputStream gz) throws IOException {
+        PmcVersionMap versions = new PmcVersionMap();
+        long rows = InventoryCsvScanner.scan(new GZIPInputStream(gz, GZIP_BUFFER_SIZE), versions);
+        log.debug("Scanned {} inventory rows, {} distinct PMC ids", rows, versions.size());
+        return versions;
     }
 }
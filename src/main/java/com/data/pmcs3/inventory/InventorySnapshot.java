@@ -0,0 +1,110 @@
+package com.data.pmcs3.inventory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The PMC inventory as of the last run: one version per numeric PMC id, read
+ * from a memory-mapped file.
+ *
+ * <p>File layout (big-endian): magic {@code "PMCI"}, format version, entry count
+ * as a long, then the ids in ascending order (8 bytes each), then their versions
+ * in the same order (4 bytes each). Lookups binary-search the mapped ids, so the
+ * snapshot costs page cache rather than heap, whatever the inventory size.</p>
+ */
+public final class InventorySnapshot {
+
+    private static final int MAGIC = 0x504D4349; // "PMCI"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 16;
+
+    /** No previous inventory: every entry is new. */
+    public static final InventorySnapshot EMPTY = new InventorySnapshot(LongBuffer.allocate(0), IntBuffer.allocate(0));
+
+    private final LongBuffer ids;
+    private final IntBuffer versions;
+
+    private InventorySnapshot(LongBuffer ids, IntBuffer versions) {
+        this.ids = ids;
+        this.versions = versions;
+    }
+
+    /**
+     * Maps a snapshot file written by {@link #write}.
+     *
+     * @throws IOException if the file is truncated or in another format
+     */
+    static InventorySnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException("Truncated inventory snapshot");
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != FORMAT) {
+                throw new IOException("Not an inventory snapshot (or an older format)");
+            }
+            long count = map.getLong(8);
+            if (count < 0 || HEADER_BYTES + count * (Long.BYTES + Integer.BYTES) != length) {
+                throw new IOException("Inventory snapshot size does not match its entry count");
+            }
+            int n = (int) count;
+            LongBuffer ids = map.slice(HEADER_BYTES, n * Long.BYTES).asLongBuffer();
+            IntBuffer versions = map.slice(HEADER_BYTES + n * Long.BYTES, n * Integer.BYTES).asIntBuffer();
+            return new InventorySnapshot(ids, versions);
+        }
+    }
+
+    /** Writes to a temp file and moves it into place, so a crash never leaves a torn snapshot. */
+    static void write(Path file, PmcVersionMap inventory) throws IOException {
+        long[] sorted = inventory.sortedIds();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT);
+            data.writeLong(sorted.length);
+            for (long id : sorted) {
+                data.writeLong(id);
+            }
+            for (long id : sorted) {
+                data.writeInt(inventory.get(id));
+            }
+            data.flush();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** @return the version recorded for {@code pmcId}, or {@code -1} if it was not in the inventory */
+    public int versionOf(long pmcId) {
+        int low = 0;
+        int high = ids.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = ids.get(mid);
+            if (id < pmcId) {
+                low = mid + 1;
+            } else if (id > pmcId) {
+                high = mid - 1;
+            } else {
+                return versions.get(mid);
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return ids.limit();
+    }
+}
@@ -0,0 +1,79 @@
+package com.data.pmcs3.inventory;
+
+import com.data.config.properties.PmcS3Properties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the {@link InventorySnapshot} of the last run in
+ * {@code pmcs3.inventory-snapshot-dir}, so each run only processes what the
+ * {@link InventoryDiff} reports. A blank directory disables it: every entry is
+ * then new, and only the source id index keeps stored articles from being
+ * processed again.
+ *
+ * <p>The snapshot lives on the node that ran the batch. Delete it after the
+ * paper tables were emptied, or the articles it lists are never fetched again.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventorySnapshotStore {
+
+    private static final String FILE_NAME = "pmc-inventory.snap";
+
+    private final PmcS3Properties props;
+
+    /** The previous inventory, or {@link InventorySnapshot#EMPTY} if there is none or it is unreadable. */
+    public InventorySnapshot load() {
+        Path file = file();
+        if (file == null || !Files.isRegularFile(file)) {
+            return InventorySnapshot.EMPTY;
+        }
+        try {
+            InventorySnapshot snapshot = InventorySnapshot.open(file);
+            log.info("PMC S3 inventory snapshot loaded: {} articles", snapshot.size());
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable PMC S3 inventory snapshot {}: {}", file, e.getMessage());
+            return InventorySnapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Saves today's inventory as the next run's baseline. Entries that are not
+     * {@code settled} (failed, or not reached) keep their previous version, or are
+     * left out if they are new, so the next diff reports them again.
+     */
+    public void save(InventorySnapshot previous, List<InventoryEntry> current, Predicate<InventoryEntry> settled) {
+        Path file = file();
+        if (file == null) {
+            return;
+        }
+        PmcVersionMap next = new PmcVersionMap(current.size());
+        for (InventoryEntry entry : current) {
+            long pmcId = Long.parseLong(entry.pmcId());
+            int version = settled.test(entry) ? entry.version() : previous.versionOf(pmcId);
+            if (version >= 0) {
+                next.putMax(pmcId, version);
+            }
+        }
+        try {
+            InventorySnapshot.write(file, next);
+            log.info("PMC S3 inventory snapshot written: {} of {} articles", next.size(), current.size());
+        } catch (IOException e) {
+            log.warn("Could not write PMC S3 inventory snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path file() {
+        String dir = props.inventorySnapshotDir();
+        return dir == null || dir.isBlank() ? null : Path.of(dir).resolve(FILE_NAME);
+    }
+}
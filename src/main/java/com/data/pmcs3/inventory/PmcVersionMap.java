@@ -0,0 +1,136 @@
+package com.data.pmcs3.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Highest version per numeric PMC id, in first-seen order.
+ *
+ * <p>The inventory lists one row per {@code (pmcId, version)}, but
+ * {@code source_record.source_identifier} is unique per article, so only the
+ * newest version of each article is kept.</p>
+ *
+ * <p>An open-addressing {@code long -> int} map over primitive arrays: ids and
+ * versions are kept in insertion order, and a linear-probing table of indexes
+ * into them finds an id. No boxing and no entry objects, so the tens of millions
+ * of inventory rows cost about 20 bytes per distinct article. Not thread-safe;
+ * each data file fills its own map and they are merged in manifest order.</p>
+ */
+final class PmcVersionMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] ids;
+    private int[] versions;
+    /** Index into {@link #ids} plus one; 0 marks a free slot. At most half full. */
+    private int[] slots;
+    private int size;
+
+    PmcVersionMap() {
+        this(MIN_CAPACITY);
+    }
+
+    PmcVersionMap(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        ids = new long[capacity];
+        versions = new int[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    /** Records {@code version} for {@code id} unless a higher version is already known. */
+    void putMax(long id, int version) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (true) {
+            int index = slots[slot] - 1;
+            if (index < 0) {
+                break;
+            }
+            if (ids[index] == id) {
+                if (version > versions[index]) {
+                    versions[index] = version;
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == ids.length) {
+            int grown = size + (size >> 1);
+            ids = Arrays.copyOf(ids, grown);
+            versions = Arrays.copyOf(versions, grown);
+        }
+        ids[size] = id;
+        versions[size] = version;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+    }
+
+    /** @return the version recorded for {@code id}, or {@code -1} if there is none */
+    int get(long id) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (true) {
+            int index = slots[slot] - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (ids[index] == id) {
+                return versions[index];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** The ids in ascending order, for {@link InventorySnapshot#write}. */
+    long[] sortedIds() {
+        long[] sorted = Arrays.copyOf(ids, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /** Adds every id of {@code other} in its insertion order, keeping the higher version. */
+    void putAll(PmcVersionMap other) {
+        for (int i = 0; i < other.size; i++) {
+            putMax(other.ids[i], other.versions[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** One {@link InventoryEntry} per id, in first-seen order. */
+    List<InventoryEntry> toEntries() {
+        List<InventoryEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String pmcId = Long.toString(ids[i]);
+            entries.add(new InventoryEntry(pmcId, versions[i], "PMC" + pmcId + "." + versions[i]));
+        }
+        return entries;
+    }
+
+    private void rehash(int tableSize) {
+        int[] table = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(ids[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        slots = table;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,48 @@
+package com.data.pmcs3.jats;
+
+import com.data.oai.shared.dto.Author;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Section;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Everything the PMC S3 pipeline reads from one JATS article, taken from a
+ * single parse by {@link JatsParser#parseArticle}.
+ *
+ * @param document        the mapped paper, without raw content
+ * @param authors         contributors as extracted by {@link JatsAuthorExtractor}
+ * @param doi             {@code <article-id pub-id-type="doi">}, or {@code null}
+ * @param language        the root's {@code xml:lang} (or {@code lang}), or {@code null}
+ * @param publicationDate the preferred {@code <pub-date>} as {@code yyyy-MM-dd}, or {@code null}
+ */
+public record JatsArticle(
+        PaperDocument document,
+        List<Author> authors,
+        String doi,
+        String language,
+        String publicationDate
+) {
+
+    /**
+     * The article as plain text, standing in for PMC's {@code .txt} rendering:
+     * title, abstract, then each section's title and text, separated by blank lines.
+     */
+    public String plainText() {
+        StringJoiner text = new StringJoiner("\n\n");
+        appendIfPresent(text, document.title());
+        appendIfPresent(text, document.abstractText());
+        for (Section section : document.sections()) {
+            appendIfPresent(text, section.getTitle());
+            appendIfPresent(text, section.getText());
+        }
+        return text.toString();
+    }
+
+    private static void appendIfPresent(StringJoiner text, String part) {
+        if (part != null && !part.isBlank()) {
+            text.add(part);
+        }
+    }
+}
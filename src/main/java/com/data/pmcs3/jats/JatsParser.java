@@ -31,7 +31,9 @@ import java.util.stream.Stream;
  * keywords, and authors are exactly as the publisher tagged them.
  *
  * <p>This parser uses Jsoup in XML mode (already a project dependency) so we
- * avoid pulling in a full JAXB / Dom parser stack.
+ * avoid pulling in a full JAXB / Dom parser stack. Building the DOM is most of
+ * the cost, so callers that need more than the document use
+ * {@link #parseArticle}, which reads everything from one parse.
  */
 public final class JatsParser {
 
@@ -59,9 +61,32 @@ public final class JatsParser {
         if (jatsXml == null || jatsXml.isBlank()) {
             return PaperDocument.empty(sourceId, externalIdentifier);
         }
+        return toPaperDocument(sourceId, externalIdentifier, jatsXml, xml(jatsXml));
+    }
 
-        Document jats = Jsoup.parse(jatsXml, "", Parser.xmlParser());
+    /**
+     * Parses the JATS XML once and reads the document, authors, DOI, language
+     * and publication date from the same DOM. Equivalent to calling
+     * {@link #parse}, {@link #extractAuthors}, {@link #extractDoi},
+     * {@link #extractLanguage} and {@link #extractPublicationDate} on the
+     * same input, at the cost of one of them.
+     */
+    public static JatsArticle parseArticle(String sourceId, String externalIdentifier, String jatsXml) {
+        if (jatsXml == null || jatsXml.isBlank()) {
+            return new JatsArticle(PaperDocument.empty(sourceId, externalIdentifier), List.of(), null, null, null);
+        }
+        Document jats = xml(jatsXml);
+        return new JatsArticle(
+                toPaperDocument(sourceId, externalIdentifier, jatsXml, jats),
+                JatsAuthorExtractor.extractAuthors(jats),
+                extractDoi(jats),
+                extractLanguage(jats),
+                extractPublicationDate(jats)
+        );
+    }
 
+    private static PaperDocument toPaperDocument(String sourceId, String externalIdentifier,
+                                                 String jatsXml, Document jats) {
         String title = firstText(jats, "article-meta > title-group > article-title");
         String abstractText = firstText(jats, "article-meta > abstract");
         List<String> keywords = extractKeywords(jats);
@@ -99,7 +124,10 @@ public final class JatsParser {
      */
     public static String extractLanguage(String jatsXml) {
         if (jatsXml == null || jatsXml.isBlank()) return null;
-        Document jats = Jsoup.parse(jatsXml, "", Parser.xmlParser());
+        return extractLanguage(xml(jatsXml));
+    }
+
+    private static String extractLanguage(Document jats) {
         Element article = jats.selectFirst("article");
         if (article == null) return null;
         return Optional.of(article.attr("xml:lang"))
@@ -115,8 +143,7 @@ public final class JatsParser {
      */
     public static List<Author> extractAuthors(String jatsXml) {
         if (jatsXml == null || jatsXml.isBlank()) return List.of();
-        Document jats = Jsoup.parse(jatsXml, "", Parser.xmlParser());
-        return JatsAuthorExtractor.extractAuthors(jats);
+        return JatsAuthorExtractor.extractAuthors(xml(jatsXml));
     }
 
     /**
@@ -124,7 +151,10 @@ public final class JatsParser {
      */
     public static String extractDoi(String jatsXml) {
         if (jatsXml == null || jatsXml.isBlank()) return null;
-        Document jats = Jsoup.parse(jatsXml, "", Parser.xmlParser());
+        return extractDoi(xml(jatsXml));
+    }
+
+    private static String extractDoi(Document jats) {
         Element el = jats.selectFirst("article-id[pub-id-type=doi]");
         return el == null ? null : cleanText(el.text());
     }
@@ -154,7 +184,10 @@ public final class JatsParser {
      */
     public static String extractPublicationDate(String jatsXml) {
         if (jatsXml == null || jatsXml.isBlank()) return null;
-        Document jats = Jsoup.parse(jatsXml, "", Parser.xmlParser());
+        return extractPublicationDate(xml(jatsXml));
+    }
+
+    private static String extractPublicationDate(Document jats) {
         Element articleMeta = jats.selectFirst("article-meta");
         if (articleMeta == null) return null;
 
@@ -220,6 +253,10 @@ public final class JatsParser {
     // Private helpers
     // ---------------------------------------------------------------
 
+    private static Document xml(String jatsXml) {
+        return Jsoup.parse(jatsXml, "", Parser.xmlParser());
+    }
+
     private static List<Section> extractSections(Document jats) {
         Element body = jats.selectFirst("body");
         if (body == null) return List.of();
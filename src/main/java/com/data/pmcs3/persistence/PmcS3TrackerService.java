@@ -3,24 +3,37 @@ package com.data.pmcs3.persistence;
 import com.data.pmcs3.persistence.entity.PmcS3Tracker;
 import com.data.pmcs3.persistence.entity.PmcS3TrackerStatus;
 import com.data.pmcs3.persistence.repository.PmcS3TrackerRepository;
+import com.data.shared.progress.CoalescedCounters;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Read/write facade for {@link PmcS3Tracker}. All progress updates go through
- * atomic DB statements so they are safe under concurrent virtual-thread execution.
+ * Read/write facade for {@link PmcS3Tracker}. Progress counters are accumulated
+ * in memory ({@link CoalescedCounters}), so concurrent virtual threads never
+ * contend on the tracker row. Deltas are written in one UPDATE per tracker on a
+ * fixed interval ({@code tracker.flush-interval-ms}), when the batch completes or
+ * fails, and on shutdown. Reads through this service include unflushed deltas.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PmcS3TrackerService {
 
+    enum Counter {
+        PROCESSED, SKIPPED_LICENSE, SKIPPED_MISSING_METADATA, SKIPPED_MISSING_JATS,
+        SKIPPED_DUPLICATE, SKIPPED_IO, SKIPPED_INTERRUPTED
+    }
+
     private final PmcS3TrackerRepository repository;
+    private final CoalescedCounters<Counter> counters = new CoalescedCounters<>(Counter.class);
 
     /**
      * Returns an in-progress tracker for the given batchId (resuming a prior run)
@@ -53,49 +66,102 @@ public class PmcS3TrackerService {
 
     @Transactional
     public void markCompleted(Long id) {
+        counters.close(id, this::writeCounters);
         repository.markStatus(id, PmcS3TrackerStatus.COMPLETED, OffsetDateTime.now());
     }
 
     @Transactional
     public void markFailed(Long id) {
+        counters.close(id, this::writeCounters);
         repository.markStatus(id, PmcS3TrackerStatus.FAILED, OffsetDateTime.now());
     }
 
-    /**
-     * Atomically increments the processed count at the DB level.
-     * Safe under concurrent virtual-thread execution.
-     */
-    @Transactional
+    /** Counts one processed record; lock-free, written on the next flush. */
     public void incrementProcessed(Long id) {
-        repository.incrementProcessed(id);
+        counters.add(id, Counter.PROCESSED, 1);
     }
 
     /**
-     * Atomically increments the per-reason skip counter and the aggregate
-     * {@code total_skipped} counter in a single DB statement.
+     * Counts one skipped record under its reason; lock-free, written on the next
+     * flush together with the aggregate {@code total_skipped} counter.
      */
-    @Transactional
     public void incrementSkipped(Long id, SkipReason reason) {
-        switch (reason) {
-            case LICENSE          -> repository.incrementSkippedLicense(id);
-            case MISSING_METADATA -> repository.incrementSkippedMissingMetadata(id);
-            case MISSING_JATS     -> repository.incrementSkippedMissingJats(id);
-            case DUPLICATE        -> repository.incrementSkippedDuplicate(id);
-            case IO               -> repository.incrementSkippedIo(id);
-            case INTERRUPTED      -> repository.incrementSkippedInterrupted(id);
-        }
+        counters.add(id, counterFor(reason), 1);
     }
 
     /**
-     * Re-fetches the tracker by id, returning the latest persisted state.
-     * Used to obtain a fresh snapshot of the per-reason counters before
-     * emitting aggregate log lines.
+     * Re-fetches the tracker by id, returning the latest persisted state plus
+     * the deltas not yet flushed. Used to obtain a current snapshot of the
+     * per-reason counters before emitting aggregate log lines.
      */
     public Optional<PmcS3Tracker> findById(Long id) {
-        return repository.findById(id);
+        return repository.findById(id).map(this::withPending);
     }
 
     public Optional<PmcS3Tracker> findLatestRunning() {
-        return repository.findTopByStatusOrderByStartedAtDesc(PmcS3TrackerStatus.RUNNING);
+        return repository.findTopByStatusOrderByStartedAtDesc(PmcS3TrackerStatus.RUNNING).map(this::withPending);
+    }
+
+    @Scheduled(fixedDelayString = "${tracker.flush-interval-ms:2000}")
+    public void flushCounters() {
+        counters.flushAll(this::writeCounters);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushCounters();
+    }
+
+    private static Counter counterFor(SkipReason reason) {
+        return switch (reason) {
+            case LICENSE          -> Counter.SKIPPED_LICENSE;
+            case MISSING_METADATA -> Counter.SKIPPED_MISSING_METADATA;
+            case MISSING_JATS     -> Counter.SKIPPED_MISSING_JATS;
+            case DUPLICATE        -> Counter.SKIPPED_DUPLICATE;
+            case IO               -> Counter.SKIPPED_IO;
+            case INTERRUPTED      -> Counter.SKIPPED_INTERRUPTED;
+        };
+    }
+
+    private void writeCounters(Long id, Map<Counter, Long> d) {
+        repository.addCounters(id,
+                Math.toIntExact(d.get(Counter.PROCESSED)),
+                Math.toIntExact(d.get(Counter.SKIPPED_LICENSE)),
+                Math.toIntExact(d.get(Counter.SKIPPED_MISSING_METADATA)),
+                Math.toIntExact(d.get(Counter.SKIPPED_MISSING_JATS)),
+                Math.toIntExact(d.get(Counter.SKIPPED_DUPLICATE)),
+                Math.toIntExact(d.get(Counter.SKIPPED_IO)),
+                Math.toIntExact(d.get(Counter.SKIPPED_INTERRUPTED)));
+    }
+
+    /** Detached copy of the stored tracker with unflushed deltas applied. */
+    private PmcS3Tracker withPending(PmcS3Tracker stored) {
+        Long id = stored.getId();
+        int license = pending(id, Counter.SKIPPED_LICENSE);
+        int missingMetadata = pending(id, Counter.SKIPPED_MISSING_METADATA);
+        int missingJats = pending(id, Counter.SKIPPED_MISSING_JATS);
+        int duplicate = pending(id, Counter.SKIPPED_DUPLICATE);
+        int io = pending(id, Counter.SKIPPED_IO);
+        int interrupted = pending(id, Counter.SKIPPED_INTERRUPTED);
+        return PmcS3Tracker.builder()
+                .id(id)
+                .batchId(stored.getBatchId())
+                .startedAt(stored.getStartedAt())
+                .completedAt(stored.getCompletedAt())
+                .status(stored.getStatus())
+                .totalDiscovered(stored.getTotalDiscovered())
+                .totalProcessed(stored.getTotalProcessed() + pending(id, Counter.PROCESSED))
+                .totalSkipped(stored.getTotalSkipped() + license + missingMetadata + missingJats + duplicate + io + interrupted)
+                .skippedLicense(stored.getSkippedLicense() + license)
+                .skippedMissingMetadata(stored.getSkippedMissingMetadata() + missingMetadata)
+                .skippedMissingJats(stored.getSkippedMissingJats() + missingJats)
+                .skippedDuplicate(stored.getSkippedDuplicate() + duplicate)
+                .skippedIo(stored.getSkippedIo() + io)
+                .skippedInterrupted(stored.getSkippedInterrupted() + interrupted)
+                .build();
+    }
+
+    private int pending(Long id, Counter counter) {
+        return (int) counters.pending(id, counter);
     }
 }
@@ -2,6 +2,7 @@ package com.data.pmcs3.persistence.repository;
 
 import com.data.pmcs3.persistence.entity.PmcS3Tracker;
 import com.data.pmcs3.persistence.entity.PmcS3TrackerStatus;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -28,52 +29,30 @@ public interface PmcS3TrackerRepository extends JpaRepository<PmcS3Tracker, Long
     @Query("UPDATE PmcS3Tracker t SET t.totalDiscovered = :discovered WHERE t.id = :id")
     int updateDiscovered(@Param("id") Long id, @Param("discovered") int discovered);
 
-    @Modifying
-    @Query("update PmcS3Tracker t set t.totalProcessed = t.totalProcessed + 1 where t.id = :id")
-    int incrementProcessed(@Param("id") Long id);
-
-    // ------------------------------------------------------------------
-    // Per-reason skip counters.
-    //
-    // Each method atomically bumps the reason-specific counter AND the
-    // aggregate total_skipped counter in a single UPDATE, so total_skipped
-    // always equals the sum of the per-reason columns without any
-    // application-side coordination.
-    // ------------------------------------------------------------------
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_license = skipped_license + 1, total_skipped = total_skipped + 1 "
-            + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedLicense(@Param("id") Long id);
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_missing_metadata = skipped_missing_metadata + 1, total_skipped = total_skipped + 1 "
-            + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedMissingMetadata(@Param("id") Long id);
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_missing_jats = skipped_missing_jats + 1, total_skipped = total_skipped + 1 "
-            + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedMissingJats(@Param("id") Long id);
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_duplicate = skipped_duplicate + 1, total_skipped = total_skipped + 1 "
-            + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedDuplicate(@Param("id") Long id);
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_io = skipped_io + 1, total_skipped = total_skipped + 1 "
-            + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedIo(@Param("id") Long id);
-
-    @Modifying
-    @Query(value = "UPDATE pmc_s3_tracker "
-            + "SET skipped_interrupted = skipped_interrupted + 1, total_skipped = total_skipped + 1 "
+    /**
+     * Adds coalesced counter deltas in one statement. {@code total_skipped} is
+     * bumped by the sum of the per-reason deltas, so it always equals the sum of
+     * the per-reason columns without any application-side coordination.
+     * Transactional on its own: also called from the scheduled counter flush.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE pmc_s3_tracker SET "
+            + "total_processed = total_processed + :processed, "
+            + "skipped_license = skipped_license + :license, "
+            + "skipped_missing_metadata = skipped_missing_metadata + :missingMetadata, "
+            + "skipped_missing_jats = skipped_missing_jats + :missingJats, "
+            + "skipped_duplicate = skipped_duplicate + :duplicate, "
+            + "skipped_io = skipped_io + :io, "
+            + "skipped_interrupted = skipped_interrupted + :interrupted, "
+            + "total_skipped = total_skipped + :license + :missingMetadata + :missingJats + :duplicate + :io + :interrupted "
             + "WHERE id = :id", nativeQuery = true)
-    int incrementSkippedInterrupted(@Param("id") Long id);
+    int addCounters(@Param("id") Long id,
+                    @Param("processed") int processed,
+                    @Param("license") int license,
+                    @Param("missingMetadata") int missingMetadata,
+                    @Param("missingJats") int missingJats,
+                    @Param("duplicate") int duplicate,
+                    @Param("io") int io,
+                    @Param("interrupted") int interrupted);
 }
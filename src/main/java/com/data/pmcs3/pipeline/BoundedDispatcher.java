@@ -0,0 +1,99 @@
+package com.data.pmcs3.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on an executor with at most {@code window} of them in flight. A new
+ * task is handed over as soon as any running one finishes, so one slow task only
+ * holds its own slot and the others keep going.
+ *
+ * <p>{@link #submit} blocks the dispatching thread while the window is full, which
+ * is what bounds the work: nothing is queued behind the executor.</p>
+ */
+final class BoundedDispatcher {
+
+    private final Executor executor;
+    private final int window;
+    private final Semaphore permits;
+
+    BoundedDispatcher(Executor executor, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1, was " + window);
+        }
+        this.executor = executor;
+        this.window = window;
+        this.permits = new Semaphore(window);
+    }
+
+    /**
+     * Waits for a free slot and runs {@code task} in it.
+     *
+     * @return {@code false} if the executor no longer accepts tasks
+     * @throws InterruptedException if interrupted while waiting for a slot
+     */
+    boolean submit(Runnable task) throws InterruptedException {
+        permits.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    /** Waits until every submitted task has finished. */
+    void awaitAll() throws InterruptedException {
+        permits.acquire(window);
+        permits.release(window);
+    }
+
+    /**
+     * Waits up to {@code timeout} until every submitted task has finished, even if
+     * the thread is or gets interrupted; the interrupt flag is restored afterwards.
+     * For winding down after an interrupt, when the running tasks must not outlive
+     * the caller.
+     *
+     * @return {@code false} if tasks were still running when the timeout expired
+     */
+    boolean awaitAllUninterruptibly(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    if (!permits.tryAcquire(window, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                        return false;
+                    }
+                    permits.release(window);
+                    return true;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Tasks submitted and not finished yet. */
+    int inFlight() {
+        return window - permits.availablePermits();
+    }
+
+    int window() {
+        return window;
+    }
+}
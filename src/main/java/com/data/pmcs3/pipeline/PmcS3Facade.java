@@ -1,12 +1,17 @@
 package com.data.pmcs3.pipeline;
 
-import com.data.oai.persistence.PaperInternalService;
-import com.data.oai.shared.dto.Author;
+import com.data.oai.persistence.PaperBatchWriter;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.persistence.dedup.SourceIdIndex;
 import com.data.oai.shared.dto.PaperDocument;
 import com.data.oai.shared.dto.Record;
 import com.data.pmcs3.client.PmcS3Client;
+import com.data.pmcs3.inventory.InventoryDiff;
 import com.data.pmcs3.inventory.InventoryEntry;
 import com.data.pmcs3.inventory.InventoryService;
+import com.data.pmcs3.inventory.InventorySnapshot;
+import com.data.pmcs3.inventory.InventorySnapshotStore;
+import com.data.pmcs3.jats.JatsArticle;
 import com.data.pmcs3.jats.JatsParser;
 import com.data.pmcs3.metadata.PubmedArticleMetadata;
 import com.data.pmcs3.metadata.MetadataService;
@@ -16,19 +21,29 @@ import com.data.pmcs3.persistence.SkipReason;
 import com.data.pmcs3.persistence.entity.PmcS3Tracker;
 import com.data.shared.DataSource;
 import com.data.shared.i18n.LanguageConstants;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import com.data.shared.metrics.PipelineTimers.Step;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Orchestrates the PMC S3 processing flow for a single batch (one inventory
@@ -37,6 +52,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <p>Per-record failures are isolated — any exception while processing a
  * single article is caught, logged, and the batch continues. Progress is
  * persisted atomically via {@link PmcS3TrackerService} so restarts resume.
+ *
+ * <p>Articles are dispatched continuously through a {@link BoundedDispatcher}:
+ * {@link #IN_FLIGHT_PER_CONNECTION} per {@code pmcs3.concurrency}, and the next
+ * one starts as soon as any finishes. Articles in flight are exported as
+ * {@code pmcs3.articles.in.flight}, finished ones as
+ * {@code pmcs3.articles.completed{outcome}}.
  */
 @Slf4j
 @Service
@@ -45,19 +66,50 @@ public class PmcS3Facade {
 
     private static final String DEFAULT_LANGUAGE = LanguageConstants.DEFAULT_LANGUAGE;
 
+    /**
+     * Articles in flight per pooled connection. An article holds a connection only
+     * while it downloads; the rest of the time it parses or waits for the group
+     * commit, and the extra articles keep the connection pool busy meanwhile.
+     */
+    static final int IN_FLIGHT_PER_CONNECTION = 2;
+
+    /** How long a stopped dispatch waits for the articles in flight before the tracker is closed. */
+    static final Duration STOP_WAIT = Duration.ofMinutes(1);
+
     private final PmcS3Client client;
     private final InventoryService inventoryService;
+    private final InventorySnapshotStore inventorySnapshots;
     private final MetadataService metadataService;
     private final PmcS3TrackerService trackerService;
-    private final PaperInternalService paperInternalService;
+    private final SourceIdIndex sourceIdIndex;
+    private final PaperBatchWriter paperBatchWriter;
+    private final LanguageDetectionService languageDetection;
+    private final PipelineTimers timers;
+    private final MeterRegistry meterRegistry;
     private final PmcS3Properties props;
 
     @Resource(name = "pmcS3Executor")
     private ExecutorService pmcS3Executor;
 
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("pmcs3.articles.in.flight", inFlight, AtomicInteger::get)
+                .description("PMC S3 articles being processed")
+                .register(meterRegistry);
+    }
+
     /**
      * Processes a single inventory manifest end-to-end. The manifest key
      * doubles as the tracker batch id so a restart can resume cleanly.
+     *
+     * <p>Only the {@link InventoryDiff} against the previous run's inventory is
+     * processed: new articles that are not stored yet, and articles with a higher
+     * version, whose stored record is replaced. Afterwards the inventory is saved
+     * as the next baseline, except for articles that failed or were not reached.
+     * A batch whose dispatch stopped early (interrupt, executor shutdown) is marked
+     * failed rather than completed.
      */
     public void processBatch(String manifestKey) {
         PmcS3Tracker tracker = trackerService.getOrCreate(manifestKey);
@@ -65,42 +117,34 @@ public class PmcS3Facade {
             List<InventoryEntry> entries = inventoryService.fetchInventory(manifestKey);
             trackerService.updateDiscovered(tracker.getId(), entries.size());
 
-            Set<String> alreadyProcessed = new HashSet<>(
-                    paperInternalService.findAllSourceIdsByDataSource(DataSource.PMC_S3)
-            );
-
-            List<InventoryEntry> unprocessed = entries.stream()
-                    .filter(e -> !alreadyProcessed.contains(e.pmcId()))
-                    .toList();
+            InventorySnapshot previous = inventorySnapshots.load();
+            InventoryDiff diff = InventoryDiff.between(previous, entries);
+            Set<String> updated = diff.updated().stream().map(InventoryEntry::pmcId).collect(Collectors.toSet());
+            List<InventoryEntry> unprocessed = new ArrayList<>(diff.updated());
+            diff.added().stream()
+                    .filter(e -> !sourceIdIndex.contains(DataSource.PMC_S3, e.pmcId()))
+                    .forEach(unprocessed::add);
+            // Removed once an article is stored or skipped for good; the rest are retried next run
+            Set<String> pending = ConcurrentHashMap.newKeySet(unprocessed.size());
+            unprocessed.forEach(e -> pending.add(e.pmcId()));
+
+            log.info("PMC S3 batch={} discovered={} unchanged={} new={} updated={} alreadyStored={} unprocessed={} (index holds {})",
+                    manifestKey, entries.size(), diff.unchanged(), diff.added().size(), diff.updated().size(),
+                    diff.added().size() + diff.updated().size() - unprocessed.size(), unprocessed.size(),
+                    sourceIdIndex.size(DataSource.PMC_S3));
 
-            log.info("PMC S3 batch={} discovered={} alreadyProcessed={} unprocessed={}",
-                    manifestKey, entries.size(), alreadyProcessed.size(), unprocessed.size());
-
-            int batchSize = Math.max(1, props.batchSize());
-            int total = unprocessed.size();
-            int chunkCount = (total + batchSize - 1) / batchSize;
             AtomicInteger processed = new AtomicInteger(0);
+            boolean finished = dispatch(tracker, manifestKey, unprocessed, updated, processed, pending);
 
-            for (int chunkIdx = 0, from = 0; from < total; chunkIdx++, from += batchSize) {
-                if (Thread.currentThread().isInterrupted()) {
-                    log.warn("PMC S3 batch={} interrupted after {} chunks", manifestKey, chunkIdx);
-                    break;
-                }
-                int to = Math.min(from + batchSize, total);
-                List<InventoryEntry> chunk = unprocessed.subList(from, to);
-                log.info("PMC S3 batch={} chunk={}/{} size={}",
-                        manifestKey, chunkIdx + 1, chunkCount, chunk.size());
-
-                CompletableFuture<?>[] futures = new CompletableFuture[chunk.size()];
-                for (int i = 0; i < chunk.size(); i++) {
-                    InventoryEntry entry = chunk.get(i);
-                    futures[i] = CompletableFuture.runAsync(
-                            () -> processOne(tracker, entry, processed), pmcS3Executor);
-                }
-                CompletableFuture.allOf(futures).join();
-            }
+            inventorySnapshots.save(previous, entries, e -> !pending.contains(e.pmcId()));
 
             logSkipBreakdown(tracker, manifestKey);
+            if (!finished) {
+                trackerService.markFailed(tracker.getId());
+                log.warn("PMC S3 batch={} stopped early. processed={}, {} articles left for the next run",
+                        manifestKey, processed.get(), pending.size());
+                return;
+            }
             trackerService.markCompleted(tracker.getId());
             log.info("PMC S3 batch={} completed. processed={}", manifestKey, processed.get());
         } catch (Exception e) {
@@ -110,47 +154,128 @@ public class PmcS3Facade {
         }
     }
 
-    private void processOne(PmcS3Tracker tracker, InventoryEntry entry, AtomicInteger processed) {
-        processOneInternal(tracker, entry, processed, entry.pmcId());
+    /**
+     * Runs the articles with a bounded number in flight and waits for them. Stops
+     * handing out articles when the thread is interrupted or the executor shuts
+     * down; the ones not reached stay pending and are retried next run. Even then
+     * it waits (up to {@link #STOP_WAIT}) for the articles in flight, which still
+     * count into the tracker. Progress is logged every {@code pmcs3.batch-size}
+     * articles.
+     *
+     * @return {@code true} if every article was dispatched and has finished
+     */
+    private boolean dispatch(PmcS3Tracker tracker, String manifestKey, List<InventoryEntry> unprocessed,
+                          Set<String> updated, AtomicInteger processed, Set<String> pending) {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(pmcS3Executor,
+                Math.max(1, props.concurrency()) * IN_FLIGHT_PER_CONNECTION);
+        int total = unprocessed.size();
+        int reportEvery = Math.max(1, props.batchSize());
+        AtomicInteger done = new AtomicInteger();
+        long start = System.nanoTime();
+        log.info("PMC S3 batch={} dispatching {} articles, window={}", manifestKey, total, dispatcher.window());
+
+        int submitted = 0;
+        boolean stoppedEarly = false;
+        try {
+            for (InventoryEntry entry : unprocessed) {
+                if (Thread.currentThread().isInterrupted()) {
+                    stoppedEarly = true;
+                    break;
+                }
+                boolean replace = updated.contains(entry.pmcId());
+                boolean accepted = dispatcher.submit(() -> {
+                    processOne(tracker, entry, replace, processed, pending);
+                    int n = done.incrementAndGet();
+                    if (n % reportEvery == 0 || n == total) {
+                        double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+                        log.info("PMC S3 batch={} {}/{} articles done, inFlight={}, {} articles/s",
+                                manifestKey, n, total, dispatcher.inFlight(), String.format("%.1f", n / seconds));
+                    }
+                });
+                if (!accepted) {
+                    log.warn("PMC S3 batch={} executor shut down after {}/{} articles", manifestKey, submitted, total);
+                    stoppedEarly = true;
+                    break;
+                }
+                submitted++;
+            }
+            if (!stoppedEarly) {
+                dispatcher.awaitAll();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("PMC S3 batch={} stopped after dispatching {}/{} articles, waiting for {} in flight",
+                manifestKey, submitted, total, dispatcher.inFlight());
+        if (!dispatcher.awaitAllUninterruptibly(STOP_WAIT)) {
+            log.warn("PMC S3 batch={} still has {} articles in flight after {} s; their progress may not be counted",
+                    manifestKey, dispatcher.inFlight(), STOP_WAIT.toSeconds());
+        }
+        return false;
     }
 
-    private void processOneInternal(PmcS3Tracker tracker, InventoryEntry entry, AtomicInteger processed, String pmcId) {
+    private void processOne(PmcS3Tracker tracker, InventoryEntry entry, boolean replace,
+                            AtomicInteger processed, Set<String> pending) {
+        inFlight.incrementAndGet();
+        boolean settled = false;
+        try {
+            settled = processOneInternal(tracker, entry, replace, processed, entry.pmcId());
+            if (settled) {
+                pending.remove(entry.pmcId());
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            meterRegistry.counter("pmcs3.articles.completed", "outcome", settled ? "settled" : "retry").increment();
+        }
+    }
+
+    /**
+     * @return whether the article is settled for this version: stored, or skipped
+     *         for a reason that another attempt would not change (license, duplicate)
+     */
+    private boolean processOneInternal(PmcS3Tracker tracker, InventoryEntry entry, boolean replace,
+                                       AtomicInteger processed, String pmcId) {
         try {
-            PubmedArticleMetadata metadata = loadAndValidateMetadata(entry, tracker, pmcId);
-            if (metadata == null) return;
+            PubmedArticleMetadata metadata = metadataService.fetchMetadata(entry);
+            SkipReason rejected = validateMetadata(metadata, pmcId);
+            if (rejected != null) {
+                trackerService.incrementSkipped(tracker.getId(), rejected);
+                // Metadata or JATS may still be on their way; a license does not change
+                return rejected == SkipReason.LICENSE;
+            }
 
             AssetBundle assets = downloadArticleAssets(entry, metadata, tracker, pmcId);
-            if (assets == null) return;
+            if (assets == null) return false;
 
-            PaperDocument paperDoc = buildPaperDocument(entry, metadata, assets, pmcId);
-            persistRecord(entry, metadata, assets, paperDoc, tracker, processed, pmcId);
+            JatsArticle article = parseArticle(metadata, assets, pmcId);
+            persistRecord(metadata, assets, article, replace, tracker, processed, pmcId);
+            return true;
         } catch (DataIntegrityViolationException e) {
             log.warn("PMC S3 skipping pmcId={} (duplicate): {}", pmcId, e.getMessage());
             trackerService.incrementSkipped(tracker.getId(), SkipReason.DUPLICATE);
+            return true;
         } catch (Exception e) {
             log.warn("PMC S3 failed to process pmcId={}: {}", pmcId, e.getMessage());
             trackerService.incrementSkipped(tracker.getId(), SkipReason.IO);
+            return false;
         }
     }
 
     /**
-     * Fetches and validates per-article JSON metadata. Returns {@code null}
-     * (and increments the appropriate skip counter) if the article cannot be
-     * processed.
+     * Validates per-article JSON metadata. Returns the reason the article cannot
+     * be processed, or {@code null} if it can.
      */
-    private PubmedArticleMetadata loadAndValidateMetadata(InventoryEntry entry, PmcS3Tracker tracker, String pmcId) {
-        PubmedArticleMetadata metadata = metadataService.fetchMetadata(entry);
+    private static SkipReason validateMetadata(PubmedArticleMetadata metadata, String pmcId) {
         if (metadata == null) {
             log.debug("Skipping PMC {} — no JSON metadata", pmcId);
-            trackerService.incrementSkipped(tracker.getId(), SkipReason.MISSING_METADATA);
-            return null;
+            return SkipReason.MISSING_METADATA;
         }
 
         if (!PmcS3LicenseFilter.isAcceptable(metadata.licenseCode())) {
             log.debug("Skipping PMC {} — license {} not commercially usable",
                     pmcId, metadata.licenseCode());
-            trackerService.incrementSkipped(tracker.getId(), SkipReason.LICENSE);
-            return null;
+            return SkipReason.LICENSE;
         }
 
         // Author manuscripts frequently have no JATS URL advertised in
@@ -158,30 +283,42 @@ public class PmcS3Facade {
         // keep the missing-JATS counter accurate.
         if (metadata.xmlUrl() == null || metadata.xmlUrl().isBlank()) {
             log.debug("Skipping PMC {} — metadata has no xml_url (likely author manuscript)", pmcId);
-            trackerService.incrementSkipped(tracker.getId(), SkipReason.MISSING_JATS);
-            return null;
+            return SkipReason.MISSING_JATS;
         }
 
-        return metadata;
+        return null;
     }
 
     /**
-     * Downloads the JATS XML and plain-text content for the article. Returns
-     * {@code null} (and increments the appropriate skip counter) if the JATS
-     * XML is absent.
+     * Downloads the JATS XML and plain-text content for the article. The
+     * {@code .txt} is fetched on the executor while this thread fetches the XML,
+     * and not at all with {@code pmcs3.download-txt: false}. Returns {@code null}
+     * (and increments the appropriate skip counter) if the JATS XML is absent.
      */
     private AssetBundle downloadArticleAssets(InventoryEntry entry, PubmedArticleMetadata metadata,
                                               PmcS3Tracker tracker, String pmcId) {
+        CompletableFuture<String> txt = null;
+        if (props.downloadTxt()) {
+            String txtKey = client.articleKey(pmcId, entry.version(), "txt");
+            txt = CompletableFuture.supplyAsync(() -> client.downloadText(txtKey), pmcS3Executor);
+        }
+
         String jatsKey = client.articleKey(pmcId, entry.version(), "xml");
-        String jatsXml = client.downloadText(jatsKey);
+        String jatsXml;
+        try {
+            jatsXml = client.downloadText(jatsKey);
+        } catch (RuntimeException e) {
+            if (txt != null) txt.cancel(true);
+            throw e;
+        }
         if (jatsXml == null || jatsXml.isBlank()) {
+            if (txt != null) txt.cancel(true);
             log.debug("Skipping PMC {} — no JATS XML", pmcId);
             trackerService.incrementSkipped(tracker.getId(), SkipReason.MISSING_JATS);
             return null;
         }
 
-        String txtKey = client.articleKey(pmcId, entry.version(), "txt");
-        String rawContent = client.downloadText(txtKey);
+        String rawContent = txt == null ? null : txt.join();
 
         String pdfUrl = metadata.pdfUrl() != null
                 ? metadata.pdfUrl()
@@ -191,28 +328,30 @@ public class PmcS3Facade {
     }
 
     /**
-     * Parses the JATS XML into a {@link PaperDocument}, merging in the
-     * separately downloaded plain-text raw content.
+     * Parses the JATS XML once into the document and the record fields read
+     * from it (authors, DOI, language, publication date).
      */
-    private PaperDocument buildPaperDocument(InventoryEntry entry, PubmedArticleMetadata metadata,
-                                             AssetBundle assets, String pmcId) {
-        PaperDocument paperDoc = JatsParser.parse(pmcId, metadata.pmid(), assets.jatsXml());
-        // Re-assemble with rawContent that the facade downloaded separately.
-        return paperDoc.withRawContent(assets.rawContent());
+    private JatsArticle parseArticle(PubmedArticleMetadata metadata, AssetBundle assets, String pmcId) {
+        return timers.time(Step.JATS_MAPPING, DataSource.PMC_S3,
+                () -> JatsParser.parseArticle(pmcId, metadata.pmid(), assets.jatsXml()));
     }
 
     /**
-     * Persists the article, updates the tracker, and logs progress milestones.
+     * Persists the article (replacing the stored version if {@code replace}),
+     * updates the tracker, and logs progress milestones.
      */
-    private void persistRecord(InventoryEntry entry, PubmedArticleMetadata metadata,
-                               AssetBundle assets, PaperDocument paperDoc,
-                               PmcS3Tracker tracker, AtomicInteger processed, String pmcId) {
-        String language = JatsParser.extractLanguage(assets.jatsXml());
-        if (language == null || language.isBlank()) language = DEFAULT_LANGUAGE;
-
-        Record record = buildRecord(metadata, pmcId, assets.jatsXml(), language);
-
-        paperInternalService.persistState(DataSource.PMC_S3, record, paperDoc, assets.pdfUrl());
+    private void persistRecord(PubmedArticleMetadata metadata, AssetBundle assets, JatsArticle article,
+                               boolean replace, PmcS3Tracker tracker, AtomicInteger processed, String pmcId) {
+        // Re-assemble with rawContent that the facade downloaded separately, or derived from the JATS.
+        String rawContent = props.downloadTxt() ? assets.rawContent() : article.plainText();
+        PaperDocument paperDoc = article.document().withRawContent(rawContent);
+        String language = article.language();
+        if (language == null || language.isBlank()) language = detectLanguage(paperDoc);
+
+        Record record = buildRecord(metadata, pmcId, article, language);
+
+        timers.run(Step.PERSIST, DataSource.PMC_S3,
+                () -> paperBatchWriter.write(new PaperWriteRequest(DataSource.PMC_S3, record, paperDoc, assets.pdfUrl(), replace)));
         trackerService.incrementProcessed(tracker.getId());
 
         int newVal = processed.incrementAndGet();
@@ -222,6 +361,24 @@ public class PmcS3Facade {
         }
     }
 
+    /**
+     * Falls back to detecting the language from the title and abstract when the
+     * JATS root carries no {@code xml:lang}.
+     */
+    private String detectLanguage(PaperDocument paperDoc) {
+        String sample = Stream.of(paperDoc.title(), paperDoc.abstractText())
+                .filter(s -> s != null && !s.isBlank())
+                .collect(Collectors.joining(" "));
+        try {
+            String language = timers.time(Step.LANGUAGE_DETECTION, DataSource.PMC_S3,
+                    () -> languageDetection.detect(sample));
+            return language != null ? language : DEFAULT_LANGUAGE;
+        } catch (Exception e) {
+            log.warn("Language detection failed for {}: {}", paperDoc.sourceId(), e.getMessage());
+            return DEFAULT_LANGUAGE;
+        }
+    }
+
     /**
      * Emits an aggregate INFO-level breakdown of skip counters for the batch.
      * Per-article license rejections are logged at DEBUG (there can be
@@ -229,8 +386,8 @@ public class PmcS3Facade {
      * quality monitoring.
      *
      * <p>The in-memory {@code tracker} reference carries the entity snapshot
-     * from batch start; counters are incremented atomically at the DB level,
-     * so we re-fetch here to get the current values before logging.
+     * from batch start; the tracker service re-fetches it with the live
+     * (not yet flushed) counter deltas applied.
      */
     private void logSkipBreakdown(PmcS3Tracker tracker, String manifestKey) {
         PmcS3Tracker fresh = trackerService.findById(tracker.getId()).orElse(tracker);
@@ -245,7 +402,7 @@ public class PmcS3Facade {
     }
 
     /**
-     * Builds a {@link Record} DTO from the PMC S3 JSON metadata and JATS XML.
+     * Builds a {@link Record} DTO from the PMC S3 JSON metadata and the parsed JATS article.
      * The JATS document is the authoritative source for authors and DOI;
      * the JSON metadata provides license, PMID, and scheduling info.
      *
@@ -264,11 +421,11 @@ public class PmcS3Facade {
      * require an extra HEAD per article and, on PMC, is virtually always dominated
      * by the JATS pub-dates being present.
      */
-    private Record buildRecord(PubmedArticleMetadata metadata, String pmcId, String jatsXml, String language) {
+    private Record buildRecord(PubmedArticleMetadata metadata, String pmcId, JatsArticle article, String language) {
         Record record = new Record();
         record.setSourceId(pmcId);
         record.setExternalIdentifier(metadata.pmid());
-        record.setDatestamp(resolveDatestamp(metadata, jatsXml, pmcId));
+        record.setDatestamp(resolveDatestamp(metadata, article.publicationDate(), pmcId));
         record.setLicense(licenseUrlOrCode(metadata));
         record.setLanguage(language);
         record.setTitle(metadata.articleTitle());
@@ -276,12 +433,11 @@ public class PmcS3Facade {
 
         String doi = metadata.doi();
         if (doi == null || doi.isBlank()) {
-            doi = JatsParser.extractDoi(jatsXml);
+            doi = article.doi();
         }
         record.setDoi(doi);
 
-        List<Author> authors = JatsParser.extractAuthors(jatsXml);
-        record.getAuthors().addAll(authors);
+        record.getAuthors().addAll(article.authors());
 
         return record;
     }
@@ -300,8 +456,7 @@ public class PmcS3Facade {
      *
      * <p>See {@link #buildRecord} for the full priority rationale.
      */
-    private String resolveDatestamp(PubmedArticleMetadata metadata, String jatsXml, String pmcId) {
-        String fromJats = JatsParser.extractPublicationDate(jatsXml);
+    private String resolveDatestamp(PubmedArticleMetadata metadata, String fromJats, String pmcId) {
         if (fromJats != null) return fromJats;
 
         String fromMetadata = metadata.publicationDate();
@@ -0,0 +1,327 @@
+package com.data.shared.cache;
+
+import com.data.config.properties.BlobCacheProperties;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk cache of fetched bytes (OAI ListRecords pages, PDFs,
+ * GROBID TEI results).
+ *
+ * <p>An entry's file name is the SHA-256 of its namespace and key (typically the
+ * request URL), so entries need no separate index on disk:
+ * {@code <dir>/<namespace>/<first two hex digits>/<sha256>.zst}. Content is zstd
+ * compressed (level {@value #LEVEL}, which costs little on PDFs that hardly
+ * compress) and written through a temp file and an atomic move, so a crash never
+ * leaves a truncated entry behind. GZIP entries of earlier versions are deleted
+ * at startup.</p>
+ *
+ * <p>The in-memory LRU order is rebuilt from file modification times at
+ * startup; a hit touches the file so the order survives restarts. Once the
+ * compressed total exceeds {@code max-size-mb}, least recently used entries are
+ * deleted. Hits and misses per namespace are counted as
+ * {@code blob.cache.requests}, the size as {@code blob.cache.size.bytes{cache}}.</p>
+ *
+ * <p>Two instances are configured in {@link com.data.config.BlobCacheConfig}: the
+ * primary {@code cache.blob} for pages and PDFs, and {@code cache.tei} for GROBID
+ * results, so PDF churn cannot evict them. The cache must sit in front of
+ * rate-limited client calls, not behind them, so a hit costs no rate-limiter
+ * permit.</p>
+ */
+@Slf4j
+public class BlobCache {
+
+    static final int LEVEL = 3;
+
+    private static final String EXTENSION = ".zst";
+
+    /** {@code <sha256><extension>}, optionally with a temp file suffix; {@code .gz} is the pre-zstd format. */
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})(\\.zst|\\.gz)(\\d*\\.tmp)?");
+
+    private final String name;
+    private final BlobCacheProperties props;
+    private final MeterRegistry meterRegistry;
+
+    /** Relative path → compressed size, in access order. Guarded by {@code this}. */
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+    private Path root;
+
+    /**
+     * @param name tags this instance's size gauge and log lines, e.g. {@code blob} or {@code tei}
+     */
+    public BlobCache(String name, BlobCacheProperties props, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public BlobCache(BlobCacheProperties props, MeterRegistry meterRegistry) {
+        this("blob", props, meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!props.enabled() || props.dir() == null || props.dir().isBlank()) {
+            log.info("Blob cache {} disabled", name);
+            return;
+        }
+        root = Path.of(props.dir());
+        try {
+            Files.createDirectories(root);
+            loadIndex();
+        } catch (IOException e) {
+            log.warn("Blob cache {} disabled: cannot use {}: {}", name, root, e.getMessage());
+            root = null;
+            return;
+        }
+        Gauge.builder("blob.cache.size.bytes", this, BlobCache::sizeBytes)
+                .description("Compressed bytes held by the on-disk blob cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        log.info("Blob cache {} at {}: {} entries, {} MB of {} MB",
+                name, root, entries.size(), totalBytes >> 20, props.maxSizeMb());
+    }
+
+    public boolean enabled() {
+        return root != null;
+    }
+
+    /** See {@link BlobCacheProperties#listRecordsMinAgeDays()}. */
+    public int listRecordsMinAgeDays() {
+        return props.listRecordsMinAgeDays();
+    }
+
+    /** @return the cached bytes, or {@code null} on a miss or when the cache is disabled */
+    public byte[] get(String namespace, String key) {
+        Path relative = enabled() ? pathFor(namespace, key) : null;
+        try (InputStream in = open(namespace, key)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException e) {
+            log.warn("Dropping unreadable blob cache entry {}: {}", relative, e.getMessage());
+            delete(relative);
+            return null;
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #get}, for entries too large to hold on the heap.
+     *
+     * @return the decompressed entry, to be closed by the caller, or {@code null}
+     *         on a miss or when the cache is disabled
+     */
+    public InputStream open(String namespace, String key) {
+        if (!enabled()) {
+            return null;
+        }
+        Path relative = pathFor(namespace, key);
+        synchronized (this) {
+            if (entries.get(relative) == null) {
+                count(namespace, "miss");
+                return null;
+            }
+        }
+        Path file = root.resolve(relative);
+        try {
+            InputStream in = new ZstdInputStream(Files.newInputStream(file));
+            touch(file);
+            count(namespace, "hit");
+            return in;
+        } catch (NoSuchFileException e) {
+            forget(relative); // evicted concurrently
+        } catch (IOException e) {
+            log.warn("Dropping unreadable blob cache entry {}: {}", file, e.getMessage());
+            delete(relative);
+        }
+        count(namespace, "miss");
+        return null;
+    }
+
+    /** Deletes the entry, e.g. one that turned out to be unreadable or invalid. */
+    public void remove(String namespace, String key) {
+        if (enabled()) {
+            delete(pathFor(namespace, key));
+        }
+    }
+
+    public void put(String namespace, String key, byte[] content) {
+        put(namespace, key, () -> new ByteArrayInputStream(content));
+    }
+
+    /** Streaming variant of {@link #put}; {@code content} is opened once and closed here. */
+    public void put(String namespace, String key, ContentSource content) {
+        if (!enabled()) {
+            return;
+        }
+        Path relative = pathFor(namespace, key);
+        Path file = root.resolve(relative);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (InputStream in = content.open();
+                     OutputStream out = new ZstdOutputStream(Files.newOutputStream(tmp), LEVEL)) {
+                    in.transferTo(out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            long size = Files.size(file);
+            synchronized (this) {
+                Long previous = entries.put(relative, size);
+                totalBytes += size - (previous != null ? previous : 0);
+            }
+            evictIfNeeded();
+        } catch (IOException e) {
+            log.warn("Could not cache {} entry for {}: {}", namespace, key, e.getMessage());
+        }
+    }
+
+    /** Supplies the content of an entry to write. */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    // ── Internals ────────────────────────────────────────────────────
+
+    /**
+     * Indexes the entries under {@code <namespace>/<xx>/} and deletes this cache's
+     * own leftovers there: temp files of a crash and GZIP entries of earlier
+     * versions. Any other file, e.g. when {@code dir} is shared, is left alone.
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 3)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        record Found(Path relative, long size, long modified) {}
+        List<Found> found = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Path relative = root.relativize(file);
+            if (relative.getNameCount() != 3) {
+                continue;
+            }
+            String name = relative.getFileName().toString();
+            Matcher m = FILE_NAME.matcher(name);
+            if (!m.matches() || !m.group(1).startsWith(relative.getName(1).toString())) {
+                continue;
+            }
+            if (m.group(3) != null || !EXTENSION.equals(m.group(2))) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            found.add(new Found(relative, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+        }
+        found.sort(Comparator.comparingLong(Found::modified));
+        synchronized (this) {
+            for (Found f : found) {
+                entries.put(f.relative(), f.size());
+                totalBytes += f.size();
+            }
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        long maxBytes = props.maxSizeMb() << 20;
+        while (true) {
+            Path victim;
+            synchronized (this) {
+                if (totalBytes <= maxBytes || entries.isEmpty()) {
+                    return;
+                }
+                Iterator<Map.Entry<Path, Long>> eldest = entries.entrySet().iterator();
+                Map.Entry<Path, Long> e = eldest.next();
+                victim = e.getKey();
+                totalBytes -= e.getValue();
+                eldest.remove();
+            }
+            try {
+                Files.deleteIfExists(root.resolve(victim));
+            } catch (IOException e) {
+                log.warn("Could not evict blob cache entry {}: {}", victim, e.getMessage());
+            }
+        }
+    }
+
+    private void delete(Path relative) {
+        forget(relative);
+        try {
+            Files.deleteIfExists(root.resolve(relative));
+        } catch (IOException ignored) {
+            // Reported when it is read again
+        }
+    }
+
+    private synchronized void forget(Path relative) {
+        Long size = entries.remove(relative);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Only affects the LRU order after a restart
+        }
+    }
+
+    private void count(String namespace, String result) {
+        Counter.builder("blob.cache.requests")
+                .description("Blob cache lookups")
+                .tag("namespace", namespace)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    static Path pathFor(String namespace, String key) {
+        String hash = sha256(namespace + '\n' + key);
+        return Path.of(namespace, hash.substring(0, 2), hash + EXTENSION);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
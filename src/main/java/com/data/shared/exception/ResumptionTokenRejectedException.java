@@ -0,0 +1,6 @@
+package com.data.shared.exception;
+
+/** The OAI-PMH server answered {@code badResumptionToken}, typically because the token expired. */
+public class ResumptionTokenRejectedException extends HarvestException {
+    public ResumptionTokenRejectedException(String message) { super(message); }
+}
@@ -0,0 +1,138 @@
+package com.data.shared.http;
+
+import com.data.config.properties.PdfTransferProperties;
+import com.data.shared.exception.PdfDownloadException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies a download stream into a {@link SpooledBody} with a fixed memory
+ * footprint: the first {@code pdf.transfer.memory-threshold-kb} are buffered on
+ * the heap, anything beyond goes to a temp file in {@code pdf.transfer.spool-dir}.
+ * Bodies over {@code pdf.transfer.max-size-mb} are rejected as soon as the
+ * declared Content-Length or the bytes read exceed it.
+ *
+ * <p>Metrics: {@code pdf.transfer.bytes} (tagged {@code storage=memory|disk}),
+ * {@code pdf.transfer.rejected} and the {@code pdf.transfer.spool.bytes} gauge
+ * of bytes currently held in spool files.</p>
+ */
+@Slf4j
+@Component
+public class BodySpooler {
+
+    private static final String PREFIX = "spool-";
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private final PdfTransferProperties props;
+    private final Counter memoryBytes;
+    private final Counter diskBytes;
+    private final Counter rejected;
+    private final AtomicLong spooledBytes = new AtomicLong();
+    private Path dir;
+
+    public BodySpooler(PdfTransferProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.memoryBytes = bytesCounter(meterRegistry, "memory");
+        this.diskBytes = bytesCounter(meterRegistry, "disk");
+        this.rejected = Counter.builder("pdf.transfer.rejected")
+                .description("Downloads aborted for exceeding pdf.transfer.max-size-mb")
+                .register(meterRegistry);
+        Gauge.builder("pdf.transfer.spool.bytes", spooledBytes, AtomicLong::get)
+                .description("Bytes currently held in spool files")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        dir = props.spoolDir() == null || props.spoolDir().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"))
+                : Path.of(props.spoolDir());
+        Files.createDirectories(dir);
+        // Spool files of a previous JVM are orphans now
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, PREFIX + "*")) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Reads {@code in} to the end. The stream is not closed.
+     *
+     * <p>A read failure is thrown as is, so inside a RestClient exchange it
+     * becomes a retryable {@link org.springframework.web.client.ResourceAccessException}.</p>
+     *
+     * @param declaredLength Content-Length of the response, or a negative value if unknown
+     * @throws PdfDownloadException if the body exceeds {@code pdf.transfer.max-size-mb}
+     * @throws IOException          if reading {@code in} fails; nothing is left on disk
+     */
+    public SpooledBody spool(InputStream in, long declaredLength, String context) throws IOException {
+        long maxBytes = (long) props.maxSizeMb() << 20;
+        if (declaredLength > maxBytes) {
+            throw tooLarge(declaredLength, context);
+        }
+        int threshold = props.memoryThresholdKb() << 10;
+        byte[] head = in.readNBytes(threshold + 1);
+        if (head.length <= threshold) {
+            memoryBytes.increment(head.length);
+            return SpooledBody.ofBytes(head);
+        }
+        return spoolToDisk(head, in, maxBytes, context);
+    }
+
+    private SpooledBody spoolToDisk(byte[] head, InputStream in, long maxBytes, String context) throws IOException {
+        Path file = Files.createTempFile(dir, PREFIX, ".part");
+        long size = 0;
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                out.write(head);
+                size = head.length;
+                byte[] buffer = new byte[COPY_BUFFER];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw tooLarge(size, context);
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        long spooled = size;
+        diskBytes.increment(spooled);
+        spooledBytes.addAndGet(spooled);
+        return SpooledBody.ofFile(file, spooled, () -> spooledBytes.addAndGet(-spooled));
+    }
+
+    private PdfDownloadException tooLarge(long bytes, String context) {
+        rejected.increment();
+        return new PdfDownloadException("Download of %s exceeds %d MB (%d+ bytes)"
+                .formatted(context, props.maxSizeMb(), bytes));
+    }
+
+    long spooledBytes() {
+        return spooledBytes.get();
+    }
+
+    private static Counter bytesCounter(MeterRegistry registry, String storage) {
+        return Counter.builder("pdf.transfer.bytes")
+                .description("Downloaded PDF bytes by where they were buffered")
+                .tag("storage", storage)
+                .register(registry);
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.web.client.RestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.util.UriUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.function.IntPredicate;
@@ -132,4 +134,57 @@ public final class HttpExchangeSupport {
                     throw harvestException(status, context);
                 });
     }
+
+    /**
+     * Executes a GET request and streams the body into a {@link SpooledBody} instead
+     * of a {@code byte[]}, so large downloads (PDFs, tgz packages) occupy a temp file
+     * rather than the heap. Error handling is the same as {@link #executeExchange}; a
+     * body that fails partway through surfaces as a retryable
+     * {@link org.springframework.web.client.ResourceAccessException}.
+     */
+    public static SpooledBody downloadToSpool(RestClient rest, URI uri, BodySpooler spooler, String context) {
+        return rest.get()
+                .uri(uri)
+                .exchange((req, res) -> {
+                    HttpStatusCode status = res.getStatusCode();
+                    if (status.is2xxSuccessful()) {
+                        return spooler.spool(res.getBody(), res.getHeaders().getContentLength(), context);
+                    }
+                    throwIfRetryable(status, context);
+                    throw harvestException(status, context);
+                });
+    }
+
+    /**
+     * Executes a GET request and hands the response body stream to {@code reader}
+     * while it is being received, so the body is never held in memory as a whole.
+     * Returns {@code null} when the status matches {@code nullOnStatus}; other
+     * statuses are handled as in {@link #executeExchangeOrNull}. An
+     * {@link IOException} thrown by the reader surfaces as a
+     * {@link org.springframework.web.client.ResourceAccessException}.
+     */
+    public static <T> T streamExchangeOrNull(RestClient rest, URI uri, IntPredicate nullOnStatus,
+                                             BodyReader<T> reader, String context) {
+        return rest.get()
+                .uri(uri)
+                .exchange((req, res) -> {
+                    HttpStatusCode status = res.getStatusCode();
+                    if (status.is2xxSuccessful()) {
+                        try (InputStream body = res.getBody()) {
+                            return reader.read(body);
+                        }
+                    }
+                    if (nullOnStatus.test(status.value())) {
+                        return null;
+                    }
+                    throwIfRetryable(status, context);
+                    throw harvestException(status, context);
+                });
+    }
+
+    /** Consumes a response body stream; see {@link #streamExchangeOrNull}. */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
 }
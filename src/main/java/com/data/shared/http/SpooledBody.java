@@ -0,0 +1,101 @@
+package com.data.shared.http;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A downloaded body that is either held on the heap (small bodies) or spooled
+ * to a temp file (large ones), see {@link BodySpooler}. Consumers read it as a
+ * stream, so a 100 MB PDF never has to be materialised as a {@code byte[]}.
+ *
+ * <p>Must be {@linkplain #close closed}, which deletes the temp file.</p>
+ */
+public final class SpooledBody implements AutoCloseable {
+
+    private final byte[] memory;
+    private final Path file;
+    private final long size;
+    private final Runnable onClose;
+    private boolean closed;
+
+    private SpooledBody(byte[] memory, Path file, long size, Runnable onClose) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+        this.onClose = onClose;
+    }
+
+    public static SpooledBody ofBytes(byte[] bytes) {
+        return new SpooledBody(bytes, null, bytes.length, () -> {});
+    }
+
+    static SpooledBody ofFile(Path file, long size, Runnable onClose) {
+        return new SpooledBody(null, file, size, onClose);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Whether the body was spooled to disk. */
+    public boolean onDisk() {
+        return file != null;
+    }
+
+    public InputStream openStream() {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory);
+        }
+        try {
+            return Files.newInputStream(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read spooled body " + file, e);
+        }
+    }
+
+    /** Returns the first {@code n} bytes, or fewer if the body is shorter. */
+    public byte[] head(int n) {
+        if (memory != null) {
+            return Arrays.copyOf(memory, (int) Math.min(n, size));
+        }
+        try (InputStream in = openStream()) {
+            return in.readNBytes(n);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read spooled body " + file, e);
+        }
+    }
+
+    /** The body as a re-readable resource, e.g. for a multipart request part. */
+    public Resource asResource() {
+        return memory != null ? new ByteArrayResource(memory) : new FileSystemResource(file);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Left for the startup sweep of the spool directory
+            }
+        }
+        onClose.run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.data.shared.i18n;
+
+import com.data.config.properties.LanguageDetectionProperties;
+import org.apache.tika.langdetect.optimaize.OptimaizeLangDetector;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.apache.tika.language.detect.LanguageResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Detects the language of a text without serializing callers.
+ *
+ * <p>A Tika {@link LanguageDetector} buffers the text it is given, so one instance
+ * cannot be shared between threads. The n-gram models behind it are loaded once per
+ * JVM and shared by all instances, which makes an instance cheap. Callers take one
+ * from a lock-free pool and put it back after use; when the pool is empty they get a
+ * new one instead of waiting. At most {@code pool-size} idle instances are kept.</p>
+ *
+ * <p>Texts longer than {@code max-chars} are sampled: up to {@value #SAMPLE_WINDOWS}
+ * windows spread evenly over the text, cut at whitespace, add up to the budget. A
+ * transcript's intro or a paper's front matter then does not decide alone.</p>
+ */
+@Service
+public class LanguageDetectionService {
+
+    static final int SAMPLE_WINDOWS = 4;
+
+    private final Supplier<LanguageDetector> factory;
+    private final int poolSize;
+    private final int maxChars;
+    private final Queue<LanguageDetector> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public LanguageDetectionService(LanguageDetectionProperties props) {
+        this(props, () -> new OptimaizeLangDetector(props.maxChars()).loadModels());
+    }
+
+    LanguageDetectionService(LanguageDetectionProperties props, Supplier<LanguageDetector> factory) {
+        this.factory = factory;
+        this.poolSize = Math.max(1, props.poolSize());
+        this.maxChars = Math.max(1, props.maxChars());
+    }
+
+    /**
+     * @return the ISO 639 code of the language, or {@code null} when the text is
+     * blank or no language is reliable enough
+     */
+    public String detect(String text) {
+        if (text == null || text.isBlank()) return null;
+        LanguageDetector detector = borrow();
+        try {
+            return detect(detector, text);
+        } finally {
+            release(detector);
+        }
+    }
+
+    /**
+     * Detects each text in turn on one detector. The result has the same size and
+     * order as {@code texts}, {@code null} where {@link #detect(String)} would return it.
+     */
+    public List<String> detectAll(List<String> texts) {
+        List<String> languages = new ArrayList<>(texts.size());
+        if (texts.isEmpty()) return languages;
+        LanguageDetector detector = borrow();
+        try {
+            for (String text : texts) {
+                languages.add(text == null || text.isBlank() ? null : detect(detector, text));
+            }
+        } finally {
+            release(detector);
+        }
+        return languages;
+    }
+
+    private String detect(LanguageDetector detector, String text) {
+        LanguageResult result = detector.detect(sample(text, maxChars));
+        return result.isUnknown() ? null : result.getLanguage();
+    }
+
+    /** Detectors currently idle in the pool. */
+    int idle() {
+        return idleCount.get();
+    }
+
+    private LanguageDetector borrow() {
+        LanguageDetector detector = idle.poll();
+        if (detector == null) return factory.get();
+        idleCount.decrementAndGet();
+        return detector;
+    }
+
+    private void release(LanguageDetector detector) {
+        detector.reset(); // drop the buffered text before the instance sits idle
+        if (idleCount.incrementAndGet() <= poolSize) {
+            idle.offer(detector);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns {@code text} if it fits {@code budget}, otherwise up to
+     * {@value #SAMPLE_WINDOWS} evenly spaced windows of it joined by spaces.
+     * Windows are trimmed back to whitespace so no word is cut in half.
+     */
+    static CharSequence sample(String text, int budget) {
+        if (text.length() <= budget) return text;
+        int windows = Math.max(1, Math.min(SAMPLE_WINDOWS, budget / 64));
+        int window = budget / windows;
+        int span = text.length() - window;
+        StringBuilder out = new StringBuilder(budget + windows);
+        for (int i = 0; i < windows; i++) {
+            int start = windows == 1 ? 0 : (int) ((long) span * i / (windows - 1)); // last window ends the text
+            int end = Math.min(text.length(), start + window);
+            if (start > 0) {
+                int space = indexOfWhitespace(text, start, end);
+                if (space >= 0) start = space + 1;
+            }
+            if (end < text.length()) {
+                int space = lastIndexOfWhitespace(text, start, end);
+                if (space > start) end = space;
+            }
+            if (!out.isEmpty()) out.append(' ');
+            out.append(text, start, end);
+        }
+        return out;
+    }
+
+    private static int indexOfWhitespace(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.isWhitespace(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfWhitespace(String text, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (Character.isWhitespace(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+}
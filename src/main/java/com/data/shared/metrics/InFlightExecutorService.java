@@ -0,0 +1,70 @@
+package com.data.shared.metrics;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the tasks that have been handed to an {@link ExecutorService} and have
+ * not finished yet. Meant for thread-per-task executors, where Micrometer's
+ * executor binder has no pool to inspect and every submitted task is running.
+ */
+public final class InFlightExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InFlightExecutorService(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Tasks submitted and not yet finished. */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        inFlight.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
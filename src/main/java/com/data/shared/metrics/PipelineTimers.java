@@ -0,0 +1,117 @@
+package com.data.shared.metrics;
+
+import com.data.shared.DataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the steps a paper goes through on its way in (and out) of the store:
+ * PDF download, GROBID, TEI/JATS mapping, language detection, persist, S3 GETs
+ * and export uploads.
+ *
+ * <p>Everything is recorded under one timer, {@code pipeline.step.duration},
+ * tagged by {@code step}, {@code source} and {@code outcome} ({@code success} or
+ * {@code error}), with a percentile histogram so p50/p95/p99 per step and source
+ * can be computed in Prometheus. Only the call itself is timed — not the time a
+ * record spends waiting in a queue, which the stage gauges already show.</p>
+ */
+@Component
+public class PipelineTimers {
+
+    public static final String METRIC = "pipeline.step.duration";
+
+    public enum Step {
+        PDF_DOWNLOAD("pdf_download"),
+        GROBID("grobid"),
+        TEI_MAPPING("tei_mapping"),
+        JATS_MAPPING("jats_mapping"),
+        LANGUAGE_DETECTION("language_detection"),
+        PERSIST("persist"),
+        S3_GET("s3_get"),
+        EXPORT_UPLOAD("export_upload");
+
+        private final String tag;
+
+        Step(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /** A timed call that returns a value. */
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /** A timed call without a result. */
+    @FunctionalInterface
+    public interface TimedRun<E extends Exception> {
+        void run() throws E;
+    }
+
+    private record Key(Step step, DataSource source, boolean success) {}
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    public PipelineTimers(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs {@code call} and records how long it took, whether it returned or threw.
+     */
+    public <T, E extends Exception> T time(Step step, DataSource source, TimedCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.call();
+            success = true;
+            return result;
+        } finally {
+            record(step, source, success, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs {@code run} and records how long it took, whether it returned or threw.
+     */
+    public <E extends Exception> void run(Step step, DataSource source, TimedRun<E> run) throws E {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            run.run();
+            success = true;
+        } finally {
+            record(step, source, success, System.nanoTime() - start);
+        }
+    }
+
+    private void record(Step step, DataSource source, boolean success, long nanos) {
+        timers.computeIfAbsent(new Key(step, source, success), this::register)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(Key key) {
+        return Timer.builder(METRIC)
+                .description("Time spent in one step of a paper's processing")
+                .tag("step", key.step().tag())
+                .tag("source", key.source().name())
+                .tag("outcome", key.success() ? "success" : "error")
+                .publishPercentileHistogram()
+                // GROBID on a long PDF takes minutes; a language detection well under a millisecond
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.data.shared.progress;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory progress counters per tracker id, written to the database in batches.
+ *
+ * <p>Workers call {@link #add}, which only touches a striped {@link LongAdder} and
+ * never the database, so hot tracker rows are no longer updated once per record.
+ * The owning service drains the pending deltas with {@link #flush} on a fixed
+ * interval and when a run completes or the application shuts down.</p>
+ *
+ * <p>Draining subtracts exactly the amount that was read, so increments that
+ * race with a flush are kept for the next one. If the sink fails, the deltas are
+ * added back. A tracker whose final flush in {@link #close} fails stays pending
+ * until a later {@link #flushAll} writes it. Deltas not yet flushed are lost on a crash; tracker counters then
+ * under-count, which a resumed run corrects by deduplicating against stored
+ * records.</p>
+ *
+ * @param <C> the counter columns of the tracker
+ */
+@Slf4j
+public final class CoalescedCounters<C extends Enum<C>> {
+
+    /** Receives the deltas of one tracker; every counter is present, possibly 0. */
+    @FunctionalInterface
+    public interface Sink<C extends Enum<C>> {
+        void write(Long trackerId, Map<C, Long> deltas);
+    }
+
+    private final Class<C> type;
+    private final C[] counters;
+    private final ConcurrentMap<Long, LongAdder[]> pending = new ConcurrentHashMap<>();
+    /** Closed trackers whose final flush failed; guarded by {@code this}. */
+    private final Set<Long> closing = new HashSet<>();
+
+    public CoalescedCounters(Class<C> type) {
+        this.type = type;
+        this.counters = type.getEnumConstants();
+    }
+
+    public void add(Long trackerId, C counter, long delta) {
+        if (trackerId == null || delta == 0) {
+            return;
+        }
+        pending.computeIfAbsent(trackerId, id -> newAdders())[counter.ordinal()].add(delta);
+    }
+
+    /** Delta not yet written to the database; add it to the stored value for a live view. */
+    public long pending(Long trackerId, C counter) {
+        LongAdder[] adders = trackerId == null ? null : pending.get(trackerId);
+        return adders == null ? 0 : adders[counter.ordinal()].sum();
+    }
+
+    /** Writes the pending deltas of every tracker. */
+    public synchronized void flushAll(Sink<C> sink) {
+        pending.forEach((id, adders) -> {
+            if (drain(id, adders, sink) && closing.remove(id)) {
+                pending.remove(id);
+            }
+        });
+    }
+
+    /** Writes the pending deltas of one tracker. */
+    public synchronized void flush(Long trackerId, Sink<C> sink) {
+        LongAdder[] adders = trackerId == null ? null : pending.get(trackerId);
+        if (adders != null) {
+            drain(trackerId, adders, sink);
+        }
+    }
+
+    /**
+     * Writes the pending deltas of a finished tracker and stops tracking it.
+     * Callers must not add to the tracker afterwards. If the write fails, the
+     * deltas stay pending and the next {@link #flushAll} retries them.
+     */
+    public synchronized void close(Long trackerId, Sink<C> sink) {
+        LongAdder[] adders = trackerId == null ? null : pending.get(trackerId);
+        if (adders == null) {
+            return;
+        }
+        if (drain(trackerId, adders, sink)) {
+            pending.remove(trackerId);
+            closing.remove(trackerId);
+        } else {
+            closing.add(trackerId);
+        }
+    }
+
+    /** Drops pending deltas, for a tracker whose counters are being reset. */
+    public synchronized void discard(Long trackerId) {
+        if (trackerId != null) {
+            pending.remove(trackerId);
+            closing.remove(trackerId);
+        }
+    }
+
+    /** Returns whether nothing is left to write, i.e. the sink succeeded or had nothing to do. */
+    private boolean drain(Long trackerId, LongAdder[] adders, Sink<C> sink) {
+        Map<C, Long> deltas = new EnumMap<>(type);
+        boolean any = false;
+        for (C c : counters) {
+            long v = adders[c.ordinal()].sum();
+            adders[c.ordinal()].add(-v);
+            deltas.put(c, v);
+            any |= v != 0;
+        }
+        if (!any) {
+            return true;
+        }
+        try {
+            sink.write(trackerId, deltas);
+            return true;
+        } catch (RuntimeException e) {
+            deltas.forEach((c, v) -> adders[c.ordinal()].add(v));
+            log.warn("Tracker {} counter flush failed, retrying on the next flush: {}", trackerId, e.getMessage());
+            return false;
+        }
+    }
+
+    private LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[counters.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -2,10 +2,13 @@ package com.data.storage;
 
 import com.data.config.properties.StorageProperties;
 import com.data.config.properties.StorageProperties.ExportMode;
+import com.data.oai.persistence.blob.DocumentContentService;
 import com.data.oai.persistence.entity.*;
 import com.data.oai.persistence.repository.EmbedTranscriptChunkRepository;
 import com.data.oai.persistence.repository.RecordRepository;
 import com.data.shared.DataSource;
+import com.data.shared.metrics.PipelineTimers;
+import com.data.shared.metrics.PipelineTimers.Step;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import jakarta.annotation.PostConstruct;
@@ -47,6 +50,8 @@ public class S3ExportService {
     private final RecordRepository recordRepository;
     private final EmbedTranscriptChunkRepository chunkRepository;
     private final ExportWatermarkRepository watermarkRepository;
+    private final DocumentContentService documentContent;
+    private final PipelineTimers timers;
 
     private ObjectMapper objectMapper;
     private S3Client s3Client;
@@ -128,8 +133,12 @@ public class S3ExportService {
                         .collect(Collectors.groupingBy(EmbedChunkExportProjection::sectionId));
                 log.info("[{}] Page {} — {} sections have chunks", dataSource, page, chunksBySectionId.size());
 
+                // Raw content lives compressed in document_blob; one query per page
+                Map<Long, String> rawContentByDocumentId = documentContent.load(DocumentBlobKind.RAW_CONTENT,
+                        records.stream().map(RecordEntity::getDocument).filter(Objects::nonNull).toList());
+
                 for (RecordEntity record : records) {
-                    PaperExportDto dto = mapToDto(record, chunksBySectionId);
+                    PaperExportDto dto = mapToDto(record, chunksBySectionId, rawContentByDocumentId);
                     byte[] jsonLine = serializeJsonLine(dto);
                     buffer.write(jsonLine);
                     totalBytes += jsonLine.length;
@@ -148,7 +157,7 @@ public class S3ExportService {
                 // Flush buffer as a multipart part when it exceeds the 5 MB minimum
                 if (buffer.size() >= MIN_PART_SIZE) {
                     log.info("[{}] Flushing buffer as S3 part {} ({} MB)...", dataSource, partNumber, buffer.size() / (1024 * 1024));
-                    completedParts.add(uploadPart(s3Key, uploadId, partNumber, buffer.toByteArray()));
+                    completedParts.add(uploadPart(dataSource, s3Key, uploadId, partNumber, buffer.toByteArray()));
                     partNumber++;
                     buffer.reset();
                 }
@@ -164,10 +173,10 @@ public class S3ExportService {
                     // Total data is under 5 MB — use a simple PUT instead of multipart
                     log.info("[{}] Data under 5 MB — using simple PUT upload ({} KB)", dataSource, buffer.size() / 1024);
                     abortMultipartUpload(s3Key, uploadId);
-                    putObject(s3Key, buffer.toByteArray());
+                    putObject(dataSource, s3Key, buffer.toByteArray());
                 } else {
                     log.info("[{}] Uploading final buffer as part {} ({} KB)", dataSource, partNumber, buffer.size() / 1024);
-                    completedParts.add(uploadPart(s3Key, uploadId, partNumber, buffer.toByteArray()));
+                    completedParts.add(uploadPart(dataSource, s3Key, uploadId, partNumber, buffer.toByteArray()));
                     log.info("[{}] Completing multipart upload ({} parts total)...", dataSource, completedParts.size());
                     completeMultipartUpload(s3Key, uploadId, completedParts);
                 }
@@ -220,7 +229,8 @@ public class S3ExportService {
         return recordRepository.findIdsByDataSourceAndCreatedAfter(dataSource, watermark, pageRequest);
     }
 
-    private PaperExportDto mapToDto(RecordEntity record, Map<Long, List<EmbedChunkExportProjection>> chunksBySectionId) {
+    private PaperExportDto mapToDto(RecordEntity record, Map<Long, List<EmbedChunkExportProjection>> chunksBySectionId,
+                                    Map<Long, String> rawContentByDocumentId) {
         PaperDocumentEntity doc = record.getDocument();
 
         List<PaperExportDto.AuthorDto> authors = record.getAuthors().stream()
@@ -266,7 +276,7 @@ public class S3ExportService {
                 record.getJournalRef(),
                 doc != null ? doc.getTitle() : null,
                 doc != null ? doc.getAbstractText() : null,
-                doc != null ? doc.getRawContent() : null,
+                doc != null ? rawContentByDocumentId.get(doc.getId()) : null,
                 doc != null ? doc.getDocType() : null,
                 doc != null && doc.getKeywords() != null ? doc.getKeywords() : List.of(),
                 doc != null && doc.getAffiliations() != null ? doc.getAffiliations() : List.of(),
@@ -300,7 +310,7 @@ public class S3ExportService {
         );
     }
 
-    private byte[] serializeJsonLine(PaperExportDto dto) {
+    byte[] serializeJsonLine(PaperExportDto dto) {
         try {
             byte[] json = objectMapper.writeValueAsBytes(dto);
             byte[] line = new byte[json.length + 1];
@@ -333,15 +343,15 @@ public class S3ExportService {
         return response.uploadId();
     }
 
-    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] data) {
-        UploadPartResponse response = s3Client.uploadPart(
+    private CompletedPart uploadPart(DataSource dataSource, String key, String uploadId, int partNumber, byte[] data) {
+        UploadPartResponse response = timers.time(Step.EXPORT_UPLOAD, dataSource, () -> s3Client.uploadPart(
                 UploadPartRequest.builder()
                         .bucket(storageProperties.s3().bucketName())
                         .key(key)
                         .uploadId(uploadId)
                         .partNumber(partNumber)
                         .build(),
-                RequestBody.fromBytes(data));
+                RequestBody.fromBytes(data)));
 
         log.info("Uploaded S3 part {} — {} KB for key={}", partNumber, data.length / 1024, key);
         return CompletedPart.builder()
@@ -375,14 +385,14 @@ public class S3ExportService {
         }
     }
 
-    private void putObject(String key, byte[] data) {
-        s3Client.putObject(
+    private void putObject(DataSource dataSource, String key, byte[] data) {
+        timers.time(Step.EXPORT_UPLOAD, dataSource, () -> s3Client.putObject(
                 PutObjectRequest.builder()
                         .bucket(storageProperties.s3().bucketName())
                         .key(key)
                         .contentType("application/x-ndjson")
                         .build(),
-                RequestBody.fromBytes(data));
+                RequestBody.fromBytes(data)));
     }
 
     // --- Watermark management ---
@@ -0,0 +1,17 @@
+-- V30: Durable OAI resumption-token checkpoint per tracker.
+--
+-- The OAI harvest saves the resumptionToken of the last page whose records
+-- have all been processed, together with the page number and the number of
+-- records listed up to and including that page. After a restart the harvest
+-- continues from that token instead of listing the day again from page one,
+-- as long as the token has not expired (resumption_expires_at).
+--
+-- All columns are NULL when there is nothing to resume: before the first page
+-- and once the period has been fully listed.
+--
+-- This migration is idempotent and safe to re-run.
+
+ALTER TABLE tracker ADD COLUMN IF NOT EXISTS resumption_token      TEXT;
+ALTER TABLE tracker ADD COLUMN IF NOT EXISTS resumption_page       INTEGER;
+ALTER TABLE tracker ADD COLUMN IF NOT EXISTS resumption_listed     INTEGER;
+ALTER TABLE tracker ADD COLUMN IF NOT EXISTS resumption_expires_at TIMESTAMPTZ;
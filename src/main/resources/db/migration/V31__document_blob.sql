@@ -0,0 +1,36 @@
+-- V31: Compressed, out-of-row storage for record_document.source_xml and raw_content.
+--
+-- The full TEI/JATS and the plain-text rendering are the bulk of the database
+-- and were stored as plain text on every record_document row. They now live in
+-- document_blob, one zstd-compressed bytea per (document, kind), and are read
+-- only by the code that needs them (export, reprocessing).
+--
+-- - kind: SOURCE_XML or RAW_CONTENT (DocumentBlobKind).
+-- - codec: compression of `content`; only 'zstd' is written today.
+-- - raw_length: size of the uncompressed UTF-8 text, used for size reporting
+--   without decompressing.
+-- - content is already compressed, so TOAST compression is switched off for it
+--   (STORAGE EXTERNAL); it is still moved out of line when large.
+--
+-- New rows leave record_document.source_xml / raw_content NULL. Existing rows
+-- are moved by DocumentBlobMigrationJob in throttled batches; until then the
+-- readers fall back to the old columns. raw_content loses its NOT NULL and its
+-- 'NO_CONTENT' default so that moved rows can be cleared.
+--
+-- This migration is idempotent and safe to re-run.
+
+CREATE TABLE IF NOT EXISTS document_blob (
+    document_id BIGINT      NOT NULL,
+    kind        VARCHAR(32) NOT NULL,
+    codec       VARCHAR(16) NOT NULL,
+    raw_length  INTEGER     NOT NULL,
+    content     BYTEA       NOT NULL,
+    CONSTRAINT pk_document_blob PRIMARY KEY (document_id, kind),
+    CONSTRAINT fk_document_blob_document FOREIGN KEY (document_id)
+        REFERENCES record_document (id) ON DELETE CASCADE
+);
+
+ALTER TABLE document_blob ALTER COLUMN content SET STORAGE EXTERNAL;
+
+ALTER TABLE record_document ALTER COLUMN raw_content DROP NOT NULL;
+ALTER TABLE record_document ALTER COLUMN raw_content DROP DEFAULT;
@@ -0,0 +1,65 @@
+-- V32: Incrementally maintained storage statistics per DataSource.
+--
+-- Counting stored content used to mean an OCTET_LENGTH scan over every
+-- record_document and document_section row at startup. Instead the
+-- persistence path adds the size of every committed paper to these tables
+-- (StorageStatsService, flushed every paper.stats.flush-interval-ms), and the
+-- /actuator/storage endpoint reads them.
+--
+-- - storage_stats: running totals per data source. content_bytes is the
+--   uncompressed UTF-8 size of title, abstract, source XML, raw content and
+--   section texts, the same figure the old startup scan reported.
+-- - storage_stats_daily: what was added per day and data source, for the
+--   growth rate.
+--
+-- The totals are seeded once from a full scan here; after that nothing scans.
+-- POST /actuator/storage recomputes them if rows were deleted by hand.
+--
+-- This migration is idempotent and safe to re-run.
+
+CREATE TABLE IF NOT EXISTS storage_stats (
+    data_source   VARCHAR(128) NOT NULL,
+    record_count  BIGINT       NOT NULL DEFAULT 0,
+    content_bytes BIGINT       NOT NULL DEFAULT 0,
+    updated_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    CONSTRAINT pk_storage_stats PRIMARY KEY (data_source)
+);
+
+CREATE TABLE IF NOT EXISTS storage_stats_daily (
+    day           DATE         NOT NULL,
+    data_source   VARCHAR(128) NOT NULL,
+    records_added BIGINT       NOT NULL DEFAULT 0,
+    bytes_added   BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT pk_storage_stats_daily PRIMARY KEY (day, data_source)
+);
+
+WITH records AS (
+    SELECT data_source, COUNT(*) AS n FROM source_record GROUP BY data_source
+), documents AS (
+    SELECT r.data_source,
+           SUM(OCTET_LENGTH(COALESCE(d.title, '')) + OCTET_LENGTH(COALESCE(d.abstract, ''))
+               + OCTET_LENGTH(COALESCE(d.source_xml, '')) + OCTET_LENGTH(COALESCE(d.raw_content, ''))) AS bytes
+    FROM record_document d JOIN source_record r ON r.id = d.record_id
+    GROUP BY r.data_source
+), blobs AS (
+    SELECT r.data_source, SUM(b.raw_length) AS bytes
+    FROM document_blob b
+    JOIN record_document d ON d.id = b.document_id
+    JOIN source_record r ON r.id = d.record_id
+    GROUP BY r.data_source
+), sections AS (
+    SELECT r.data_source, SUM(OCTET_LENGTH(COALESCE(s.text, ''))) AS bytes
+    FROM document_section s
+    JOIN record_document d ON d.id = s.document_id
+    JOIN source_record r ON r.id = d.record_id
+    GROUP BY r.data_source
+)
+INSERT INTO storage_stats (data_source, record_count, content_bytes, updated_at)
+SELECT records.data_source, records.n,
+       COALESCE(documents.bytes, 0) + COALESCE(blobs.bytes, 0) + COALESCE(sections.bytes, 0),
+       now()
+FROM records
+LEFT JOIN documents USING (data_source)
+LEFT JOIN blobs USING (data_source)
+LEFT JOIN sections USING (data_source)
+ON CONFLICT (data_source) DO NOTHING;
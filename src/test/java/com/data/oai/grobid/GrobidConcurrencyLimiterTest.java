@@ -0,0 +1,124 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.GrobidProperties;
+import com.data.oai.grobid.GrobidConcurrencyLimiter.Outcome;
+import com.data.oai.grobid.GrobidConcurrencyLimiter.Permit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GrobidConcurrencyLimiter}: additive increase while latency is
+ * stable, multiplicative decrease on overload, and blocking at the limit.
+ */
+class GrobidConcurrencyLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void growsByOnePerSaturatedWindowWhileLatencyIsStable() throws Exception {
+        GrobidConcurrencyLimiter limiter = limiter(2, 1, 8, 4);
+
+        runWindow(limiter, 2, 100);   // baseline window
+        assertThat(limiter.limit()).isEqualTo(3);
+        runWindow(limiter, 3, 110);
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(registry.get("grobid.concurrency.limit").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void doesNotGrowWhenTheLimitIsNotReached() throws Exception {
+        GrobidConcurrencyLimiter limiter = limiter(4, 1, 8, 4);
+
+        runWindow(limiter, 1, 100);
+
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void shrinksWhenLatencyExceedsTolerance() throws Exception {
+        GrobidConcurrencyLimiter limiter = limiter(4, 1, 8, 4);
+        runWindow(limiter, 4, 100);   // baseline; grows to 5
+
+        runWindow(limiter, 5, 1_000);
+
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void overloadHalvesTheLimitOncePerBurst() throws Exception {
+        GrobidConcurrencyLimiter limiter = limiter(8, 1, 16, 4);
+        List<Permit> inFlight = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inFlight.add(limiter.acquire());
+        }
+
+        for (Permit permit : inFlight) {
+            limiter.release(permit, Outcome.OVERLOAD);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(4);
+        assertThat(registry.get("grobid.concurrency.adjustments").tag("reason", "overload").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void blocksAtTheLimitUntilARequestCompletes() throws Exception {
+        GrobidConcurrencyLimiter limiter = limiter(1, 1, 4, 4);
+        Permit first = limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+                // test teardown
+            }
+        });
+        waiter.start();
+
+        assertThat(acquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        limiter.release(first, Outcome.IGNORED);
+        assertThat(acquired.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void disabledLimiterNeverBlocks() throws Exception {
+        GrobidConcurrencyLimiter limiter = new GrobidConcurrencyLimiter(null, registry, nanos::get);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+        }
+
+        assertThat(limiter.maxLimit()).isZero();
+    }
+
+    private GrobidConcurrencyLimiter limiter(int initial, int min, int max, int window) {
+        return new GrobidConcurrencyLimiter(
+                new GrobidProperties.Adaptive(true, initial, min, max, window, 2.0, 0.5), registry, nanos::get);
+    }
+
+    /** Completes one window of successes, {@code concurrent} at a time, each taking {@code latencyMs}. */
+    private void runWindow(GrobidConcurrencyLimiter limiter, int concurrent, long latencyMs) throws Exception {
+        int done = 0;
+        while (done < 4) {
+            List<Permit> batch = new ArrayList<>();
+            for (int i = 0; i < concurrent && done + i < 4; i++) {
+                batch.add(limiter.acquire());
+            }
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            for (Permit permit : batch) {
+                limiter.release(permit, Outcome.SUCCESS);
+            }
+            done += batch.size();
+        }
+    }
+}
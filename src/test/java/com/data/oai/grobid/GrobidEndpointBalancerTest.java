@@ -0,0 +1,133 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.GrobidProperties;
+import com.data.oai.grobid.GrobidEndpointBalancer.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link GrobidEndpointBalancer}: least-outstanding routing and
+ * passive ejection of overloaded endpoints.
+ */
+class GrobidEndpointBalancerTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GrobidEndpointBalancer balancer = balancer("http://a", "http://b", "http://c");
+
+    @Test
+    void rotatesOverIdleEndpoints() {
+        Endpoint first = balancer.acquire();
+        balancer.release(first, false);
+        Endpoint second = balancer.acquire();
+        balancer.release(second, false);
+        Endpoint third = balancer.acquire();
+
+        assertThat(first.url()).isEqualTo("http://a");
+        assertThat(second.url()).isEqualTo("http://b");
+        assertThat(third.url()).isEqualTo("http://c");
+    }
+
+    @Test
+    void routesAroundAnEndpointStuckOnALongRequest() {
+        Endpoint stuck = balancer.acquire();
+        for (int i = 0; i < 10; i++) {
+            Endpoint e = balancer.acquire();
+            assertThat(e).isNotSameAs(stuck);
+            balancer.release(e, false);
+        }
+        assertThat(balancer.inFlight(stuck)).isEqualTo(1);
+    }
+
+    @Test
+    void spreadsConcurrentRequestsEvenly() {
+        for (int i = 0; i < 9; i++) {
+            balancer.acquire();
+        }
+
+        assertThat(balancer.endpoints()).allSatisfy(e -> assertThat(balancer.inFlight(e)).isEqualTo(3));
+    }
+
+    @Test
+    void ejectsAfterConsecutiveOverloadsAndReadmitsLater() {
+        Endpoint a = balancer.endpoints().get(0);
+        overload(a, 2);
+        assertThat(balancer.isEjected(a)).isFalse();
+        overload(a, 1);
+        assertThat(balancer.isEjected(a)).isTrue();
+
+        for (int i = 0; i < 6; i++) {
+            Endpoint e = balancer.acquire();
+            assertThat(e).isNotSameAs(a);
+            balancer.release(e, false);
+        }
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertThat(balancer.isEjected(a)).isFalse();
+        assertThat(registry.get("grobid.endpoint.ejections").tag("endpoint", "http://a").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        Endpoint a = balancer.endpoints().get(0);
+        overload(a, 2);
+        use(a, false);
+        overload(a, 2);
+
+        assertThat(balancer.isEjected(a)).isFalse();
+    }
+
+    @Test
+    void fallsBackToTheEndpointThatReturnsFirstWhenAllAreEjected() {
+        for (Endpoint e : balancer.endpoints()) {
+            overload(e, 3);
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+
+        assertThat(balancer.acquire().url()).isEqualTo("http://a");
+    }
+
+    @Test
+    void requiresAtLeastOneEndpoint() {
+        assertThatThrownBy(this::balancer).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private GrobidEndpointBalancer balancer(String... urls) {
+        Map<String, RestClient> clients = new LinkedHashMap<>();
+        for (String url : urls) {
+            clients.put(url, RestClient.create());
+        }
+        return new GrobidEndpointBalancer(clients, new GrobidProperties.Balancing(3, 30), registry, nanos::get);
+    }
+
+    /** Marks {@code times} requests to {@code endpoint} as overloaded. */
+    private void overload(Endpoint endpoint, int times) {
+        for (int i = 0; i < times; i++) {
+            use(endpoint, true);
+        }
+    }
+
+    /** Sends one request to {@code endpoint}, keeping the others busy until it is picked. */
+    private void use(Endpoint endpoint, boolean overloaded) {
+        List<Endpoint> others = new ArrayList<>();
+        Endpoint picked = balancer.acquire();
+        while (picked != endpoint) {
+            others.add(picked);
+            picked = balancer.acquire();
+        }
+        balancer.release(picked, overloaded);
+        others.forEach(e -> balancer.release(e, false));
+    }
+}
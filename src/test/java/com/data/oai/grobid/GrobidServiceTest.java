@@ -0,0 +1,91 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.GrobidProperties;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.http.SpooledBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the TEI cache in {@link GrobidService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class GrobidServiceTest {
+
+    private static final SpooledBody PDF = SpooledBody.ofBytes("%PDF-1.7 test".getBytes(StandardCharsets.US_ASCII));
+
+    @Mock GrobidClient grobidClient;
+    @Mock GrobidConcurrencyLimiter concurrencyLimiter;
+    @Mock BlobCache blobCache;
+
+    private GrobidService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GrobidService(grobidClient, concurrencyLimiter, blobCache, props(true));
+    }
+
+    @Test
+    void cacheHit_skipsGrobid() {
+        when(blobCache.enabled()).thenReturn(true);
+        when(blobCache.get(eq("tei"), anyString())).thenReturn("<TEI/>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(service.fetchTei("arxiv:1", PDF)).isEqualTo("<TEI/>");
+        verify(grobidClient, never()).processPdfToXmlString(anyString(), any());
+    }
+
+    @Test
+    void cacheMiss_callsGrobidAndStoresTheResult() {
+        when(blobCache.enabled()).thenReturn(true);
+        when(grobidClient.processPdfToXmlString("arxiv:1", PDF)).thenReturn("<TEI/>");
+
+        assertThat(service.fetchTei("arxiv:1", PDF)).isEqualTo("<TEI/>");
+        verify(blobCache).put("tei", service.teiCacheKey(PDF), "<TEI/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void blankResult_isNotCached() {
+        when(blobCache.enabled()).thenReturn(true);
+        when(grobidClient.processPdfToXmlString("arxiv:1", PDF)).thenReturn("");
+
+        service.fetchTei("arxiv:1", PDF);
+
+        verify(blobCache, never()).put(anyString(), anyString(), any(byte[].class));
+    }
+
+    @Test
+    void disabledCache_goesStraightToGrobid() {
+        when(grobidClient.processPdfToXmlString("arxiv:1", PDF)).thenReturn("<TEI/>");
+
+        assertThat(service.fetchTei("arxiv:1", PDF)).isEqualTo("<TEI/>");
+        verify(blobCache, never()).get(anyString(), anyString());
+    }
+
+    @Test
+    void key_dependsOnContentAndOptions() {
+        GrobidService otherOptions = new GrobidService(grobidClient, concurrencyLimiter, blobCache, props(false));
+
+        assertThat(service.teiCacheKey(PDF)).isEqualTo(service.teiCacheKey(SpooledBody.ofBytes("%PDF-1.7 test".getBytes(StandardCharsets.US_ASCII))));
+        assertThat(service.teiCacheKey(PDF)).isNotEqualTo(service.teiCacheKey(SpooledBody.ofBytes("other".getBytes())));
+        assertThat(service.teiCacheKey(PDF)).isNotEqualTo(otherOptions.teiCacheKey(PDF));
+    }
+
+    private static GrobidProperties props(boolean consolidate) {
+        return new GrobidProperties("http://localhost:8070", List.of(), "/api/processFulltextDocument", null,
+                new GrobidProperties.Options(consolidate, consolidate, true, true, true), null, null, null);
+    }
+}
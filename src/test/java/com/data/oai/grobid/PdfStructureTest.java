@@ -0,0 +1,52 @@
+package com.data.oai.grobid;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the chunked {@link PdfStructure} scan: a page-tree dictionary is read
+ * the same wherever the 64 KiB chunk boundary falls inside it.
+ */
+class PdfStructureTest {
+
+    private static final int CHUNK = 64 * 1024;
+    private static final String HEADER = "%PDF-1.7\n";
+
+    @Test
+    void pagesDictionaryStraddlingAChunkBoundaryIsCounted() throws Exception {
+        String dict = "2 0 obj << /Type /Pages /Kids [" + "3 0 R ".repeat(28) + "] /Count 500 >> endobj\n";
+        assertThat(dict.length()).isGreaterThan(200);
+
+        for (int offset = 1; offset < dict.length(); offset += 7) {
+            assertThat(pageCount(dict, offset)).as("boundary %d chars into the dictionary", offset).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void countBeforeTypeStraddlingAChunkBoundaryIsCounted() throws Exception {
+        String dict = "2 0 obj << /Count 500 /Kids [" + "3 0 R ".repeat(28) + "] /Type /Pages >> endobj\n";
+
+        for (int offset = 1; offset < dict.length(); offset += 7) {
+            assertThat(pageCount(dict, offset)).as("boundary %d chars into the dictionary", offset).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void overlongNumberIsNotReadAsAPageCount() throws Exception {
+        String dict = "2 0 obj << /Type /Pages /Count 123456789012 >> endobj\n";
+
+        assertThat(pageCount(dict, CHUNK / 2)).isZero();
+    }
+
+    /** Scans a PDF whose first chunk ends {@code offset} chars into {@code dict}. */
+    private static int pageCount(String dict, int offset) throws Exception {
+        String padding = "%" + "x".repeat(CHUNK - HEADER.length() - offset - 2) + "\n";
+        String text = HEADER + padding + dict + "%%EOF\n";
+        assertThat(text.indexOf(dict)).isEqualTo(CHUNK - offset);
+        return PdfStructure.scan(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1))).pageCount();
+    }
+}
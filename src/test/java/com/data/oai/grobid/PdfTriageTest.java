@@ -0,0 +1,125 @@
+package com.data.oai.grobid;
+
+import com.data.config.properties.PdfTriageProperties;
+import com.data.config.properties.PdfTriageProperties.Action;
+import com.data.shared.http.SpooledBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PdfTriage} and the raw {@link PdfStructure} scan, on small
+ * hand-written PDF skeletons.
+ */
+class PdfTriageTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PdfTriage triage = new PdfTriage(props(true), registry);
+
+    @Test
+    void acceptsOrdinaryTextPdf() {
+        PdfTriage.Verdict verdict = triage.triage(pdf(pagesTree(12) + FONT + IMAGE));
+
+        assertThat(verdict.action()).isEqualTo(Action.ACCEPT);
+        assertThat(verdict.reason()).isEmpty();
+        assertThat(registry.get("pdf.triage.verdicts").tag("action", "accept").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsHtmlSavedAsPdf() {
+        String html = "<!DOCTYPE html><html><head><title>404 Not Found</title></head><body>"
+                + "x".repeat(2000) + "</body></html>";
+
+        PdfTriage.Verdict verdict = triage.triage(SpooledBody.ofBytes(html.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(verdict.action()).isEqualTo(Action.REJECT);
+        assertThat(verdict.reason()).startsWith("not-pdf (text/html");
+    }
+
+    @Test
+    void rejectsTinyFile() {
+        PdfTriage.Verdict verdict = triage.triage(SpooledBody.ofBytes("%PDF-1.4\n%%EOF".getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(verdict.action()).isEqualTo(Action.REJECT);
+    }
+
+    @Test
+    void defersLongDocuments() {
+        PdfTriage.Verdict verdict = triage.triage(pdf(pagesTree(2000) + FONT));
+
+        assertThat(verdict.action()).isEqualTo(Action.LOW_PRIORITY);
+        assertThat(verdict.reason()).isEqualTo("too-many-pages (2000)");
+    }
+
+    @Test
+    void strictestActionWins() {
+        PdfTriage.Verdict verdict = triage.triage(pdf(pagesTree(2000) + IMAGE + "trailer << /Encrypt 9 0 R >>\n"));
+
+        assertThat(verdict.action()).isEqualTo(Action.REJECT);
+        assertThat(verdict.reason()).isEqualTo("encrypted, too-many-pages (2000), no-text-layer");
+    }
+
+    @Test
+    void disabledTriageAcceptsEverything() {
+        PdfTriage disabled = new PdfTriage(props(false), registry);
+
+        assertThat(disabled.triage(SpooledBody.ofBytes("<html/>".getBytes())).action()).isEqualTo(Action.ACCEPT);
+    }
+
+    @Test
+    void scanReadsLinearizedPageCountFirst() throws Exception {
+        String body = "1 0 obj << /Linearized 1 /L 5000 /N 7 /T 4000 >> endobj\n" + pagesTree(9);
+
+        PdfStructure structure = PdfStructure.scan(pdf(body).openStream());
+
+        assertThat(structure.pageCount()).isEqualTo(7);
+    }
+
+    @Test
+    void scanCountsPageObjectsWhenThereIsNoTreeCount() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            body.append(i + 3).append(" 0 obj << /Type /Page /Parent 2 0 R >> endobj\n");
+        }
+
+        assertThat(PdfStructure.scan(pdf(body.toString()).openStream()).pageCount()).isEqualTo(5);
+    }
+
+    @Test
+    void scanFindsTokensAcrossChunkBoundaries() throws Exception {
+        // Put /Encrypt across the 64 KB boundary of the scanner
+        String padding = "%" + "x".repeat(64 * 1024 - "%PDF-1.7\n".length() - 4) + "\n";
+        SpooledBody body = pdf(padding + "/Encrypt 5 0 R\n");
+
+        assertThat(PdfStructure.scan(body.openStream()).encrypted()).isTrue();
+    }
+
+    @Test
+    void imageOnlyIsUnknownWhenObjectStreamsMayHideFonts() throws Exception {
+        SpooledBody body = pdf(IMAGE + "8 0 obj << /Type /ObjStm /N 20 >> endobj\n");
+
+        assertThat(PdfStructure.scan(body.openStream()).imageOnly()).isFalse();
+    }
+
+    private static final String FONT = "5 0 obj << /Type /Font /Subtype /Type1 /BaseFont /Helvetica >> endobj\n";
+    private static final String IMAGE = "6 0 obj << /Type /XObject /Subtype /Image /Width 10 >> endobj\n";
+
+    private static String pagesTree(int count) {
+        return "2 0 obj << /Type /Pages /Kids [3 0 R] /Count " + count + " >> endobj\n";
+    }
+
+    private static SpooledBody pdf(String body) {
+        String text = "%PDF-1.7\n" + body + "%" + "p".repeat(2048) + "\n%%EOF\n";
+        return SpooledBody.ofBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static PdfTriageProperties props(boolean enabled) {
+        return new PdfTriageProperties(enabled, 1024, 300, 50,
+                new PdfTriageProperties.Actions(Action.REJECT, Action.LOW_PRIORITY, Action.LOW_PRIORITY,
+                        Action.LOW_PRIORITY, Action.REJECT),
+                10);
+    }
+}
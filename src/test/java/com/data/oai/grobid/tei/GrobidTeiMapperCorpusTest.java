@@ -0,0 +1,72 @@
+package com.data.oai.grobid.tei;
+
+import com.data.oai.persistence.blob.DocumentBlobCodec;
+import com.data.oai.shared.dto.PaperDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Output equivalence of {@link GrobidTeiMapperStax} and {@link GrobidTeiMapperJsoup}
+ * on TEI already stored in {@code document_blob} (or, for documents not migrated
+ * yet, {@code record_document.source_xml}).
+ *
+ * <p>Opt-in: needs a database populated by the OAI pipelines, e.g.</p>
+ * <pre>
+ *   ./gradlew test --tests '*GrobidTeiMapperCorpusTest' \
+ *       -Dtei.corpus.jdbc.url=jdbc:postgresql://localhost:5432/youtube-extractor
+ * </pre>
+ * <p>{@code tei.corpus.limit} (default 1000) caps the number of documents; the
+ * most recent ones are read first. The ids of all mismatches are reported.</p>
+ */
+@EnabledIfSystemProperty(named = "tei.corpus.jdbc.url", matches = ".+")
+class GrobidTeiMapperCorpusTest {
+
+    @Test
+    void staxMapperShouldReproduceJsoupMapperOnStoredTei() throws Exception {
+        int limit = Integer.getInteger("tei.corpus.limit", 1000);
+        List<Long> mismatches = new ArrayList<>();
+        int checked = 0;
+
+        try (Connection c = DriverManager.getConnection(
+                System.getProperty("tei.corpus.jdbc.url"),
+                System.getProperty("tei.corpus.jdbc.user", "postgres"),
+                System.getProperty("tei.corpus.jdbc.password", "postgres"))) {
+            c.setAutoCommit(false); // lets the driver stream with the fetch size
+            try (PreparedStatement ps = c.prepareStatement("""
+                    SELECT d.id, d.source_xml, b.codec, b.raw_length, b.content
+                    FROM record_document d
+                    JOIN source_record r ON r.id = d.record_id
+                    LEFT JOIN document_blob b ON b.document_id = d.id AND b.kind = 'SOURCE_XML'
+                    WHERE r.data_source <> 'PMC_S3' AND (d.source_xml IS NOT NULL OR b.document_id IS NOT NULL)
+                    ORDER BY d.id DESC LIMIT ?""")) {
+                ps.setInt(1, limit);
+                ps.setFetchSize(50);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        String tei = rs.getBytes(5) != null
+                                ? DocumentBlobCodec.decode(rs.getString(3), rs.getInt(4), rs.getBytes(5))
+                                : rs.getString(2);
+                        if (!tei.contains("<TEI")) continue;
+                        PaperDocument jsoup = GrobidTeiMapperJsoup.toPaperDocument("id", "ext", tei);
+                        PaperDocument stax = GrobidTeiMapperStax.toPaperDocument("id", "ext", tei);
+                        if (!stax.equals(jsoup)) mismatches.add(id);
+                        checked++;
+                    }
+                }
+            }
+        }
+
+        System.out.printf("Compared %d stored TEI documents, %d mismatches%n", checked, mismatches.size());
+        assertThat(mismatches).as("record_document ids mapped differently").isEmpty();
+    }
+}
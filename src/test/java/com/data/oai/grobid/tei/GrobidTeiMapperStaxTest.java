@@ -0,0 +1,124 @@
+package com.data.oai.grobid.tei;
+
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Reference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The streaming mapper must return exactly what the Jsoup mapper returns. Stored
+ * TEI can be checked the same way with {@code GrobidTeiMapperCorpusTest}.
+ */
+class GrobidTeiMapperStaxTest {
+
+    static String sample() throws IOException {
+        try (InputStream in = GrobidTeiMapperStaxTest.class.getResourceAsStream("/tei/sample-fulltext.tei.xml")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static void assertSameDocument(PaperDocument stax, PaperDocument jsoup) {
+        assertThat(stax).isEqualTo(jsoup);
+        // Record equality compares maps without their order
+        assertThat(stax.references().stream().map(r -> List.copyOf(r.idnos().entrySet())).toList())
+                .isEqualTo(jsoup.references().stream().map(r -> List.copyOf(r.idnos().entrySet())).toList());
+    }
+
+    @Test
+    void shouldMapSampleExactlyLikeJsoup() throws IOException {
+        String tei = sample();
+
+        PaperDocument jsoup = GrobidTeiMapperJsoup.toPaperDocument("2103.01234", "oai:arXiv.org:2103.01234", tei);
+        PaperDocument stax = GrobidTeiMapperStax.toPaperDocument("2103.01234", "oai:arXiv.org:2103.01234", tei);
+
+        assertSameDocument(stax, jsoup);
+    }
+
+    @Test
+    void shouldExtractTheSampleContent() throws IOException {
+        PaperDocument doc = GrobidTeiMapperStax.toPaperDocument("id", "ext", sample());
+
+        assertThat(doc.title()).isEqualTo("Sparse Retrieval for Long Documents");
+        assertThat(doc.abstractText()).startsWith("We study sparse retrieval over long documents.");
+        assertThat(doc.keywords()).containsExactly("information retrieval", "sparse models");
+        assertThat(doc.classCodes()).containsExactly("H.3.3", "I.2.7", "H.3.1");
+        assertThat(doc.affiliation()).contains(
+                "Department of Computer Science, University of Examples",
+                "Institute of Things, Machine Lab");
+        assertThat(doc.sections()).extracting(s -> s.getTitle())
+                .contains("Introduction", "Method", "DISCUSSION", "ACKNOWLEDGEMENT", "ANNEX");
+        assertThat(doc.rawContent()).contains("Overview of the indexing pipeline.").doesNotContain("BM25");
+
+        Reference okapi = doc.references().get(0);
+        assertThat(okapi.doi()).isEqualTo("10.1000/trec.3.2");
+        assertThat(okapi.year()).isEqualTo("1994");
+        assertThat(okapi.idnos()).containsEntry("publisher", "NIST").containsEntry("biblscope_page", "109");
+        assertThat(doc.references()).extracting(Reference::idnos)
+                .anySatisfy(idnos -> assertThat(idnos).containsKey("raw_reference"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // No TEI > text: plain text comes from every block of the document
+            "<TEI><teiHeader><fileDesc><titleStmt><title>T</title></titleStmt></fileDesc></teiHeader><p>loose</p></TEI>",
+            // No blocks at all: fallbacks to the text and body texts
+            "<TEI><text><body>just <hi>text</hi> in the body</body></text></TEI>",
+            "<TEI><text><body><div><table><row><cell>only a table</cell></row></table></div></body></text></TEI>",
+            "<TEI><text type=\"article\"><body><div><head>H</head></div></body></text></TEI>",
+            "<TEI subtype=\"preprint\"><teiHeader/><text><front><p>front only</p></front></text></TEI>",
+            // Block and inline neighbours: where jsoup inserts spaces
+            "<TEI><text><body><div><p>a<p>b</p>c<s>d</s><p>e</p><ref>f</ref></p><head>x</head>tail</div></body></text></TEI>",
+            "<TEI><text><body><div><head>T</head><head>Second head</head><p>p1</p><!-- c --><p>p2</p></div></body></text></TEI>",
+            "<TEI><text><body><div><note>n<figure><figDesc>d1</figDesc><figure><figDesc>d2</figDesc></figure></figure></note></div></body></text></TEI>",
+            "<TEI><text><body><figure><table/></figure><div><figure><p>no desc</p></figure></div></body></text></TEI>",
+            "<TEI><text><body><div><p>line<lb/>break<br/>here&#160;&#8203;x  <!-- c -->  y</p><tei:p xmlns:tei=\"urn:x\">prefixed</tei:p></div></body></text></TEI>",
+            // Header details
+            "<TEI><teiHeader><fileDesc><sourceDesc><biblStruct><analytic><title>  Fallback\n title </title></analytic></biblStruct></sourceDesc></fileDesc>"
+                    + "<profileDesc><abstract><p>abs</p><p>tract</p></abstract></profileDesc></teiHeader><text><body/></text></TEI>",
+            "<TEI><teiHeader><affiliation><orgName>o1</orgName><orgName type=\"institution\"><orgName type=\"department\">d</orgName> i</orgName></affiliation>"
+                    + "<affiliation>  plain  text </affiliation></teiHeader><text/></TEI>",
+            // References
+            "<TEI><text><back><div subtype=\"references\"><bibl>x <ptr target=\" u1 \"/><ref target=\"u1\">r</ref></bibl>"
+                    + "<biblStruct><monogr><title>M</title><imprint><date when=\"20\">2019</date></imprint></monogr>"
+                    + "<idno type=\"url\" target=\"t\">ignored</idno><idno>1</idno><idno type=\"X\">2</idno></biblStruct>"
+                    + "<biblStruct><analytic><author><persName>A</persName></author></analytic><note type=\"rawRef\">see 10.1234/abc.def 2031 1987</note></biblStruct>"
+                    + "</div></back></text></TEI>",
+            "<TEI><text><back><listBibl><biblStruct><analytic><title>Outer</title></analytic>"
+                    + "<relatedItem><biblStruct><analytic><title>Inner</title></analytic></biblStruct></relatedItem></biblStruct></listBibl></back></text></TEI>",
+            // Not well-formed: handed to jsoup
+            "<TEI><text><body><div><p>unclosed <b>tags</p></div></body></text></TEI>",
+            "<TEI><text><body><div><p>entity &nbsp; here</p></div></body></text></TEI>"
+    })
+    void shouldMatchJsoupOnEdgeCases(String tei) {
+        assertSameDocument(
+                GrobidTeiMapperStax.toPaperDocument("id", "ext", tei),
+                GrobidTeiMapperJsoup.toPaperDocument("id", "ext", tei));
+    }
+
+    @Test
+    void shouldReturnNoContentDocumentForBlankXml() {
+        PaperDocument doc = GrobidTeiMapperStax.toPaperDocument("id", "ext", "  ");
+
+        assertThat(doc.rawContent()).isEqualTo("NO_CONTENT");
+        assertThat(doc).isEqualTo(GrobidTeiMapperJsoup.toPaperDocument("id", "ext", "  "));
+    }
+
+    @Test
+    void shouldKeepIdnoOrderOfFirstOccurrence() {
+        String tei = "<TEI><text><back><listBibl><biblStruct><analytic><title>T</title></analytic>"
+                + "<idno type=\"b\">1</idno><idno type=\"a\">2</idno><idno type=\"B\">3</idno></biblStruct></listBibl></back></text></TEI>";
+
+        Map<String, String> idnos = GrobidTeiMapperStax.toPaperDocument("id", "ext", tei).references().get(0).idnos();
+
+        assertThat(List.copyOf(idnos.entrySet())).containsExactly(Map.entry("b", "3"), Map.entry("a", "2"));
+    }
+}
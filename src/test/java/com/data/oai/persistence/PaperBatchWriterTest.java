@@ -0,0 +1,215 @@
+package com.data.oai.persistence;
+
+import com.data.config.properties.PaperPersistenceProperties;
+import com.data.oai.persistence.bulk.PaperCopyLoader;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
+import com.data.oai.shared.dto.Record;
+import com.data.shared.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PaperBatchWriter}: papers from concurrent writers are committed
+ * together, and a single duplicate fails only its own caller.
+ */
+class PaperBatchWriterTest {
+
+    private final PaperInternalService paperInternalService = mock(PaperInternalService.class);
+    private final PaperCopyLoader paperCopyLoader = mock(PaperCopyLoader.class);
+    private final SourceIdIndex sourceIdIndex = mock(SourceIdIndex.class);
+    private final StorageStatsService storageStats = mock(StorageStatsService.class);
+    private final List<List<String>> committedBatches = new CopyOnWriteArrayList<>();
+    private PaperBatchWriter writer;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (writer != null) {
+            writer.stop();
+        }
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentWritesAreGroupedIntoOneTransaction() throws Exception {
+        recordCommitsRejecting("none");
+        writer = startedWriter(10, 2_000);
+
+        Map<String, Throwable> errors = writeConcurrently(List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"));
+
+        assertThat(errors).isEmpty();
+        assertThat(committedBatches).hasSize(1);
+        assertThat(committedBatches.get(0)).containsExactlyInAnyOrder("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        verify(paperInternalService, never()).persistState(any(), any(), any(), anyString());
+    }
+
+    @Test
+    void duplicateInDatabaseFailsOnlyItsOwnWriter() throws Exception {
+        recordCommitsRejecting("dup");
+        writer = startedWriter(8, 2_000);
+
+        Map<String, Throwable> errors = writeConcurrently(List.of("a", "b", "c", "dup", "e", "f", "g", "h"));
+
+        assertThat(errors).containsOnlyKeys("dup");
+        assertThat(errors.get("dup")).isInstanceOf(DataIntegrityViolationException.class);
+        List<String> committed = committedBatches.stream().flatMap(List::stream).toList();
+        assertThat(committed).containsExactlyInAnyOrder("a", "b", "c", "e", "f", "g", "h");
+        verify(sourceIdIndex).add(DataSource.ARXIV, "a");
+        verify(sourceIdIndex, never()).add(DataSource.ARXIV, "dup");
+        verify(storageStats, times(7)).record(any());
+        verify(storageStats, never()).record(argThat(r -> r.record().getSourceId().equals("dup")));
+    }
+
+    @Test
+    void duplicateWithinBatchIsRejectedWithoutTouchingTheDatabase() throws Exception {
+        recordCommitsRejecting("none");
+        writer = startedWriter(4, 2_000);
+
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        callers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (String id : List.of("x", "x", "y", "z")) {
+            callers.submit(() -> {
+                try {
+                    writer.write(request(id));
+                } catch (RuntimeException e) {
+                    errors.add(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(errors).singleElement().isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(committedBatches.stream().flatMap(List::stream).toList()).containsExactlyInAnyOrder("x", "y", "z");
+    }
+
+    @Test
+    void writesDirectlyWhenBatchingIsDisabled() {
+        writer = new PaperBatchWriter(paperInternalService, paperCopyLoader, sourceIdIndex,
+                new PaperPersistenceProperties(new PaperPersistenceProperties.Batch(false, 10, 100), null), storageStats);
+        writer.start();
+
+        writer.write(request("solo"));
+
+        verify(paperInternalService).persistState(eq(DataSource.ARXIV), any(), any(), eq("https://pdf/solo"));
+        verify(paperInternalService, never()).persistBatch(anyList());
+    }
+
+    @Test
+    void copyModeLoadsThroughCopyLoaderAndFailsSkippedPapers() {
+        writer = new PaperBatchWriter(paperInternalService, paperCopyLoader, sourceIdIndex, new PaperPersistenceProperties(
+                new PaperPersistenceProperties.Batch(false, 10, 100),
+                new PaperPersistenceProperties.WriteMode(PaperWriteMode.COPY, PaperWriteMode.JPA)), storageStats);
+        writer.start();
+        BitSet inserted = new BitSet();
+        inserted.set(0);
+        when(paperCopyLoader.load(anyList())).thenReturn(inserted, new BitSet());
+
+        writer.write(request("fresh"));
+
+        assertThatThrownBy(() -> writer.write(request("existing")))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("existing");
+        verify(paperInternalService, never()).persistState(any(), any(), any(), anyString());
+        verify(paperInternalService, never()).persistBatch(anyList());
+    }
+
+    @Test
+    void replacementIsWrittenDirectlyAndNotCountedAsANewRecord() throws Exception {
+        recordCommitsRejecting("none");
+        writer = startedWriter(10, 2_000);
+        Record record = new Record();
+        record.setSourceId("v2");
+        PaperWriteRequest replacement = new PaperWriteRequest(DataSource.PMC_S3, record, null, "https://pdf/v2", true);
+
+        when(paperInternalService.replaceState(DataSource.PMC_S3, record, null, "https://pdf/v2")).thenReturn(1_234L);
+
+        writer.write(replacement);
+
+        verify(paperInternalService, never()).persistBatch(anyList());
+        verify(sourceIdIndex).add(DataSource.PMC_S3, "v2");
+        verify(storageStats).record(replacement.withReplacedBytes(1_234L));
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────
+
+    private PaperBatchWriter startedWriter(int size, long maxWaitMs) {
+        PaperBatchWriter w = new PaperBatchWriter(paperInternalService, paperCopyLoader, sourceIdIndex,
+                new PaperPersistenceProperties(new PaperPersistenceProperties.Batch(true, size, maxWaitMs), null),
+                storageStats);
+        w.start();
+        return w;
+    }
+
+    /** Simulates the database: any batch containing {@code duplicateId} is rolled back. */
+    @SuppressWarnings("unchecked")
+    private void recordCommitsRejecting(String duplicateId) {
+        doAnswer(inv -> {
+            List<String> ids = ((List<PaperWriteRequest>) inv.getArgument(0)).stream()
+                    .map(r -> r.record().getSourceId())
+                    .toList();
+            if (ids.contains(duplicateId)) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            committedBatches.add(new ArrayList<>(ids));
+            return null;
+        }).when(paperInternalService).persistBatch(anyList());
+    }
+
+    /** @return failures by source id; successful writes are absent */
+    private Map<String, Throwable> writeConcurrently(List<String> ids) throws InterruptedException {
+        Map<String, Throwable> errors = new ConcurrentHashMap<>();
+        callers = Executors.newFixedThreadPool(ids.size());
+        CountDownLatch done = new CountDownLatch(ids.size());
+        for (String id : ids) {
+            callers.submit(() -> {
+                try {
+                    writer.write(request(id));
+                } catch (RuntimeException e) {
+                    errors.put(id, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        return errors;
+    }
+
+    private static PaperWriteRequest request(String sourceId) {
+        Record record = new Record();
+        record.setSourceId(sourceId);
+        return new PaperWriteRequest(DataSource.ARXIV, record, null, "https://pdf/" + sourceId);
+    }
+}
@@ -0,0 +1,59 @@
+package com.data.oai.persistence.blob;
+
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DocumentBlobCodec}: texts survive the round trip unchanged,
+ * TEI shrinks, and unknown codecs are refused.
+ */
+class DocumentBlobCodecTest {
+
+    @Test
+    void roundTripsText() {
+        String text = "Ünïcödé — 数学 \u0000 and a NUL, which PostgreSQL text could not hold";
+
+        DocumentBlobEntity blob = DocumentBlobCodec.toEntity(DocumentBlobKind.RAW_CONTENT, text);
+
+        assertThat(blob.getId().getKind()).isEqualTo(DocumentBlobKind.RAW_CONTENT);
+        assertThat(blob.getId().getDocumentId()).isNull();
+        assertThat(blob.getCodec()).isEqualTo(DocumentBlobCodec.ZSTD);
+        assertThat(blob.getRawLength()).isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(DocumentBlobCodec.decode(blob.getCodec(), blob.getRawLength(), blob.getContent())).isEqualTo(text);
+    }
+
+    @Test
+    void emptyTextIsStoredAndNullIsNot() {
+        DocumentBlobEntity empty = DocumentBlobCodec.toEntity(DocumentBlobKind.SOURCE_XML, "");
+
+        assertThat(DocumentBlobCodec.decode(empty.getCodec(), empty.getRawLength(), empty.getContent())).isEmpty();
+        assertThat(DocumentBlobCodec.toEntity(DocumentBlobKind.SOURCE_XML, null)).isNull();
+    }
+
+    @Test
+    void compressesTei() throws Exception {
+        String tei;
+        try (InputStream in = getClass().getResourceAsStream("/tei/sample-fulltext.tei.xml")) {
+            tei = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        DocumentBlobEntity blob = DocumentBlobCodec.toEntity(DocumentBlobKind.SOURCE_XML, tei);
+
+        assertThat(blob.getContent().length).isLessThan(blob.getRawLength() / 3);
+        assertThat(DocumentBlobCodec.decode(blob.getCodec(), blob.getRawLength(), blob.getContent())).isEqualTo(tei);
+    }
+
+    @Test
+    void refusesUnknownCodec() {
+        assertThatThrownBy(() -> DocumentBlobCodec.decode("gzip", 3, new byte[]{1, 2, 3}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("gzip");
+    }
+}
@@ -0,0 +1,74 @@
+package com.data.oai.persistence.blob;
+
+import com.data.config.properties.DocumentBlobProperties;
+import com.data.oai.persistence.blob.DocumentBlobMigrationJob.LegacyRow;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DocumentBlobMigrationJob}: legacy texts are compressed into
+ * blobs and cleared, batch after batch, until none are left.
+ */
+class DocumentBlobMigrationJobTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DocumentBlobMigrationJob job = new DocumentBlobMigrationJob(jdbcTemplate,
+            mock(PlatformTransactionManager.class),
+            new DocumentBlobProperties(new DocumentBlobProperties.Migration(true, 2, 0)));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void movesLegacyTextsBatchByBatch() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), anyInt()))
+                .thenReturn(List.of(new LegacyRow(10, "<TEI/>", "text ten"), new LegacyRow(11, null, "text eleven")));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(11L), anyInt()))
+                .thenReturn(List.of(new LegacyRow(12, "<article/>", null)));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(12L), anyInt()))
+                .thenReturn(List.of());
+
+        DocumentBlobMigrationJob.Result result = job.migrateAll();
+
+        assertThat(result.documents()).isEqualTo(3);
+        assertThat(result.lastId()).isEqualTo(12);
+        assertThat(result.rawBytes()).isEqualTo("<TEI/>".length() + "text ten".length()
+                + "text eleven".length() + "<article/>".length());
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT INTO document_blob"), inserts.capture());
+        List<Object[]> firstBatch = inserts.getAllValues().get(0);
+        assertThat(firstBatch).extracting(row -> row[0] + "/" + row[1])
+                .containsExactly("10/SOURCE_XML", "10/RAW_CONTENT", "11/RAW_CONTENT");
+        Object[] tei = firstBatch.get(0);
+        assertThat(DocumentBlobCodec.decode((String) tei[2], (int) tei[3], (byte[]) tei[4])).isEqualTo("<TEI/>");
+
+        ArgumentCaptor<List<Object[]>> clears = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("SET source_xml = NULL"), clears.capture());
+        assertThat(clears.getAllValues()).flatExtracting(ids -> ids.stream().map(id -> id[0]).toList())
+                .containsExactly(10L, 11L, 12L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nothingToMoveIsANoOp() throws Exception {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), anyInt())).thenReturn(List.of());
+
+        assertThat(job.migrateAll().documents()).isZero();
+        verify(jdbcTemplate, times(0)).batchUpdate(anyString(), any(List.class));
+    }
+}
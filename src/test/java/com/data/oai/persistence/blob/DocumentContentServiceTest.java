@@ -0,0 +1,67 @@
+package com.data.oai.persistence.blob;
+
+import com.data.oai.persistence.entity.DocumentBlobEntity;
+import com.data.oai.persistence.entity.DocumentBlobKind;
+import com.data.oai.persistence.entity.PaperDocumentEntity;
+import com.data.oai.persistence.repository.DocumentBlobRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DocumentContentService}: blobs are decoded, documents that were
+ * not migrated yet fall back to their legacy column.
+ */
+class DocumentContentServiceTest {
+
+    private final DocumentBlobRepository repository = mock(DocumentBlobRepository.class);
+    private final DocumentContentService service = new DocumentContentService(repository);
+
+    @Test
+    void decodesBlobsAndFallsBackToLegacyColumns() {
+        PaperDocumentEntity migrated = document(1L, null);
+        PaperDocumentEntity legacy = document(2L, "legacy text");
+        PaperDocumentEntity empty = document(3L, null);
+        when(repository.findContents(eq(DocumentBlobKind.RAW_CONTENT), any()))
+                .thenReturn(List.of(content(1L, "compressed text")));
+
+        Map<Long, String> texts = service.load(DocumentBlobKind.RAW_CONTENT, List.of(migrated, legacy, empty));
+
+        assertThat(texts).containsOnly(Map.entry(1L, "compressed text"), Map.entry(2L, "legacy text"));
+    }
+
+    @Test
+    void loadsSingleDocument() {
+        PaperDocumentEntity doc = document(7L, null);
+        when(repository.findContents(eq(DocumentBlobKind.RAW_CONTENT), eq(List.of(7L))))
+                .thenReturn(List.of(content(7L, "text")));
+
+        assertThat(service.load(DocumentBlobKind.RAW_CONTENT, doc)).isEqualTo("text");
+    }
+
+    @Test
+    void noDocumentsNoQuery() {
+        assertThat(service.load(DocumentBlobKind.SOURCE_XML, List.of())).isEmpty();
+        verifyNoInteractions(repository);
+    }
+
+    private static PaperDocumentEntity document(long id, String legacyRawContent) {
+        PaperDocumentEntity doc = new PaperDocumentEntity();
+        doc.setId(id);
+        doc.setRawContent(legacyRawContent);
+        return doc;
+    }
+
+    private static DocumentBlobContent content(long documentId, String text) {
+        DocumentBlobEntity blob = DocumentBlobCodec.toEntity(DocumentBlobKind.RAW_CONTENT, text);
+        return new DocumentBlobContent(documentId, blob.getCodec(), blob.getRawLength(), blob.getContent());
+    }
+}
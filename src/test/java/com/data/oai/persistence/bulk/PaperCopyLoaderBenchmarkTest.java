@@ -0,0 +1,152 @@
+package com.data.oai.persistence.bulk;
+
+import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.shared.dto.Author;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Record;
+import com.data.oai.shared.dto.Reference;
+import com.data.oai.shared.dto.Section;
+import com.data.shared.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.data.jpa.autoconfigure.DataJpaRepositoriesAutoConfiguration;
+import org.springframework.boot.hibernate.autoconfigure.HibernateJpaAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.persistence.autoconfigure.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.transaction.autoconfigure.TransactionAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput comparison of the COPY bulk-load path against the batched JPA path.
+ *
+ * <p>Opt-in: needs a PostgreSQL database already migrated by Flyway, e.g.</p>
+ * <pre>
+ *   ./gradlew test --tests '*PaperCopyLoaderBenchmarkTest' \
+ *       -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/youtube-extractor
+ * </pre>
+ * <p>{@code bench.papers} (default 2000) and {@code bench.batch} (default 100) size
+ * the run. Rows are written under a unique {@code bench-} prefix and deleted
+ * afterwards.</p>
+ */
+@EnabledIfSystemProperty(named = "bench.jdbc.url", matches = ".+")
+@SpringBootTest(classes = PaperCopyLoaderBenchmarkTest.Config.class, properties = {
+        "spring.datasource.url=${bench.jdbc.url}",
+        "spring.datasource.username=${bench.jdbc.user:postgres}",
+        "spring.datasource.password=${bench.jdbc.password:postgres}"
+})
+class PaperCopyLoaderBenchmarkTest {
+
+    private static final String PREFIX = "bench-" + System.currentTimeMillis() + "-";
+
+    @Configuration
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class,
+            DataJpaRepositoriesAutoConfiguration.class
+    })
+    @EntityScan("com.data.oai.persistence.entity")
+    @EnableJpaRepositories("com.data.oai.persistence.repository")
+    @Import({PaperInternalService.class, PaperCopyLoader.class})
+    static class Config {
+    }
+
+    @Autowired
+    private PaperInternalService paperInternalService;
+    @Autowired
+    private PaperCopyLoader paperCopyLoader;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM source_record WHERE source_identifier LIKE ?", PREFIX + "%");
+    }
+
+    @Test
+    void copyVersusJpa() {
+        int papers = Integer.getInteger("bench.papers", 2_000);
+        int batch = Integer.getInteger("bench.batch", 100);
+
+        // Warm-up: connection pool, Hibernate metadata, sequence caches
+        paperInternalService.persistBatch(papers("warm-jpa", batch));
+        paperCopyLoader.load(papers("warm-copy", batch));
+
+        long jpaNanos = run(papers("jpa", papers), batch, paperInternalService::persistBatch);
+        long copyNanos = run(papers("copy", papers), batch, chunk -> {
+            BitSet inserted = paperCopyLoader.load(chunk);
+            assertThat(inserted.cardinality()).isEqualTo(chunk.size());
+        });
+
+        System.out.printf("paper writes, %d papers in batches of %d:%n", papers, batch);
+        System.out.printf("  JPA  %8.1f papers/s%n", papers / (jpaNanos / 1e9));
+        System.out.printf("  COPY %8.1f papers/s (%.1fx)%n", papers / (copyNanos / 1e9), (double) jpaNanos / copyNanos);
+        assertThat(count("copy")).isEqualTo(papers);
+    }
+
+    private static long run(List<PaperWriteRequest> all, int batch,
+                            Consumer<List<PaperWriteRequest>> writer) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < all.size(); i += batch) {
+            writer.accept(all.subList(i, Math.min(all.size(), i + batch)));
+        }
+        return System.nanoTime() - t0;
+    }
+
+    private int count(String run) {
+        Integer n = jdbcTemplate.queryForObject("SELECT count(*) FROM source_record WHERE source_identifier LIKE ?",
+                Integer.class, PREFIX + run + "-%");
+        return n == null ? 0 : n;
+    }
+
+    /** Roughly the shape of a GROBID-mapped arXiv paper: 8 sections, 30 references, 4 authors. */
+    private static List<PaperWriteRequest> papers(String run, int count) {
+        List<PaperWriteRequest> papers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = PREFIX + run + "-" + i;
+            Record record = new Record();
+            record.setSourceId(id);
+            record.setExternalIdentifier("ext-" + id);
+            record.setDatestamp("2024-01-15");
+            record.setLicense("http://creativecommons.org/licenses/by/4.0/");
+            record.setLanguage("en");
+            record.getCategories().addAll(List.of("cs.LG", "cs.CL"));
+            for (int a = 0; a < 4; a++) {
+                Author author = new Author();
+                author.setFirstName("First" + a);
+                author.setLastName("Last" + a);
+                record.getAuthors().add(author);
+            }
+            List<Section> sections = IntStream.range(0, 8)
+                    .mapToObj(s -> new Section("Section " + s, "lorem ipsum ".repeat(250), null))
+                    .toList();
+            List<Reference> references = IntStream.range(0, 30)
+                    .mapToObj(r -> new Reference(r, "Cited work " + r, "Venue", "10.1000/" + r, List.of(),
+                            List.of("A. Author", "B. Author"), "2020", "Venue", Map.of("DOI", "10.1000/" + r)))
+                    .toList();
+            PaperDocument doc = new PaperDocument(id, "ext-" + id, "Title " + i, "abstract ".repeat(40),
+                    sections, "<TEI/>", null, List.of("kw"), List.of("Uni"), List.of(), List.of(), references, "article");
+            papers.add(new PaperWriteRequest(DataSource.ARXIV, record, doc, "https://pdf/" + id));
+        }
+        return papers;
+    }
+}
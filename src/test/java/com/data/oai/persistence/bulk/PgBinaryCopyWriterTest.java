@@ -0,0 +1,136 @@
+package com.data.oai.persistence.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Byte-level tests for {@link PgBinaryCopyWriter} and the id block expansion in
+ * {@link PaperCopyLoader}; the COPY round trip itself needs a live PostgreSQL
+ * (see {@link PaperCopyLoaderBenchmarkTest}).
+ */
+class PgBinaryCopyWriterTest {
+
+    private static final int HEADER_LENGTH = 11 + 4 + 4;
+
+    @Test
+    void writesHeaderAndTrailer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PgBinaryCopyWriter(out).finish();
+
+        ByteBuffer buf = ByteBuffer.wrap(out.toByteArray());
+        byte[] signature = new byte[11];
+        buf.get(signature);
+        assertThat(new String(signature, 0, 6, StandardCharsets.US_ASCII)).isEqualTo("PGCOPY");
+        assertThat(buf.getInt()).isZero();
+        assertThat(buf.getInt()).isZero();
+        assertThat(buf.getShort()).isEqualTo((short) -1);
+        assertThat(buf.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void encodesScalarsAndNulls() throws IOException {
+        ByteBuffer row = encodeRow(w -> {
+            w.startRow(6);
+            w.writeLong(42L);
+            w.writeInt(null);
+            w.writeText("a\u0000b");
+            w.writeDate(LocalDate.of(2000, 1, 3));
+            w.writeTimestamptz(OffsetDateTime.of(2000, 1, 1, 1, 0, 0, 0, ZoneOffset.ofHours(1)));
+            w.writeText(null);
+        });
+
+        assertThat(row.getShort()).isEqualTo((short) 6);
+        assertThat(row.getInt()).isEqualTo(8);
+        assertThat(row.getLong()).isEqualTo(42L);
+        assertThat(row.getInt()).isEqualTo(-1);
+        assertThat(row.getInt()).isEqualTo(2);
+        assertThat(new String(new byte[]{row.get(), row.get()}, StandardCharsets.UTF_8)).isEqualTo("ab");
+        assertThat(row.getInt()).isEqualTo(4);
+        assertThat(row.getInt()).isEqualTo(2);
+        assertThat(row.getInt()).isEqualTo(8);
+        assertThat(row.getLong()).isZero(); // 01:00+01:00 is the PostgreSQL epoch
+        assertThat(row.getInt()).isEqualTo(-1);
+    }
+
+    @Test
+    void encodesOneDimensionalTextArray() throws IOException {
+        ByteBuffer row = encodeRow(w -> {
+            w.startRow(2);
+            w.writeTextArray(Arrays.asList("x", null));
+            w.writeTextArray(List.of());
+        });
+
+        assertThat(row.getShort()).isEqualTo((short) 2);
+        assertThat(row.getInt()).isEqualTo(12 + 8 + 4 + 1 + 4);
+        assertThat(row.getInt()).isEqualTo(1);  // dimensions
+        assertThat(row.getInt()).isEqualTo(1);  // has nulls
+        assertThat(row.getInt()).isEqualTo(25); // text
+        assertThat(row.getInt()).isEqualTo(2);  // length
+        assertThat(row.getInt()).isEqualTo(1);  // lower bound
+        assertThat(row.getInt()).isEqualTo(1);
+        assertThat(row.get()).isEqualTo((byte) 'x');
+        assertThat(row.getInt()).isEqualTo(-1);
+
+        assertThat(row.getInt()).isEqualTo(12);
+        assertThat(row.getInt()).isZero();
+        assertThat(row.getInt()).isZero();
+        assertThat(row.getInt()).isEqualTo(25);
+    }
+
+    @Test
+    void encodesByteaVerbatim() throws IOException {
+        byte[] content = {0, (byte) 0xFF, 'z', 0};
+        ByteBuffer row = encodeRow(w -> {
+            w.startRow(2);
+            w.writeBytes(content);
+            w.writeBytes(null);
+        });
+
+        assertThat(row.getShort()).isEqualTo((short) 2);
+        assertThat(row.getInt()).isEqualTo(4);
+        byte[] written = new byte[4];
+        row.get(written);
+        assertThat(written).isEqualTo(content);
+        assertThat(row.getInt()).isEqualTo(-1);
+        assertThat(row.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void expandsSequenceBlocksLikeThePooledOptimizer() {
+        long[] ids = PaperCopyLoader.expandBlocks(List.of(100L, 250L), 52);
+
+        assertThat(ids[0]).isEqualTo(51L);
+        assertThat(ids[49]).isEqualTo(100L);
+        assertThat(ids[50]).isEqualTo(201L);
+        assertThat(ids[51]).isEqualTo(202L);
+        assertThatThrownBy(() -> PaperCopyLoader.expandBlocks(List.of(100L), 51))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @FunctionalInterface
+    private interface Rows {
+        void write(PgBinaryCopyWriter writer) throws IOException;
+    }
+
+    /** @return the bytes between header and trailer */
+    private static ByteBuffer encodeRow(Rows rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PgBinaryCopyWriter writer = new PgBinaryCopyWriter(out);
+        rows.write(writer);
+        writer.finish();
+        byte[] bytes = out.toByteArray();
+        return ByteBuffer.wrap(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH - 2);
+    }
+}
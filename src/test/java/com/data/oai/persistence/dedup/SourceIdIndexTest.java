@@ -0,0 +1,130 @@
+package com.data.oai.persistence.dedup;
+
+import com.data.config.properties.DedupIndexProperties;
+import com.data.oai.persistence.PaperInternalService;
+import com.data.shared.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SourceIdIndex} and its {@link SourceIdSet}: numeric and hashed
+ * ids, adds across compactions, and a restart from a snapshot that only catches
+ * up on rows newer than its watermark.
+ */
+class SourceIdIndexTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void numericIdsAreStoredAsNumbersAndOthersHashed() {
+        SourceIdSet pmc = new SourceIdSet("PMC");
+
+        assertThat(pmc.toNumber("PMC1234567")).isEqualTo(1234567L);
+        assertThat(pmc.toNumber("PMC0123")).isEqualTo(-1);  // not canonical: hashed
+        assertThat(pmc.toNumber("1234567")).isEqualTo(-1);  // other prefix: hashed
+        assertThat(new SourceIdSet(null).toNumber("12345")).isEqualTo(-1);
+
+        pmc.add("PMC1234567");
+        pmc.add("PMC0123");
+        assertThat(pmc.contains("PMC1234567")).isTrue();
+        assertThat(pmc.contains("PMC0123")).isTrue();
+        assertThat(pmc.contains("PMC123")).isFalse();
+        assertThat(pmc.contains("1234567")).isFalse();
+    }
+
+    @Test
+    void addsSurviveCompactionAndMergeWithBulkLoad() {
+        SourceIdSet arxiv = new SourceIdSet(null);
+        SourceIdSet.BulkLoad bulk = arxiv.bulkLoad();
+        IntStream.range(0, 20_000).forEach(i -> bulk.add("2401." + i));
+        bulk.commit();
+
+        IntStream.range(20_000, 40_000).forEach(i -> arxiv.add("2401." + i)); // crosses the compaction threshold
+        arxiv.add("2401.5"); // already present
+
+        assertThat(arxiv.size()).isEqualTo(40_000);
+        assertThat(IntStream.range(0, 40_000).allMatch(i -> arxiv.contains("2401." + i))).isTrue();
+        assertThat(IntStream.range(40_000, 41_000).filter(i -> arxiv.contains("2401." + i)).count()).isZero();
+    }
+
+    @Test
+    void snapshotRoundTripKeepsIdsAndWatermark() throws Exception {
+        SourceIdSet original = new SourceIdSet("");
+        original.add("42");
+        original.add("hep-th/9901001");
+        original.watermark(777);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        original.writeTo(new DataOutputStream(bytes));
+        SourceIdSet restored = new SourceIdSet("");
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.contains("42")).isTrue();
+        assertThat(restored.contains("hep-th/9901001")).isTrue();
+        assertThat(restored.contains("43")).isFalse();
+        assertThat(restored.watermark()).isEqualTo(777);
+    }
+
+    @Test
+    void restartLoadsSnapshotAndOnlyCatchesUpOnNewerRows() {
+        PaperInternalService first = storedIds(List.of("PMC1", "PMC2"), 20_000L);
+        SourceIdIndex index = new SourceIdIndex(first, new DedupIndexProperties(snapshotDir.toString(), 0));
+        assertThat(index.contains(DataSource.PMC_S3, "PMC1")).isTrue();
+        index.add(DataSource.PMC_S3, "PMC3");
+        index.snapshot();
+
+        PaperInternalService second = storedIds(List.of("PMC4"), 20_050L);
+        SourceIdIndex restarted = new SourceIdIndex(second, new DedupIndexProperties(snapshotDir.toString(), 0));
+
+        assertThat(restarted.contains(DataSource.PMC_S3, "PMC1")).isTrue();
+        assertThat(restarted.contains(DataSource.PMC_S3, "PMC3")).isTrue();
+        assertThat(restarted.contains(DataSource.PMC_S3, "PMC4")).isTrue();
+        assertThat(restarted.contains(DataSource.PMC_S3, "PMC5")).isFalse();
+        verify(second).forEachSourceId(eq(DataSource.PMC_S3), eq(20_000L - SourceIdIndex.CATCH_UP_MARGIN), any());
+    }
+
+    @Test
+    void snapshotAdvancesWatermarkToLatestRecordId() {
+        PaperInternalService first = storedIds(List.of("PMC1"), 20_000L);
+        SourceIdIndex index = new SourceIdIndex(first, new DedupIndexProperties(snapshotDir.toString(), 0));
+        assertThat(index.contains(DataSource.PMC_S3, "PMC1")).isTrue();
+        index.add(DataSource.PMC_S3, "PMC2");
+        when(first.maxRecordId(DataSource.PMC_S3)).thenReturn(90_000L);
+        index.snapshot();
+
+        PaperInternalService second = storedIds(List.of(), 90_000L);
+        SourceIdIndex restarted = new SourceIdIndex(second, new DedupIndexProperties(snapshotDir.toString(), 0));
+
+        assertThat(restarted.contains(DataSource.PMC_S3, "PMC2")).isTrue();
+        verify(second).forEachSourceId(eq(DataSource.PMC_S3), eq(90_000L - SourceIdIndex.CATCH_UP_MARGIN), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PaperInternalService storedIds(List<String> ids, long maxId) {
+        PaperInternalService service = mock(PaperInternalService.class);
+        doAnswer(inv -> {
+            ids.forEach(inv.<Consumer<String>>getArgument(2));
+            return maxId;
+        }).when(service).forEachSourceId(any(), anyLong(), any());
+        return service;
+    }
+}
@@ -0,0 +1,171 @@
+package com.data.oai.persistence.stats;
+
+import com.data.config.properties.StorageStatsProperties;
+import com.data.oai.persistence.PaperWriteRequest;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.oai.shared.dto.Record;
+import com.data.oai.shared.dto.Section;
+import com.data.shared.DataSource;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link StorageStatsService}: committed papers are counted in memory
+ * and added to the stored totals on flush, without losing deltas on failure.
+ */
+class StorageStatsServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StorageStatsService service = new StorageStatsService(jdbcTemplate,
+            mock(PlatformTransactionManager.class), new StorageStatsProperties(10_000, 7));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushAddsDeltasPerSourceToTotalsAndToday() {
+        service.record(request(DataSource.ARXIV, "Title", "Abstract", "body"));
+        service.record(request(DataSource.ARXIV, "Tïtle", null, null));
+        service.record(request(DataSource.PUBMED, null, null, "x"));
+
+        service.flush();
+
+        ArgumentCaptor<List<Object[]>> totals = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO storage_stats "), totals.capture());
+        assertThat(totals.getValue()).extracting(row -> row[0] + "/" + row[1] + "/" + row[2])
+                .containsExactly("ARXIV/2/23", "PUBMED/1/1");
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO storage_stats_daily"), any(List.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replacementAddsOnlyTheDifferenceToTheReplacedVersion() {
+        PaperWriteRequest paper = request(DataSource.PMC_S3, "Title", null, "body");  // 9 bytes
+        service.record(new PaperWriteRequest(DataSource.PMC_S3, paper.record(), paper.document(), null, true, 20));
+        service.record(new PaperWriteRequest(DataSource.PMC_S3, paper.record(), paper.document(), null, true, -1));
+
+        service.flush();
+
+        ArgumentCaptor<List<Object[]>> totals = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO storage_stats "), totals.capture());
+        assertThat(totals.getValue()).extracting(row -> row[0] + "/" + row[1] + "/" + row[2])
+                .containsExactly("PMC_S3/1/-2");  // 9 - 20, then a new record of 9
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWithoutCommittedPapersWritesNothing() {
+        service.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushIsNotBlockedByARunningRecompute() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.update(contains("WITH records"))).thenAnswer(inv -> {
+            scanning.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return 1;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> recompute = executor.submit(service::recompute);
+            assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+
+            service.record(request(DataSource.ZENODO, "abc", null, null));
+            CompletableFuture.runAsync(service::flush).get(5, TimeUnit.SECONDS);
+            verify(jdbcTemplate).batchUpdate(contains("INSERT INTO storage_stats "), any(List.class));
+
+            release.countDown();
+            recompute.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushKeepsDeltasForTheNextOne() {
+        service.record(request(DataSource.ZENODO, "abc", null, null));
+        when(jdbcTemplate.batchUpdate(contains("INSERT INTO storage_stats "), any(List.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[]{1});
+
+        service.flush();
+        service.flush();
+
+        ArgumentCaptor<List<Object[]>> totals = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT INTO storage_stats "), totals.capture());
+        assertThat(totals.getAllValues()).extracting(rows -> rows.get(0)[1] + "/" + rows.get(0)[2])
+                .containsExactly("1/3", "1/3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statsIncludeUnflushedPapers() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("ARXIV");
+        when(rs.getLong(2)).thenReturn(100L);
+        when(rs.getLong(3)).thenReturn(5_000L);
+        when(rs.getLong(5)).thenReturn(13L);
+        when(rs.getLong(6)).thenReturn(692L);
+        when(rs.getObject(4, OffsetDateTime.class)).thenReturn(OffsetDateTime.now());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7)))
+                .thenAnswer(inv -> List.of(((RowMapper<SourceStorageStats>) inv.getArgument(1)).mapRow(rs, 0)));
+        service.record(request(DataSource.ARXIV, "12345678", null, null));
+
+        SourceStorageStats stats = service.stats().get(0);
+
+        assertThat(stats.records()).isEqualTo(101);
+        assertThat(stats.contentBytes()).isEqualTo(5_008);
+        assertThat(stats.recordsPerDay()).isEqualTo(2.0);
+        assertThat(stats.bytesPerDay()).isEqualTo(100.0);
+        assertThat(service.totalContentBytes()).isEqualTo(5_008);
+    }
+
+    @Test
+    void utf8LengthMatchesEncoder() {
+        for (String s : List.of("", "ascii", "Grüße", "日本語", "emoji 😀 and 𝔸", "lone \uD800 surrogate")) {
+            assertThat(StorageStatsService.utf8Length(s))
+                    .as(s)
+                    .isEqualTo(s.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    private static PaperWriteRequest request(DataSource source, String title, String abstractText, String sectionText) {
+        Record record = new Record();
+        record.setSourceId(title);
+        List<Section> sections = sectionText == null ? List.of() : List.of(new Section("BODY", sectionText, List.of()));
+        PaperDocument document = new PaperDocument("id", "identifier", title, abstractText, sections,
+                null, null, List.of(), List.of(), List.of(), List.of(), List.of(), null);
+        return new PaperWriteRequest(source, record, document, null);
+    }
+}
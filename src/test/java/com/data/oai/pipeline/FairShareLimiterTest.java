@@ -0,0 +1,104 @@
+package com.data.oai.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link FairShareLimiter}: a lone key may use the whole capacity, and
+ * once a second key registers each is held to its share.
+ */
+class FairShareLimiterTest {
+
+    private Thread waiter;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (waiter != null) {
+            waiter.interrupt();
+            waiter.join(1_000);
+        }
+    }
+
+    @Test
+    void singleKeyMayUseTheWholeCapacity() throws Exception {
+        FairShareLimiter<String> limiter = new FairShareLimiter<>(4);
+        limiter.register("a");
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire("a");
+        }
+
+        assertThat(limiter.inFlight("a")).isEqualTo(4);
+        CountDownLatch acquired = acquireInBackground(limiter, "a");
+        assertThat(acquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        limiter.release("a");
+        assertThat(acquired.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void secondKeyGetsItsShareOnceTheFirstDrains() throws Exception {
+        FairShareLimiter<String> limiter = new FairShareLimiter<>(4);
+        limiter.register("a");
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire("a");
+        }
+        limiter.register("b");
+
+        limiter.release("a");
+        limiter.acquire("b");
+        limiter.release("a");
+        limiter.release("a");
+
+        // "a" holds 1 of its share of 2; "b" holds 1 of 2 → both may take one more
+        limiter.acquire("a");
+        limiter.acquire("b");
+        CountDownLatch overShare = acquireInBackground(limiter, "a");
+        assertThat(overShare.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        limiter.unregister("b");
+        limiter.release("b");
+        assertThat(overShare.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.inFlight("a")).isEqualTo(3);
+    }
+
+    @Test
+    void registrationsAreReferenceCounted() throws Exception {
+        FairShareLimiter<String> limiter = new FairShareLimiter<>(2);
+        limiter.register("a");
+        limiter.register("a");
+        limiter.register("b");
+        limiter.unregister("a");
+
+        limiter.acquire("a");
+        CountDownLatch overShare = acquireInBackground(limiter, "a");
+
+        assertThat(overShare.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new FairShareLimiter<String>(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CountDownLatch acquireInBackground(FairShareLimiter<String> limiter, String key) {
+        CountDownLatch acquired = new CountDownLatch(1);
+        waiter = new Thread(() -> {
+            try {
+                limiter.acquire(key);
+                acquired.countDown();
+            } catch (InterruptedException ignored) {
+                // test teardown
+            }
+        });
+        waiter.start();
+        return acquired;
+    }
+}
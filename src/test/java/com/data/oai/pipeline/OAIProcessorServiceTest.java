@@ -0,0 +1,79 @@
+package com.data.oai.pipeline;
+
+import com.data.config.properties.OaiProcessingProperties;
+import com.data.oai.persistence.entity.Tracker;
+import com.data.shared.DataSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link OAIProcessorService}: (source, day) partitions run concurrently
+ * within the configured limits, and a failing day does not stop the others.
+ */
+class OAIProcessorServiceTest {
+
+    private final GenericFacade genericFacade = mock(GenericFacade.class);
+
+    @Test
+    void runsPartitionsConcurrentlyWithinGlobalAndPerSourceLimits() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Map<DataSource, AtomicInteger> runningBySource = new ConcurrentHashMap<>();
+        Map<DataSource, AtomicInteger> maxBySource = new ConcurrentHashMap<>();
+        when(genericFacade.getTracker(any(), any())).thenAnswer(inv -> Tracker.builder()
+                .dateStart(inv.getArgument(0))
+                .dataSource(inv.getArgument(1))
+                .build());
+        doAnswer(inv -> {
+            DataSource source = inv.<Tracker>getArgument(0).getDataSource();
+            AtomicInteger perSource = runningBySource.computeIfAbsent(source, s -> new AtomicInteger());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            maxBySource.computeIfAbsent(source, s -> new AtomicInteger())
+                    .accumulateAndGet(perSource.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            perSource.decrementAndGet();
+            running.decrementAndGet();
+            return null;
+        }).when(genericFacade).processCollectedArxivRecord(any(Tracker.class));
+
+        service(6, List.of(DataSource.ARXIV, DataSource.ZENODO), 3, 2).execute(null);
+
+        verify(genericFacade, times(12)).processCollectedArxivRecord(any(Tracker.class));
+        assertThat(maxRunning.get()).isBetween(2, 3);
+        assertThat(maxBySource.values()).allSatisfy(max -> assertThat(max.get()).isLessThanOrEqualTo(2));
+    }
+
+    @Test
+    void failedDayDoesNotStopTheRemainingPartitions() {
+        LocalDate failing = LocalDate.now().minusDays(1);
+        when(genericFacade.getTracker(any(), any())).thenAnswer(inv -> {
+            if (failing.equals(inv.getArgument(0))) {
+                throw new IllegalStateException("OAI timeout");
+            }
+            return Tracker.builder().dateStart(inv.getArgument(0)).dataSource(inv.getArgument(1)).build();
+        });
+
+        service(4, List.of(DataSource.ARXIV), 2, 2).execute(null);
+
+        verify(genericFacade, times(4)).getTracker(any(), any());
+        verify(genericFacade, times(3)).processCollectedArxivRecord(any(Tracker.class));
+    }
+
+    private OAIProcessorService service(int daysBack, List<DataSource> sources, int concurrency, int perSource) {
+        return new OAIProcessorService(genericFacade, new OaiProcessingProperties(daysBack, sources, 1, 1, null, null,
+                new OaiProcessingProperties.Partitions(concurrency, perSource)));
+    }
+}
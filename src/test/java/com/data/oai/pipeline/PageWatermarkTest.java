@@ -0,0 +1,67 @@
+package com.data.oai.pipeline;
+
+import com.data.oai.shared.dto.HarvestCheckpoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PageWatermark}: a checkpoint is reported only once its page and
+ * every earlier page have no record left in flight.
+ */
+class PageWatermarkTest {
+
+    private final List<Integer> saved = new ArrayList<>();
+    private final PageWatermark watermark = new PageWatermark(checkpoint -> saved.add(checkpoint.page()));
+
+    @Test
+    void laterPageFinishingFirstWaitsForEarlierPage() {
+        watermark.open(1);
+        watermark.submitted(1);
+        watermark.listed(1, after(1, "t1"));
+        watermark.open(2);
+        watermark.submitted(2);
+        watermark.listed(2, after(2, "t2"));
+
+        watermark.completed(2);
+        assertThat(saved).isEmpty();
+
+        watermark.completed(1);
+        assertThat(saved).containsExactly(2);
+    }
+
+    @Test
+    void pageWithoutSubmittedRecordsAdvancesWhenListed() {
+        watermark.open(4);
+        watermark.listed(4, after(4, "t4"));
+
+        assertThat(saved).containsExactly(4);
+    }
+
+    @Test
+    void pageIsNotReportedBeforeItHasBeenFullyListed() {
+        watermark.open(1);
+        watermark.submitted(1);
+        watermark.completed(1);
+        assertThat(saved).isEmpty();
+
+        watermark.listed(1, after(1, "t1"));
+        assertThat(saved).containsExactly(1);
+    }
+
+    @Test
+    void lastPageIsNotReported() {
+        watermark.open(1);
+        watermark.listed(1, after(1, null));
+
+        assertThat(saved).isEmpty();
+    }
+
+    private static HarvestCheckpoint after(int page, String token) {
+        return new HarvestCheckpoint(token, page, page * 100, Instant.now().plusSeconds(600));
+    }
+}
@@ -0,0 +1,173 @@
+package com.data.oai.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PipelineStage}: items are processed by the stage's workers,
+ * and {@link PipelineStage#submit} blocks instead of buffering beyond the queue.
+ */
+class PipelineStageTest {
+
+    private PipelineStage<Integer> stage;
+
+    @AfterEach
+    void tearDown() {
+        if (stage != null) {
+            stage.stop();
+        }
+    }
+
+    @Test
+    void processesEverySubmittedItem() throws Exception {
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(20);
+        stage = new PipelineStage<>("test", 3, 4, Executors.defaultThreadFactory(), item -> {
+            seen.add(item);
+            done.countDown();
+        });
+        stage.start();
+
+        for (int i = 0; i < 20; i++) {
+            stage.submit(i);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(List.of(
+                0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+    }
+
+    @Test
+    void submitBlocksOnceWorkersAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 2, Executors.defaultThreadFactory(), item -> {
+            workerBusy.countDown();
+            release.await();
+        });
+        stage.start();
+
+        stage.submit(1);                 // taken by the single worker
+        assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        stage.submit(2);                 // queued
+        stage.submit(3);                 // queued, queue now full
+
+        AtomicBoolean fourthAccepted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                stage.submit(4);
+                fourthAccepted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        assertThat(fourthAccepted).isFalse();
+        assertThat(stage.queueDepth()).isEqualTo(2);
+        assertThat(stage.busyWorkers()).isEqualTo(1);
+        assertThat(stage.capacity()).isEqualTo(3);
+
+        release.countDown();
+        producer.join(5_000);
+        assertThat(fourthAccepted).isTrue();
+    }
+
+    @Test
+    void stopReturnsQueuedItemsAndFailsBlockedProducers() throws Exception {
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 1, 1, Executors.defaultThreadFactory(), item -> {
+            workerBusy.countDown();
+            new CountDownLatch(1).await(); // until interrupted by stop()
+        });
+        stage.start();
+        stage.submit(1);
+        assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        stage.submit(2);
+        stage.submitLowPriority(3);
+
+        AtomicReference<Throwable> producerFailure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                stage.submit(4);
+            } catch (Throwable t) {
+                producerFailure.set(t);
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        assertThat(stage.stop()).containsExactly(2, 3);
+        producer.join(5_000);
+        assertThat(producerFailure.get()).isInstanceOf(InterruptedException.class);
+        assertThat(stage.queueDepth()).isZero();
+        assertThatThrownBy(() -> stage.submit(5)).isInstanceOf(InterruptedException.class);
+    }
+
+    @Test
+    void failingItemDoesNotStopTheWorker() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 2, Executors.defaultThreadFactory(), item -> {
+            if (item == 1) {
+                throw new IllegalStateException("boom");
+            }
+            done.countDown();
+        });
+        stage.start();
+
+        stage.submit(1);
+        stage.submit(2);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void lowPriorityItemsRunOnlyWhenNoNormalItemIsWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        stage = new PipelineStage<>("test", 1, 4, 4, Executors.defaultThreadFactory(), item -> {
+            if (item == 0) {
+                workerBusy.countDown();
+                release.await();
+            }
+            order.add(item);
+            done.countDown();
+        });
+        stage.start();
+
+        stage.submit(0);                 // holds the single worker
+        assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        stage.submitLowPriority(10);
+        stage.submitLowPriority(11);
+        stage.submit(1);
+        stage.submit(2);
+        assertThat(stage.queueDepth()).isEqualTo(4);
+        assertThat(stage.lowPriorityDepth()).isEqualTo(2);
+        assertThat(stage.capacity()).isEqualTo(9);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(0, 1, 2, 10, 11);
+    }
+
+    @Test
+    void rejectsNonPositiveSizes() {
+        assertThatThrownBy(() -> new PipelineStage<Integer>("bad", 0, 1, Executors.defaultThreadFactory(), item -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
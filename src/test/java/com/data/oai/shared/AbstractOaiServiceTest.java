@@ -0,0 +1,192 @@
+package com.data.oai.shared;
+
+import com.data.config.properties.BlobCacheProperties;
+import com.data.config.properties.PdfTransferProperties;
+import com.data.oai.shared.dto.HarvestCheckpoint;
+import com.data.oai.shared.dto.OaiPage;
+import com.data.oai.shared.dto.PdfContent;
+import com.data.oai.shared.dto.Record;
+import com.data.shared.DataSource;
+import com.data.shared.cache.BlobCache;
+import com.data.shared.exception.ResumptionTokenRejectedException;
+import com.data.shared.http.BodySpooler;
+import com.data.shared.http.SpooledBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the pagination loop in {@link AbstractOaiService}: checkpoints after
+ * every page and resuming from one. Also covers {@link AbstractOaiService#cachedDownload},
+ * which must only cache PDFs and recover from broken entries.
+ */
+class AbstractOaiServiceTest {
+
+    private static final Instant EXPIRES = Instant.parse("2030-01-01T00:00:00Z");
+    private static final byte[] PDF = "%PDF-1.7 body".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reportsCheckpointAfterEveryPage() {
+        FakeOaiService service = new FakeOaiService(Map.of("first", "t1", "t1", "t2", "t2", ""));
+        List<HarvestCheckpoint> checkpoints = new ArrayList<>();
+
+        int listed = service.forEachPage("2026-01-01", "2026-01-02", null, (page, after) -> checkpoints.add(after));
+
+        assertThat(listed).isEqualTo(6);
+        assertThat(checkpoints).extracting(HarvestCheckpoint::page).containsExactly(1, 2, 3);
+        assertThat(checkpoints).extracting(HarvestCheckpoint::listed).containsExactly(2, 4, 6);
+        assertThat(checkpoints.get(0).resumptionToken()).isEqualTo("t1");
+        assertThat(checkpoints.get(0).expiresAt()).isEqualTo(EXPIRES);
+        assertThat(checkpoints.get(2).resumableAt(Instant.now())).isFalse();
+    }
+
+    @Test
+    void resumesAfterCheckpointWithoutListingEarlierPages() {
+        FakeOaiService service = new FakeOaiService(Map.of("first", "t1", "t1", "t2", "t2", ""));
+        List<HarvestCheckpoint> checkpoints = new ArrayList<>();
+
+        int listed = service.forEachPage("2026-01-01", "2026-01-02", new HarvestCheckpoint("t2", 2, 4, EXPIRES),
+                (page, after) -> checkpoints.add(after));
+
+        assertThat(service.requestedTokens).containsExactly("t2");
+        assertThat(listed).isEqualTo(6);
+        assertThat(checkpoints).extracting(HarvestCheckpoint::page).containsExactly(3);
+    }
+
+    @Test
+    void rejectedTokenFailsTheHarvest() {
+        FakeOaiService service = new FakeOaiService(Map.of("first", "t1"));
+
+        assertThatThrownBy(() -> service.forEachPage("2026-01-01", "2026-01-02",
+                new HarvestCheckpoint("stale", 5, 500, EXPIRES), (page, after) -> {}))
+                .isInstanceOf(ResumptionTokenRejectedException.class);
+    }
+
+    @Test
+    void pdfDownloadIsServedFromCacheOnTheSecondCall() throws Exception {
+        FakeOaiService service = cachingService();
+        AtomicInteger downloads = new AtomicInteger();
+
+        service.cachedDownload("https://x/1.pdf", () -> body(downloads, PDF)).close();
+        try (SpooledBody second = service.cachedDownload("https://x/1.pdf", () -> body(downloads, PDF))) {
+            assertThat(second.head(PDF.length)).isEqualTo(PDF);
+        }
+
+        assertThat(downloads).hasValue(1);
+    }
+
+    @Test
+    void nonPdfDownloadIsNotCached() {
+        FakeOaiService service = cachingService();
+        AtomicInteger downloads = new AtomicInteger();
+        byte[] captcha = "<html>Please verify you are human</html>".getBytes(StandardCharsets.UTF_8);
+
+        service.cachedDownload("https://x/2.pdf", () -> body(downloads, captcha)).close();
+        service.cachedDownload("https://x/2.pdf", () -> body(downloads, captcha)).close();
+
+        assertThat(downloads).hasValue(2);
+    }
+
+    @Test
+    void corruptCacheEntryIsDroppedAndDownloadedAgain() throws Exception {
+        FakeOaiService service = cachingService();
+        AtomicInteger downloads = new AtomicInteger();
+        service.cachedDownload("https://x/3.pdf", () -> body(downloads, PDF)).close();
+        try (Stream<Path> files = Files.walk(dir.resolve("cache"))) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.write(file, new byte[]{1, 2, 3}); // not a zstd frame
+            }
+        }
+
+        try (SpooledBody body = service.cachedDownload("https://x/3.pdf", () -> body(downloads, PDF))) {
+            assertThat(body.head(PDF.length)).isEqualTo(PDF);
+        }
+        service.cachedDownload("https://x/3.pdf", () -> body(downloads, PDF)).close();
+
+        assertThat(downloads).hasValue(2); // re-downloaded once, then cached again
+    }
+
+    private FakeOaiService cachingService() {
+        BlobCache cache = new BlobCache(new BlobCacheProperties(true, dir.resolve("cache").toString(), 10, 0),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(cache, "start"); // @PostConstruct
+        BodySpooler spooler = new BodySpooler(new PdfTransferProperties(dir.resolve("spool").toString(), 1, 1),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(spooler, "start");
+        return new FakeOaiService(Map.of(), cache, spooler);
+    }
+
+    private static SpooledBody body(AtomicInteger downloads, byte[] content) {
+        downloads.incrementAndGet();
+        return SpooledBody.ofBytes(content);
+    }
+
+    /** Serves two records per page; {@code nextToken} maps the requested token ("first" for none) to the next one. */
+    private static final class FakeOaiService extends AbstractOaiService {
+        private final Map<String, String> nextToken;
+        private final List<String> requestedTokens = new ArrayList<>();
+
+        private FakeOaiService(Map<String, String> nextToken) {
+            this(nextToken, new BlobCache(new BlobCacheProperties(false, null, 0, 0), new SimpleMeterRegistry()), null);
+        }
+
+        private FakeOaiService(Map<String, String> nextToken, BlobCache blobCache, BodySpooler spooler) {
+            super(blobCache, spooler);
+            this.nextToken = nextToken;
+        }
+
+        @Override
+        protected byte[] callListRecords(String from, String until, String token) {
+            requestedTokens.add(token);
+            String key = token == null ? "first" : token;
+            if (!nextToken.containsKey(key)) {
+                return "<OAI-PMH><error code=\"badResumptionToken\"/></OAI-PMH>".getBytes(StandardCharsets.UTF_8);
+            }
+            return nextToken.get(key).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected OaiPage parseResponse(byte[] xmlBytes) {
+            String token = new String(xmlBytes, StandardCharsets.UTF_8);
+            return new OaiPage(List.of(new Record(), new Record()), token.isEmpty() ? null : token,
+                    token.isEmpty() ? null : EXPIRES);
+        }
+
+        @Override
+        protected String sourceName() {
+            return "Fake";
+        }
+
+        @Override
+        protected long paginationDelayMs() {
+            return 0;
+        }
+
+        @Override
+        public PdfContent getPdf(String sourceId) {
+            return null;
+        }
+
+        @Override
+        public DataSource supports() {
+            return DataSource.ARXIV;
+        }
+    }
+}
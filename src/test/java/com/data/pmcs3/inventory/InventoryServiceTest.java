@@ -1,16 +1,23 @@
 package com.data.pmcs3.inventory;
 
 import com.data.pmcs3.client.PmcS3Client;
+import com.data.shared.http.HttpExchangeSupport.BodyReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -19,97 +26,21 @@ import static org.mockito.Mockito.when;
 /**
  * Unit tests for {@link InventoryService}.
  *
- * <p>Split into two concerns:
- * <ul>
- *   <li>{@link InventoryService#dedupeByPmcIdKeepingHighestVersion} — in-memory
- *       collapse of multi-version inventory rows.</li>
- *   <li>{@link InventoryService#fetchInventory} — JSON manifest parsing +
- *       gzipped CSV row-shape handling via a mocked {@link PmcS3Client}.</li>
- * </ul>
+ * <p>Covers {@link InventoryService#fetchInventory}: JSON manifest parsing,
+ * gzipped CSV row-shape handling via a mocked {@link PmcS3Client}, and merging of
+ * data files read in parallel. Collapsing versions is tested in
+ * {@link PmcVersionMapTest}.</p>
  */
 class InventoryServiceTest {
 
     private static final String MANIFEST_KEY =
             "inventory-reports/pmc-oa-opendata/metadata/2026-04-10T00-00Z/manifest.json";
 
-    // ------------------------------------------------------------------
-    // dedupeByPmcIdKeepingHighestVersion
-    // ------------------------------------------------------------------
-
-    @Test
-    void keepsHigherVersionWhenTwoVersionsOfSamePmcId() {
-        InventoryEntry v1 = new InventoryEntry("7744736", 1, "PMC7744736.1");
-        InventoryEntry v2 = new InventoryEntry("7744736", 2, "PMC7744736.2");
-
-        List<InventoryEntry> result = InventoryService.dedupeByPmcIdKeepingHighestVersion(List.of(v1, v2));
-
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).version()).isEqualTo(2);
-        assertThat(result.get(0).keyBase()).isEqualTo("PMC7744736.2");
-    }
-
-    @Test
-    void keepsHighestOfThreeVersionsRegardlessOfOrder() {
-        InventoryEntry v1 = new InventoryEntry("42", 1, "PMC42.1");
-        InventoryEntry v2 = new InventoryEntry("42", 2, "PMC42.2");
-        InventoryEntry v3 = new InventoryEntry("42", 3, "PMC42.3");
-
-        // Out of order to prove we don't rely on input ordering.
-        List<InventoryEntry> result = InventoryService.dedupeByPmcIdKeepingHighestVersion(List.of(v2, v1, v3));
-
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).version()).isEqualTo(3);
-    }
-
-    @Test
-    void preservesSingletonUnchanged() {
-        InventoryEntry only = new InventoryEntry("10009416", 1, "PMC10009416.1");
-
-        List<InventoryEntry> result = InventoryService.dedupeByPmcIdKeepingHighestVersion(List.of(only));
-
-        assertThat(result).containsExactly(only);
-    }
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
 
-    @Test
-    void keepsUnrelatedPmcIdsSideBySide() {
-        InventoryEntry a = new InventoryEntry("1", 1, "PMC1.1");
-        InventoryEntry b = new InventoryEntry("2", 1, "PMC2.1");
-        InventoryEntry c = new InventoryEntry("3", 1, "PMC3.1");
-
-        List<InventoryEntry> result = InventoryService.dedupeByPmcIdKeepingHighestVersion(List.of(a, b, c));
-
-        assertThat(result).hasSize(3);
-        assertThat(result).extracting(InventoryEntry::pmcId).containsExactlyInAnyOrder("1", "2", "3");
-    }
-
-    @Test
-    void dedupesDuplicatesMixedWithSingletons() {
-        InventoryEntry dup1v1 = new InventoryEntry("100", 1, "PMC100.1");
-        InventoryEntry dup1v2 = new InventoryEntry("100", 2, "PMC100.2");
-        InventoryEntry single = new InventoryEntry("200", 1, "PMC200.1");
-        InventoryEntry dup2v1 = new InventoryEntry("300", 1, "PMC300.1");
-        InventoryEntry dup2v3 = new InventoryEntry("300", 3, "PMC300.3");
-        InventoryEntry dup2v2 = new InventoryEntry("300", 2, "PMC300.2");
-
-        List<InventoryEntry> result = InventoryService.dedupeByPmcIdKeepingHighestVersion(
-                List.of(dup1v1, dup1v2, single, dup2v1, dup2v3, dup2v2));
-
-        assertThat(result).hasSize(3);
-        assertThat(result).extracting(InventoryEntry::pmcId).containsExactlyInAnyOrder("100", "200", "300");
-        // Highest version wins for each deduped group.
-        assertThat(result).filteredOn(e -> "100".equals(e.pmcId())).singleElement()
-                .satisfies(e -> assertThat(e.version()).isEqualTo(2));
-        assertThat(result).filteredOn(e -> "300".equals(e.pmcId())).singleElement()
-                .satisfies(e -> assertThat(e.version()).isEqualTo(3));
-        // Singleton passes through untouched.
-        assertThat(result).filteredOn(e -> "200".equals(e.pmcId())).singleElement()
-                .satisfies(e -> assertThat(e.version()).isEqualTo(1));
-    }
-
-    @Test
-    void handlesEmptyAndNullInputs() {
-        assertThat(InventoryService.dedupeByPmcIdKeepingHighestVersion(List.of())).isEmpty();
-        assertThat(InventoryService.dedupeByPmcIdKeepingHighestVersion(null)).isEmpty();
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
     }
 
     // ------------------------------------------------------------------
@@ -131,16 +62,16 @@ class InventoryServiceTest {
         when(client.downloadText(MANIFEST_KEY)).thenReturn(manifest);
         // Return an empty (but valid) gzipped CSV for both data files — the test
         // cares that BOTH keys were requested, not what comes out of them.
-        when(client.downloadBytes("inventory-reports/data/part-0.csv.gz")).thenReturn(gzip(""));
-        when(client.downloadBytes("inventory-reports/data/part-1.csv.gz")).thenReturn(gzip(""));
+        stubDataFile(client, "inventory-reports/data/part-0.csv.gz", gzip(""));
+        stubDataFile(client, "inventory-reports/data/part-1.csv.gz", gzip(""));
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         // Both data files were fetched (verifies both keys were extracted in order).
         assertThat(result).isEmpty();
-        org.mockito.Mockito.verify(client).downloadBytes("inventory-reports/data/part-0.csv.gz");
-        org.mockito.Mockito.verify(client).downloadBytes("inventory-reports/data/part-1.csv.gz");
+        org.mockito.Mockito.verify(client).downloadStream(eq("inventory-reports/data/part-0.csv.gz"), any());
+        org.mockito.Mockito.verify(client).downloadStream(eq("inventory-reports/data/part-1.csv.gz"), any());
     }
 
     @Test
@@ -148,12 +79,12 @@ class InventoryServiceTest {
         PmcS3Client client = mock(PmcS3Client.class);
         when(client.downloadText(MANIFEST_KEY)).thenReturn("{\"files\": []}");
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         assertThat(result).isEmpty();
         // No data file downloads should have been attempted.
-        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadBytes(anyString());
+        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadStream(anyString(), any());
     }
 
     @Test
@@ -163,11 +94,11 @@ class InventoryServiceTest {
         // returns a MissingNode whose spliterator is empty.
         when(client.downloadText(MANIFEST_KEY)).thenReturn("{\"sourceBucket\": \"pmc-oa-opendata\"}");
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         assertThat(result).isEmpty();
-        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadBytes(anyString());
+        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadStream(anyString(), any());
     }
 
     @Test
@@ -175,13 +106,13 @@ class InventoryServiceTest {
         PmcS3Client client = mock(PmcS3Client.class);
         when(client.downloadText(MANIFEST_KEY)).thenReturn("not json at all");
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
 
         // Must not throw — best-effort pipeline semantics.
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         assertThat(result).isEmpty();
-        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadBytes(anyString());
+        org.mockito.Mockito.verify(client, org.mockito.Mockito.never()).downloadStream(anyString(), any());
     }
 
     // ------------------------------------------------------------------
@@ -203,9 +134,9 @@ class InventoryServiceTest {
                 "pmc-oa-opendata,oa_comm_txt/PMC10009418.5.txt\n";
 
         when(client.downloadText(MANIFEST_KEY)).thenReturn(manifest);
-        when(client.downloadBytes(eq("data/part-0.csv.gz"))).thenReturn(gzip(csv));
+        stubDataFile(client, "data/part-0.csv.gz", gzip(csv));
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         assertThat(result).hasSize(2);
@@ -230,9 +161,9 @@ class InventoryServiceTest {
         String csv = "\"foo,bar\",metadata/PMC42.1.json\n";
 
         when(client.downloadText(MANIFEST_KEY)).thenReturn(manifest);
-        when(client.downloadBytes(eq("data/part-0.csv.gz"))).thenReturn(gzip(csv));
+        stubDataFile(client, "data/part-0.csv.gz", gzip(csv));
 
-        InventoryService service = new InventoryService(client, new ObjectMapper());
+        InventoryService service = service(client);
         List<InventoryEntry> result = service.fetchInventory(MANIFEST_KEY);
 
         assertThat(result).hasSize(1);
@@ -241,10 +172,112 @@ class InventoryServiceTest {
         assertThat(result.get(0).keyBase()).isEqualTo("PMC42.1");
     }
 
+    @Test
+    void parsesCsvKeysWithQuotedNewlinesEscapedQuotesAndCrlf() throws IOException {
+        PmcS3Client client = mock(PmcS3Client.class);
+        String csv =
+                "\"multi\nline\",\"metadata/PMC1.1.json\"\r\n" +
+                "\"say \"\"hi\"\"\",metadata/PMC2.3.json,\"extra\"\r\n" +
+                "\n" +
+                "pmc-oa-opendata,\"metadata/PMC3.1.json\"";  // no trailing newline
+
+        when(client.downloadText(MANIFEST_KEY)).thenReturn("{\"files\": [{\"key\": \"data/part-0.csv.gz\"}]}");
+        stubDataFile(client, "data/part-0.csv.gz", gzip(csv));
+
+        List<InventoryEntry> result = service(client).fetchInventory(MANIFEST_KEY);
+
+        assertThat(result).extracting(InventoryEntry::keyBase)
+                .containsExactly("PMC1.1", "PMC2.3", "PMC3.1");
+    }
+
+    @Test
+    void skipsKeysThatFromS3KeyRejects() throws IOException {
+        PmcS3Client client = mock(PmcS3Client.class);
+        String csv = String.join("\n",
+                "b,metadata/PMC10009416.json",
+                "b,metadata/PMC.1.json",
+                "b,metadata/PMC12a.1.json",
+                "b,metadata/PMC12.1.json.gz",
+                "b,xmetadata/PMC12.1.json",
+                "b,metadata/PMC12.1234567890.json",
+                "b,metadata/PMC1234567890123456789.1.json",
+                "b",
+                "b,metadata/PMC77.2.json");
+
+        when(client.downloadText(MANIFEST_KEY)).thenReturn("{\"files\": [{\"key\": \"data/part-0.csv.gz\"}]}");
+        stubDataFile(client, "data/part-0.csv.gz", gzip(csv));
+
+        assertThat(service(client).fetchInventory(MANIFEST_KEY)).containsExactly(new InventoryEntry("77", 2, "PMC77.2"));
+    }
+
+    @Test
+    void mergesDataFilesInManifestOrderKeepingHighestVersionAcrossFiles() throws IOException {
+        PmcS3Client client = mock(PmcS3Client.class);
+        String manifest = """
+                {"files": [{"key": "data/part-0.csv.gz"}, {"key": "data/part-1.csv.gz"}, {"key": "data/part-2.csv.gz"}]}
+                """;
+        when(client.downloadText(MANIFEST_KEY)).thenReturn(manifest);
+        stubDataFile(client, "data/part-0.csv.gz", gzip("b,metadata/PMC5.1.json\nb,metadata/PMC6.2.json\n"));
+        stubDataFile(client, "data/part-1.csv.gz", gzip("b,metadata/PMC7.1.json\nb,metadata/PMC5.3.json\n"));
+        stubDataFile(client, "data/part-2.csv.gz", gzip("b,metadata/PMC6.1.json\n"));
+
+        List<InventoryEntry> result = service(client).fetchInventory(MANIFEST_KEY);
+
+        assertThat(result).containsExactly(
+                new InventoryEntry("5", 3, "PMC5.3"),
+                new InventoryEntry("6", 2, "PMC6.2"),
+                new InventoryEntry("7", 1, "PMC7.1"));
+    }
+
+    @Test
+    void skipsMissingAndCorruptDataFilesButKeepsTheOthers() throws IOException {
+        PmcS3Client client = mock(PmcS3Client.class);
+        String manifest = """
+                {"files": [{"key": "data/missing.csv.gz"}, {"key": "data/corrupt.csv.gz"}, {"key": "data/ok.csv.gz"}]}
+                """;
+        when(client.downloadText(MANIFEST_KEY)).thenReturn(manifest);
+        stubDataFile(client, "data/corrupt.csv.gz", "not gzip at all".getBytes(StandardCharsets.UTF_8));
+        stubDataFile(client, "data/ok.csv.gz", gzip("b,metadata/PMC9.1.json\n"));
+
+        List<InventoryEntry> result = service(client).fetchInventory(MANIFEST_KEY);
+
+        assertThat(result).containsExactly(new InventoryEntry("9", 1, "PMC9.1"));
+    }
+
+    @Test
+    void keepsHighestVersionOverManyDistinctIds() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int v = 1; v <= 3; v++) {
+            for (int id = 1; id <= 50_000; id++) {
+                csv.append("b,metadata/PMC").append(id).append('.').append(id % 2 == 0 ? 4 - v : v).append(".json\n");
+            }
+        }
+
+        List<InventoryEntry> result = InventoryService.parseGzippedCsv(
+                new ByteArrayInputStream(gzip(csv.toString()))).toEntries();
+
+        assertThat(result).hasSize(50_000);
+        assertThat(result).allMatch(e -> e.version() == 3);
+        assertThat(result.get(0).pmcId()).isEqualTo("1");
+        assertThat(result.get(49_999).pmcId()).isEqualTo("50000");
+    }
+
     // ------------------------------------------------------------------
     // helpers
     // ------------------------------------------------------------------
 
+    private InventoryService service(PmcS3Client client) {
+        InventoryService service = new InventoryService(client, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "pmcS3Executor", executor);
+        return service;
+    }
+
+    /** Serves {@code gz} as the body of {@code key}, as the streaming download would. */
+    private static void stubDataFile(PmcS3Client client, String key, byte[] gz) {
+        when(client.downloadStream(eq(key), any())).thenAnswer(inv ->
+                inv.<BodyReader<?>>getArgument(1).read(new ByteArrayInputStream(gz)));
+    }
+
     private static byte[] gzip(String content) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (GZIPOutputStream gz = new GZIPOutputStream(baos)) {
@@ -0,0 +1,105 @@
+package com.data.pmcs3.inventory;
+
+import com.data.config.properties.PmcS3Properties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link InventorySnapshotStore}, {@link InventorySnapshot} and
+ * {@link InventoryDiff}: the snapshot round-trips through its mapped file, and
+ * the diff reports new and re-versioned articles only.
+ */
+class InventorySnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotRoundTripsManyIdsInAnyOrder() throws IOException {
+        PmcVersionMap versions = new PmcVersionMap();
+        for (long id = 200_000; id > 0; id -= 3) {
+            versions.putMax(id, (int) (id % 7));
+        }
+        Path file = dir.resolve("inventory.snap");
+
+        InventorySnapshot.write(file, versions);
+        InventorySnapshot snapshot = InventorySnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(versions.size());
+        assertThat(snapshot.versionOf(199_997)).isEqualTo(199_997 % 7);
+        assertThat(snapshot.versionOf(2)).isEqualTo(2);
+        assertThat(snapshot.versionOf(3)).isEqualTo(-1);
+        assertThat(snapshot.versionOf(0)).isEqualTo(-1);
+        assertThat(snapshot.versionOf(Long.MAX_VALUE)).isEqualTo(-1);
+    }
+
+    @Test
+    void truncatedSnapshotIsRejectedAndTheStoreStartsOver() throws IOException {
+        PmcVersionMap versions = new PmcVersionMap();
+        versions.putMax(1, 1);
+        versions.putMax(2, 1);
+        Path file = dir.resolve("pmc-inventory.snap");
+        InventorySnapshot.write(file, versions);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThatThrownBy(() -> InventorySnapshot.open(file)).isInstanceOf(IOException.class);
+        assertThat(store(dir.toString()).load()).isSameAs(InventorySnapshot.EMPTY);
+    }
+
+    @Test
+    void diffReportsNewAndBumpedArticlesInInventoryOrder() {
+        InventorySnapshotStore store = store(dir.toString());
+        store.save(InventorySnapshot.EMPTY, List.of(entry(10, 1), entry(11, 2), entry(12, 1)), e -> true);
+
+        InventoryDiff diff = InventoryDiff.between(store.load(),
+                List.of(entry(13, 1), entry(12, 3), entry(11, 2), entry(10, 1), entry(9, 1), entry(11, 1)));
+
+        assertThat(diff.added()).containsExactly(entry(13, 1), entry(9, 1));
+        assertThat(diff.updated()).containsExactly(entry(12, 3));
+        assertThat(diff.unchanged()).isEqualTo(3);
+    }
+
+    @Test
+    void unsettledEntriesKeepTheirPreviousVersionOrAreLeftOut() {
+        InventorySnapshotStore store = store(dir.toString());
+        store.save(InventorySnapshot.EMPTY, List.of(entry(1, 1), entry(2, 1)), e -> true);
+        InventorySnapshot previous = store.load();
+
+        List<InventoryEntry> current = new ArrayList<>(List.of(entry(1, 2), entry(3, 1), entry(4, 1)));
+        store.save(previous, current, e -> e.pmcId().equals("4"));
+
+        InventorySnapshot next = store.load();
+        assertThat(next.versionOf(1)).isEqualTo(1);
+        assertThat(next.versionOf(2)).as("no longer in the inventory").isEqualTo(-1);
+        assertThat(next.versionOf(3)).isEqualTo(-1);
+        assertThat(next.versionOf(4)).isEqualTo(1);
+    }
+
+    @Test
+    void blankDirectoryDisablesTheSnapshot() {
+        InventorySnapshotStore store = store("");
+
+        store.save(InventorySnapshot.EMPTY, List.of(entry(1, 1)), e -> true);
+
+        assertThat(store.load()).isSameAs(InventorySnapshot.EMPTY);
+    }
+
+    private static InventorySnapshotStore store(String snapshotDir) {
+        return new InventorySnapshotStore(new PmcS3Properties(null, null, 1, 1, null, 0, null, snapshotDir, true));
+    }
+
+    private static InventoryEntry entry(long pmcId, int version) {
+        return new InventoryEntry(Long.toString(pmcId), version, "PMC" + pmcId + "." + version);
+    }
+}
@@ -0,0 +1,106 @@
+package com.data.pmcs3.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PmcVersionMap}: collapsing multi-version inventory rows
+ * to the highest version per PMC id, in first-seen order.
+ */
+class PmcVersionMapTest {
+
+    @Test
+    void keepsHigherVersionWhenTwoVersionsOfSamePmcId() {
+        List<InventoryEntry> result = collapse(
+                new InventoryEntry("7744736", 1, "PMC7744736.1"),
+                new InventoryEntry("7744736", 2, "PMC7744736.2"));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).version()).isEqualTo(2);
+        assertThat(result.get(0).keyBase()).isEqualTo("PMC7744736.2");
+    }
+
+    @Test
+    void keepsHighestOfThreeVersionsRegardlessOfOrder() {
+        // Out of order to prove we don't rely on input ordering.
+        List<InventoryEntry> result = collapse(
+                new InventoryEntry("42", 2, "PMC42.2"),
+                new InventoryEntry("42", 1, "PMC42.1"),
+                new InventoryEntry("42", 3, "PMC42.3"));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).version()).isEqualTo(3);
+    }
+
+    @Test
+    void preservesSingletonUnchanged() {
+        InventoryEntry only = new InventoryEntry("10009416", 1, "PMC10009416.1");
+
+        assertThat(collapse(only)).containsExactly(only);
+    }
+
+    @Test
+    void keepsUnrelatedPmcIdsInFirstSeenOrder() {
+        List<InventoryEntry> result = collapse(
+                new InventoryEntry("3", 1, "PMC3.1"),
+                new InventoryEntry("1", 1, "PMC1.1"),
+                new InventoryEntry("2", 1, "PMC2.1"));
+
+        assertThat(result).extracting(InventoryEntry::pmcId).containsExactly("3", "1", "2");
+    }
+
+    @Test
+    void collapsesDuplicatesMixedWithSingletons() {
+        List<InventoryEntry> result = collapse(
+                new InventoryEntry("100", 1, "PMC100.1"),
+                new InventoryEntry("100", 2, "PMC100.2"),
+                new InventoryEntry("200", 1, "PMC200.1"),
+                new InventoryEntry("300", 1, "PMC300.1"),
+                new InventoryEntry("300", 3, "PMC300.3"),
+                new InventoryEntry("300", 2, "PMC300.2"));
+
+        assertThat(result).containsExactly(
+                new InventoryEntry("100", 2, "PMC100.2"),
+                new InventoryEntry("200", 1, "PMC200.1"),
+                new InventoryEntry("300", 3, "PMC300.3"));
+    }
+
+    @Test
+    void emptyMapHasNoEntries() {
+        PmcVersionMap versions = new PmcVersionMap();
+
+        assertThat(versions.size()).isZero();
+        assertThat(versions.toEntries()).isEmpty();
+        assertThat(versions.get(1)).isEqualTo(-1);
+    }
+
+    @Test
+    void putAllKeepsHigherVersionAndAppendsNewIds() {
+        PmcVersionMap first = new PmcVersionMap();
+        first.putMax(5, 1);
+        first.putMax(6, 2);
+        PmcVersionMap second = new PmcVersionMap();
+        second.putMax(7, 1);
+        second.putMax(5, 3);
+        second.putMax(6, 1);
+
+        first.putAll(second);
+
+        assertThat(first.toEntries()).containsExactly(
+                new InventoryEntry("5", 3, "PMC5.3"),
+                new InventoryEntry("6", 2, "PMC6.2"),
+                new InventoryEntry("7", 1, "PMC7.1"));
+        assertThat(first.sortedIds()).containsExactly(5, 6, 7);
+    }
+
+    private static List<InventoryEntry> collapse(InventoryEntry... entries) {
+        PmcVersionMap versions = new PmcVersionMap(entries.length);
+        for (InventoryEntry entry : entries) {
+            versions.putMax(Long.parseLong(entry.pmcId()), entry.version());
+        }
+        return versions.toEntries();
+    }
+}
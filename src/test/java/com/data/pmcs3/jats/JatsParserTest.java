@@ -213,6 +213,32 @@ class JatsParserTest {
         assertThat(doc.references().get(2).year()).isNull();
     }
 
+    @Test
+    void parseArticleMatchesTheSeparateExtractors() {
+        String jats = FULL_JATS.replace("<kwd-group>",
+                "<pub-date pub-type=\"epub\"><year>2021</year><month>3</month></pub-date>\n<kwd-group>");
+
+        JatsArticle article = JatsParser.parseArticle("1234", "PMID:5678", jats);
+
+        assertThat(article.document()).usingRecursiveComparison()
+                .isEqualTo(JatsParser.parse("1234", "PMID:5678", jats));
+        assertThat(article.authors()).usingRecursiveComparison().isEqualTo(JatsParser.extractAuthors(jats));
+        assertThat(article.doi()).isEqualTo("10.1234/example.5678");
+        assertThat(article.language()).isEqualTo("en");
+        assertThat(article.publicationDate()).isEqualTo("2021-03-01");
+    }
+
+    @Test
+    void parseArticleOfBlankXmlIsEmpty() {
+        JatsArticle article = JatsParser.parseArticle("1234", "PMID:5678", " ");
+
+        assertThat(article.document().sourceId()).isEqualTo("1234");
+        assertThat(article.authors()).isEmpty();
+        assertThat(article.doi()).isNull();
+        assertThat(article.language()).isNull();
+        assertThat(article.publicationDate()).isNull();
+    }
+
     @Test
     void handlesEmptyXmlGracefully() {
         PaperDocument doc = JatsParser.parse("1234", "PMID:5678", null);
@@ -1,111 +1,120 @@
 package com.data.pmcs3.persistence;
 
+import com.data.pmcs3.persistence.entity.PmcS3Tracker;
+import com.data.pmcs3.persistence.entity.PmcS3TrackerStatus;
 import com.data.pmcs3.persistence.repository.PmcS3TrackerRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 /**
- * Unit tests for {@link PmcS3TrackerService#incrementSkipped(Long, SkipReason)}.
+ * Unit tests for the coalesced counters of {@link PmcS3TrackerService}.
  *
- * <p>The service's job here is purely dispatch: translate a {@link SkipReason}
- * enum value into a call to the matching per-column atomic counter on
- * {@link PmcS3TrackerRepository}. Because the repository queries hit real SQL
- * paths that aren't exercised by unit tests, the contract we guard here is
- * simply that the correct repository method is invoked — exactly once, with
- * the correct tracker id, and no other repository method is called as a
- * side effect.
+ * <p>Increments must not touch the database; a flush must translate every
+ * {@link SkipReason} into the matching column delta of a single
+ * {@link PmcS3TrackerRepository#addCounters} call. The SQL itself isn't
+ * exercised by unit tests, so the contract guarded here is the dispatch: the
+ * right delta in the right position, once per tracker, and nothing else.
  */
 class PmcS3TrackerServiceTest {
 
     private static final Long TRACKER_ID = 1L;
 
+    private final PmcS3TrackerRepository repository = mock(PmcS3TrackerRepository.class);
+    private final PmcS3TrackerService service = new PmcS3TrackerService(repository);
+
     @ParameterizedTest
     @EnumSource(SkipReason.class)
-    void dispatchesToCorrectRepositoryMethod_forEverySkipReason(SkipReason reason) {
-        PmcS3TrackerRepository repository = mock(PmcS3TrackerRepository.class);
-        PmcS3TrackerService service = new PmcS3TrackerService(repository);
-
+    void flushWritesSkipToCorrectColumn_forEverySkipReason(SkipReason reason) {
         service.incrementSkipped(TRACKER_ID, reason);
+        verifyNoInteractions(repository);
 
-        switch (reason) {
-            case LICENSE -> {
-                verify(repository).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedIo(TRACKER_ID);
-                verify(repository, never()).incrementSkippedInterrupted(TRACKER_ID);
-            }
-            case MISSING_METADATA -> {
-                verify(repository).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedIo(TRACKER_ID);
-                verify(repository, never()).incrementSkippedInterrupted(TRACKER_ID);
-            }
-            case MISSING_JATS -> {
-                verify(repository).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedIo(TRACKER_ID);
-                verify(repository, never()).incrementSkippedInterrupted(TRACKER_ID);
-            }
-            case DUPLICATE -> {
-                verify(repository).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedIo(TRACKER_ID);
-                verify(repository, never()).incrementSkippedInterrupted(TRACKER_ID);
-            }
-            case IO -> {
-                verify(repository).incrementSkippedIo(TRACKER_ID);
-                verify(repository, never()).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedInterrupted(TRACKER_ID);
-            }
-            case INTERRUPTED -> {
-                verify(repository).incrementSkippedInterrupted(TRACKER_ID);
-                verify(repository, never()).incrementSkippedLicense(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingMetadata(TRACKER_ID);
-                verify(repository, never()).incrementSkippedMissingJats(TRACKER_ID);
-                verify(repository, never()).incrementSkippedDuplicate(TRACKER_ID);
-                verify(repository, never()).incrementSkippedIo(TRACKER_ID);
-            }
-        }
+        service.flushCounters();
+
+        verify(repository).addCounters(TRACKER_ID, 0,
+                reason == SkipReason.LICENSE ? 1 : 0,
+                reason == SkipReason.MISSING_METADATA ? 1 : 0,
+                reason == SkipReason.MISSING_JATS ? 1 : 0,
+                reason == SkipReason.DUPLICATE ? 1 : 0,
+                reason == SkipReason.IO ? 1 : 0,
+                reason == SkipReason.INTERRUPTED ? 1 : 0);
         verifyNoMoreInteractions(repository);
     }
 
     @Test
-    void everySkipReasonIsHandled_noEnumValueFallsThrough() {
-        // Guardrail: if a new SkipReason is added, the service's switch must be
-        // exhaustive. A missing case would compile-fail on the production
-        // switch statement, but this test also locks the behavior explicitly
-        // by invoking every enum value without exception.
-        PmcS3TrackerRepository repository = mock(PmcS3TrackerRepository.class);
-        PmcS3TrackerService service = new PmcS3TrackerService(repository);
-
+    void manyIncrementsAreCoalescedIntoOneUpdate() {
+        for (int i = 0; i < 500; i++) {
+            service.incrementProcessed(TRACKER_ID);
+        }
         for (SkipReason reason : SkipReason.values()) {
             service.incrementSkipped(TRACKER_ID, reason);
         }
 
-        // Exactly one call per reason — total six verified repo interactions.
-        verify(repository).incrementSkippedLicense(TRACKER_ID);
-        verify(repository).incrementSkippedMissingMetadata(TRACKER_ID);
-        verify(repository).incrementSkippedMissingJats(TRACKER_ID);
-        verify(repository).incrementSkippedDuplicate(TRACKER_ID);
-        verify(repository).incrementSkippedIo(TRACKER_ID);
-        verify(repository).incrementSkippedInterrupted(TRACKER_ID);
+        service.flushCounters();
+        service.flushCounters(); // nothing pending: no second statement
+
+        verify(repository).addCounters(TRACKER_ID, 500, 1, 1, 1, 1, 1, 1);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForTheNextOne() {
+        when(repository.addCounters(anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        service.incrementProcessed(TRACKER_ID);
+        service.flushCounters();
+        service.incrementProcessed(TRACKER_ID);
+
+        service.flushCounters();
+
+        verify(repository).addCounters(TRACKER_ID, 2, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void findByIdIncludesUnflushedDeltas() {
+        PmcS3Tracker stored = PmcS3Tracker.builder()
+                .id(TRACKER_ID).batchId("b").status(PmcS3TrackerStatus.RUNNING)
+                .totalProcessed(10).totalSkipped(2).skippedLicense(2)
+                .build();
+        when(repository.findById(TRACKER_ID)).thenReturn(Optional.of(stored));
+        service.incrementProcessed(TRACKER_ID);
+        service.incrementSkipped(TRACKER_ID, SkipReason.LICENSE);
+        service.incrementSkipped(TRACKER_ID, SkipReason.IO);
+
+        PmcS3Tracker live = service.findById(TRACKER_ID).orElseThrow();
+
+        assertThat(live.getTotalProcessed()).isEqualTo(11);
+        assertThat(live.getSkippedLicense()).isEqualTo(3);
+        assertThat(live.getSkippedIo()).isEqualTo(1);
+        assertThat(live.getTotalSkipped()).isEqualTo(4);
+        assertThat(stored.getTotalProcessed()).isEqualTo(10);
+    }
+
+    @Test
+    void markCompletedFlushesBeforeChangingStatus() {
+        service.incrementProcessed(TRACKER_ID);
+
+        service.markCompleted(TRACKER_ID);
+        service.flushCounters();
+
+        verify(repository).addCounters(TRACKER_ID, 1, 0, 0, 0, 0, 0, 0);
+        verify(repository).markStatus(eq(TRACKER_ID), eq(PmcS3TrackerStatus.COMPLETED), any());
+        verify(repository, never()).markStatus(eq(TRACKER_ID), eq(PmcS3TrackerStatus.FAILED), any());
         verifyNoMoreInteractions(repository);
     }
 }
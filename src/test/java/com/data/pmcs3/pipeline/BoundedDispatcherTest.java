@@ -0,0 +1,166 @@
+package com.data.pmcs3.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BoundedDispatcher}: the window bounds the tasks in flight, a
+ * stuck task only holds its own slot, shutdown and interruption stop it, and a
+ * stopped dispatch can still wait for the tasks in flight.
+ */
+class BoundedDispatcherTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void neverRunsMoreThanTheWindow() throws Exception {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(executor, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(dispatcher.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                finished.incrementAndGet();
+            })).isTrue();
+        }
+        dispatcher.awaitAll();
+
+        assertThat(finished.get()).isEqualTo(50);
+        assertThat(maxRunning.get()).isBetween(1, 3);
+        assertThat(dispatcher.inFlight()).isZero();
+    }
+
+    @Test
+    void aStuckTaskDoesNotHoldUpTheOthers() throws Exception {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(executor, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+
+        dispatcher.submit(() -> await(release));
+        for (int i = 0; i < 20; i++) {
+            dispatcher.submit(finished::incrementAndGet);
+        }
+
+        // All 20 went through the one remaining slot while the first is still stuck
+        assertThat(dispatcher.inFlight()).isBetween(1, 2);
+        release.countDown();
+        dispatcher.awaitAll();
+        assertThat(finished.get()).isEqualTo(20);
+    }
+
+    @Test
+    void rejectedTaskGivesItsSlotBack() throws Exception {
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        BoundedDispatcher dispatcher = new BoundedDispatcher(closed, 1);
+
+        assertThat(dispatcher.submit(() -> {})).isFalse();
+        assertThat(dispatcher.inFlight()).isZero();
+        dispatcher.awaitAll();
+    }
+
+    @Test
+    void interruptWhileTheWindowIsFullStopsWaiting() throws Exception {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(executor, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.submit(() -> await(release));
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        Thread dispatching = new Thread(() -> {
+            try {
+                dispatcher.submit(() -> {});
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        dispatching.start();
+        dispatching.interrupt();
+        dispatching.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(thrown.get()).isInstanceOf(InterruptedException.class);
+        release.countDown();
+        dispatcher.awaitAll();
+    }
+
+    @Test
+    void awaitAllUninterruptiblyWaitsForTasksDespiteTheInterruptAndKeepsIt() throws Exception {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(executor, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        dispatcher.submit(() -> {
+            await(release);
+            finished.incrementAndGet();
+        });
+        AtomicReference<Boolean> result = new AtomicReference<>();
+        AtomicReference<Boolean> stillInterrupted = new AtomicReference<>();
+
+        Thread stopping = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            result.set(dispatcher.awaitAllUninterruptibly(Duration.ofSeconds(30)));
+            stillInterrupted.set(Thread.currentThread().isInterrupted());
+        });
+        stopping.start();
+        Thread.sleep(50);
+        stopping.interrupt();
+        release.countDown();
+        stopping.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(result.get()).isTrue();
+        assertThat(finished.get()).isEqualTo(1);
+        assertThat(stillInterrupted.get()).isTrue();
+    }
+
+    @Test
+    void awaitAllUninterruptiblyGivesUpAfterTheTimeout() throws Exception {
+        BoundedDispatcher dispatcher = new BoundedDispatcher(executor, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.submit(() -> await(release));
+
+        assertThat(dispatcher.awaitAllUninterruptibly(Duration.ofMillis(50))).isFalse();
+        assertThat(dispatcher.inFlight()).isEqualTo(1);
+
+        release.countDown();
+        dispatcher.awaitAll();
+    }
+
+    @Test
+    void windowMustHoldAtLeastOneTask() {
+        assertThatThrownBy(() -> new BoundedDispatcher(executor, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
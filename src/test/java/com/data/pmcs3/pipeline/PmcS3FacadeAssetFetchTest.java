@@ -0,0 +1,182 @@
+package com.data.pmcs3.pipeline;
+
+import com.data.config.properties.DedupIndexProperties;
+import com.data.config.properties.HttpClientProperties;
+import com.data.config.properties.LanguageDetectionProperties;
+import com.data.config.properties.PaperPersistenceProperties;
+import com.data.config.properties.PmcS3Properties;
+import com.data.oai.persistence.PaperBatchWriter;
+import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
+import com.data.oai.shared.dto.PaperDocument;
+import com.data.pmcs3.client.PmcS3Client;
+import com.data.pmcs3.inventory.InventoryEntry;
+import com.data.pmcs3.inventory.InventoryService;
+import com.data.pmcs3.inventory.InventorySnapshotStore;
+import com.data.pmcs3.metadata.MetadataService;
+import com.data.pmcs3.metadata.PubmedArticleMetadata;
+import com.data.pmcs3.persistence.PmcS3TrackerService;
+import com.data.pmcs3.persistence.SkipReason;
+import com.data.pmcs3.persistence.entity.PmcS3Tracker;
+import com.data.shared.DataSource;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies how {@link PmcS3Facade} fetches an article's assets: the JATS XML
+ * and the {@code .txt} in parallel, or the XML alone with
+ * {@code pmcs3.download-txt: false}, the raw content then coming from the JATS.
+ */
+class PmcS3FacadeAssetFetchTest {
+
+    private static final String JATS = "<article><front><article-meta><title-group>"
+            + "<article-title>Title</article-title></title-group></article-meta></front>"
+            + "<body><sec><title>Methods</title><p>We measured things.</p></sec></body></article>";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private InventoryService inventoryService;
+    private MetadataService metadataService;
+    private PmcS3Client client;
+    private PmcS3TrackerService trackerService;
+    private PaperInternalService paperInternalService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = mock(InventoryService.class);
+        metadataService = mock(MetadataService.class);
+        client = mock(PmcS3Client.class);
+        trackerService = mock(PmcS3TrackerService.class);
+        paperInternalService = mock(PaperInternalService.class);
+
+        when(metadataService.fetchMetadata(any())).thenReturn(new PubmedArticleMetadata(
+                "PMC1", "PMID1", "10.1/doi", "CC0", "https://creativecommons.org/publicdomain/zero/1.0/",
+                "2026-01-01", "Title", "Journal", "https://pmc/pdf", null, "https://pmc/xml"
+        ));
+        when(client.articleKey(anyString(), anyInt(), eq("xml"))).thenReturn("xml-key");
+        when(client.articleKey(anyString(), anyInt(), eq("txt"))).thenReturn("txt-key");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void xmlAndTxtAreDownloadedAtTheSameTime() {
+        CountDownLatch xmlStarted = new CountDownLatch(1);
+        CountDownLatch txtStarted = new CountDownLatch(1);
+        // Each download only returns once the other one has started
+        when(client.downloadText("xml-key")).thenAnswer(inv -> {
+            xmlStarted.countDown();
+            return txtStarted.await(10, TimeUnit.SECONDS) ? JATS : null;
+        });
+        when(client.downloadText("txt-key")).thenAnswer(inv -> {
+            txtStarted.countDown();
+            return xmlStarted.await(10, TimeUnit.SECONDS) ? "raw body text" : null;
+        });
+        PmcS3Tracker tracker = stubDiscovery("parallel");
+
+        facade(true).processBatch("parallel");
+
+        assertThat(persistedDocument().rawContent()).isEqualTo("raw body text");
+        verify(trackerService, never()).incrementSkipped(tracker.getId(), SkipReason.IO);
+    }
+
+    @Test
+    void missingXmlSkipsTheArticleEvenWhileTxtIsInFlight() {
+        when(client.downloadText("xml-key")).thenReturn(null);
+        when(client.downloadText("txt-key")).thenReturn("raw body text");
+        PmcS3Tracker tracker = stubDiscovery("no-xml");
+
+        facade(true).processBatch("no-xml");
+
+        verify(trackerService).incrementSkipped(tracker.getId(), SkipReason.MISSING_JATS);
+        verify(paperInternalService, never()).persistState(any(), any(), any(), any());
+    }
+
+    @Test
+    void withoutTxtDownloadRawContentIsDerivedFromJats() {
+        when(client.downloadText("xml-key")).thenReturn(JATS);
+        stubDiscovery("xml-only");
+
+        facade(false).processBatch("xml-only");
+
+        verify(client, never()).articleKey(anyString(), anyInt(), eq("txt"));
+        verify(client, never()).downloadText("txt-key");
+        assertThat(persistedDocument().rawContent()).isEqualTo("Title\n\nMethods\n\nWe measured things.");
+    }
+
+    // --- helpers ---------------------------------------------------------
+
+    private PmcS3Facade facade(boolean downloadTxt) {
+        SourceIdIndex sourceIdIndex = new SourceIdIndex(paperInternalService, new DedupIndexProperties(null, 0));
+        PmcS3Properties props = new PmcS3Properties(
+                "https://example/pmc",
+                "inventory/",
+                10, // batchSize
+                2,  // concurrency
+                "0 17 3 * * *",
+                42L,
+                new HttpClientProperties(10, 30, 60, null),
+                null,
+                downloadTxt
+        );
+        PmcS3Facade facade = new PmcS3Facade(
+                client,
+                inventoryService,
+                new InventorySnapshotStore(props),
+                metadataService,
+                trackerService,
+                sourceIdIndex,
+                new PaperBatchWriter(paperInternalService, null, sourceIdIndex, new PaperPersistenceProperties(null, null),
+                        mock(StorageStatsService.class)),
+                new LanguageDetectionService(new LanguageDetectionProperties(1, 1000)),
+                new PipelineTimers(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(),
+                props
+        );
+        ReflectionTestUtils.setField(facade, "pmcS3Executor", executor);
+        return facade;
+    }
+
+    private PmcS3Tracker stubDiscovery(String manifestKey) {
+        PmcS3Tracker tracker = new PmcS3Tracker();
+        tracker.setId(1L);
+        tracker.setBatchId(manifestKey);
+        when(trackerService.getOrCreate(manifestKey)).thenReturn(tracker);
+        when(trackerService.findById(tracker.getId())).thenReturn(Optional.of(tracker));
+        when(inventoryService.fetchInventory(manifestKey)).thenReturn(List.of(new InventoryEntry("1", 1, "PMC1.1")));
+        return tracker;
+    }
+
+    private PaperDocument persistedDocument() {
+        ArgumentCaptor<PaperDocument> document = ArgumentCaptor.forClass(PaperDocument.class);
+        verify(paperInternalService).persistState(eq(DataSource.PMC_S3), any(), document.capture(), any());
+        return document.getValue();
+    }
+}
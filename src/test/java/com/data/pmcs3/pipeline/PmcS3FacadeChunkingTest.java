@@ -1,24 +1,35 @@
 package com.data.pmcs3.pipeline;
 
+import com.data.config.properties.DedupIndexProperties;
 import com.data.config.properties.HttpClientProperties;
+import com.data.config.properties.LanguageDetectionProperties;
+import com.data.config.properties.PaperPersistenceProperties;
 import com.data.config.properties.PmcS3Properties;
+import com.data.oai.persistence.PaperBatchWriter;
 import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
 import com.data.pmcs3.client.PmcS3Client;
 import com.data.pmcs3.inventory.InventoryEntry;
 import com.data.pmcs3.inventory.InventoryService;
+import com.data.pmcs3.inventory.InventorySnapshotStore;
 import com.data.pmcs3.metadata.PubmedArticleMetadata;
 import com.data.pmcs3.metadata.MetadataService;
 import com.data.pmcs3.persistence.PmcS3TrackerService;
 import com.data.pmcs3.persistence.SkipReason;
 import com.data.pmcs3.persistence.entity.PmcS3Tracker;
-import com.data.shared.DataSource;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
@@ -27,14 +38,16 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
- * Tests that verify {@link PmcS3Facade} dispatches work in bounded chunks
- * rather than materializing all futures eagerly, and that every unprocessed
- * entry is processed exactly once regardless of chunking.
+ * Tests that verify {@link PmcS3Facade} dispatches work through a bounded
+ * window rather than materializing all futures eagerly, that every unprocessed
+ * entry is processed exactly once, and that a slow article does not hold up
+ * the others.
  */
 class PmcS3FacadeChunkingTest {
 
@@ -52,6 +65,8 @@ class PmcS3FacadeChunkingTest {
         client = mock(PmcS3Client.class);
         trackerService = mock(PmcS3TrackerService.class);
         paperInternalService = mock(PaperInternalService.class);
+        // Real index over the mocked service: no stored ids
+        SourceIdIndex sourceIdIndex = new SourceIdIndex(paperInternalService, new DedupIndexProperties(null, 0));
 
         // Small batchSize / concurrency forces multi-chunk dispatch in the big test.
         PmcS3Properties props = new PmcS3Properties(
@@ -61,15 +76,23 @@ class PmcS3FacadeChunkingTest {
                 2,  // concurrency
                 "0 17 3 * * *",
                 42L,
-                new HttpClientProperties(10, 30, 60, null)
+                new HttpClientProperties(10, 30, 60, null),
+                null,
+                true
         );
 
         facade = new PmcS3Facade(
                 client,
                 inventoryService,
+                new InventorySnapshotStore(props),
                 metadataService,
                 trackerService,
-                paperInternalService,
+                sourceIdIndex,
+                new PaperBatchWriter(paperInternalService, null, sourceIdIndex, new PaperPersistenceProperties(null, null),
+                        mock(StorageStatsService.class)),
+                new LanguageDetectionService(new LanguageDetectionProperties(1, 1000)),
+                new PipelineTimers(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(),
                 props
         );
 
@@ -83,8 +106,6 @@ class PmcS3FacadeChunkingTest {
         PmcS3Tracker tracker = newTracker();
         when(trackerService.getOrCreate("empty")).thenReturn(tracker);
         when(inventoryService.fetchInventory("empty")).thenReturn(List.of());
-        when(paperInternalService.findAllSourceIdsByDataSource(DataSource.PMC_S3))
-                .thenReturn(List.of());
 
         facade.processBatch("empty");
 
@@ -147,6 +168,40 @@ class PmcS3FacadeChunkingTest {
         verify(trackerService, never()).incrementSkipped(tracker.getId(), SkipReason.INTERRUPTED);
     }
 
+    @Test
+    void slowArticleDoesNotStallTheRestOfTheBatch() throws Exception {
+        PmcS3Tracker tracker = newTracker();
+        when(trackerService.getOrCreate("slow")).thenReturn(tracker);
+        List<InventoryEntry> entries = IntStream.rangeClosed(1, 10)
+                .mapToObj(i -> entry(Integer.toString(i)))
+                .toList();
+        stubPipeline("slow", tracker, entries);
+        CountDownLatch release = new CountDownLatch(1);
+        PubmedArticleMetadata meta = metadataService.fetchMetadata(entry("1"));
+        when(metadataService.fetchMetadata(entry("1"))).thenAnswer(inv -> {
+            release.await(30, TimeUnit.SECONDS);
+            return meta;
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        ReflectionTestUtils.setField(facade, "pmcS3Executor", executor);
+        try {
+            Thread batch = new Thread(() -> facade.processBatch("slow"));
+            batch.start();
+
+            // The other nine finish while the first article is still waiting
+            verify(trackerService, timeout(10_000).times(9)).incrementProcessed(tracker.getId());
+            verify(trackerService, never()).markCompleted(tracker.getId());
+
+            release.countDown();
+            batch.join(10_000);
+            verify(trackerService, times(10)).incrementProcessed(tracker.getId());
+            verify(trackerService).markCompleted(tracker.getId());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
     // --- helpers ---------------------------------------------------------
 
     private static InventoryEntry entry(String pmcId) {
@@ -167,8 +222,6 @@ class PmcS3FacadeChunkingTest {
      */
     private void stubPipeline(String manifestKey, PmcS3Tracker tracker, List<InventoryEntry> entries) {
         when(inventoryService.fetchInventory(manifestKey)).thenReturn(entries);
-        when(paperInternalService.findAllSourceIdsByDataSource(DataSource.PMC_S3))
-                .thenReturn(List.of());
 
         // Every entry gets a CC0 article that the pipeline will happily process.
         // xml_url must be non-blank so the early author-manuscript shortcut
@@ -0,0 +1,218 @@
+package com.data.pmcs3.pipeline;
+
+import com.data.config.properties.DedupIndexProperties;
+import com.data.config.properties.HttpClientProperties;
+import com.data.config.properties.LanguageDetectionProperties;
+import com.data.config.properties.PaperPersistenceProperties;
+import com.data.config.properties.PmcS3Properties;
+import com.data.oai.persistence.PaperBatchWriter;
+import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
+import com.data.oai.shared.dto.Record;
+import com.data.pmcs3.client.PmcS3Client;
+import com.data.pmcs3.inventory.InventoryEntry;
+import com.data.pmcs3.inventory.InventoryService;
+import com.data.pmcs3.inventory.InventorySnapshot;
+import com.data.pmcs3.inventory.InventorySnapshotStore;
+import com.data.pmcs3.metadata.MetadataService;
+import com.data.pmcs3.metadata.PubmedArticleMetadata;
+import com.data.pmcs3.persistence.PmcS3TrackerService;
+import com.data.pmcs3.persistence.entity.PmcS3Tracker;
+import com.data.shared.DataSource;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link PmcS3Facade} only processes what changed since the
+ * previous inventory snapshot: new articles are inserted, re-versioned ones
+ * replace the stored record, and articles that failed stay in the next diff.
+ */
+class PmcS3FacadeInventoryDiffTest {
+
+    @TempDir
+    Path snapshotDir;
+
+    private InventoryService inventoryService;
+    private MetadataService metadataService;
+    private PmcS3Client client;
+    private PmcS3TrackerService trackerService;
+    private PaperInternalService paperInternalService;
+    private InventorySnapshotStore snapshots;
+    private PmcS3Facade facade;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = mock(InventoryService.class);
+        metadataService = mock(MetadataService.class);
+        client = mock(PmcS3Client.class);
+        trackerService = mock(PmcS3TrackerService.class);
+        paperInternalService = mock(PaperInternalService.class);
+        SourceIdIndex sourceIdIndex = new SourceIdIndex(paperInternalService, new DedupIndexProperties(null, 0));
+
+        PmcS3Properties props = new PmcS3Properties(
+                "https://example/pmc",
+                "inventory/",
+                10, // batchSize
+                2,  // concurrency
+                "0 17 3 * * *",
+                42L,
+                new HttpClientProperties(10, 30, 60, null),
+                snapshotDir.toString(),
+                true
+        );
+        snapshots = new InventorySnapshotStore(props);
+
+        facade = new PmcS3Facade(
+                client,
+                inventoryService,
+                snapshots,
+                metadataService,
+                trackerService,
+                sourceIdIndex,
+                new PaperBatchWriter(paperInternalService, null, sourceIdIndex, new PaperPersistenceProperties(null, null),
+                        mock(StorageStatsService.class)),
+                new LanguageDetectionService(new LanguageDetectionProperties(1, 1000)),
+                new PipelineTimers(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(),
+                props
+        );
+
+        ReflectionTestUtils.setField(facade, "pmcS3Executor", new SameThreadExecutorService());
+        stubHappyPath();
+    }
+
+    @Test
+    void versionBumpReplacesStoredRecordAndUnchangedArticlesAreNotFetched() {
+        snapshots.save(InventorySnapshot.EMPTY, List.of(entry("1", 1), entry("2", 1)), e -> true);
+        stubDiscovery("day-2", List.of(entry("1", 2), entry("2", 1), entry("3", 1)));
+
+        facade.processBatch("day-2");
+
+        verify(paperInternalService, times(1)).replaceState(eq(DataSource.PMC_S3), withSourceId("1"), any(), anyString());
+        verify(paperInternalService, times(1)).persistState(eq(DataSource.PMC_S3), withSourceId("3"), any(), anyString());
+        verify(paperInternalService, never()).persistState(any(), withSourceId("1"), any(), anyString());
+        verify(metadataService, never()).fetchMetadata(entry("2", 1));
+        InventorySnapshot next = snapshots.load();
+        assertThat(next.versionOf(1)).isEqualTo(2);
+        assertThat(next.versionOf(2)).isEqualTo(1);
+        assertThat(next.versionOf(3)).isEqualTo(1);
+    }
+
+    @Test
+    void failedArticlesAreLeftOutOfTheSnapshotButLicenseSkipsAreNot() {
+        snapshots.save(InventorySnapshot.EMPTY, List.of(entry("6", 1)), e -> true);
+        stubDiscovery("day-1", List.of(entry("5", 1), entry("6", 2), entry("7", 1)));
+        doThrow(new RuntimeException("boom"))
+                .when(paperInternalService).replaceState(any(), withSourceId("6"), any(), anyString());
+        when(metadataService.fetchMetadata(entry("7", 1))).thenReturn(metadata("CC BY-NC"));
+
+        facade.processBatch("day-1");
+
+        InventorySnapshot next = snapshots.load();
+        assertThat(next.versionOf(5)).isEqualTo(1);
+        assertThat(next.versionOf(6)).as("failed bump keeps the old version").isEqualTo(1);
+        assertThat(next.versionOf(7)).isEqualTo(1);
+
+        // The next run only retries the failed bump
+        stubDiscovery("day-2", List.of(entry("5", 1), entry("6", 2), entry("7", 1)));
+        facade.processBatch("day-2");
+
+        verify(paperInternalService, times(2)).replaceState(any(), withSourceId("6"), any(), anyString());
+        verify(paperInternalService, times(1)).persistState(any(), withSourceId("5"), any(), anyString());
+        verify(metadataService, times(1)).fetchMetadata(entry("7", 1));
+    }
+
+    @Test
+    void interruptedDispatchMarksTheBatchFailedInsteadOfCompleted() {
+        stubDiscovery("day-3", List.of(entry("8", 1), entry("9", 1), entry("10", 1)));
+        when(metadataService.fetchMetadata(entry("8", 1))).thenAnswer(inv -> {
+            Thread.currentThread().interrupt(); // e.g. the scheduler shutting down
+            return metadata("CC0");
+        });
+
+        try {
+            facade.processBatch("day-3");
+            assertThat(Thread.currentThread().isInterrupted()).as("interrupt is kept").isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+
+        verify(trackerService).markFailed(1L);
+        verify(trackerService, never()).markCompleted(any());
+        verify(metadataService, never()).fetchMetadata(entry("9", 1));
+        verify(metadataService, never()).fetchMetadata(entry("10", 1));
+    }
+
+    // --- helpers ---------------------------------------------------------
+
+    private void stubDiscovery(String manifestKey, List<InventoryEntry> entries) {
+        PmcS3Tracker tracker = new PmcS3Tracker();
+        tracker.setId(1L);
+        tracker.setBatchId(manifestKey);
+        when(trackerService.getOrCreate(manifestKey)).thenReturn(tracker);
+        when(trackerService.findById(tracker.getId())).thenReturn(Optional.of(tracker));
+        when(inventoryService.fetchInventory(manifestKey)).thenReturn(entries);
+    }
+
+    private void stubHappyPath() {
+        when(metadataService.fetchMetadata(any())).thenReturn(metadata("CC0"));
+        when(client.articleKey(anyString(), anyInt(), eq("xml"))).thenReturn("xml-key");
+        when(client.articleKey(anyString(), anyInt(), eq("txt"))).thenReturn("txt-key");
+        String jats = "<article><front><article-meta></article-meta></front>"
+                + "<body><sec><title>S</title><p>content</p></sec></body></article>";
+        when(client.downloadText("xml-key")).thenReturn(jats);
+        when(client.downloadText("txt-key")).thenReturn("raw body text");
+    }
+
+    private static PubmedArticleMetadata metadata(String licenseCode) {
+        return new PubmedArticleMetadata(
+                "PMC1", "PMID1", "10.1/doi", licenseCode,
+                "https://creativecommons.org/publicdomain/zero/1.0/",
+                "2026-01-01", "Title", "Journal", "https://pmc/pdf", null, "https://pmc/xml"
+        );
+    }
+
+    private static Record withSourceId(String sourceId) {
+        return argThat(r -> r != null && sourceId.equals(r.getSourceId()));
+    }
+
+    private static InventoryEntry entry(String pmcId, int version) {
+        return new InventoryEntry(pmcId, version, "PMC" + pmcId + "." + version);
+    }
+
+    private static final class SameThreadExecutorService extends AbstractExecutorService {
+        private volatile boolean shutdown = false;
+
+        @Override public void execute(Runnable command) { command.run(); }
+        @Override public void shutdown() { shutdown = true; }
+        @Override public List<Runnable> shutdownNow() { shutdown = true; return List.of(); }
+        @Override public boolean isShutdown() { return shutdown; }
+        @Override public boolean isTerminated() { return shutdown; }
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+    }
+}
@@ -1,17 +1,26 @@
 package com.data.pmcs3.pipeline;
 
+import com.data.config.properties.DedupIndexProperties;
 import com.data.config.properties.HttpClientProperties;
+import com.data.config.properties.LanguageDetectionProperties;
+import com.data.config.properties.PaperPersistenceProperties;
 import com.data.config.properties.PmcS3Properties;
+import com.data.oai.persistence.PaperBatchWriter;
 import com.data.oai.persistence.PaperInternalService;
+import com.data.oai.persistence.dedup.SourceIdIndex;
+import com.data.oai.persistence.stats.StorageStatsService;
 import com.data.pmcs3.client.PmcS3Client;
 import com.data.pmcs3.inventory.InventoryEntry;
 import com.data.pmcs3.inventory.InventoryService;
+import com.data.pmcs3.inventory.InventorySnapshotStore;
 import com.data.pmcs3.metadata.PubmedArticleMetadata;
 import com.data.pmcs3.metadata.MetadataService;
 import com.data.pmcs3.persistence.PmcS3TrackerService;
 import com.data.pmcs3.persistence.SkipReason;
 import com.data.pmcs3.persistence.entity.PmcS3Tracker;
-import com.data.shared.DataSource;
+import com.data.shared.i18n.LanguageDetectionService;
+import com.data.shared.metrics.PipelineTimers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -54,6 +63,8 @@ class PmcS3FacadeSkipReasonTest {
         client = mock(PmcS3Client.class);
         trackerService = mock(PmcS3TrackerService.class);
         paperInternalService = mock(PaperInternalService.class);
+        // Real index over the mocked service: no stored ids
+        SourceIdIndex sourceIdIndex = new SourceIdIndex(paperInternalService, new DedupIndexProperties(null, 0));
 
         PmcS3Properties props = new PmcS3Properties(
                 "https://example/pmc",
@@ -62,15 +73,23 @@ class PmcS3FacadeSkipReasonTest {
                 2,  // concurrency
                 "0 17 3 * * *",
                 42L,
-                new HttpClientProperties(10, 30, 60, null)
+                new HttpClientProperties(10, 30, 60, null),
+                null,
+                true
         );
 
         facade = new PmcS3Facade(
                 client,
                 inventoryService,
+                new InventorySnapshotStore(props),
                 metadataService,
                 trackerService,
-                paperInternalService,
+                sourceIdIndex,
+                new PaperBatchWriter(paperInternalService, null, sourceIdIndex, new PaperPersistenceProperties(null, null),
+                        mock(StorageStatsService.class)),
+                new LanguageDetectionService(new LanguageDetectionProperties(1, 1000)),
+                new PipelineTimers(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(),
                 props
         );
 
@@ -176,8 +195,6 @@ class PmcS3FacadeSkipReasonTest {
     private void stubDiscovery(String manifestKey, PmcS3Tracker tracker, List<InventoryEntry> entries) {
         when(trackerService.getOrCreate(manifestKey)).thenReturn(tracker);
         when(inventoryService.fetchInventory(manifestKey)).thenReturn(entries);
-        when(paperInternalService.findAllSourceIdsByDataSource(DataSource.PMC_S3))
-                .thenReturn(List.of());
         // Fresh snapshot for the skip-breakdown log line at end of batch.
         when(trackerService.findById(tracker.getId())).thenReturn(Optional.of(tracker));
     }
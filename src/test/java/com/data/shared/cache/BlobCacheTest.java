@@ -0,0 +1,162 @@
+package com.data.shared.cache;
+
+import com.data.config.BlobCacheConfig;
+import com.data.config.properties.BlobCacheProperties;
+import com.data.config.properties.TeiCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BlobCache}: round trip, zstd entries, hit/miss accounting, LRU
+ * eviction, reloading the index from disk, and the separate TEI cache.
+ */
+class BlobCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void putEntryIsServedFromDiskAndCounted() {
+        BlobCache cache = started(1);
+        byte[] content = random(10_000);
+
+        assertThat(cache.get("download", "https://x/1.pdf")).isNull();
+        cache.put("download", "https://x/1.pdf", content);
+
+        assertThat(cache.get("download", "https://x/1.pdf")).isEqualTo(content);
+        assertThat(registry.get("blob.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("blob.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesAreZstdCompressed() throws Exception {
+        BlobCache cache = started(1);
+        cache.put("tei", "k", "<TEI/>".repeat(1_000).getBytes());
+
+        byte[] file = Files.readAllBytes(dir.resolve(BlobCache.pathFor("tei", "k")));
+
+        assertThat(file).startsWith(0x28, 0xB5, 0x2F, 0xFD); // zstd frame magic
+        assertThat(file.length).isLessThan(600);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        BlobCache cache = started(1);
+        byte[] incompressible = random(400_000);
+
+        cache.put("download", "a", incompressible);
+        cache.put("download", "b", incompressible);
+        assertThat(cache.get("download", "a")).isNotNull(); // a is now more recent than b
+        cache.put("download", "c", incompressible);
+
+        assertThat(cache.get("download", "b")).isNull();
+        assertThat(cache.get("download", "a")).isNotNull();
+        assertThat(cache.get("download", "c")).isNotNull();
+        assertThat(cache.sizeBytes()).isLessThanOrEqualTo(1L << 20);
+    }
+
+    @Test
+    void restartReloadsEntriesAndDropsLeftoverTempAndGzipFiles() throws Exception {
+        BlobCache cache = started(1);
+        cache.put("list-records", "page", "<xml/>".getBytes());
+        String hash = "ab" + "0".repeat(62);
+        Path leftover = dir.resolve("list-records").resolve("ab").resolve(hash + ".zst123.tmp");
+        Path gzip = dir.resolve("list-records").resolve("ab").resolve(hash + ".gz");
+        Files.createDirectories(leftover.getParent());
+        Files.write(leftover, new byte[]{1, 2, 3});
+        Files.write(gzip, new byte[]{1, 2, 3});
+
+        BlobCache restarted = started(1);
+
+        assertThat(restarted.get("list-records", "page")).isEqualTo("<xml/>".getBytes());
+        assertThat(leftover).doesNotExist();
+        assertThat(gzip).doesNotExist();
+        assertThat(restarted.sizeBytes()).isEqualTo(cache.sizeBytes());
+    }
+
+    @Test
+    void startupLeavesForeignFilesInASharedDirectoryAlone() throws Exception {
+        Path foreign = dir.resolve("dedup-index").resolve("pmc_s3.sidx");
+        Path nested = dir.resolve("pmc-inventory").resolve("2026").resolve("snapshot.bin");
+        Path lookalike = dir.resolve("tei").resolve("ab").resolve("notes.txt");
+        for (Path file : List.of(foreign, nested, lookalike)) {
+            Files.createDirectories(file.getParent());
+            Files.write(file, new byte[]{1, 2, 3});
+        }
+
+        BlobCache cache = started(1);
+
+        assertThat(foreign).exists();
+        assertThat(nested).exists();
+        assertThat(lookalike).exists();
+        assertThat(cache.sizeBytes()).isZero();
+    }
+
+    @Test
+    void streamingPutAndOpenRoundTrip() throws Exception {
+        BlobCache cache = started(1);
+        byte[] content = random(300_000);
+
+        cache.put("download", "big", () -> new ByteArrayInputStream(content));
+
+        try (InputStream in = cache.open("download", "big")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(cache.open("download", "absent")).isNull();
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        BlobCache cache = new BlobCache(new BlobCacheProperties(false, dir.toString(), 1, 0), registry);
+        cache.start();
+
+        cache.put("download", "k", new byte[10]);
+
+        assertThat(cache.get("download", "k")).isNull();
+        assertThat(cache.enabled()).isFalse();
+    }
+
+    @Test
+    void teiCacheHasItsOwnBudgetAndSwitch() {
+        BlobCacheConfig config = new BlobCacheConfig();
+        BlobCache blob = config.blobCache(new BlobCacheProperties(true, dir.resolve("blob").toString(), 1, 0), registry);
+        BlobCache tei = config.teiCache(new TeiCacheProperties(true, dir.resolve("tei").toString(), 1), registry);
+        BlobCache blobOff = config.blobCache(new BlobCacheProperties(false, dir.resolve("off").toString(), 1, 0), registry);
+        blob.start();
+        tei.start();
+        blobOff.start();
+
+        tei.put("tei", "paper", "<TEI/>".getBytes());
+        for (int i = 0; i < 5; i++) {
+            blob.put("download", "pdf-" + i, random(400_000)); // several times the blob budget
+        }
+
+        assertThat(tei.get("tei", "paper")).isEqualTo("<TEI/>".getBytes());
+        assertThat(blobOff.enabled()).isFalse(); // cache.blob.enabled=false leaves the TEI cache on
+        assertThat(registry.get("blob.cache.size.bytes").tag("cache", "tei").gauge().value()).isPositive();
+    }
+
+    private BlobCache started(long maxSizeMb) {
+        BlobCache cache = new BlobCache(new BlobCacheProperties(true, dir.toString(), maxSizeMb, 0), registry);
+        cache.start();
+        return cache;
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
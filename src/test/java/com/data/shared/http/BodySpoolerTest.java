@@ -0,0 +1,155 @@
+package com.data.shared.http;
+
+import com.data.config.properties.PdfTransferProperties;
+import com.data.shared.exception.PdfDownloadException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BodySpooler}: small bodies stay in memory, large ones go to a
+ * temp file that is deleted on close, and oversized bodies are rejected.
+ */
+class BodySpoolerTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BodySpooler spooler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spooler = new BodySpooler(new PdfTransferProperties(dir.toString(), 1, 1), registry);
+        spooler.start();
+    }
+
+    @Test
+    void smallBodyStaysInMemory() throws Exception {
+        try (SpooledBody body = spooler.spool(new ByteArrayInputStream(new byte[1024]), -1, "small")) {
+            assertThat(body.onDisk()).isFalse();
+            assertThat(body.size()).isEqualTo(1024);
+        }
+        assertThat(registry.get("pdf.transfer.bytes").tag("storage", "memory").counter().count()).isEqualTo(1024);
+    }
+
+    @Test
+    void largeBodyIsSpooledAndDeletedOnClose() throws Exception {
+        byte[] content = random(300_000);
+
+        SpooledBody body = spooler.spool(new ByteArrayInputStream(content), content.length, "large");
+
+        assertThat(body.onDisk()).isTrue();
+        assertThat(spoolFiles()).isEqualTo(1);
+        assertThat(spooler.spooledBytes()).isEqualTo(content.length);
+        try (InputStream in = body.openStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(body.head(4)).containsExactly(content[0], content[1], content[2], content[3]);
+
+        body.close();
+        body.close();
+
+        assertThat(spoolFiles()).isZero();
+        assertThat(spooler.spooledBytes()).isZero();
+    }
+
+    @Test
+    void rejectsDeclaredLengthOverMaximumWithoutReading() {
+        InputStream neverRead = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("body must not be read");
+            }
+        };
+
+        assertThatThrownBy(() -> spooler.spool(neverRead, 2L << 20, "declared"))
+                .isInstanceOf(PdfDownloadException.class);
+    }
+
+    @Test
+    void abortsBodyThatGrowsPastMaximumAndRemovesPartialFile() throws Exception {
+        byte[] content = new byte[(1 << 20) + 1];
+
+        assertThatThrownBy(() -> spooler.spool(new ByteArrayInputStream(content), -1, "chunked"))
+                .isInstanceOf(PdfDownloadException.class);
+
+        assertThat(spoolFiles()).isZero();
+        assertThat(registry.get("pdf.transfer.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void readFailurePartwayThroughPropagatesAndRemovesPartialFile() throws Exception {
+        InputStream failing = new FailingInputStream(300_000);
+
+        assertThatThrownBy(() -> spooler.spool(failing, -1, "broken"))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Connection reset");
+
+        assertThat(spoolFiles()).isZero();
+        assertThat(spooler.spooledBytes()).isZero();
+    }
+
+    @Test
+    void startupRemovesLeftoverSpoolFiles() throws Exception {
+        Path leftover = Files.createTempFile(dir, "spool-", ".part");
+
+        new BodySpooler(new PdfTransferProperties(dir.toString(), 1, 1), new SimpleMeterRegistry()).start();
+
+        assertThat(leftover).doesNotExist();
+    }
+
+    private long spoolFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /** Returns {@code size} zero bytes, then fails like a dropped connection. */
+    static final class FailingInputStream extends InputStream {
+        private int remaining;
+
+        FailingInputStream(int size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                throw new IOException("Connection reset");
+            }
+            remaining--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                throw new IOException("Connection reset");
+            }
+            int n = Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte) 0);
+            remaining -= n;
+            return n;
+        }
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
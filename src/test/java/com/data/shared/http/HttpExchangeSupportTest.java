@@ -0,0 +1,56 @@
+package com.data.shared.http;
+
+import com.data.config.properties.PdfTransferProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link HttpExchangeSupport#downloadToSpool}: a body that fails partway
+ * through must surface as a {@link ResourceAccessException}, which the client
+ * retry configs retry.
+ */
+class HttpExchangeSupportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void bodyFailingPartwayThroughBecomesResourceAccessException() throws Exception {
+        BodySpooler spooler = new BodySpooler(new PdfTransferProperties(dir.toString(), 1, 1), new SimpleMeterRegistry());
+        spooler.start();
+        RestClient rest = RestClient.builder()
+                .requestFactory((uri, method) -> {
+                    MockClientHttpResponse response = new MockClientHttpResponse(
+                            new BodySpoolerTest.FailingInputStream(300_000), HttpStatus.OK);
+                    response.getHeaders().setContentLength(500_000);
+                    MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+                    request.setResponse(response);
+                    return request;
+                })
+                .build();
+
+        assertThatThrownBy(() -> HttpExchangeSupport.downloadToSpool(
+                rest, URI.create("https://example.org/paper.pdf"), spooler, "paper"))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasRootCauseInstanceOf(IOException.class);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+}
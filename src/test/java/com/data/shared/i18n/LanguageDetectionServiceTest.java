@@ -0,0 +1,182 @@
+package com.data.shared.i18n;
+
+import com.data.config.properties.LanguageDetectionProperties;
+import org.apache.tika.langdetect.optimaize.OptimaizeLangDetector;
+import org.apache.tika.language.detect.LanguageDetector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link LanguageDetectionService}: texts get the expected language,
+ * concurrent callers never share an instance, and long texts are sampled.
+ */
+class LanguageDetectionServiceTest {
+
+    private static final String ENGLISH = "The results of the experiment show that the proposed method "
+            + "improves the accuracy of the model on all of the benchmark datasets we evaluated.";
+    private static final String GERMAN = "Die Ergebnisse des Experiments zeigen, dass die vorgeschlagene "
+            + "Methode die Genauigkeit des Modells auf allen untersuchten Datensätzen verbessert.";
+    private static final String FRENCH = "Les résultats de l'expérience montrent que la méthode proposée "
+            + "améliore la précision du modèle sur tous les jeux de données que nous avons évalués.";
+
+    @Test
+    void detectsLanguageOfSingleText() {
+        LanguageDetectionService service = service(2, 2000);
+
+        assertThat(service.detect(ENGLISH)).isEqualTo("en");
+        assertThat(service.detect(GERMAN)).isEqualTo("de");
+        assertThat(service.detect(FRENCH)).isEqualTo("fr");
+    }
+
+    @Test
+    void blankOrNullTextHasNoLanguage() {
+        LanguageDetectionService service = service(2, 2000);
+
+        assertThat(service.detect(null)).isNull();
+        assertThat(service.detect("   ")).isNull();
+    }
+
+    @Test
+    void detectAllKeepsOrderAndSize() {
+        LanguageDetectionService service = service(2, 2000);
+
+        assertThat(service.detectAll(Arrays.asList(GERMAN, null, ENGLISH, "", FRENCH)))
+                .containsExactly("de", null, "en", null, "fr");
+        assertThat(service.detectAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void concurrentCallersGetTheirOwnDetector() throws Exception {
+        int threads = 8;
+        AtomicInteger created = new AtomicInteger();
+        LanguageDetectionService service = new LanguageDetectionService(new LanguageDetectionProperties(threads, 2000),
+                () -> {
+                    created.incrementAndGet();
+                    return new OptimaizeLangDetector(2000).loadModels();
+                });
+        List<String> texts = List.of(ENGLISH, GERMAN, FRENCH);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(workers.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    if (!service.detectAll(texts).equals(List.of("en", "de", "fr"))) return false;
+                }
+                return true;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+        }
+        workers.shutdown();
+
+        // With room for all of them in the pool, no more detectors exist than callers at once
+        assertThat(created.get()).isBetween(1, threads);
+        assertThat(service.idle()).isEqualTo(created.get());
+    }
+
+    @Test
+    void keepsAtMostPoolSizeIdleDetectors() throws Exception {
+        LanguageDetectionService service = service(2, 2000);
+        int threads = 8;
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(workers.submit(() -> {
+                start.await();
+                String language = null;
+                for (int i = 0; i < 100; i++) {
+                    language = service.detect(GERMAN);
+                }
+                return language;
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertThat(result.get(60, TimeUnit.SECONDS)).isEqualTo("de");
+        }
+        workers.shutdown();
+
+        assertThat(service.idle()).isBetween(1, 2);
+    }
+
+    @Test
+    void reusesPooledDetectorWhenUncontended() {
+        AtomicInteger created = new AtomicInteger();
+        LanguageDetectionService service = new LanguageDetectionService(new LanguageDetectionProperties(2, 2000),
+                () -> {
+                    created.incrementAndGet();
+                    return new OptimaizeLangDetector(2000).loadModels();
+                });
+
+        for (int i = 0; i < 10; i++) {
+            service.detect(ENGLISH);
+        }
+
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(service.idle()).isEqualTo(1);
+    }
+
+    @Test
+    void detectorIsReturnedWhenDetectionFails() {
+        LanguageDetector failing = new OptimaizeLangDetector() {
+            @Override
+            public void addText(char[] cbuf, int off, int len) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        LanguageDetectionService service = new LanguageDetectionService(new LanguageDetectionProperties(1, 2000),
+                () -> failing);
+
+        assertThatThrownBy(() -> service.detect(ENGLISH)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.idle()).isEqualTo(1);
+    }
+
+    @Test
+    void shortTextIsNotSampled() {
+        assertThat(LanguageDetectionService.sample(ENGLISH, 2000).toString()).isEqualTo(ENGLISH);
+    }
+
+    @Test
+    void longTextIsSampledFromEvenlySpacedWindowsAtWordBoundaries() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("word").append(i).append(' ');
+        }
+        String sample = LanguageDetectionService.sample(text.toString(), 1000).toString();
+
+        assertThat(sample.length()).isLessThanOrEqualTo(1000 + LanguageDetectionService.SAMPLE_WINDOWS);
+        assertThat(sample).startsWith("word0 ");
+        assertThat(sample).contains("word1999");
+        assertThat(sample.split(" ")).allMatch(w -> w.matches("word\\d+"));
+    }
+
+    @Test
+    void longTextIsStillDetected() {
+        LanguageDetectionService service = service(1, 500);
+        String text = (GERMAN + " ").repeat(50);
+
+        assertThat(service.detect(text)).isEqualTo("de");
+    }
+
+    private static LanguageDetectionService service(int poolSize, int maxChars) {
+        return new LanguageDetectionService(new LanguageDetectionProperties(poolSize, maxChars));
+    }
+}
@@ -0,0 +1,71 @@
+package com.data.shared.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link InFlightExecutorService}: running tasks are counted until they
+ * finish, also when they fail or are rejected.
+ */
+class InFlightExecutorServiceTest {
+
+    @Test
+    void countsTasksUntilTheyFinish() throws Exception {
+        InFlightExecutorService executor = new InFlightExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(3);
+
+        Future<?>[] futures = new Future<?>[3];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return null;
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.inFlight()).isEqualTo(3);
+
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.inFlight()).isZero();
+    }
+
+    @Test
+    void failedTaskIsNoLongerCounted() throws Exception {
+        InFlightExecutorService executor = new InFlightExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+
+        Future<?> future = executor.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(executor.inFlight()).isZero();
+    }
+
+    @Test
+    void rejectedTaskIsNotCounted() {
+        ExecutorService delegate = Executors.newVirtualThreadPerTaskExecutor();
+        InFlightExecutorService executor = new InFlightExecutorService(delegate);
+        delegate.shutdown();
+
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.inFlight()).isZero();
+        assertThat(executor.isShutdown()).isTrue();
+    }
+}
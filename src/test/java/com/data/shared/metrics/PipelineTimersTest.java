@@ -0,0 +1,66 @@
+package com.data.shared.metrics;
+
+import com.data.shared.DataSource;
+import com.data.shared.metrics.PipelineTimers.Step;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link PipelineTimers}: calls are timed per step, source and outcome,
+ * whether they return or throw.
+ */
+class PipelineTimersTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineTimers timers = new PipelineTimers(registry);
+
+    @Test
+    void recordsSuccessfulCallsPerStepAndSource() {
+        String result = timers.time(Step.GROBID, DataSource.ARXIV, () -> "tei");
+        timers.time(Step.GROBID, DataSource.ARXIV, () -> "tei");
+        timers.run(Step.PERSIST, DataSource.PMC_S3, () -> { });
+
+        assertThat(result).isEqualTo("tei");
+        assertThat(timer("grobid", "ARXIV", "success").count()).isEqualTo(2);
+        assertThat(timer("persist", "PMC_S3", "success").count()).isEqualTo(1);
+        assertThat(registry.find(PipelineTimers.METRIC).tag("source", "ZENODO").timer()).isNull();
+    }
+
+    @Test
+    void recordsFailedCallsAsErrorAndRethrows() {
+        assertThatThrownBy(() -> timers.time(Step.S3_GET, DataSource.PMC_S3, () -> {
+            throw new IOException("connection reset");
+        })).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> timers.run(Step.EXPORT_UPLOAD, DataSource.ZENODO, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("s3_get", "PMC_S3", "error").count()).isEqualTo(1);
+        assertThat(timer("export_upload", "ZENODO", "error").count()).isEqualTo(1);
+        assertThat(registry.find(PipelineTimers.METRIC).tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    void recordsTheDurationOfTheCall() throws Exception {
+        timers.run(Step.PDF_DOWNLOAD, DataSource.PUBMED, () -> Thread.sleep(20));
+
+        assertThat(timer("pdf_download", "PUBMED", "success").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+    }
+
+    private Timer timer(String step, String source, String outcome) {
+        Timer timer = registry.find(PipelineTimers.METRIC)
+                .tag("step", step)
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .timer();
+        assertThat(timer).as("%s/%s/%s", step, source, outcome).isNotNull();
+        return timer;
+    }
+}
@@ -0,0 +1,93 @@
+package com.data.shared.progress;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CoalescedCounters}: no increment is lost or written twice,
+ * even when flushes run while workers are still counting.
+ */
+class CoalescedCountersTest {
+
+    enum Counter { A, B }
+
+    @Test
+    void concurrentAddsAndFlushesWriteEveryIncrementExactlyOnce() throws Exception {
+        CoalescedCounters<Counter> counters = new CoalescedCounters<>(Counter.class);
+        AtomicLong writtenA = new AtomicLong();
+        AtomicLong writtenB = new AtomicLong();
+        CoalescedCounters.Sink<Counter> sink = (id, deltas) -> {
+            writtenA.addAndGet(deltas.get(Counter.A));
+            writtenB.addAndGet(deltas.get(Counter.B));
+        };
+
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counters.add(7L, Counter.A, 1);
+                    counters.add(7L, Counter.B, 2);
+                }
+                done.countDown();
+            });
+        }
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            counters.flushAll(sink);
+        }
+        counters.close(7L, sink);
+        workers.shutdown();
+
+        assertThat(writtenA.get()).isEqualTo((long) threads * perThread);
+        assertThat(writtenB.get()).isEqualTo(2L * threads * perThread);
+        assertThat(counters.pending(7L, Counter.A)).isZero();
+    }
+
+    @Test
+    void failedFinalFlushKeepsTheDeltasForTheNextFlushAll() {
+        CoalescedCounters<Counter> counters = new CoalescedCounters<>(Counter.class);
+        AtomicLong writtenA = new AtomicLong();
+        AtomicInteger writes = new AtomicInteger();
+        CoalescedCounters.Sink<Counter> failing = (id, deltas) -> {
+            throw new IllegalStateException("database down");
+        };
+        CoalescedCounters.Sink<Counter> sink = (id, deltas) -> {
+            writes.incrementAndGet();
+            writtenA.addAndGet(deltas.get(Counter.A));
+        };
+        counters.add(5L, Counter.A, 4);
+
+        counters.close(5L, failing);
+        assertThat(counters.pending(5L, Counter.A)).isEqualTo(4);
+
+        counters.flushAll(sink);
+        assertThat(writtenA.get()).isEqualTo(4);
+        assertThat(counters.pending(5L, Counter.A)).isZero();
+
+        counters.flushAll(sink);
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingReflectsUnflushedDeltasAndDiscardDropsThem() {
+        CoalescedCounters<Counter> counters = new CoalescedCounters<>(Counter.class);
+        counters.add(1L, Counter.A, 3);
+        counters.add(null, Counter.A, 3);
+
+        assertThat(counters.pending(1L, Counter.A)).isEqualTo(3);
+        assertThat(counters.pending(1L, Counter.B)).isZero();
+
+        counters.discard(1L);
+        assertThat(counters.pending(1L, Counter.A)).isZero();
+    }
+}